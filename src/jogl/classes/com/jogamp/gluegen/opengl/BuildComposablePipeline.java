@@ -50,9 +50,13 @@ import java.lang.reflect.Method;
 import java.nio.Buffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class BuildComposablePipeline {
@@ -81,6 +85,12 @@ public class BuildComposablePipeline {
      * <p>Default: false</p>
      */
     public static final int GEN_GL_IDENTITY_BY_ASSIGNABLE_CLASS = 1 << 4;
+    /** <p>Default: true</p>. */
+    public static final int GEN_PROFILE = 1 << 5;
+    /** <p>Default: true</p>. */
+    public static final int GEN_STATE_CACHE = 1 << 6;
+    /** <p>Default: true</p>. */
+    public static final int GEN_RECORD = 1 << 7;
     
     int mode;
     private String outputDir;
@@ -144,7 +154,7 @@ public class BuildComposablePipeline {
             outputName = null; // TBD ..
             classPrologOpt = null;
             classDownstream = classToComposeAround;
-            mode = GEN_DEBUG | GEN_TRACE ;
+            mode = GEN_DEBUG | GEN_TRACE | GEN_PROFILE | GEN_STATE_CACHE | GEN_RECORD ;
         }
 
         BuildComposablePipeline composer =
@@ -212,6 +222,15 @@ public class BuildComposablePipeline {
         if (0 != (mode & GEN_TRACE)) {
             (new TracePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
         }
+        if (0 != (mode & GEN_PROFILE)) {
+            (new ProfilePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
+        if (0 != (mode & GEN_STATE_CACHE)) {
+            (new StateCachePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
+        if (0 != (mode & GEN_RECORD)) {
+            (new RecordPipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
         if (0 != (mode & GEN_CUSTOM)) {
             (new CustomPipeline(mode, outputDir, outputPackage, outputName, classToComposeAround, classPrologOpt, classDownstream)).emit(publicMethodsPlain.iterator());
         }
@@ -378,6 +397,11 @@ public class BuildComposablePipeline {
                     clazzList.add(baseInterfaceClass);
                 }
             }
+            final String[] addIfNames = getAdditionalInterfaceNames();
+            if (addIfNames.length > 0) {
+                ifNames = Arrays.copyOf(ifNames, ifNamesNumber + addIfNames.length);
+                System.arraycopy(addIfNames, 0, ifNames, ifNamesNumber, addIfNames.length);
+            }
 
             clazzList.add(downstreamClass);
             if (null != prologClassOpt) {
@@ -570,6 +594,11 @@ public class BuildComposablePipeline {
         /** Get the output name for this pipeline class. */
         protected abstract String getOutputName();
 
+        /** Fully qualified names of interfaces implemented in addition to the base interfaces. */
+        protected String[] getAdditionalInterfaceNames() {
+            return new String[0];
+        }
+
         /**
          * Called after the class headers have been generated, but before any
          * method wrappers have been generated.
@@ -1164,6 +1193,556 @@ public class BuildComposablePipeline {
         }
     } // end class TracePipeline
 
+    //-------------------------------------------------------
+    protected class ProfilePipeline extends PipelineEmitter {
+
+        /** Maximum length of one method name chunk, see {@link com.jogamp.opengl.util.GLCallStats#splitNames(String[])} */
+        private static final int NAME_CHUNK_SIZE = 16384;
+        /** Methods whose {@link Buffer} argument is accounted as uploaded bytes */
+        private final String[] uploadPrefixes = new String[] {
+            "glBufferData", "glBufferSubData", "glNamedBufferData", "glNamedBufferSubData",
+            "glTexImage", "glTexSubImage", "glCompressedTexImage", "glCompressedTexSubImage",
+            "glTextureImage", "glTextureSubImage", "glCompressedTextureImage", "glCompressedTextureSubImage",
+            "glMultiTexImage", "glMultiTexSubImage", "glCompressedMultiTexImage", "glCompressedMultiTexSubImage" };
+
+        String className;
+        /** Hooked methods in method id order */
+        protected final List<Method> methodIds = new ArrayList<Method>();
+        protected final Map<Method, Integer> methodIdMap = new HashMap<Method, Integer>();
+
+        ProfilePipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, null, downstreamClass);
+            className = "Profile" + getBaseInterfaceName();
+        }
+
+        /** 
+         * Sorts the methods by signature, so the generated method ids are stable
+         * for the same base interface, and assigns the method ids.
+         */
+        @Override
+        public void emit(Iterator<PlainMethod> methodsToWrap) throws IOException {
+            final List<PlainMethod> methods = new ArrayList<PlainMethod>();
+            while (methodsToWrap.hasNext()) {
+                methods.add(methodsToWrap.next());
+            }
+            Collections.sort(methods, new Comparator<PlainMethod>() {
+                public int compare(PlainMethod a, PlainMethod b) {
+                    return getMethodName(a.getWrappedMethod()).compareTo(getMethodName(b.getWrappedMethod()));
+                }
+            });
+            for (Iterator<PlainMethod> iter = methods.iterator(); iter.hasNext();) {
+                final PlainMethod pm = iter.next();
+                if (pm.runHooks()) {
+                    methodIdMap.put(pm.getWrappedMethod(), Integer.valueOf(methodIds.size()));
+                    methodIds.add(pm.getWrappedMethod());
+                }
+            }
+            super.emit(methods.iterator());
+        }
+
+        protected String getOutputName() {
+            return className;
+        }
+
+        @Override
+        protected String[] getAdditionalInterfaceNames() {
+            return new String[] { getStatsClassName() + ".Source" };
+        }
+
+        protected int getMode() {
+            return 0;
+        }
+
+        protected boolean emptyMethodAllowed() {
+            return false;
+        }
+
+        protected boolean emptyDownstreamAllowed() {
+            return false;
+        }
+
+        @Override
+        protected void preMethodEmissionHook(PrintWriter output) {
+            super.preMethodEmissionHook(output);
+            output.println("  /** Names of the wrapped methods incl. their argument types, indexed by method id. */");
+            output.println("  public static final String[] METHOD_NAMES = com.jogamp.opengl.util.GLCallStats.splitNames(new String[] {");
+            StringBuilder chunk = new StringBuilder();
+            for (int i = 0; i < methodIds.size(); i++) {
+                final String name = getMethodName(methodIds.get(i));
+                if (chunk.length() > 0 && chunk.length() + name.length() + 1 > NAME_CHUNK_SIZE) {
+                    output.println("    \"" + chunk.toString() + "\",");
+                    chunk = new StringBuilder();
+                }
+                if (chunk.length() > 0) {
+                    chunk.append(';');
+                }
+                chunk.append(name);
+            }
+            output.println("    \"" + chunk.toString() + "\" });");
+            output.println();
+        }
+
+        protected void constructorHook(PrintWriter output) {
+            output.print("  public " + getOutputName() + "(");
+            output.println(downstreamName + " " + getDownstreamObjectName() + ")");
+            output.println("  {");
+            output.println("    if (" + getDownstreamObjectName() + " == null) {");
+            output.println("      throw new IllegalArgumentException(\"null " + getDownstreamObjectName() + "\");");
+            output.println("    }");
+            output.print("    this." + getDownstreamObjectName());
+            output.println(" = " + getDownstreamObjectName() + ";");
+            output.println("    this." + getStatsName() + " = new " + getStatsClassName() + "(METHOD_NAMES);");
+            output.println("  }");
+            output.println();
+        }
+
+        @Override
+        protected void postMethodEmissionHook(PrintWriter output) {
+            super.postMethodEmissionHook(output);
+            output.println("  @Override");
+            output.println("  public final " + getStatsClassName() + " " + getStatsGetterName() + "() {");
+            output.println("    return " + getStatsName() + ";");
+            output.println("  }");
+            output.println("  private final " + getStatsClassName() + " " + getStatsName() + ";");
+        }
+
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * counting the invocations of each OpenGL method, the bytes passed to buffer and texture uploads");
+            output.println(" * and optionally the duration of each call, see {@link com.jogamp.opengl.util.GLCallStats}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new ProfileGL(drawable.getGL()));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            final int id = methodIdMap.get(m).intValue();
+            output.println("final long _t0 = " + getStatsName() + ".enter(" + id + ");");
+            if (isUpload(m)) {
+                final Class<?>[] params = m.getParameterTypes();
+                for (int i = 0; i < params.length; i++) {
+                    if (Buffer.class.isAssignableFrom(params[i])) {
+                        if (i > 0 && params[i - 1] == Long.TYPE) {
+                            // explicit size argument, e.g. glBufferData(target, size, data, usage)
+                            output.println("    if (null != arg" + i + ") { " + getStatsName() + ".addBytes(" + id + ", arg" + (i - 1) + "); }");
+                        } else {
+                            output.println("    " + getStatsName() + ".addBytes(" + id + ", arg" + i + ");");
+                        }
+                    }
+                }
+            }
+            output.print("    ");
+        }
+
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+            output.println("    " + getStatsName() + ".exit(" + methodIdMap.get(m).intValue() + ", _t0);");
+        }
+
+        private boolean isUpload(Method m) {
+            final String name = m.getName();
+            for (int i = 0; i < uploadPrefixes.length; i++) {
+                if (name.startsWith(uploadPrefixes[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Returns the method name incl. simple argument type names, e.g. <code>glUniform1fv(int,int,FloatBuffer)</code> */
+        protected String getMethodName(Method m) {
+            final StringBuilder sb = new StringBuilder(m.getName());
+            sb.append('(');
+            final Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params[i].getSimpleName());
+            }
+            sb.append(')');
+            return sb.toString();
+        }
+
+        /** Returns the name of the field holding the statistics, initialized w/ <code>METHOD_NAMES</code>. */
+        protected String getStatsName() {
+            return "callStats";
+        }
+
+        protected String getStatsClassName() {
+            return "com.jogamp.opengl.util.GLCallStats";
+        }
+
+        protected String getStatsGetterName() {
+            return "getCallStats";
+        }
+    } // end class ProfilePipeline
+
+    //-------------------------------------------------------
+    protected class StateCachePipeline extends PipelineEmitter {
+
+        /** 
+         * Cached methods, name and {@link com.jogamp.opengl.util.GLStateCache} method,
+         * the latter is called w/ all arguments and returns true if the downstream call must be issued.
+         */
+        private final String[][] cachedMethods = new String[][] {
+            { "glActiveTexture", "activeTexture" },
+            { "glBindTexture", "bindTexture" },
+            { "glBindBuffer", "bindBuffer" },
+            { "glUseProgram", "useProgram" },
+            { "glEnable", "enable" },
+            { "glDisable", "disable" },
+            { "glBlendFunc", "blendFunc" },
+            { "glBlendFuncSeparate", "blendFuncSeparate" } };
+        /** 
+         * Methods implicitly changing parts of the cached state, name prefix and 
+         * {@link com.jogamp.opengl.util.GLStateCache} method to be called.
+         */
+        private final String[][] invalidatingMethods = new String[][] {
+            { "glDeleteTextures", "invalidateTextures" },
+            { "glDeleteBuffers", "invalidateBuffers" },
+            { "glBindBufferBase", "invalidateBuffers" },
+            { "glBindBufferRange", "invalidateBuffers" },
+            { "glBindBuffersBase", "invalidateBuffers" },
+            { "glBindBuffersRange", "invalidateBuffers" },
+            { "glBindVertexArray", "invalidateElementArrayBuffer" },
+            { "glDeleteVertexArrays", "invalidateElementArrayBuffer" },
+            { "glEnablei", "invalidateCapabilities" },
+            { "glDisablei", "invalidateCapabilities" },
+            { "glEnableIndexed", "invalidateCapabilities" },
+            { "glDisableIndexed", "invalidateCapabilities" },
+            { "glBlendFunci", "invalidateBlendFunc" },
+            { "glBlendFuncSeparatei", "invalidateBlendFunc" },
+            { "glBlendFuncIndexed", "invalidateBlendFunc" },
+            { "glBlendFuncSeparateIndexed", "invalidateBlendFunc" },
+            { "glNewList", "beginDisplayList" },
+            { "glEndList", "endDisplayList" } };
+        /** 
+         * Name prefixes of methods known not to change the cached state. 
+         * All other methods invalidate the whole cached state, e.g. glPopAttrib or glCallList.
+         */
+        private final String[] neutralPrefixes = new String[] {
+            "glUniform", "glProgramUniform", "glDraw", "glMultiDraw", "glVertexAttrib", "glGet", "glIs", "glClear",
+            "glBufferData", "glBufferSubData", "glBufferStorage", "glMapBuffer", "glUnmapBuffer", "glFlushMappedBufferRange", "glCopyBufferSubData",
+            "glTexImage", "glTexSubImage", "glTexParameter", "glTexStorage", "glCompressedTex", "glCopyTex", "glGenerateMipmap",
+            "glViewport", "glScissor", "glDepthFunc", "glDepthMask", "glDepthRange", "glStencil", "glColorMask",
+            "glCullFace", "glFrontFace", "glPolygonMode", "glPolygonOffset", "glLineWidth", "glPointSize", "glPointParameter", "glSampleCoverage",
+            "glGen", "glFlush", "glFinish", "glReadPixels", "glReadBuffer", "glPixelStore", "glHint",
+            "glEnableVertexAttribArray", "glDisableVertexAttribArray", "glEnableClientState", "glDisableClientState", "glClientActiveTexture",
+            "glVertexPointer", "glNormalPointer", "glColorPointer", "glTexCoordPointer",
+            "glShaderSource", "glCompileShader", "glCreateShader", "glCreateProgram", "glAttachShader", "glDetachShader", 
+            "glLinkProgram", "glValidateProgram", "glBindAttribLocation", "glBindFragDataLocation", "glDeleteShader", "glDeleteProgram",
+            "glBlendEquation", "glBlendColor",
+            "glMatrixMode", "glLoadIdentity", "glLoadMatrix", "glLoadTransposeMatrix", "glMultMatrix", "glMultTransposeMatrix", "glPushMatrix", "glPopMatrix",
+            "glTranslate", "glRotate", "glScale", "glOrtho", "glFrustum",
+            "glColor3", "glColor4", "glNormal3", "glTexCoord", "glMultiTexCoord", "glVertex2", "glVertex3", "glVertex4", "glBegin", "glEnd",
+            "glRect", "glLight", "glMaterial", "glFog", "glTexEnv", "glTexGen", "glShadeModel", "glAlphaFunc",
+            "glFramebuffer", "glBindFramebuffer", "glBlitFramebuffer", "glCheckFramebufferStatus", "glRenderbuffer", "glBindRenderbuffer",
+            "glDeleteFramebuffers", "glDeleteRenderbuffers", "glInvalidate", "glDrawBuffer",
+            "glDeleteQueries", "glBeginQuery", "glEndQuery", "glQueryCounter", "glFenceSync", "glClientWaitSync", "glWaitSync", "glDeleteSync",
+            "glBindSampler", "glSamplerParameter", "glDeleteSamplers", "glUniformBlockBinding",
+            "glDebugMessage", "glPushDebugGroup", "glPopDebugGroup", "glObjectLabel", "glObjectPtrLabel", "glPushAttrib", "glPushClientAttrib" };
+
+        String className;
+
+        StateCachePipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, null, downstreamClass);
+            className = "StateCache" + getBaseInterfaceName();
+        }
+
+        protected String getOutputName() {
+            return className;
+        }
+
+        @Override
+        protected String[] getAdditionalInterfaceNames() {
+            return new String[] { "com.jogamp.opengl.util.GLStateCache.Source" };
+        }
+
+        protected int getMode() {
+            return 0;
+        }
+
+        protected boolean emptyMethodAllowed() {
+            return false;
+        }
+
+        protected boolean emptyDownstreamAllowed() {
+            return false;
+        }
+
+        protected void constructorHook(PrintWriter output) {
+            output.print("  public " + getOutputName() + "(");
+            output.println(downstreamName + " " + getDownstreamObjectName() + ")");
+            output.println("  {");
+            output.println("    if (" + getDownstreamObjectName() + " == null) {");
+            output.println("      throw new IllegalArgumentException(\"null " + getDownstreamObjectName() + "\");");
+            output.println("    }");
+            output.print("    this." + getDownstreamObjectName());
+            output.println(" = " + getDownstreamObjectName() + ";");
+            output.println("    this." + getCacheName() + " = new com.jogamp.opengl.util.GLStateCache();");
+            output.println("  }");
+            output.println();
+        }
+
+        @Override
+        protected void postMethodEmissionHook(PrintWriter output) {
+            super.postMethodEmissionHook(output);
+            output.println("  @Override");
+            output.println("  public final com.jogamp.opengl.util.GLStateCache getStateCache() {");
+            output.println("    return " + getCacheName() + ";");
+            output.println("  }");
+            output.println("  private final com.jogamp.opengl.util.GLStateCache " + getCacheName() + ";");
+        }
+
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * dropping redundant state changing calls, e.g. binding an already bound texture,");
+            output.println(" * see {@link com.jogamp.opengl.util.GLStateCache}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new StateCacheGL(drawable.getGL()));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        @Override
+        protected void emitBody(PrintWriter output, Method m, boolean runHooks) {
+            final String cacheMethod = runHooks ? getCachedMethod(m) : null;
+            if (null == cacheMethod) {
+                super.emitBody(output, m, runHooks);
+                return;
+            }
+            output.println("  {");
+            output.println("    if (" + getCacheName() + "." + cacheMethod + "(" + getArgListAsString(m, false, true) + ")) {");
+            output.print("      " + getDownstreamObjectName() + "." + m.getName() + "(");
+            output.print(getArgListAsString(m, false, true));
+            output.println(");");
+            output.println("    }");
+            output.println("  }");
+        }
+
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return null != getInvalidation(m);
+        }
+
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            output.println(getCacheName() + "." + getInvalidation(m) + "();");
+            output.print("    ");
+        }
+
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return false;
+        }
+
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+        }
+
+        /** Returns the cache method if <code>m</code> is cached, i.e. only has int arguments and no result. */
+        private String getCachedMethod(Method m) {
+            if (m.getReturnType() != Void.TYPE) {
+                return null;
+            }
+            final Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] != Integer.TYPE) {
+                    return null;
+                }
+            }
+            for (int i = 0; i < cachedMethods.length; i++) {
+                if (m.getName().equals(cachedMethods[i][0])) {
+                    return cachedMethods[i][1];
+                }
+            }
+            return null;
+        }
+
+        /** Returns the invalidating cache method to be called before <code>m</code>, or null if neutral. */
+        private String getInvalidation(Method m) {
+            final String name = m.getName();
+            for (int i = 0; i < invalidatingMethods.length; i++) {
+                if (name.equals(invalidatingMethods[i][0]) || 
+                    ( name.startsWith(invalidatingMethods[i][0]) && isExtensionSuffix(name.substring(invalidatingMethods[i][0].length())) ) ) {
+                    return invalidatingMethods[i][1];
+                }
+            }
+            for (int i = 0; i < cachedMethods.length; i++) {
+                if (name.startsWith(cachedMethods[i][0]) && isExtensionSuffix(name.substring(cachedMethods[i][0].length()))) {
+                    return "invalidate"; // extension variants of cached methods, e.g. glUseProgramObjectARB
+                }
+            }
+            for (int i = 0; i < neutralPrefixes.length; i++) {
+                if (name.startsWith(neutralPrefixes[i])) {
+                    return null;
+                }
+            }
+            return "invalidate";
+        }
+
+        /** Returns true if the given suffix is empty or a vendor extension suffix, e.g. <code>EXT</code>, <code>OES</code> or <code>ARB</code> */
+        private boolean isExtensionSuffix(String suffix) {
+            for (int i = 0; i < suffix.length(); i++) {
+                if (!Character.isUpperCase(suffix.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String getCacheName() {
+            return "stateCache";
+        }
+    } // end class StateCachePipeline
+
+    //-------------------------------------------------------
+    protected class RecordPipeline extends ProfilePipeline {
+
+        /** Methods only writing into their {@link Buffer} arguments, whose contents are not recorded */
+        private final String[] outputPrefixes = new String[] {
+            "glGet", "glGen", "glRead", "glAreTexturesResident", "glAreProgramsResident", "glSelectBuffer", "glFeedbackBuffer" };
+
+        RecordPipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, downstreamClass);
+            className = "Record" + getBaseInterfaceName();
+        }
+
+        @Override
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * serializing each OpenGL call w/ its arguments into a binary stream while recording,");
+            output.println(" * see {@link com.jogamp.opengl.util.GLCommandRecorder} and {@link com.jogamp.opengl.util.ReplayGL}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new RecordGL(drawable.getGL()));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        @Override
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        @Override
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            final int id = methodIdMap.get(m).intValue();
+            final Class<?>[] params = m.getParameterTypes();
+            if (!isRecordable(params)) {
+                output.println(getStatsName() + ".skip(" + id + ");");
+            } else if (0 == params.length) {
+                output.println(getStatsName() + ".begin(" + id + ");");
+            } else {
+                final boolean contents = !isOutput(m);
+                output.println("if (" + getStatsName() + ".begin(" + id + ")) {");
+                for (int i = 0; i < params.length; i++) {
+                    output.println("      " + getStatsName() + "." + getPutMethod(params[i], "arg" + i, contents) + ";");
+                }
+                output.println("    }");
+            }
+            output.print("    ");
+        }
+
+        @Override
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return false;
+        }
+
+        @Override
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+        }
+
+        private boolean isOutput(Method m) {
+            final String name = m.getName();
+            for (int i = 0; i < outputPrefixes.length; i++) {
+                if (name.startsWith(outputPrefixes[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isRecordable(Class<?>[] params) {
+            for (int i = 0; i < params.length; i++) {
+                if (null == getPutMethod(params[i], "", false)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Returns the {@link com.jogamp.opengl.util.GLCommandRecorder} method call recording the given argument, or null if not supported. */
+        private String getPutMethod(Class<?> type, String arg, boolean contents) {
+            if (type == Integer.TYPE) {
+                return "putInt(" + arg + ")";
+            } else if (type == Long.TYPE) {
+                return "putLong(" + arg + ")";
+            } else if (type == Float.TYPE) {
+                return "putFloat(" + arg + ")";
+            } else if (type == Double.TYPE) {
+                return "putDouble(" + arg + ")";
+            } else if (type == Short.TYPE) {
+                return "putShort(" + arg + ")";
+            } else if (type == Byte.TYPE) {
+                return "putByte(" + arg + ")";
+            } else if (type == Boolean.TYPE) {
+                return "putBoolean(" + arg + ")";
+            } else if (type.isArray() && type.getComponentType().isPrimitive() && type.getComponentType() != Boolean.TYPE && type.getComponentType() != Character.TYPE) {
+                return "putArray(" + arg + ")";
+            } else if (Buffer.class.isAssignableFrom(type) && !java.nio.CharBuffer.class.isAssignableFrom(type)) {
+                return "putBuffer(" + arg + ", " + contents + ")";
+            } else if (type.getName().equals("com.jogamp.common.nio.PointerBuffer")) {
+                return "putPointerBuffer(" + arg + ")";
+            } else if (type == String.class) {
+                return "putString(" + arg + ")";
+            } else if (type == String[].class) {
+                return "putStrings(" + arg + ")";
+            }
+            return null;
+        }
+
+        @Override
+        protected String getStatsName() {
+            return "recorder";
+        }
+
+        @Override
+        protected String getStatsClassName() {
+            return "com.jogamp.opengl.util.GLCommandRecorder";
+        }
+
+        @Override
+        protected String getStatsGetterName() {
+            return "getRecorder";
+        }
+    } // end class RecordPipeline
+
     public static final void printFunctionCallString(PrintWriter output, Method m) {
         Class<?>[] params = m.getParameterTypes();
         output.print("    \"" + m.getName() + "(\"");
@@ -35,6 +35,7 @@ import com.jogamp.graph.curve.tess.Triangulator;
 import com.jogamp.graph.geom.Outline;
 import com.jogamp.graph.geom.Triangle;
 import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
 import com.jogamp.opengl.math.VectorUtil;
 import com.jogamp.opengl.math.geom.AABBox;
 
@@ -366,8 +367,8 @@ public class OutlineShape implements Comparable<OutlineShape> {
     }
 
     private void subdivideTriangle(final Outline outline, Vertex a, Vertex b, Vertex c, int index){
-        float[] v1 = VectorUtil.mid(a.getCoord(), b.getCoord());
-        float[] v3 = VectorUtil.mid(b.getCoord(), c.getCoord());
+        float[] v1 = VectorUtil.mid(a, b);
+        float[] v3 = VectorUtil.mid(b, c);
         float[] v2 = VectorUtil.mid(v1, v3);
 
         //drop off-curve vertex to image on the curve
@@ -445,9 +446,9 @@ public class OutlineShape implements Comparable<OutlineShape> {
                     continue;
                 }
 
-                if(VectorUtil.vertexInTriangle(a.getCoord(), b.getCoord(), c.getCoord(), current.getCoord())
-                        || VectorUtil.vertexInTriangle(a.getCoord(), b.getCoord(), c.getCoord(), nextV.getCoord())
-                        || VectorUtil.vertexInTriangle(a.getCoord(), b.getCoord(), c.getCoord(), prevV.getCoord())) {
+                if(VectorUtil.vertexInTriangle(a, b, c, current)
+                        || VectorUtil.vertexInTriangle(a, b, c, nextV)
+                        || VectorUtil.vertexInTriangle(a, b, c, prevV)) {
 
                     return current;
                 }
@@ -471,8 +472,7 @@ public class OutlineShape implements Comparable<OutlineShape> {
                 final Vertex currentVertex = outline.getVertex(i);
                 final Vertex nextVertex = outline.getVertex((i+1)%vertexCount);
                 if ( !currentVertex.isOnCurve() && !nextVertex.isOnCurve() ) {
-                    final float[] newCoords = VectorUtil.mid(currentVertex.getCoord(), 
-                            nextVertex.getCoord());
+                    final float[] newCoords = VectorUtil.mid(currentVertex, nextVertex);
                     final Vertex v = vertexFactory.create(newCoords, 0, 3, true);
                     i++;
                     vertexCount++;
@@ -487,8 +487,7 @@ public class OutlineShape implements Comparable<OutlineShape> {
             }
 
             if( vertexCount > 0 ) {
-                if(VectorUtil.checkEquality(outline.getVertex(0).getCoord(), 
-                        outline.getLastVertex().getCoord())) {
+                if(VectorUtil.checkEquality(outline.getVertex(0), outline.getLastVertex())) {
                     outline.removeVertex(vertexCount-1);
                 }
             }
@@ -542,6 +541,26 @@ public class OutlineShape implements Comparable<OutlineShape> {
         return triangles;
     }
 
+    /**
+     * Triangulate the {@link OutlineShape} and append the vertices and triangles to the given store.
+     * <p>
+     * All outline vertices are appended in order, see {@link #getVertices()},
+     * followed by the vertices created by the triangulation, see {@link VertexStore#addTriangles(java.util.List, java.util.List)}.
+     * The triangulator works on this shape's {@link Vertex} objects, which shall be created by a plain factory,
+     * e.g. {@link com.jogamp.graph.geom.opengl.SVertex#factory()}, since {@link VertexStore.View}s slow it down.
+     * The store only receives the result.
+     * </p>
+     * @return the number of appended triangles
+     */
+    public int triangulate(VertexStore dest) {
+        final ArrayList<Triangle> triangles = triangulate();
+        if( null == triangles ) {
+            return 0;
+        }
+        dest.addTriangles(getVertices(), triangles);
+        return triangles.size();
+    }
+
     /** Sort the outlines from large
      *  to small depending on the AABox
      */
@@ -33,6 +33,7 @@ import jogamp.opengl.Debug;
 
 import com.jogamp.graph.geom.Triangle;
 import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
 import com.jogamp.opengl.math.geom.AABBox;
 
 /** Abstract Outline shape GL representation
@@ -66,8 +67,11 @@ public abstract class Region {
     private boolean dirty = true;    
     protected int numVertices = 0;    
     protected final AABBox box = new AABBox();
+    /** Pending {@link Triangle}s, moved into the {@link VertexStore} by {@link #getVertexStore()}. */
     protected ArrayList<Triangle> triangles = new ArrayList<Triangle>();
+    /** Pending {@link Vertex}s, moved into the {@link VertexStore} by {@link #getVertexStore()}. */
     protected ArrayList<Vertex> vertices = new ArrayList<Vertex>();
+    private final VertexStore vertexStore = new VertexStore(256);
 
     public static boolean isVBAA(int renderModes) { 
         return 0 != ( renderModes & Region.VBAA_RENDERING_BIT ); 
@@ -162,10 +166,74 @@ public abstract class Region {
      */
     public void addVertices(ArrayList<Vertex> verts) {
         vertices.addAll(verts);
-        numVertices = vertices.size();
+        numVertices += verts.size();
         setDirty(true);
     }
 
+    /** Adds all vertices and triangles of the given {@link VertexStore} to the Region,
+     * transforming the vertex coordinates via <code>x' = tx + scale * x</code> and <code>y' = ty + scale * y</code>.
+     * The data will be bound to OGL objects on the next call to {@code update}.
+     * <p>
+     * The data is copied in bulk, i.e. no {@link Vertex} or {@link Triangle} objects are involved.
+     * </p>
+     * @param src the source vertex store
+     * 
+     * @see update(GL2ES2)
+     */
+    public void addVertexStore(VertexStore src, float tx, float ty, float scale) {
+        getVertexStore().addVertexStore(src, tx, ty, scale);
+        numVertices += src.getVertexCount();
+        setDirty(true);
+    }
+
+    /** Triangulates the given {@link OutlineShape} and adds its vertices and triangles to the Region,
+     * see {@link OutlineShape#triangulate(VertexStore)}.
+     * The data will be bound to OGL objects on the next call to {@code update}.
+     * @param shape the outline shape, already transformed to {@link OutlineShape.VerticesState#QUADRATIC_NURBS}
+     * 
+     * @see update(GL2ES2)
+     */
+    public void addOutlineShape(OutlineShape shape) {
+        final VertexStore vs = getVertexStore();
+        final int first = vs.getVertexCount();
+        shape.triangulate(vs);
+        numVertices += vs.getVertexCount() - first;
+        setDirty(true);
+    }
+
+    /** Returns the {@link VertexStore} holding all vertices and triangles of this region,
+     * after moving all pending {@link Vertex} and {@link Triangle} objects into it.
+     * <p>
+     * Pending triangle vertices w/o id are assigned the next id in sequence,
+     * as are all vertices added via {@link #addVertex(Vertex)} and {@link #addVertices(ArrayList)}
+     * expected to be sequenced already, e.g. starting at {@link #getNumVertices()}.
+     * </p>
+     */
+    public final VertexStore getVertexStore() {
+        if( !triangles.isEmpty() || !vertices.isEmpty() ) {
+            for(int i=0; i<triangles.size(); i++) {
+                final Vertex[] t_vertices = triangles.get(i).getVertices();
+                if(t_vertices[0].getId() == Integer.MAX_VALUE){
+                    t_vertices[0].setId(numVertices++);
+                    t_vertices[1].setId(numVertices++);
+                    t_vertices[2].setId(numVertices++);
+
+                    vertices.add(t_vertices[0]);
+                    vertices.add(t_vertices[1]);
+                    vertices.add(t_vertices[2]);
+                }
+                vertexStore.addTriangle(t_vertices[0].getId(), t_vertices[1].getId(), t_vertices[2].getId());
+            }
+            vertexStore.ensureCapacity(vertices.size(), 0);
+            for(int i=0; i<vertices.size(); i++) {
+                vertexStore.addVertex(vertices.get(i));
+            }
+            triangles.clear();
+            vertices.clear();
+        }
+        return vertexStore;
+    }
+
     /**
      * @return the AxisAligned bounding box of
      * current region
@@ -28,15 +28,11 @@
 package com.jogamp.graph.curve.opengl;
 
 
-import java.util.ArrayList;
-
 import javax.media.opengl.GL2ES2;
 import com.jogamp.opengl.util.PMVMatrix;
 
 import com.jogamp.graph.curve.OutlineShape;
 import com.jogamp.graph.curve.Region;
-import com.jogamp.graph.geom.Triangle;
-import com.jogamp.graph.geom.Vertex;
 import jogamp.graph.curve.opengl.RegionFactory;
 
 /** A GLRegion is the OGL binding of one or more OutlineShapes
@@ -58,21 +54,10 @@ public abstract class GLRegion extends Region {
     public static GLRegion create(OutlineShape[] outlineShapes, int renderModes) {
         final GLRegion region = RegionFactory.create(renderModes);
         
-        int numVertices = region.getNumVertices();
-        
         for(int index=0; index<outlineShapes.length; index++) {
             OutlineShape outlineShape = outlineShapes[index];
             outlineShape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
-    
-            ArrayList<Triangle> triangles = outlineShape.triangulate();
-            region.addTriangles(triangles);
-            
-            ArrayList<Vertex> vertices = outlineShape.getVertices();
-            for(int pos=0; pos < vertices.size(); pos++){
-                Vertex vert = vertices.get(pos);
-                vert.setId(numVertices++);
-            }
-            region.addVertices(vertices);
+            region.addOutlineShape(outlineShape);
         }
         
         return region;
@@ -86,10 +71,7 @@ public abstract class GLRegion extends Region {
         final GLRegion region = RegionFactory.create(renderModes);
         
         outlineShape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
-        ArrayList<Triangle> triangles = (ArrayList<Triangle>) outlineShape.triangulate();
-        ArrayList<Vertex> vertices = (ArrayList<Vertex>) outlineShape.getVertices();
-        region.addVertices(vertices);
-        region.addTriangles(triangles);
+        region.addOutlineShape(outlineShape);
         return region;
     }        
     
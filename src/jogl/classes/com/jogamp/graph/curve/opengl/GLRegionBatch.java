@@ -0,0 +1,165 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.graph.curve.opengl;
+
+import java.util.ArrayList;
+
+import javax.media.opengl.GL2ES2;
+
+import jogamp.graph.curve.opengl.RegionFactory;
+import jogamp.graph.curve.text.GlyphString;
+import jogamp.graph.curve.text.GlyphTriangulationCache;
+
+import com.jogamp.graph.curve.OutlineShape;
+import com.jogamp.graph.curve.Region;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.geom.VertexStore;
+
+/**
+ * Batches many strings and {@link OutlineShape}s into one {@link GLRegion},
+ * i.e. one vertex and index buffer rendered by a single {@link RegionRenderer#draw(GL2ES2, Region, float[], int[]) draw} call,
+ * instead of one region and draw call each.
+ * <p>
+ * Each added string or shape is an {@link Entry}, recording its vertex and triangle range
+ * within the region's {@link VertexStore}.
+ * Strings are positioned by the given translation, shapes are added as is.
+ * </p>
+ * <p>
+ * Strings use the triangulated glyph geometry of the shared {@link GlyphTriangulationCache#getDefault() glyph cache},
+ * or a cache owned by this batch if the former is disabled.
+ * </p>
+ */
+public class GLRegionBatch {
+    /** The vertex and triangle range of one batched string or shape. */
+    public static class Entry {
+        public final int firstVertex;
+        public final int vertexCount;
+        public final int firstTriangle;
+        public final int triangleCount;
+
+        Entry(int firstVertex, int vertexCount, int firstTriangle, int triangleCount) {
+            this.firstVertex = firstVertex;
+            this.vertexCount = vertexCount;
+            this.firstTriangle = firstTriangle;
+            this.triangleCount = triangleCount;
+        }
+
+        public String toString() {
+            return "Entry[vertices "+firstVertex+" + "+vertexCount+", triangles "+firstTriangle+" + "+triangleCount+"]";
+        }
+    }
+
+    private final GLRegion region;
+    private final GlyphTriangulationCache glyphCache;
+    private final ArrayList<Entry> entries = new ArrayList<Entry>();
+
+    /**
+     * @param renderModes bit-field of modes, e.g. {@link Region#VARIABLE_CURVE_WEIGHT_BIT}, {@link Region#VBAA_RENDERING_BIT}
+     */
+    public GLRegionBatch(int renderModes) {
+        this(renderModes, 0, 0);
+    }
+
+    /**
+     * @param renderModes bit-field of modes, e.g. {@link Region#VARIABLE_CURVE_WEIGHT_BIT}, {@link Region#VBAA_RENDERING_BIT}
+     * @param initialVertexCount expected number of vertices of all entries, see {@link #ensureCapacity(int, int)}
+     * @param initialTriangleCount expected number of triangles of all entries, see {@link #ensureCapacity(int, int)}
+     */
+    public GLRegionBatch(int renderModes, int initialVertexCount, int initialTriangleCount) {
+        region = RegionFactory.create(renderModes);
+        final GlyphTriangulationCache cache = GlyphTriangulationCache.getDefault();
+        glyphCache = null != cache ? cache : new GlyphTriangulationCache(-1);
+        region.getVertexStore().ensureCapacity(initialVertexCount, initialTriangleCount);
+    }
+
+    /**
+     * Ensures the region's {@link VertexStore} holds the given additional number of vertices and triangles
+     * w/o growing, see {@link VertexStore#ensureCapacity(int, int)}.
+     */
+    public final void ensureCapacity(int addVertexCount, int addTriangleCount) {
+        region.getVertexStore().ensureCapacity(addVertexCount, addTriangleCount);
+    }
+
+    /** Returns the region holding all entries, to be rendered via {@link RegionRenderer#draw(GL2ES2, Region, float[], int[])}. */
+    public final GLRegion getRegion() { return region; }
+
+    /**
+     * Adds the given string, translated by <code>x</code> and <code>y</code>.
+     * <p>
+     * The region's {@link VertexStore} is grown once for all glyphs of the string.
+     * </p>
+     * @return the entry index
+     */
+    public final int addString(Font font, int fontSize, String str, float x, float y) {
+        final VertexStore vs = region.getVertexStore();
+        final int firstVertex = vs.getVertexCount();
+        final int firstTriangle = vs.getTriangleCount();
+        GlyphString.createString(font, fontSize, str, glyphCache).addTo(region, x, y);
+        return addEntry(vs, firstVertex, firstTriangle);
+    }
+
+    /**
+     * Adds the given shape, see {@link Region#addOutlineShape(OutlineShape)}.
+     * <p>
+     * The region's {@link VertexStore} is grown once upfront by the shape's outline vertex count,
+     * which also estimates the number of triangles.
+     * </p>
+     * @return the entry index
+     */
+    public final int addShape(OutlineShape shape) {
+        final VertexStore vs = region.getVertexStore();
+        final int firstVertex = vs.getVertexCount();
+        final int firstTriangle = vs.getTriangleCount();
+        shape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
+        int vertexCount = 0;
+        for(int i=0; i<shape.getOutlineNumber(); i++) {
+            vertexCount += shape.getOutline(i).getVertexCount();
+        }
+        vs.ensureCapacity(vertexCount, vertexCount);
+        region.addOutlineShape(shape);
+        return addEntry(vs, firstVertex, firstTriangle);
+    }
+
+    private final int addEntry(VertexStore vs, int firstVertex, int firstTriangle) {
+        entries.add(new Entry(firstVertex, vs.getVertexCount() - firstVertex, firstTriangle, vs.getTriangleCount() - firstTriangle));
+        return entries.size() - 1;
+    }
+
+    public final int getEntryCount() { return entries.size(); }
+
+    public final Entry getEntry(int i) { return entries.get(i); }
+
+    /** Destroys the region's OGL objects. */
+    public final void destroy(GL2ES2 gl, RenderState rs) {
+        region.destroy(gl, rs);
+    }
+
+    public String toString() {
+        return "GLRegionBatch[entries "+entries.size()+", "+region.getVertexStore()+"]";
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Iterator;
 import javax.media.opengl.GL2ES2;
 
 import jogamp.graph.curve.text.GlyphString;
+import jogamp.graph.curve.text.GlyphTriangulationCache;
 
 import com.jogamp.graph.font.Font;
 
@@ -68,6 +69,10 @@ public abstract class TextRenderer extends Renderer {
 
     /**Create the resulting {@link GlyphString} that represents
      * the String wrt to the font.
+     * <p>
+     * The glyphs' triangulation is reused from the shared {@link GlyphTriangulationCache#getDefault() glyph cache} if enabled,
+     * i.e. each glyph of a font is only triangulated once across all strings and {@link TextRenderer} instances.
+     * </p>
      * @param font {@link Font} to be used
      * @param size font size
      * @param str {@link String} to be created
@@ -77,7 +82,13 @@ public abstract class TextRenderer extends Renderer {
         if(DEBUG_INSTANCE) {
             System.err.println("createString: "+getCacheSize()+"/"+getCacheLimit()+" - "+Font.NAME_UNIQUNAME + " - " + str + " - " + size);
         }
-        final GlyphString glyphString = GlyphString.createString(null, rs.getVertexFactory(), font, size, str);        
+        final GlyphTriangulationCache glyphCache = GlyphTriangulationCache.getDefault();
+        final GlyphString glyphString;
+        if( null != glyphCache ) {
+            glyphString = GlyphString.createString(font, size, str, glyphCache);
+        } else {
+            glyphString = GlyphString.createString(null, rs.getVertexFactory(), font, size, str);
+        }
         glyphString.createRegion(gl, renderModes);        
         return glyphString;
     }
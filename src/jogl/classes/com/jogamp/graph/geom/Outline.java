@@ -162,7 +162,7 @@ public class Outline implements Cloneable, Comparable<Outline> {
         if( closed && !isEmpty() ) {
             Vertex first = vertices.get(0);
             Vertex last = getLastVertex();
-            if(!VectorUtil.checkEquality(first.getCoord(), last.getCoord())){
+            if(!VectorUtil.checkEquality(first, last)){
                 Vertex v = first.clone();
                 vertices.add(v);
             }
@@ -189,7 +189,8 @@ public class Outline implements Cloneable, Comparable<Outline> {
         dirtyBBox = false;
         bbox.reset();
         for (int i=0; i<vertices.size(); i++) {
-            bbox.resize(vertices.get(i).getCoord(), 0);
+            final Vertex v = vertices.get(i);
+            bbox.resize(v.getX(), v.getY(), v.getZ());
         }
     }
 
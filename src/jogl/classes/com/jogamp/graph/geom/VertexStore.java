@@ -0,0 +1,520 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.graph.geom;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.jogamp.opengl.math.VectorUtil;
+import com.jogamp.opengl.math.geom.AABBox;
+
+/**
+ * Growable struct-of-arrays storage of vertices and triangles.
+ * <p>
+ * Vertex <code>i</code> is stored at <code>coords[3*i]</code>, <code>texCoords[2*i]</code>
+ * and its on-curve flag and id at index <code>i</code>,
+ * triangle <code>j</code> references its vertices via <code>indices[3*j]</code>.
+ * Hence a vertex costs 25 bytes w/o any object overhead,
+ * and the arrays can be uploaded in bulk, see {@link #getCoordBuffer()}, {@link #getTexCoordBuffer()} and {@link #getIndexBuffer()}.
+ * </p>
+ * <p>
+ * The {@link Vertex} API is supported via {@link View}, a light weight reference to one vertex of this store,
+ * created by this store's {@link #factory()} or {@link #getVertex(int)}.
+ * Passing the {@link #factory()} to an {@link com.jogamp.graph.curve.OutlineShape OutlineShape}
+ * stores all outline and triangulation vertices in this store.
+ * However, the triangulator is faster on plain vertices, e.g. {@link com.jogamp.graph.geom.opengl.SVertex},
+ * hence the hot paths triangulate those and append the result via {@link #addTriangles(List, List)}.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public final class VertexStore {
+    private static final byte ON_CURVE = 1;
+
+    private float[] coords;
+    private float[] texCoords;
+    private byte[] flags;
+    private int[] ids;
+    private int vertexCount;
+
+    private int[] indices;
+    private int indexCount;
+
+    private final Factory factory = new Factory();
+
+    public VertexStore() {
+        this(64);
+    }
+
+    /**
+     * @param initialVertexCount initial vertex capacity, the triangle capacity is of the same size
+     */
+    public VertexStore(int initialVertexCount) {
+        initialVertexCount = Math.max(1, initialVertexCount);
+        coords = new float[3*initialVertexCount];
+        texCoords = new float[2*initialVertexCount];
+        flags = new byte[initialVertexCount];
+        ids = new int[initialVertexCount];
+        indices = new int[3*initialVertexCount];
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    /** Returns the number of vertices. */
+    public final int getVertexCount() { return vertexCount; }
+
+    /** Returns the number of triangles. */
+    public final int getTriangleCount() { return indexCount / 3; }
+
+    /** Removes all vertices and triangles, keeping the allocated capacity. */
+    public final void clear() {
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    /** Ensures capacity for the given additional number of vertices and triangles. */
+    public final void ensureCapacity(int addVertexCount, int addTriangleCount) {
+        final int vc = vertexCount + addVertexCount;
+        if( vc > flags.length ) {
+            final int cap = Math.max(vc, 2*flags.length);
+            coords = Arrays.copyOf(coords, 3*cap);
+            texCoords = Arrays.copyOf(texCoords, 2*cap);
+            flags = Arrays.copyOf(flags, cap);
+            ids = Arrays.copyOf(ids, cap);
+        }
+        final int ic = indexCount + 3*addTriangleCount;
+        if( ic > indices.length ) {
+            indices = Arrays.copyOf(indices, Math.max(ic, 2*indices.length));
+        }
+    }
+
+    /** Trims the capacity to the current number of vertices and triangles. */
+    public final void trimToSize() {
+        final int vc = Math.max(1, vertexCount);
+        if( vc < flags.length ) {
+            coords = Arrays.copyOf(coords, 3*vc);
+            texCoords = Arrays.copyOf(texCoords, 2*vc);
+            flags = Arrays.copyOf(flags, vc);
+            ids = Arrays.copyOf(ids, vc);
+        }
+        if( indexCount < indices.length ) {
+            indices = Arrays.copyOf(indices, Math.max(3, indexCount));
+        }
+    }
+
+    /**
+     * Appends a vertex w/ blank id.
+     * @return the index of the new vertex
+     */
+    public final int addVertex(float x, float y, float z, float s, float t, boolean onCurve) {
+        ensureCapacity(1, 0);
+        final int i = vertexCount++;
+        coords[3*i+0] = x;
+        coords[3*i+1] = y;
+        coords[3*i+2] = z;
+        texCoords[2*i+0] = s;
+        texCoords[2*i+1] = t;
+        flags[i] = onCurve ? ON_CURVE : 0;
+        ids[i] = Integer.MAX_VALUE;
+        return i;
+    }
+
+    /**
+     * Appends a copy of the given vertex w/ blank id.
+     * @return the index of the new vertex
+     */
+    public final int addVertex(Vertex v) {
+        if( v instanceof View ) {
+            final View r = (View) v;
+            final VertexStore s = r.store;
+            final int j = r.index;
+            return addVertex(s.coords[3*j], s.coords[3*j+1], s.coords[3*j+2], s.texCoords[2*j], s.texCoords[2*j+1], 0 != s.flags[j]);
+        }
+        final float[] tex = v.getTexCoord();
+        return addVertex(v.getX(), v.getY(), v.getZ(), tex[0], tex[1], v.isOnCurve());
+    }
+
+    /** Appends a triangle referencing the vertices at the given indices. */
+    public final void addTriangle(int i0, int i1, int i2) {
+        ensureCapacity(0, 1);
+        indices[indexCount++] = i0;
+        indices[indexCount++] = i1;
+        indices[indexCount++] = i2;
+    }
+
+    /**
+     * Appends all vertices and triangles of the given store,
+     * transforming the vertex coordinates via <code>x' = tx + scale * x</code> and <code>y' = ty + scale * y</code>.
+     * @return the index of the first appended vertex
+     */
+    public final int addVertexStore(VertexStore src, float tx, float ty, float scale) {
+        final int n = src.vertexCount;
+        final int first = vertexCount;
+        ensureCapacity(n, src.getTriangleCount());
+        for(int i=0; i<n; i++) {
+            coords[3*(first+i)+0] = tx + scale * src.coords[3*i+0];
+            coords[3*(first+i)+1] = ty + scale * src.coords[3*i+1];
+            coords[3*(first+i)+2] = src.coords[3*i+2];
+        }
+        System.arraycopy(src.texCoords, 0, texCoords, 2*first, 2*n);
+        System.arraycopy(src.flags, 0, flags, first, n);
+        Arrays.fill(ids, first, first+n, Integer.MAX_VALUE);
+        vertexCount += n;
+        for(int j=0; j<src.indexCount; j++) {
+            indices[indexCount++] = first + src.indices[j];
+        }
+        return first;
+    }
+
+    /**
+     * Appends copies of the given vertices and triangles,
+     * where the triangles may reference vertices not contained in <code>vertices</code>, e.g. created by the triangulation.
+     * <p>
+     * Vertices are identified by identity, not by {@link Vertex#equals(Object)}.
+     * All given <code>vertices</code> are appended in order, followed by all other referenced vertices in order of their first reference.
+     * </p>
+     * @return the number of appended vertices
+     */
+    public final int addTriangles(List<? extends Vertex> vertices, List<Triangle> triangles) {
+        final IdentityHashMap<Vertex, Integer> vertexIdx = new IdentityHashMap<Vertex, Integer>();
+        final int first = vertexCount;
+        ensureCapacity(vertices.size(), triangles.size());
+        for(int i=0; i<vertices.size(); i++) {
+            addVertex(vertices.get(i), vertexIdx);
+        }
+        for(int j=0; j<triangles.size(); j++) {
+            final Vertex[] tv = triangles.get(j).getVertices();
+            addTriangle(addVertex(tv[0], vertexIdx), addVertex(tv[1], vertexIdx), addVertex(tv[2], vertexIdx));
+        }
+        return vertexCount - first;
+    }
+
+    private final int addVertex(Vertex v, IdentityHashMap<Vertex, Integer> vertexIdx) {
+        final Integer idx = vertexIdx.get(v);
+        if( null != idx ) {
+            return idx.intValue();
+        }
+        final int i = addVertex(v);
+        vertexIdx.put(v, Integer.valueOf(i));
+        return i;
+    }
+
+    /**
+     * Splits the triangles into chunks, each addressing at most <code>maxVertices</code> vertices,
+     * e.g. to render w/ 16 bit indices if 32 bit indices are not supported.
+     * <p>
+     * Each chunk's vertices are appended to <code>dest</code> in order of their first reference,
+     * followed by the chunk's triangles with indices relative to the chunk's first vertex.
+     * Vertices referenced by multiple chunks are duplicated.
+     * </p>
+     * @param maxVertices maximum number of vertices per chunk, at least 3
+     * @param dest the destination store
+     * @return the chunk table, holding for each chunk <code>c</code> its first triangle, triangle count,
+     *         first vertex and vertex count within <code>dest</code> at <code>[4*c+0..3]</code>.
+     */
+    public final int[] splitChunks(int maxVertices, VertexStore dest) {
+        if( 3 > maxVertices ) {
+            throw new IllegalArgumentException("maxVertices "+maxVertices+" < 3");
+        }
+        final int[] map = new int[vertexCount]; // dest index of src vertex, valid if within current chunk
+        Arrays.fill(map, -1);
+        int[] table = new int[16];
+        int n = 0;
+        int firstTriangle = dest.getTriangleCount();
+        int firstVertex = dest.vertexCount;
+        for(int j=0; j<indexCount; j+=3) {
+            final int a = indices[j], b = indices[j+1], c = indices[j+2];
+            int need = 0;
+            if( map[a] < firstVertex ) { need++; }
+            if( map[b] < firstVertex && b != a ) { need++; }
+            if( map[c] < firstVertex && c != a && c != b ) { need++; }
+            if( dest.vertexCount - firstVertex + need > maxVertices ) {
+                table = addChunk(table, n++, firstTriangle, dest.getTriangleCount() - firstTriangle, firstVertex, dest.vertexCount - firstVertex);
+                firstTriangle = dest.getTriangleCount();
+                firstVertex = dest.vertexCount;
+            }
+            for(int k=0; k<3; k++) {
+                final int i = indices[j+k];
+                if( map[i] < firstVertex ) {
+                    map[i] = dest.addVertex(coords[3*i], coords[3*i+1], coords[3*i+2], texCoords[2*i], texCoords[2*i+1], 0 != flags[i]);
+                }
+            }
+            dest.addTriangle(map[a] - firstVertex, map[b] - firstVertex, map[c] - firstVertex);
+        }
+        if( dest.getTriangleCount() > firstTriangle ) {
+            table = addChunk(table, n++, firstTriangle, dest.getTriangleCount() - firstTriangle, firstVertex, dest.vertexCount - firstVertex);
+        }
+        return Arrays.copyOf(table, 4*n);
+    }
+
+    private static int[] addChunk(int[] table, int c, int firstTriangle, int triangleCount, int firstVertex, int vertexCount) {
+        if( 4*c+4 > table.length ) {
+            table = Arrays.copyOf(table, 2*table.length);
+        }
+        table[4*c+0] = firstTriangle;
+        table[4*c+1] = triangleCount;
+        table[4*c+2] = firstVertex;
+        table[4*c+3] = vertexCount;
+        return table;
+    }
+
+    public final float getX(int i) { return coords[3*i+0]; }
+    public final float getY(int i) { return coords[3*i+1]; }
+    public final float getZ(int i) { return coords[3*i+2]; }
+    public final float getS(int i) { return texCoords[2*i+0]; }
+    public final float getT(int i) { return texCoords[2*i+1]; }
+    public final boolean isOnCurve(int i) { return 0 != flags[i]; }
+    public final int getId(int i) { return ids[i]; }
+
+    public final void setCoord(int i, float x, float y, float z) {
+        coords[3*i+0] = x;
+        coords[3*i+1] = y;
+        coords[3*i+2] = z;
+    }
+    public final void setTexCoord(int i, float s, float t) {
+        texCoords[2*i+0] = s;
+        texCoords[2*i+1] = t;
+    }
+    public final void setOnCurve(int i, boolean onCurve) { flags[i] = onCurve ? ON_CURVE : 0; }
+    public final void setId(int i, int id) { ids[i] = id; }
+
+    /** Returns the vertex index of triangle <code>j</code>'s vertex <code>k</code>. */
+    public final int getIndex(int j, int k) { return indices[3*j+k]; }
+
+    /** Returns the backing coordinate array, holding {@link #getVertexCount()} * 3 valid elements. */
+    public final float[] getCoords() { return coords; }
+
+    /** Returns the backing texture coordinate array, holding {@link #getVertexCount()} * 2 valid elements. */
+    public final float[] getTexCoords() { return texCoords; }
+
+    /** Returns the backing index array, holding {@link #getTriangleCount()} * 3 valid elements. */
+    public final int[] getIndices() { return indices; }
+
+    /** Returns a buffer wrapping the valid coordinates, see {@link #getCoords()}. */
+    public final FloatBuffer getCoordBuffer() { return FloatBuffer.wrap(coords, 0, 3*vertexCount); }
+
+    /** Returns a buffer wrapping the valid texture coordinates, see {@link #getTexCoords()}. */
+    public final FloatBuffer getTexCoordBuffer() { return FloatBuffer.wrap(texCoords, 0, 2*vertexCount); }
+
+    /** Returns a buffer wrapping the valid indices, see {@link #getIndices()}. */
+    public final IntBuffer getIndexBuffer() { return IntBuffer.wrap(indices, 0, indexCount); }
+
+    /** Resizes the given box to cover all vertices and returns it. */
+    public final AABBox getBounds(AABBox box) {
+        for(int i=0; i<3*vertexCount; i+=3) {
+            box.resize(coords[i], coords[i+1], coords[i+2]);
+        }
+        return box;
+    }
+
+    /** Returns the estimated heap size in bytes, including the unused capacity. */
+    public final int getByteSize() {
+        return 96 + 4 * ( coords.length + texCoords.length + ids.length + indices.length ) + flags.length;
+    }
+
+    /** Returns a new {@link View} of vertex <code>i</code>. */
+    public final View getVertex(int i) {
+        return new View(this, i);
+    }
+
+    /** Returns the {@link Vertex.Factory} appending new vertices to this store. */
+    public final Factory factory() { return factory; }
+
+    public final String toString() {
+        return "VertexStore[vertices "+vertexCount+", triangles "+getTriangleCount()+", bytes "+getByteSize()+"]";
+    }
+
+    /** {@link Vertex.Factory} appending new vertices to its {@link VertexStore}, see {@link VertexStore#factory()}. */
+    public final class Factory implements Vertex.Factory<View> {
+        public View create() {
+            return new View(VertexStore.this, addVertex(0f, 0f, 0f, 0f, 0f, false));
+        }
+
+        public View create(float x, float y, float z, boolean onCurve) {
+            return new View(VertexStore.this, addVertex(x, y, z, 0f, 0f, onCurve));
+        }
+
+        public View create(float[] coordsBuffer, int offset, int length, boolean onCurve) {
+            final View v = create();
+            v.setCoord(coordsBuffer, offset, length);
+            v.setOnCurve(onCurve);
+            return v;
+        }
+    }
+
+    /**
+     * {@link Vertex} view of one vertex of a {@link VertexStore}, all accessors read and write through to the store.
+     * <p>
+     * {@link #getCoord()} and {@link #getTexCoord()} return a copy,
+     * use the single component accessors on hot paths.
+     * </p>
+     */
+    public static final class View implements Vertex {
+        private final VertexStore store;
+        private final int index;
+
+        View(VertexStore store, int index) {
+            this.store = store;
+            this.index = index;
+        }
+
+        /** Returns the owning store. */
+        public final VertexStore getStore() { return store; }
+
+        /** Returns the index of this vertex within its store. */
+        public final int getIndex() { return index; }
+
+        @Override
+        public final void setCoord(float x, float y, float z) {
+            store.setCoord(index, x, y, z);
+        }
+
+        @Override
+        public final void setCoord(float[] coordsBuffer, int offset, int length) {
+            if( length > 3 ) {
+                throw new IndexOutOfBoundsException("length "+length+" > 3");
+            }
+            System.arraycopy(coordsBuffer, offset, store.coords, 3*index, length);
+        }
+
+        @Override
+        public final int getCoordCount() { return 3; }
+
+        @Override
+        public final float[] getCoord() {
+            return new float[] { getX(), getY(), getZ() };
+        }
+
+        @Override
+        public final void setX(float x) { store.coords[3*index+0] = x; }
+
+        @Override
+        public final void setY(float y) { store.coords[3*index+1] = y; }
+
+        @Override
+        public final void setZ(float z) { store.coords[3*index+2] = z; }
+
+        @Override
+        public final float getX() { return store.coords[3*index+0]; }
+
+        @Override
+        public final float getY() { return store.coords[3*index+1]; }
+
+        @Override
+        public final float getZ() { return store.coords[3*index+2]; }
+
+        @Override
+        public final boolean isOnCurve() { return store.isOnCurve(index); }
+
+        @Override
+        public final void setOnCurve(boolean onCurve) { store.setOnCurve(index, onCurve); }
+
+        @Override
+        public final int getId() { return store.ids[index]; }
+
+        @Override
+        public final void setId(int id) { store.ids[index] = id; }
+
+        @Override
+        public final float[] getTexCoord() {
+            return new float[] { store.getS(index), store.getT(index) };
+        }
+
+        @Override
+        public final void setTexCoord(float s, float t) {
+            store.setTexCoord(index, s, t);
+        }
+
+        @Override
+        public final void setTexCoord(float[] texCoordsBuffer, int offset, int length) {
+            if( length > 2 ) {
+                throw new IndexOutOfBoundsException("length "+length+" > 2");
+            }
+            System.arraycopy(texCoordsBuffer, offset, store.texCoords, 2*index, length);
+        }
+
+        @Override
+        public final boolean equals(Object obj) {
+            if( obj == this) {
+                return true;
+            }
+            if( null == obj || !(obj instanceof Vertex) ) {
+                return false;
+            }
+            final Vertex v = (Vertex) obj;
+            if( isOnCurve() != v.isOnCurve() || !VectorUtil.checkEquality(this, v) ) {
+                return false;
+            }
+            final float s, t;
+            if( v instanceof View ) {
+                final View r = (View) v;
+                s = r.store.getS(r.index);
+                t = r.store.getT(r.index);
+            } else {
+                final float[] tex = v.getTexCoord();
+                s = tex[0];
+                t = tex[1];
+            }
+            return Float.compare(store.getS(index), s) == 0 &&
+                   Float.compare(store.getT(index), t) == 0 ;
+        }
+
+        /**
+         * Hash of the values at this view's index of its store, 
+         * consistent w/ the value based {@link #equals(Object)}.
+         */
+        @Override
+        public final int hashCode() {
+            int hash = 31 + Float.floatToIntBits(store.coords[3*index+0]);
+            hash = ((hash << 5) - hash) + Float.floatToIntBits(store.coords[3*index+1]);
+            hash = ((hash << 5) - hash) + Float.floatToIntBits(store.coords[3*index+2]);
+            hash = ((hash << 5) - hash) + Float.floatToIntBits(store.getS(index));
+            hash = ((hash << 5) - hash) + Float.floatToIntBits(store.getT(index));
+            return ((hash << 5) - hash) + ( store.isOnCurve(index) ? 1 : 0 );
+        }
+
+        /**
+         * @return deep clone of this Vertex appended to the same store, but keeping the id blank
+         */
+        @Override
+        public final View clone() {
+            return new View(store, store.addVertex(this));
+        }
+
+        @Override
+        public final String toString() {
+            return "[ID: " + getId() + ", onCurve: " + isOnCurve() +
+                   ": p " + getX() + ", " + getY() + ", " + getZ() +
+                   ", t " + store.getS(index) + ", " + store.getT(index) + "]";
+        }
+    }
+}
@@ -0,0 +1,406 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLEventListener;
+
+/**
+ * Per frame timing metrics of a {@link GLAutoDrawable}.
+ * <p>
+ * If attached via {@link GLFrameMetricsDrawable#setFrameMetrics(FrameMetrics)},
+ * the duration of each {@link Phase} of a rendered frame as well as the duration of 
+ * each {@link GLEventListener#display(GLAutoDrawable)} call is measured in nanoseconds
+ * and recorded into lock-free {@link Histogram}s.
+ * </p>
+ * <p>
+ * A frame is recorded for each {@link GLAutoDrawable#display()} invocation 
+ * which actually issued the {@link GLEventListener}s display calls,
+ * i.e. a display call w/o a current context is not recorded.
+ * </p>
+ * <p>
+ * Histograms may be queried and {@link #reset()} from any thread while rendering, 
+ * hence their results are not necessarily consistent w/ each other.
+ * Optional {@link Listener}s are notified on the rendering thread after each recorded frame,
+ * e.g. to export the values to a monitoring system.
+ * </p>
+ * <p>
+ * W/o attached <code>FrameMetrics</code> no measurement is performed at all.
+ * </p>
+ */
+public class FrameMetrics {
+    
+    /** Measured phases of a frame. */
+    public static enum Phase {
+        /** Making the context current, including a potential initialization of a new context. */
+        MAKE_CURRENT,
+        /** All {@link GLEventListener#display(GLAutoDrawable)} calls. */
+        DISPLAY,
+        /** Execution of enqueued {@link javax.media.opengl.GLRunnable}s. Only recorded if executed. */
+        GL_RUNNABLES,
+        /** {@link javax.media.opengl.GLDrawable#swapBuffers()}. Only recorded if in auto swap buffer mode. */
+        SWAP_BUFFERS,
+        /** Releasing the context. Only recorded if released, i.e. not in exclusive context mode. */
+        RELEASE,
+        /** Whole frame, from making the context current up to its release. */
+        FRAME;
+        
+        /** Number of phases. */
+        public static final int COUNT = values().length;
+    }
+    
+    /** Optional frame callback, see {@link FrameMetrics#addListener(Listener)}. */
+    public static interface Listener {
+        /**
+         * Called on the rendering thread after each recorded frame.
+         * <p>
+         * The given array is only valid within this call and must not be modified.
+         * </p>
+         * @param metrics the source
+         * @param phaseNanos duration of each {@link Phase} in nanoseconds indexed by its {@link Phase#ordinal()},
+         *                   or <code>-1</code> if a phase has not been performed.
+         */
+        void frameRecorded(FrameMetrics metrics, long[] phaseNanos);
+    }
+    
+    /**
+     * Lock-free histogram of nanosecond durations.
+     * <p>
+     * Values are counted in log-linear buckets, 16 buckets per power of two,
+     * hence percentiles have a relative error of less than 6.25%.
+     * {@link #getCount()}, {@link #getMax()}, {@link #getMin()} and {@link #getMean()} are exact.
+     * </p>
+     */
+    public static class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKET_COUNT = ( 64 - SUB_BITS ) * SUB_COUNT;
+        
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong();
+        
+        static int getBucket(long v) {
+            if( v < SUB_COUNT ) {
+                return (int)v;
+            }
+            final int e = 63 - Long.numberOfLeadingZeros(v); // >= SUB_BITS
+            final int sub = (int) ( v >>> ( e - SUB_BITS ) ) & ( SUB_COUNT - 1 );
+            return ( e - SUB_BITS + 1 ) * SUB_COUNT + sub;
+        }
+        
+        static long getBucketLowerBound(int i) {
+            if( i < SUB_COUNT ) {
+                return i;
+            }
+            final int e = i / SUB_COUNT + SUB_BITS - 1;
+            return (long) ( SUB_COUNT + i % SUB_COUNT ) << ( e - SUB_BITS );
+        }
+        
+        static long getBucketWidth(int i) {
+            return i < SUB_COUNT ? 1 : 1L << ( i / SUB_COUNT - 1 );
+        }
+        
+        /** Records the given duration in nanoseconds, negative values are ignored. */
+        public final void record(long nanos) {
+            if( 0 > nanos ) {
+                return;
+            }
+            buckets.incrementAndGet(getBucket(nanos));
+            sum.addAndGet(nanos);
+            long m;
+            while( nanos > ( m = max.get() ) && !max.compareAndSet(m, nanos) ) { }
+            while( nanos < ( m = min.get() ) && !min.compareAndSet(m, nanos) ) { }
+            count.incrementAndGet();
+        }
+        
+        /** Returns the number of recorded values. */
+        public final long getCount() { return count.get(); }
+        
+        /** Returns the sum of all recorded values in nanoseconds. */
+        public final long getTotal() { return sum.get(); }
+        
+        /** Returns the maximum recorded value in nanoseconds, or 0 if empty. */
+        public final long getMax() { return max.get(); }
+        
+        /** Returns the minimum recorded value in nanoseconds, or 0 if empty. */
+        public final long getMin() { 
+            final long m = min.get();
+            return Long.MAX_VALUE == m ? 0 : m; 
+        }
+        
+        /** Returns the mean of all recorded values in nanoseconds, or 0 if empty. */
+        public final double getMean() {
+            final long c = count.get();
+            return 0 < c ? (double)sum.get() / (double)c : 0; 
+        }
+        
+        /**
+         * Returns the value at the given percentile in nanoseconds, or 0 if empty.
+         * <p>
+         * The result is the midpoint of the bucket containing the percentile,
+         * clamped to [{@link #getMin()} .. {@link #getMax()}].
+         * The 0th and 100th percentile are the exact minimum and maximum.
+         * </p>
+         * @param percentile in the range [0 .. 100]
+         */
+        public final long getPercentile(double percentile) {
+            long total = 0;
+            final long[] snapshot = new long[BUCKET_COUNT];
+            for(int i=0; i<BUCKET_COUNT; i++) {
+                total += ( snapshot[i] = buckets.get(i) );
+            }
+            if( 0 == total ) {
+                return 0;
+            } else if( percentile >= 100.0 ) {
+                return getMax();
+            } else if( percentile <= 0.0 ) {
+                return getMin();
+            }
+            final long rank = Math.max(1, (long) Math.ceil( percentile / 100.0 * total ));
+            long acc = 0;
+            for(int i=0; i<BUCKET_COUNT; i++) {
+                acc += snapshot[i];
+                if( acc >= rank ) {
+                    final long v = getBucketLowerBound(i) + ( getBucketWidth(i) - 1 ) / 2;
+                    return Math.max(getMin(), Math.min(getMax(), v));
+                }
+            }
+            return getMax();
+        }
+        
+        /** Clears all recorded values. */
+        public final void reset() {
+            count.set(0);
+            for(int i=0; i<BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            sum.set(0);
+            min.set(Long.MAX_VALUE);
+            max.set(0);
+        }
+        
+        public StringBuilder toString(StringBuilder sb) {
+            if(null == sb) {
+                sb = new StringBuilder();
+            }
+            sb.append("count ").append(getCount())
+              .append(", mean ").append(toMillis(getMean()))
+              .append(", p50 ").append(toMillis(getPercentile(50)))
+              .append(", p90 ").append(toMillis(getPercentile(90)))
+              .append(", p99 ").append(toMillis(getPercentile(99)))
+              .append(", max ").append(toMillis(getMax())).append(" ms");
+            return sb;
+        }
+        
+        @Override
+        public String toString() {
+            return toString(null).toString();
+        }
+        
+        private static String toMillis(double nanos) {
+            return String.format("%.3f", nanos / 1000000.0);
+        }
+    }
+    
+    private static class ListenerHistogram {
+        final GLEventListener listener;
+        final Histogram histogram = new Histogram();
+        ListenerHistogram(GLEventListener l) { listener = l; }
+    }
+    
+    private final Histogram[] phases = new Histogram[Phase.COUNT];
+    private final Object lock = new Object();
+    /** Copy on write, lookup by identity */
+    private volatile ListenerHistogram[] listenerHistograms = new ListenerHistogram[0];
+    /** Copy on write */
+    private volatile Listener[] listeners = new Listener[0];
+    private final AtomicLong frameCount = new AtomicLong();
+    
+    public FrameMetrics() {
+        for(int i=0; i<Phase.COUNT; i++) {
+            phases[i] = new Histogram();
+        }
+    }
+    
+    /** Returns the number of recorded frames since creation or last {@link #reset()}. */
+    public final long getFrameCount() { return frameCount.get(); }
+    
+    /** Returns the histogram of the given phase. */
+    public final Histogram getHistogram(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+    
+    /** 
+     * Returns the histogram of the given {@link GLEventListener}'s {@link GLEventListener#display(GLAutoDrawable) display} calls,
+     * or <code>null</code> if none has been recorded since creation or last {@link #reset()}. 
+     */
+    public final Histogram getHistogram(GLEventListener listener) {
+        final ListenerHistogram[] lh = listenerHistograms;
+        for(int i=0; i<lh.length; i++) {
+            if( lh[i].listener == listener ) {
+                return lh[i].histogram;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Drops the histogram of the given {@link GLEventListener}'s {@link GLEventListener#display(GLAutoDrawable) display} calls.
+     * <p>
+     * Called by the {@link GLAutoDrawable} implementation if the listener is removed,
+     * hence histograms are not kept for removed listeners.
+     * If this instance is shared across drawables, the histogram is dropped even if the listener is still added to another one.
+     * </p>
+     * @return <code>true</code> if a histogram has been recorded for the listener, otherwise <code>false</code>
+     */
+    public final boolean removeHistogram(GLEventListener listener) {
+        synchronized(lock) {
+            final ListenerHistogram[] lh = listenerHistograms;
+            for(int i=0; i<lh.length; i++) {
+                if( lh[i].listener == listener ) {
+                    final ListenerHistogram[] lh2 = new ListenerHistogram[lh.length - 1];
+                    System.arraycopy(lh, 0, lh2, 0, i);
+                    System.arraycopy(lh, i+1, lh2, i, lh.length - i - 1);
+                    listenerHistograms = lh2;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /** Adds the given frame callback. */
+    public final void addListener(Listener l) {
+        synchronized(lock) {
+            final Listener[] ls = new Listener[listeners.length + 1];
+            System.arraycopy(listeners, 0, ls, 0, listeners.length);
+            ls[listeners.length] = l;
+            listeners = ls;
+        }
+    }
+    
+    /** Removes the given frame callback, returns <code>true</code> if it has been added before. */
+    public final boolean removeListener(Listener l) {
+        synchronized(lock) {
+            final Listener[] ls = listeners;
+            for(int i=0; i<ls.length; i++) {
+                if( ls[i] == l ) {
+                    final Listener[] ls2 = new Listener[ls.length - 1];
+                    System.arraycopy(ls, 0, ls2, 0, i);
+                    System.arraycopy(ls, i+1, ls2, i, ls.length - i - 1);
+                    listeners = ls2;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /** Clears all histograms and the frame count. */
+    public final void reset() {
+        synchronized(lock) {
+            listenerHistograms = new ListenerHistogram[0];
+        }
+        for(int i=0; i<Phase.COUNT; i++) {
+            phases[i].reset();
+        }
+        frameCount.set(0);
+    }
+    
+    /**
+     * Records the duration of one {@link GLEventListener#display(GLAutoDrawable) display} call.
+     * <p>
+     * Shall be called by the {@link GLAutoDrawable} implementation only.
+     * </p>
+     */
+    public final void recordDisplay(GLEventListener listener, long nanos) {
+        Histogram h = getHistogram(listener);
+        if( null == h ) {
+            synchronized(lock) {
+                h = getHistogram(listener);
+                if( null == h ) {
+                    final ListenerHistogram[] lh = listenerHistograms;
+                    final ListenerHistogram[] lh2 = new ListenerHistogram[lh.length + 1];
+                    System.arraycopy(lh, 0, lh2, 0, lh.length);
+                    lh2[lh.length] = new ListenerHistogram(listener);
+                    h = lh2[lh.length].histogram;
+                    listenerHistograms = lh2;
+                }
+            }
+        }
+        h.record(nanos);
+    }
+    
+    /**
+     * Records one frame and notifies all {@link Listener}s.
+     * <p>
+     * Shall be called by the {@link GLAutoDrawable} implementation only.
+     * </p>
+     * @param phaseNanos duration of each {@link Phase} indexed by its {@link Phase#ordinal()}, 
+     *                   or <code>-1</code> if not performed.
+     */
+    public final void recordFrame(long[] phaseNanos) {
+        for(int i=0; i<Phase.COUNT; i++) {
+            phases[i].record(phaseNanos[i]);
+        }
+        frameCount.incrementAndGet();
+        final Listener[] ls = listeners;
+        for(int i=0; i<ls.length; i++) {
+            ls[i].frameRecorded(this, phaseNanos);
+        }
+    }
+    
+    public StringBuilder toString(StringBuilder sb) {
+        if(null == sb) {
+            sb = new StringBuilder();
+        }
+        sb.append("FrameMetrics[frames ").append(getFrameCount());
+        for(int i=0; i<Phase.COUNT; i++) {
+            sb.append(",\n\t").append(Phase.values()[i]).append(": ");
+            phases[i].toString(sb);
+        }
+        final ListenerHistogram[] lh = listenerHistograms;
+        for(int i=0; i<lh.length; i++) {
+            sb.append(",\n\t").append(lh[i].listener.getClass().getSimpleName()).append(".display: ");
+            lh[i].histogram.toString(sb);
+        }
+        sb.append("]");
+        return sb;
+    }
+    
+    @Override
+    public String toString() {
+        return toString(null).toString();
+    }
+}
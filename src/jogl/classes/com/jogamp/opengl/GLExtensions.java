@@ -72,10 +72,13 @@ public class GLExtensions {
   public static final String OES_read_format                 = "GL_OES_read_format";
   public static final String OES_single_precision            = "GL_OES_single_precision";
   public static final String OES_EGL_image_external          = "GL_OES_EGL_image_external";
+  public static final String OES_element_index_uint          = "GL_OES_element_index_uint";
   
   public static final String ARB_gpu_shader_fp64             = "GL_ARB_gpu_shader_fp64";
   public static final String ARB_shader_objects              = "GL_ARB_shader_objects"; 
   public static final String ARB_geometry_shader4            = "GL_ARB_geometry_shader4";
+  public static final String ARB_get_program_binary          = "GL_ARB_get_program_binary";
+  public static final String OES_get_program_binary          = "GL_OES_get_program_binary";
   
   //
   // Aliased GLX/WGL/.. extensions
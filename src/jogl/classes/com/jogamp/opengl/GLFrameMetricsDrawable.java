@@ -0,0 +1,64 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLEventListener;
+
+/**
+ * A {@link GLAutoDrawable} supporting per frame timing metrics, see {@link FrameMetrics}.
+ * <p>
+ * Implemented by JOGL's {@link GLAutoDrawable}s, 
+ * e.g. NEWT's <code>GLWindow</code>, {@link javax.media.opengl.awt.GLCanvas}, 
+ * {@link javax.media.opengl.awt.GLJPanel} and {@link com.jogamp.opengl.swt.GLCanvas}.
+ * </p>
+ */
+public interface GLFrameMetricsDrawable extends GLAutoDrawable {
+  /**
+   * Attaches the given {@link FrameMetrics} to this instance, 
+   * or detaches the current one if <code>null</code>.
+   * <p>
+   * While attached, the duration of each phase of a frame rendered via {@link #display()}
+   * and of each {@link GLEventListener#display(GLAutoDrawable)} call is measured 
+   * and recorded, see {@link FrameMetrics}.
+   * The display histogram of a {@link GLEventListener} is dropped when it is removed.
+   * </p>
+   * <p>
+   * Default is <code>null</code>, i.e. no measurement is performed.
+   * </p>
+   * @param metrics the metrics to record frames into, may be shared across drawables, or <code>null</code>
+   * @return the previously attached instance, may be <code>null</code>
+   */
+  public FrameMetrics setFrameMetrics(FrameMetrics metrics);
+  
+  /**
+   * Returns the attached {@link FrameMetrics}, may be <code>null</code>.
+   * @see #setFrameMetrics(FrameMetrics)
+   */
+  public FrameMetrics getFrameMetrics();
+}
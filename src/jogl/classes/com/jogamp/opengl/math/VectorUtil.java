@@ -173,6 +173,21 @@ public class VectorUtil {
         return midPoint;
     }
     
+    /** Calculate the midpoint of two points
+     * @param p1 first point
+     * @param p2 second point
+     * @return midpoint
+     */
+    public static float[] mid(Vert3fImmutable p1, Vert3fImmutable p2)
+    {
+        final float[] midPoint = new float[3];
+        midPoint[0] = (p1.getX() + p2.getX())*0.5f;
+        midPoint[1] = (p1.getY() + p2.getY())*0.5f;
+        midPoint[2] = (p1.getZ() + p2.getZ())*0.5f;
+
+        return midPoint;
+    }
+    
     /** Compute the norm of a vector
      * @param vec vector
      * @return vorm
@@ -197,6 +212,20 @@ public class VectorUtil {
         return FloatUtil.sqrt(w0*w0 + w1*w1 + w2*w2);
     }
 
+    /** Compute distance between 2 points
+     * @param p0 first point
+     * @param point second point
+     * @return distance float
+     */
+    public static float computeLength(Vert3fImmutable p0, Vert3fImmutable point)
+    {
+        final float w0 = point.getX()-p0.getX();
+        final float w1 = point.getY()-p0.getY();
+        final float w2 = point.getZ()-p0.getZ();
+
+        return FloatUtil.sqrt(w0*w0 + w1*w1 + w2*w2);
+    }
+
     /**Check equality of 2 vec3 vectors
      * @param v1 vertex 1
      * @param v2 vertex 2
@@ -209,6 +238,18 @@ public class VectorUtil {
                Float.compare(v1[2], v2[2]) == 0 ;
     }
 
+    /**Check equality of 2 vec3 vertices
+     * @param v1 vertex 1
+     * @param v2 vertex 2
+     * @return
+     */
+    public static boolean checkEquality(Vert3fImmutable v1, Vert3fImmutable v2)
+    {
+        return Float.compare(v1.getX(), v2.getX()) == 0 &&
+               Float.compare(v1.getY(), v2.getY()) == 0 &&
+               Float.compare(v1.getZ(), v2.getZ()) == 0 ;
+    }
+
     /**Check equality of 2 vec2 vectors
      * @param v1 vertex 1
      * @param v2 vertex 2
@@ -312,6 +353,37 @@ public class VectorUtil {
         return (u >= 0) && (v >= 0) && (u + v < 1);
     }
 
+    /** Check if a vertex is in triangle using 
+     * barycentric coordinates computation,
+     * same as {@link #vertexInTriangle(float[], float[], float[], float[])} w/o temporary arrays.
+     * @param a first triangle vertex
+     * @param b second triangle vertex
+     * @param c third triangle vertex
+     * @param p the vertex in question
+     * @return true if p is in triangle (a, b, c), false otherwise.
+     */
+    public static boolean vertexInTriangle(Vert3fImmutable a, Vert3fImmutable b, Vert3fImmutable c, Vert3fImmutable p){
+        // Compute vectors
+        final float ac0 = c.getX() - a.getX(), ac1 = c.getY() - a.getY(), ac2 = c.getZ() - a.getZ(); //v0
+        final float ab0 = b.getX() - a.getX(), ab1 = b.getY() - a.getY(), ab2 = b.getZ() - a.getZ(); //v1
+        final float ap0 = p.getX() - a.getX(), ap1 = p.getY() - a.getY(), ap2 = p.getZ() - a.getZ(); //v2
+
+        // Compute dot products
+        final float dot00 = ac0*ac0 + ac1*ac1 + ac2*ac2;
+        final float dot01 = ac0*ab0 + ac1*ab1 + ac2*ab2;
+        final float dot02 = ac0*ap0 + ac1*ap1 + ac2*ap2;
+        final float dot11 = ab0*ab0 + ab1*ab1 + ab2*ab2;
+        final float dot12 = ab0*ap0 + ab1*ap1 + ab2*ap2;
+
+        // Compute barycentric coordinates
+        final float invDenom = 1 / (dot00 * dot11 - dot01 * dot01);
+        final float u = (dot11 * dot02 - dot01 * dot12) * invDenom;
+        final float v = (dot00 * dot12 - dot01 * dot02) * invDenom;
+
+        // Check if point is in triangle
+        return (u >= 0) && (v >= 0) && (u + v < 1);
+    }
+
     /** Check if points are in ccw order
      * @param a first vertex
      * @param b second vertex
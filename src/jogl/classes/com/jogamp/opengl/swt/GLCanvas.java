@@ -77,6 +77,8 @@ import com.jogamp.common.util.locks.LockFactory;
 import com.jogamp.common.util.locks.RecursiveLock;
 import com.jogamp.nativewindow.swt.SWTAccessor;
 import com.jogamp.nativewindow.x11.X11GraphicsDevice;
+import com.jogamp.opengl.FrameMetrics;
+import com.jogamp.opengl.GLFrameMetricsDrawable;
 import com.jogamp.opengl.JoglVersion;
 
 /**
@@ -85,7 +87,7 @@ import com.jogamp.opengl.JoglVersion;
  * Implementation allows use of custom {@link GLCapabilities}.
  * </p>
  */
-public class GLCanvas extends Canvas implements GLAutoDrawable {
+public class GLCanvas extends Canvas implements GLAutoDrawable, GLFrameMetricsDrawable {
   private static final boolean DEBUG = Debug.debug("GLCanvas");
 
    /*
@@ -664,6 +666,16 @@ public class GLCanvas extends Canvas implements GLAutoDrawable {
        return helper.getExclusiveContextThread();
    }
 
+   @Override
+   public final FrameMetrics setFrameMetrics(FrameMetrics metrics) {
+       return helper.setFrameMetrics(metrics);
+   }
+
+   @Override
+   public final FrameMetrics getFrameMetrics() {
+       return helper.getFrameMetrics();
+   }
+
    @Override
    public boolean getAutoSwapBufferMode() {
       return helper.getAutoSwapBufferMode();
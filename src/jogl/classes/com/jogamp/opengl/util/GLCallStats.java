@@ -0,0 +1,317 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+
+import com.jogamp.common.nio.Buffers;
+
+/**
+ * Per GL entry point call statistics as collected by the generated 
+ * <code>javax.media.opengl.Profile*</code> composable pipelines, 
+ * e.g. {@link javax.media.opengl.ProfileGL2}.
+ * <p>
+ * Each wrapped GL method is identified by a generated method id, 
+ * which indexes flat primitive arrays holding the number of invocations,
+ * the number of bytes passed to buffer and texture uploads and - if {@link #setTiming(boolean) enabled} - 
+ * the accumulated duration of the calls in nanoseconds.
+ * </p>
+ * <p>
+ * Counters are updated w/o synchronization by the thread issuing the GL calls,
+ * i.e. the one the GL context is current on.
+ * A {@link #snapshot()} may be taken from any thread, 
+ * however, values of a concurrently rendering pipeline may be slightly inconsistent.
+ * </p>
+ * <p>
+ * Sample code which installs a profiling pipeline and dumps the 10 most called GL methods:
+ * <pre>
+ *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Profile", null, gl, null) );
+ *     final GLCallStats stats = ((GLCallStats.Source)gl).getCallStats();
+ *     stats.setTiming(true);
+ *     ...
+ *     System.err.println( stats.snapshot().toString(null, 10, GLCallStats.Key.CALLS) );
+ * </pre>
+ * </p>
+ */
+public class GLCallStats {
+    /** Implemented by all generated profiling pipelines. */
+    public static interface Source {
+        /** Returns the call statistics of this pipeline. */
+        GLCallStats getCallStats();
+    }
+    
+    /** Sort key for {@link Snapshot#getTop(int, Key)}. */
+    public static enum Key {
+        /** Number of invocations */
+        CALLS, 
+        /** Accumulated duration in nanoseconds, only available if {@link GLCallStats#setTiming(boolean) timing} was enabled. */
+        NANOS, 
+        /** Bytes passed to buffer and texture uploads */
+        BYTES 
+    }
+    
+    private static final long NO_TIME = Long.MIN_VALUE;
+    
+    private final String[] names;
+    private final long[] calls;
+    private final long[] nanos;
+    private final long[] bytes;
+    private volatile boolean timing;
+    
+    /**
+     * @param names method names indexed by their method id, 
+     *              defines the number of methods.
+     */
+    public GLCallStats(String[] names) {
+        this.names = names;
+        this.calls = new long[names.length];
+        this.nanos = new long[names.length];
+        this.bytes = new long[names.length];
+        this.timing = false;
+    }
+    
+    /** Returns the number of methods, i.e. the upper bound of method ids. */
+    public final int getMethodCount() { return names.length; }
+    
+    /** Returns the name of the given method id, incl. its argument types. */
+    public final String getMethodName(int id) { return names[id]; }
+    
+    /** 
+     * Returns the method id of the first method w/ the given name, 
+     * which may include its argument types, or <code>-1</code> if not found. 
+     */
+    public final int getMethodId(String name) {
+        for(int i=0; i<names.length; i++) {
+            final String n = names[i];
+            if( n.equals(name) || ( n.startsWith(name) && n.charAt(name.length()) == '(' ) ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /** Returns <code>true</code> if calls are timed, default is <code>false</code>. */
+    public final boolean isTiming() { return timing; }
+    
+    /** 
+     * Enables or disables measuring the duration of each call w/ {@link System#nanoTime()}.
+     * <p>
+     * Disabled by default, since it adds two {@link System#nanoTime()} calls per GL call.
+     * </p>
+     */
+    public final void setTiming(boolean enable) { timing = enable; }
+    
+    /** 
+     * Counts one invocation of the given method and returns the start time, if timing is enabled.
+     * <p>
+     * Shall only be called by the generated pipeline before the downstream call.
+     * </p>
+     */
+    public final long enter(int id) {
+        calls[id]++;
+        return timing ? System.nanoTime() : NO_TIME;
+    }
+    
+    /** 
+     * Accumulates the duration of the given method, if timing was enabled at {@link #enter(int)}.
+     * <p>
+     * Shall only be called by the generated pipeline after the downstream call.
+     * </p>
+     */
+    public final void exit(int id, long t0) {
+        if( NO_TIME != t0 ) {
+            nanos[id] += System.nanoTime() - t0;
+        }
+    }
+    
+    /** 
+     * Adds the given number of uploaded bytes to the given method.
+     * <p>
+     * Shall only be called by the generated pipeline.
+     * </p>
+     */
+    public final void addBytes(int id, long count) {
+        bytes[id] += count;
+    }
+    
+    /** 
+     * Adds the remaining bytes of the given buffer to the given method, if not <code>null</code>.
+     * <p>
+     * Shall only be called by the generated pipeline.
+     * </p>
+     */
+    public final void addBytes(int id, Buffer buffer) {
+        if( null != buffer ) {
+            bytes[id] += Buffers.remainingBytes(buffer);
+        }
+    }
+    
+    public final long getCalls(int id) { return calls[id]; }
+    public final long getNanos(int id) { return nanos[id]; }
+    public final long getBytes(int id) { return bytes[id]; }
+    
+    /** Clears all counters. */
+    public final void reset() {
+        for(int i=0; i<names.length; i++) {
+            calls[i] = 0;
+            nanos[i] = 0;
+            bytes[i] = 0;
+        }
+    }
+    
+    /** Returns a copy of the current counters. */
+    public final Snapshot snapshot() {
+        return new Snapshot(names, calls.clone(), nanos.clone(), bytes.clone());
+    }
+    
+    /** Returns the difference of the current counters and the given previous {@link #snapshot()}, e.g. for one frame. */
+    public final Snapshot snapshot(Snapshot since) {
+        final Snapshot s = snapshot();
+        for(int i=0; i<names.length; i++) {
+            s.calls[i] -= since.calls[i];
+            s.nanos[i] -= since.nanos[i];
+            s.bytes[i] -= since.bytes[i];
+        }
+        return s;
+    }
+    
+    /** Immutable copy of {@link GLCallStats} counters. */
+    public static class Snapshot {
+        private final String[] names;
+        private final long[] calls;
+        private final long[] nanos;
+        private final long[] bytes;
+        
+        Snapshot(String[] names, long[] calls, long[] nanos, long[] bytes) {
+            this.names = names;
+            this.calls = calls;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+        
+        public final int getMethodCount() { return names.length; }
+        public final String getMethodName(int id) { return names[id]; }
+        public final long getCalls(int id) { return calls[id]; }
+        public final long getNanos(int id) { return nanos[id]; }
+        public final long getBytes(int id) { return bytes[id]; }
+        
+        public final long get(int id, Key key) {
+            switch( key ) {
+                case NANOS: return nanos[id];
+                case BYTES: return bytes[id];
+                default: return calls[id];
+            }
+        }
+        
+        /** Returns the sum of the given key over all methods. */
+        public final long getTotal(Key key) {
+            long t = 0;
+            for(int i=0; i<names.length; i++) {
+                t += get(i, key);
+            }
+            return t;
+        }
+        
+        /** 
+         * Returns the ids of at most <code>n</code> methods w/ the highest non zero value of the given key,
+         * sorted in descending order.
+         */
+        public final int[] getTop(int n, Key key) {
+            if( 0 >= n ) {
+                return new int[0];
+            }
+            final int[] top = new int[Math.min(n, names.length)];
+            int count = 0;
+            for(int i=0; i<names.length; i++) {
+                final long v = get(i, key);
+                if( 0 >= v || ( count == top.length && v <= get(top[count-1], key) ) ) {
+                    continue;
+                }
+                // insertion into sorted top list, dropping the last if full
+                int j = count < top.length ? count++ : count - 1;
+                while( j > 0 && get(top[j-1], key) < v ) {
+                    top[j] = top[j-1];
+                    j--;
+                }
+                top[j] = i;
+            }
+            if( count < top.length ) {
+                final int[] res = new int[count];
+                System.arraycopy(top, 0, res, 0, count);
+                return res;
+            }
+            return top;
+        }
+        
+        /** Appends the top <code>n</code> methods of the given key, see {@link #getTop(int, Key)}. */
+        public StringBuilder toString(StringBuilder sb, int n, Key key) {
+            if(null == sb) {
+                sb = new StringBuilder();
+            }
+            sb.append("GLCallStats[calls ").append(getTotal(Key.CALLS))
+              .append(", ").append(getTotal(Key.NANOS)/1000).append(" us")
+              .append(", ").append(getTotal(Key.BYTES)).append(" bytes, top ").append(n).append(" by ").append(key);
+            final int[] top = getTop(n, key);
+            for(int i=0; i<top.length; i++) {
+                final int id = top[i];
+                sb.append(String.format("%n\t%10d calls %10d us %12d bytes  %s", calls[id], nanos[id]/1000, bytes[id], names[id]));
+            }
+            sb.append("]");
+            return sb;
+        }
+        
+        @Override
+        public String toString() {
+            return toString(null, 10, Key.CALLS).toString();
+        }
+    }
+    
+    /**
+     * Splits the given chunks of <code>';'</code> separated names into one array.
+     * <p>
+     * Used by the generated pipelines to keep their method names within the class file constant limits.
+     * </p>
+     */
+    public static String[] splitNames(String[] chunks) {
+        final ArrayList<String> res = new ArrayList<String>();
+        for(int i=0; i<chunks.length; i++) {
+            int s = 0;
+            final String c = chunks[i];
+            while( s < c.length() ) {
+                int e = c.indexOf(';', s);
+                if( 0 > e ) {
+                    e = c.length();
+                }
+                res.add(c.substring(s, e));
+                s = e + 1;
+            }
+        }
+        return res.toArray(new String[res.size()]);
+    }
+}
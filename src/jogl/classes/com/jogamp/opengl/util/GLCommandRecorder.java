@@ -0,0 +1,459 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.media.opengl.GLException;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.common.nio.PointerBuffer;
+
+/**
+ * Serializes GL calls w/ their arguments into a compact binary stream, 
+ * as issued by the generated <code>javax.media.opengl.Record*</code> composable pipelines,
+ * e.g. {@link javax.media.opengl.RecordGL2}. A recorded stream can be re-issued via {@link ReplayGL}.
+ * <p>
+ * The rendering thread serializes the calls into chunks of {@link #setChunkSize(int) chunk size} bytes,
+ * filled chunks are written to the {@link WritableByteChannel} by a dedicated writer thread,
+ * hence the rendering thread does not stall on I/O. 
+ * Up to {@value #MAX_CHUNKS} chunks are allocated, 
+ * only if the writer thread falls behind by all of them the rendering thread waits for a free chunk.
+ * </p>
+ * <p>
+ * Stream format, using the native byte order of the recording machine:
+ * <pre>
+ *   header: int magic {@link #MAGIC}, int {@link #VERSION}, int method count, method names as strings
+ *   call:   short method id, arguments
+ * </pre>
+ * Arguments are stored as:
+ * <ul>
+ *   <li>primitives: their native size, <code>boolean</code> as one byte</li>
+ *   <li>primitive arrays: int element count or <code>-1</code> if <code>null</code>, all elements</li>
+ *   <li>NIO buffers: int byte count of the remaining elements or <code>-1</code> if <code>null</code>, 
+ *       byte <code>1</code> followed by the remaining bytes if contents are recorded, otherwise byte <code>0</code></li>
+ *   <li>{@link PointerBuffer}: int element count or <code>-1</code> if <code>null</code>, the remaining elements as longs</li>
+ *   <li>strings: int UTF-8 byte count or <code>-1</code> if <code>null</code>, the UTF-8 bytes</li>
+ *   <li>string arrays: int element count or <code>-1</code> if <code>null</code>, all strings</li>
+ * </ul>
+ * Buffer contents are recorded for all calls except those only writing into the buffer, e.g. <code>glGet*</code>.
+ * Note that the contents are captured at the time of the call, 
+ * e.g. a client side vertex array is recorded at <code>glVertexAttribPointer</code> w/o later modifications.
+ * Writes into mapped buffer objects are not recorded. 
+ * Calls w/ argument types not serializable, e.g. {@link javax.media.opengl.GLArrayData}, 
+ * are not recorded but {@link #getSkippedCallCount() counted}.
+ * </p>
+ * <p>
+ * Sample code which records a single frame into a file:
+ * <pre>
+ *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Record", null, gl, null) );
+ *     final GLCommandRecorder recorder = ((GLCommandRecorder.Source)gl).getRecorder();
+ *     final FileChannel out = new FileOutputStream("frame.glrec").getChannel();
+ *     recorder.start(out);
+ *     drawable.display();
+ *     recorder.stop();
+ *     out.close();
+ * </pre>
+ * </p>
+ * <p>
+ * The recording methods are not synchronized and shall be called by the thread issuing the GL calls,
+ * i.e. the one the GL context is current on.
+ * </p>
+ */
+public class GLCommandRecorder {
+    /** Implemented by all generated recording pipelines. */
+    public static interface Source {
+        /** Returns the command recorder of this pipeline. */
+        GLCommandRecorder getRecorder();
+    }
+    
+    /** Stream magic, <code>"JGLR"</code> in the stream's byte order. */
+    public static final int MAGIC = 0x4A474C52;
+    /** Stream format version, {@value}. */
+    public static final int VERSION = 1;
+    /** Default chunk size in bytes, {@value}. */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    /** Maximum number of allocated chunks, {@value}. */
+    public static final int MAX_CHUNKS = 16;
+    
+    /* package */ static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+    
+    private final String[] methodNames;
+    private int chunkSize;
+    private ArrayBlockingQueue<ByteBuffer> freeChunks;
+    private LinkedBlockingQueue<ByteBuffer> filledChunks;
+    private int chunkCount;
+    private ByteBuffer chunk;
+    private volatile boolean recording;
+    private Thread writer;
+    private volatile IOException writeError;
+    private long callCount, skippedCount, byteCount;
+    
+    /**
+     * @param methodNames method names incl. argument types indexed by their method id, 
+     *              stored in the stream header.
+     */
+    public GLCommandRecorder(String[] methodNames) {
+        if( Short.MAX_VALUE < methodNames.length ) {
+            throw new IllegalArgumentException("Too many methods: "+methodNames.length);
+        }
+        this.methodNames = methodNames;
+        this.chunkSize = DEFAULT_CHUNK_SIZE;
+        this.recording = false;
+    }
+    
+    /** Returns the method names incl. argument types indexed by their method id. */
+    public final String[] getMethodNames() { return methodNames; }
+    
+    /** Returns the chunk size in bytes. */
+    public final int getChunkSize() { return chunkSize; }
+    
+    /** 
+     * Sets the chunk size in bytes, default is {@link #DEFAULT_CHUNK_SIZE}.
+     * @throws IllegalStateException if recording
+     */
+    public final void setChunkSize(int chunkSize) throws IllegalStateException {
+        if( recording ) {
+            throw new IllegalStateException("Recording");
+        }
+        if( 64 > chunkSize ) {
+            throw new IllegalArgumentException("Chunk size too small: "+chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+    
+    /** Returns <code>true</code> if recording. */
+    public final boolean isRecording() { return recording; }
+    
+    /** Returns the number of recorded calls since the last {@link #start(WritableByteChannel)}. */
+    public final long getCallCount() { return callCount; }
+    
+    /** Returns the number of calls not recorded due to unsupported argument types since the last {@link #start(WritableByteChannel)}. */
+    public final long getSkippedCallCount() { return skippedCount; }
+    
+    /** Returns the number of bytes passed to the channel since the last {@link #start(WritableByteChannel)}, valid after {@link #stop()}. */
+    public final long getByteCount() { return byteCount; }
+    
+    /**
+     * Starts recording into the given channel, writing the stream header.
+     * The channel is not closed by this recorder.
+     * @throws IllegalStateException if already recording
+     */
+    public final synchronized void start(final WritableByteChannel channel) throws IllegalStateException {
+        if( recording ) {
+            throw new IllegalStateException("Already recording");
+        }
+        freeChunks = new ArrayBlockingQueue<ByteBuffer>(MAX_CHUNKS);
+        filledChunks = new LinkedBlockingQueue<ByteBuffer>();
+        chunkCount = 1;
+        chunk = newChunk(chunkSize);
+        callCount = 0;
+        skippedCount = 0;
+        byteCount = 0;
+        writeError = null;
+        
+        final ArrayBlockingQueue<ByteBuffer> free = freeChunks;
+        final LinkedBlockingQueue<ByteBuffer> filled = filledChunks;
+        final int size = chunkSize;
+        writer = new Thread(new Runnable() {
+            public void run() {
+                writeLoop(channel, free, filled, size);
+            } }, "GLCommandRecorder-Writer");
+        writer.setDaemon(true);
+        writer.start();
+        
+        chunk.putInt(MAGIC);
+        chunk.putInt(VERSION);
+        chunk.putInt(methodNames.length);
+        for(int i=0; i<methodNames.length; i++) {
+            putString(methodNames[i]);
+        }
+        recording = true;
+    }
+    
+    /**
+     * Stops recording, blocks until all recorded calls are written to the channel.
+     * @throws IOException if writing to the channel failed
+     */
+    public final synchronized void stop() throws IOException {
+        if( !recording ) {
+            return;
+        }
+        recording = false;
+        submit(chunk);
+        chunk = null;
+        filledChunks.add(END_OF_STREAM);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            throw new GLException(e);
+        }
+        writer = null;
+        freeChunks = null;
+        filledChunks = null;
+        if( null != writeError ) {
+            throw writeError;
+        }
+    }
+    
+    /**
+     * Hands over all calls recorded so far to the writer thread.
+     */
+    public final void flush() {
+        if( recording && 0 < chunk.position() ) {
+            submit(chunk);
+            chunk = nextChunk();
+        }
+    }
+    
+    private void writeLoop(WritableByteChannel channel, ArrayBlockingQueue<ByteBuffer> free, LinkedBlockingQueue<ByteBuffer> filled, int size) {
+        while( true ) {
+            final ByteBuffer b;
+            try {
+                b = filled.take();
+            } catch (InterruptedException e) {
+                writeError = new IOException(e);
+                return;
+            }
+            if( END_OF_STREAM == b ) {
+                return;
+            }
+            if( null == writeError ) {
+                try {
+                    while( b.hasRemaining() ) {
+                        byteCount += channel.write(b);
+                    }
+                } catch (IOException e) {
+                    writeError = e; // keep draining the filled chunks, not to block the rendering thread
+                }
+            }
+            if( b.capacity() == size ) {
+                b.clear();
+                free.offer(b);
+            }
+        }
+    }
+    
+    private static ByteBuffer newChunk(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+    
+    private void submit(ByteBuffer b) {
+        b.flip();
+        filledChunks.add(b);
+    }
+    
+    private ByteBuffer nextChunk() {
+        ByteBuffer b = freeChunks.poll();
+        if( null == b ) {
+            if( MAX_CHUNKS > chunkCount ) {
+                chunkCount++;
+                b = newChunk(chunkSize);
+            } else {
+                try {
+                    b = freeChunks.take();
+                } catch (InterruptedException e) {
+                    throw new GLException(e);
+                }
+            }
+        }
+        return b;
+    }
+    
+    /** Ensures <code>n</code> bytes are available in the current chunk, allocating a dedicated chunk for oversized records. */
+    private final ByteBuffer ensure(int n) {
+        if( chunk.remaining() < n ) {
+            if( 0 < chunk.position() ) {
+                submit(chunk);
+            } else {
+                freeChunks.offer(chunk); // empty, n exceeds the chunk size
+            }
+            chunk = chunkSize >= n ? nextChunk() : newChunk(n); // dedicated chunk, not reused
+        }
+        return chunk;
+    }
+    
+    //
+    // Methods used by the generated pipelines
+    //
+    
+    /**
+     * Begins recording a call of the given method id, followed by its arguments via the <code>put*</code> methods.
+     * @return <code>true</code> if recording, otherwise the call shall not be recorded.
+     */
+    public final boolean begin(int id) {
+        if( !recording ) {
+            return false;
+        }
+        ensure(2).putShort((short)id);
+        callCount++;
+        return true;
+    }
+    
+    /** Counts a call of the given method id not being recorded due to unsupported argument types. */
+    public final void skip(int id) {
+        if( recording ) {
+            skippedCount++;
+        }
+    }
+    
+    public final void putInt(int v) { ensure(4).putInt(v); }
+    public final void putLong(long v) { ensure(8).putLong(v); }
+    public final void putFloat(float v) { ensure(4).putFloat(v); }
+    public final void putDouble(double v) { ensure(8).putDouble(v); }
+    public final void putShort(short v) { ensure(2).putShort(v); }
+    public final void putByte(byte v) { ensure(1).put(v); }
+    public final void putBoolean(boolean v) { ensure(1).put( v ? (byte)1 : (byte)0 ); }
+    
+    public final void putArray(byte[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length);
+        b.putInt(a.length);
+        b.put(a);
+    }
+    public final void putArray(short[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length * Buffers.SIZEOF_SHORT);
+        b.putInt(a.length);
+        final int pos = b.position();
+        b.asShortBuffer().put(a);
+        b.position(pos + a.length * Buffers.SIZEOF_SHORT);
+    }
+    public final void putArray(int[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length * Buffers.SIZEOF_INT);
+        b.putInt(a.length);
+        final int pos = b.position();
+        b.asIntBuffer().put(a);
+        b.position(pos + a.length * Buffers.SIZEOF_INT);
+    }
+    public final void putArray(long[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length * Buffers.SIZEOF_LONG);
+        b.putInt(a.length);
+        final int pos = b.position();
+        b.asLongBuffer().put(a);
+        b.position(pos + a.length * Buffers.SIZEOF_LONG);
+    }
+    public final void putArray(float[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length * Buffers.SIZEOF_FLOAT);
+        b.putInt(a.length);
+        final int pos = b.position();
+        b.asFloatBuffer().put(a);
+        b.position(pos + a.length * Buffers.SIZEOF_FLOAT);
+    }
+    public final void putArray(double[] a) {
+        if( null == a ) { putInt(-1); return; }
+        final ByteBuffer b = ensure(4 + a.length * Buffers.SIZEOF_DOUBLE);
+        b.putInt(a.length);
+        final int pos = b.position();
+        b.asDoubleBuffer().put(a);
+        b.position(pos + a.length * Buffers.SIZEOF_DOUBLE);
+    }
+    
+    /**
+     * Records the remaining elements of the given buffer.
+     * @param contents if <code>false</code>, only the byte count is recorded, e.g. for buffers only written by GL.
+     */
+    public final void putBuffer(Buffer v, boolean contents) {
+        if( null == v ) { putInt(-1); return; }
+        final int bytes = v.remaining() * Buffers.sizeOfBufferElem(v);
+        final ByteBuffer b = ensure(5 + ( contents ? bytes : 0 ));
+        b.putInt(bytes);
+        b.put( contents ? (byte)1 : (byte)0 );
+        if( contents ) {
+            final int pos = b.position();
+            if( v instanceof ByteBuffer ) {
+                b.put(((ByteBuffer)v).duplicate());
+            } else if( v instanceof FloatBuffer ) {
+                b.asFloatBuffer().put(((FloatBuffer)v).duplicate());
+            } else if( v instanceof IntBuffer ) {
+                b.asIntBuffer().put(((IntBuffer)v).duplicate());
+            } else if( v instanceof ShortBuffer ) {
+                b.asShortBuffer().put(((ShortBuffer)v).duplicate());
+            } else if( v instanceof LongBuffer ) {
+                b.asLongBuffer().put(((LongBuffer)v).duplicate());
+            } else if( v instanceof DoubleBuffer ) {
+                b.asDoubleBuffer().put(((DoubleBuffer)v).duplicate());
+            } else if( v instanceof CharBuffer ) {
+                b.asCharBuffer().put(((CharBuffer)v).duplicate());
+            } else {
+                throw new IllegalArgumentException("Unsupported buffer type: "+v.getClass().getName());
+            }
+            b.position(pos + bytes);
+        }
+    }
+    
+    public final void putPointerBuffer(PointerBuffer v) {
+        if( null == v ) { putInt(-1); return; }
+        final int count = v.remaining();
+        final ByteBuffer b = ensure(4 + count * Buffers.SIZEOF_LONG);
+        b.putInt(count);
+        final int pos = v.position();
+        for(int i=0; i<count; i++) {
+            b.putLong(v.get(pos+i));
+        }
+    }
+    
+    public final void putString(String v) {
+        if( null == v ) { putInt(-1); return; }
+        final byte[] s = v.getBytes(UTF8);
+        final ByteBuffer b = ensure(4 + s.length);
+        b.putInt(s.length);
+        b.put(s);
+    }
+    
+    public final void putStrings(String[] v) {
+        if( null == v ) { putInt(-1); return; }
+        putInt(v.length);
+        for(int i=0; i<v.length; i++) {
+            putString(v[i]);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "GLCommandRecorder[recording "+recording+", calls "+callCount+", skipped "+skippedCount+", chunk size "+chunkSize+"]";
+    }
+}
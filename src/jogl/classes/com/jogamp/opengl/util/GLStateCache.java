@@ -0,0 +1,366 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util;
+
+import java.util.Arrays;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GL2ES3;
+import javax.media.opengl.GL2GL3;
+import javax.media.opengl.GL3;
+import javax.media.opengl.GL4;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLES2;
+
+import com.jogamp.common.util.IntIntHashMap;
+
+/**
+ * Shadow of frequently re-issued bindable and capability GL state, 
+ * used by the generated <code>javax.media.opengl.StateCache*</code> composable pipelines,
+ * e.g. {@link javax.media.opengl.StateCacheGL2}, to drop GL calls which would not change the current state.
+ * <p>
+ * Shadowed state:
+ * <ul>
+ *   <li>{@link GL#glActiveTexture(int) active texture unit}</li>
+ *   <li>{@link GL#glBindTexture(int, int) texture bindings} per unit and target for the first {@link #MAX_TEXTURE_UNITS} units</li>
+ *   <li>{@link GL#glBindBuffer(int, int) buffer bindings} per target</li>
+ *   <li>{@link GL2ES2#glUseProgram(int) current program}</li>
+ *   <li>{@link GL#glEnable(int) capabilities}, texture unit capabilities like <code>GL_TEXTURE_2D</code> 
+ *       or <code>GL_TEXTURE_GEN_S</code> per unit for the first {@link #MAX_TEXTURE_UNITS} units</li>
+ *   <li>{@link GL#glBlendFuncSeparate(int, int, int, int) blend function}</li>
+ * </ul>
+ * Initially all state is unknown, i.e. the first call of each kind is always passed downstream.
+ * </p>
+ * <p>
+ * Shadowed state is invalidated by the pipeline on GL calls which may implicitly change it, 
+ * e.g. <code>glPopAttrib</code>, <code>glDeleteTextures</code>, <code>glBindVertexArray</code>
+ * or any GL call not known to leave the shadowed state untouched.
+ * While compiling a display list nothing is cached.
+ * The shadowed state is also invalidated if the pipeline is used w/ another current {@link GLContext}.
+ * </p>
+ * <p>
+ * Since the shadowed state is only valid as long all GL state changes are issued through the pipeline,
+ * users shall call {@link #invalidate()} after issuing GL calls bypassing it, 
+ * e.g. via the downstream GL instance or native code.
+ * GL calls resulting in an error, e.g. binding an invalid name, are shadowed as if successful.
+ * </p>
+ */
+public class GLStateCache {
+    /** Implemented by all generated state caching pipelines. */
+    public static interface Source {
+        /** Returns the state cache of this pipeline. */
+        GLStateCache getStateCache();
+    }
+    
+    /** Number of texture units w/ shadowed bindings, {@value}. */
+    public static final int MAX_TEXTURE_UNITS = 32;
+    
+    private static final int UNKNOWN = -1;
+    
+    private static final int[] textureTargets = new int[] {
+        GL.GL_TEXTURE_2D, GL.GL_TEXTURE_CUBE_MAP, GL2ES2.GL_TEXTURE_3D, GL.GL_TEXTURE_2D_ARRAY,
+        GL2GL3.GL_TEXTURE_1D, GL2GL3.GL_TEXTURE_1D_ARRAY, GL2GL3.GL_TEXTURE_RECTANGLE, GL2GL3.GL_TEXTURE_BUFFER,
+        GLES2.GL_TEXTURE_EXTERNAL_OES, GL3.GL_TEXTURE_2D_MULTISAMPLE, GL3.GL_TEXTURE_2D_MULTISAMPLE_ARRAY, GL4.GL_TEXTURE_CUBE_MAP_ARRAY };
+    
+    private static final int[] bufferTargets = new int[] {
+        GL.GL_ARRAY_BUFFER, GL.GL_ELEMENT_ARRAY_BUFFER, GL2ES3.GL_PIXEL_PACK_BUFFER, GL2ES3.GL_PIXEL_UNPACK_BUFFER,
+        GL2ES3.GL_UNIFORM_BUFFER, GL2ES3.GL_COPY_READ_BUFFER, GL2ES3.GL_COPY_WRITE_BUFFER, 
+        GL2ES3.GL_TRANSFORM_FEEDBACK_BUFFER, GL4.GL_DRAW_INDIRECT_BUFFER };
+    
+    private static final int ELEMENT_ARRAY_BUFFER_IDX = 1;
+    
+    /** Capabilities whose state belongs to the active texture unit. */
+    private static final int[] textureUnitCaps = new int[] {
+        GL.GL_TEXTURE_2D, GL.GL_TEXTURE_CUBE_MAP, GL2ES2.GL_TEXTURE_3D, GL2GL3.GL_TEXTURE_1D, GL2GL3.GL_TEXTURE_RECTANGLE,
+        GLES2.GL_TEXTURE_EXTERNAL_OES, GL2.GL_TEXTURE_GEN_S, GL2.GL_TEXTURE_GEN_T, GL2.GL_TEXTURE_GEN_R, GL2.GL_TEXTURE_GEN_Q };
+    
+    /** Shift of the texture unit within a capability key, above all capability enums. */
+    private static final int TEXTURE_UNIT_CAP_SHIFT = 20;
+    
+    private GLContext context;
+    private int displayListDepth;
+    private int activeTexture;
+    private final int[] textureBindings = new int[MAX_TEXTURE_UNITS * textureTargets.length];
+    private final int[] bufferBindings = new int[bufferTargets.length];
+    private int program;
+    private final IntIntHashMap capabilities = new IntIntHashMap();
+    private final int[] blendFunc = new int[4];
+    private long hits, misses;
+    
+    public GLStateCache() {
+        capabilities.setKeyNotFoundValue(UNKNOWN);
+        context = null;
+        displayListDepth = 0;
+        invalidate();
+    }
+    
+    /** Invalidates all shadowed state. */
+    public final void invalidate() {
+        activeTexture = UNKNOWN;
+        program = UNKNOWN;
+        invalidateTextures();
+        invalidateBuffers();
+        invalidateCapabilities();
+        invalidateBlendFunc();
+    }
+    
+    /** Invalidates all shadowed texture bindings. */
+    public final void invalidateTextures() {
+        Arrays.fill(textureBindings, UNKNOWN);
+    }
+    
+    /** Invalidates all shadowed buffer bindings. */
+    public final void invalidateBuffers() {
+        Arrays.fill(bufferBindings, UNKNOWN);
+    }
+    
+    /** Invalidates the shadowed element array buffer binding, being part of the vertex array object state. */
+    public final void invalidateElementArrayBuffer() {
+        bufferBindings[ELEMENT_ARRAY_BUFFER_IDX] = UNKNOWN;
+    }
+    
+    /** Invalidates all shadowed capabilities. */
+    public final void invalidateCapabilities() {
+        capabilities.clear();
+    }
+    
+    /** Invalidates the shadowed blend function. */
+    public final void invalidateBlendFunc() {
+        Arrays.fill(blendFunc, UNKNOWN);
+    }
+    
+    /** Disables caching while compiling a display list, issued by the pipeline at <code>glNewList</code>. */
+    public final void beginDisplayList() {
+        displayListDepth++;
+        invalidate();
+    }
+    
+    /** Issued by the pipeline at <code>glEndList</code>. */
+    public final void endDisplayList() {
+        if( 0 < displayListDepth ) {
+            displayListDepth--;
+        }
+        invalidate();
+    }
+    
+    /** Returns the number of dropped GL calls. */
+    public final long getHits() { return hits; }
+    
+    /** Returns the number of cacheable GL calls passed downstream. */
+    public final long getMisses() { return misses; }
+    
+    /** Clears the hit and miss counter. */
+    public final void resetCounter() {
+        hits = 0;
+        misses = 0;
+    }
+    
+    /** 
+     * Returns <code>false</code> if caching is suspended, i.e. compiling a display list.
+     * Invalidates all state if used w/ another context than before.
+     */
+    private final boolean validate() {
+        if( 0 < displayListDepth ) {
+            misses++;
+            return false;
+        }
+        final GLContext current = GLContext.getCurrent();
+        if( current != context ) {
+            context = current;
+            invalidate();
+        }
+        return true;
+    }
+    
+    private final boolean update(int[] state, int idx, int value) {
+        if( state[idx] == value ) {
+            hits++;
+            return false;
+        }
+        state[idx] = value;
+        misses++;
+        return true;
+    }
+    
+    private static final int indexOf(int[] targets, int target) {
+        for(int i=0; i<targets.length; i++) {
+            if( targets[i] == target ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the active texture unit changes or is unknown.
+     */
+    public final boolean activeTexture(int texture) {
+        if( !validate() ) {
+            return true;
+        }
+        if( activeTexture == texture ) {
+            hits++;
+            return false;
+        }
+        activeTexture = texture;
+        misses++;
+        return true;
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the binding of the active texture unit and given target changes or is unknown.
+     * Bindings of units beyond {@link #MAX_TEXTURE_UNITS} or of unknown targets are not cached.
+     */
+    public final boolean bindTexture(int target, int texture) {
+        if( !validate() ) {
+            return true;
+        }
+        final int unit = activeTexture - GL.GL_TEXTURE0;
+        final int t = indexOf(textureTargets, target);
+        if( UNKNOWN == activeTexture || 0 > unit || MAX_TEXTURE_UNITS <= unit || 0 > t ) {
+            misses++;
+            return true;
+        }
+        return update(textureBindings, unit * textureTargets.length + t, texture);
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the binding of the given target changes or is unknown.
+     * Bindings of unknown targets are not cached.
+     */
+    public final boolean bindBuffer(int target, int buffer) {
+        if( !validate() ) {
+            return true;
+        }
+        final int t = indexOf(bufferTargets, target);
+        if( 0 > t ) {
+            misses++;
+            return true;
+        }
+        return update(bufferBindings, t, buffer);
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the current program changes or is unknown.
+     */
+    public final boolean useProgram(int program) {
+        if( !validate() ) {
+            return true;
+        }
+        if( this.program == program ) {
+            hits++;
+            return false;
+        }
+        this.program = program;
+        misses++;
+        return true;
+    }
+    
+    private final boolean setCapability(int cap, int value) {
+        if( !validate() ) {
+            return true;
+        }
+        final int key;
+        if( 0 <= indexOf(textureUnitCaps, cap) ) {
+            final int unit = activeTexture - GL.GL_TEXTURE0;
+            if( UNKNOWN == activeTexture || 0 > unit || MAX_TEXTURE_UNITS <= unit ) {
+                misses++;
+                return true;
+            }
+            key = cap | ( ( unit + 1 ) << TEXTURE_UNIT_CAP_SHIFT );
+        } else {
+            key = cap;
+        }
+        if( capabilities.get(key) == value ) {
+            hits++;
+            return false;
+        }
+        capabilities.put(key, value);
+        misses++;
+        return true;
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the given capability is disabled or unknown.
+     * Texture unit capabilities are cached per active texture unit, 
+     * and not cached for units beyond {@link #MAX_TEXTURE_UNITS} or if the active texture unit is unknown.
+     */
+    public final boolean enable(int cap) {
+        return setCapability(cap, 1);
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the given capability is enabled or unknown.
+     * Texture unit capabilities are cached per active texture unit, 
+     * and not cached for units beyond {@link #MAX_TEXTURE_UNITS} or if the active texture unit is unknown.
+     */
+    public final boolean disable(int cap) {
+        return setCapability(cap, 0);
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the blend function changes or is unknown.
+     */
+    public final boolean blendFunc(int sfactor, int dfactor) {
+        return blendFuncSeparate(sfactor, dfactor, sfactor, dfactor);
+    }
+    
+    /**
+     * Returns <code>true</code> if the call must be issued downstream, 
+     * i.e. the blend function changes or is unknown.
+     */
+    public final boolean blendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        if( !validate() ) {
+            return true;
+        }
+        if( blendFunc[0] == srcRGB && blendFunc[1] == dstRGB && blendFunc[2] == srcAlpha && blendFunc[3] == dstAlpha ) {
+            hits++;
+            return false;
+        }
+        blendFunc[0] = srcRGB;
+        blendFunc[1] = dstRGB;
+        blendFunc[2] = srcAlpha;
+        blendFunc[3] = dstAlpha;
+        misses++;
+        return true;
+    }
+    
+    @Override
+    public String toString() {
+        return "GLStateCache[hits "+hits+", misses "+misses+", activeTexture "+activeTexture+", program "+program+"]";
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Iterator;
 import javax.media.opengl.GL;
 import javax.media.opengl.GL2ES1;
 import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLContext;
 import javax.media.opengl.GLException;
 import javax.media.opengl.fixedfunc.GLPointerFunc;
 
@@ -18,6 +19,7 @@ import jogamp.opengl.Debug;
 
 import com.jogamp.common.nio.Buffers;
 import com.jogamp.common.os.Platform;
+import com.jogamp.opengl.GLExtensions;
 import com.jogamp.opengl.util.glsl.ShaderState;
 
 /**
@@ -391,6 +393,59 @@ public class ImmModeSink {
    */
   public void setResizeElementCount(int v) { vboSet.setResizeElementCount(v); }
   
+  /**
+   * Returns the buffer growth factor.
+   * @see #setResizeGrowth(float, int)
+   */
+  public float getResizeGrowthFactor() { return vboSet.getResizeGrowthFactor(); }
+  
+  /**
+   * Returns the maximum additional element count of a buffer resize, <code>0</code> if unlimited.
+   * @see #setResizeGrowth(float, int)
+   */
+  public int getResizeMaxElementCount() { return vboSet.getResizeMaxElementCount(); }
+  
+  /**
+   * Sets the buffer growth policy if buffer resize is required.
+   * <p>
+   * The buffer grows about <code>count * ( factor - 1 )</code> elements, 
+   * but at least about the {@link #getResizeElementCount() resize element count}
+   * and at most about <code>maxElementCount</code> elements if <code>maxElementCount &gt; 0</code>.
+   * A factor of <code>1</code> or less results in linear growth about the resize element count.
+   * </p>
+   * <p>
+   * Defaults to geometric growth w/ factor <code>2</code> and no limit, 
+   * avoiding quadratic copy costs when filling large sinks.
+   * </p>
+   * @param factor the growth factor
+   * @param maxElementCount maximum additional element count of a resize, <code>0</code> for no limit
+   * @see #setResizeElementCount(int)
+   */
+  public void setResizeGrowth(float factor, int maxElementCount) { vboSet.setResizeGrowth(factor, maxElementCount); }
+  
+  /**
+   * Returns the number of VBOs used in streaming mode, <code>0</code> if disabled.
+   * @see #setStreamingVBOCount(int)
+   */
+  public int getStreamingVBOCount() { return vboSet.getStreamingVBOCount(); }
+  
+  /**
+   * Enables the streaming mode for geometry specified each frame if <code>count &gt; 0</code>, 
+   * otherwise disables it.
+   * <p>
+   * In streaming mode each {@link #glEnd(GL) glEnd(..)} uses the next VBO out of a ring of <code>count</code> VBOs,
+   * orphans its data storage via <code>glBufferData(.., null, ..)</code> and writes the data
+   * via <code>glMapBufferRange(..)</code> w/ unsynchronized writes if available, otherwise via <code>glBufferSubData(..)</code>.
+   * Hence writing the next frame's data does not stall on the pipeline still using the previous data.
+   * </p>
+   * <p>
+   * Requires VBO usage, see {@link #getUseVBO()}. 
+   * A <code>glBufferUsage</code> of {@link GL2ES2#GL_STREAM_DRAW} or {@link GL#GL_DYNAMIC_DRAW} is recommended.
+   * </p>
+   * @param count number of VBOs, e.g. 3
+   */
+  public void setStreamingVBOCount(int count) { vboSet.setStreamingVBOCount(count); }
+  
   private void destroyList(GL gl) {
     for(int i=0; i<vboSetList.size(); i++) {
         vboSetList.get(i).destroy(gl);
@@ -459,7 +514,7 @@ public class ImmModeSink {
         this.modeOrig = 0;
         this.bufferEnabled=false;
         this.bufferWritten=false;
-        this.bufferWrittenOnce=false;
+        this.vboStoreSize=0;
         this.glslLocationSet = false;
     }
 
@@ -468,10 +523,29 @@ public class ImmModeSink {
     
     protected boolean getUseVBO() { return useVBO; }
     
+    protected float getResizeGrowthFactor() { return resizeGrowthFactor; }
+    protected int getResizeMaxElementCount() { return resizeMaxElementCount; }
+    protected void setResizeGrowth(float factor, int maxElementCount) {
+        resizeGrowthFactor = factor;
+        resizeMaxElementCount = Math.max(0, maxElementCount);
+    }
+    
+    protected int getStreamingVBOCount() { return streamVBOCount; }
+    protected void setStreamingVBOCount(int count) {
+        if( 0 < count && !useVBO ) {
+            throw new GLException("Streaming mode requires VBO usage:\n\t"+this);
+        }
+        streamVBOCount = Math.max(0, count);
+    }
+    
     protected final VBOSet regenerate(GL gl) {
-        return new VBOSet(initialElementCount, vComps, 
+        final VBOSet vs = new VBOSet(initialElementCount, vComps, 
                           vDataType, cComps, cDataType, nComps, nDataType, tComps, tDataType, 
                           useGLSL, glBufferUsage, shaderState, shaderProgram);
+        vs.resizeElementCount = resizeElementCount;
+        vs.setResizeGrowth(resizeGrowthFactor, resizeMaxElementCount);
+        vs.setStreamingVBOCount(streamVBOCount);
+        return vs;
     }
 
     protected void checkSeal(boolean test) throws GLException {
@@ -515,7 +589,18 @@ public class ImmModeSink {
         if (buffer!=null) {
             if(null==indices) {
                 if ( GL_QUADS == mode && !gl.isGL2() ) {
-                    for (int j = 0; j < vElems - 3; j += 4) {
+                    final int quads = vElems / 4;
+                    if( null == quadIndexVBO ) {
+                        quadIndexVBO = QuadIndices.acquire(gl);
+                    }
+                    final int prevElemBuffer = gl.glGetBoundBuffer(GL.GL_ELEMENT_ARRAY_BUFFER);
+                    final int drawn = quadIndexVBO.bind(gl, quads);
+                    if( 0 < drawn ) {
+                        gl.glDrawElements(GL.GL_TRIANGLES, drawn * 6, quadIndexVBO.type, 0L);
+                    }
+                    gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, prevElemBuffer);
+                    // exceeding the ushort index range w/o uint index support
+                    for (int j = drawn * 4; j < vElems - 3; j += 4) {
                         gl.glDrawArrays(GL.GL_TRIANGLE_FAN, j, 4);
                     }
                 } else {
@@ -536,22 +621,7 @@ public class ImmModeSink {
                 final int idx0 = indices.position();
                 
                 if ( GL_QUADS == mode && !gl.isGL2() ) {
-                    if( GL.GL_UNSIGNED_BYTE == type ) {
-                        final ByteBuffer b = (ByteBuffer) indices;
-                        for (int j = 0; j < idxLen; j++) {
-                            gl.glDrawArrays(GL.GL_TRIANGLE_FAN, (int)(0x000000ff & b.get(idx0+j)), 4);
-                        }                        
-                    } else if( GL.GL_UNSIGNED_SHORT == type ){
-                        final ShortBuffer b = (ShortBuffer) indices;
-                        for (int j = 0; j < idxLen; j++) {
-                            gl.glDrawArrays(GL.GL_TRIANGLE_FAN, (int)(0x0000ffff & b.get(idx0+j)), 4);
-                        }                                                
-                    } else {
-                        final IntBuffer b = (IntBuffer) indices;
-                        for (int j = 0; j < idxLen; j++) {
-                            gl.glDrawArrays(GL.GL_TRIANGLE_FAN, (int)(0xffffffff & b.get(idx0+j)), 4);
-                        }                                                
-                    }
+                    drawQuadIndices(gl, indices, type, idx0, idxLen);
                 } else {
                     gl.glDrawElements(mode, idxLen, type, indices);
                     // GL2: gl.glDrawRangeElements(mode, 0, idxLen-1, idxLen, type, indices);
@@ -568,6 +638,72 @@ public class ImmModeSink {
         }
     }
 
+    /**
+     * Draws the quads starting at the given vertex indices, i.e. one quad per index as
+     * previously drawn w/ one <code>GL_TRIANGLE_FAN</code> per index,
+     * in one <code>glDrawElements(GL_TRIANGLES, ..)</code> call
+     * by rewriting each index <code>i</code> to <code>i, i+1, i+2, i, i+2, i+3</code>.
+     * <p>
+     * If the rewritten indices exceed the <code>GL_UNSIGNED_SHORT</code> range 
+     * w/o <code>GL_UNSIGNED_INT</code> index support, i.e. neither GL2ES3 nor <code>GL_OES_element_index_uint</code>,
+     * the quads within the range are drawn in <code>GL_UNSIGNED_SHORT</code> chunks
+     * and the ones exceeding it w/ one <code>GL_TRIANGLE_FAN</code> each, preserving the draw order.
+     * </p>
+     */
+    private void drawQuadIndices(GL gl, Buffer indices, int type, int idx0, int idxLen) {
+        int maxIdx = 0;
+        for (int j = 0; j < idxLen; j++) {
+            maxIdx = Math.max(maxIdx, getIndex(indices, type, idx0+j));
+        }
+        final boolean useInt = maxIdx + 3 > 0xffff && 
+                               ( gl.isGL2ES3() || gl.isExtensionAvailable(GLExtensions.OES_element_index_uint) );
+        final int count = idxLen * 6;
+        if( null == quadIndices || quadIndices.capacity() < count || ( quadIndices instanceof IntBuffer ) != useInt ) {
+            quadIndices = useInt ? Buffers.newDirectIntBuffer(count) : Buffers.newDirectShortBuffer(count);
+        }
+        quadIndices.clear();
+        if( useInt ) {
+            final IntBuffer b = (IntBuffer) quadIndices;
+            for (int j = 0; j < idxLen; j++) {
+                final int i = getIndex(indices, type, idx0+j);
+                b.put(i).put(i+1).put(i+2).put(i).put(i+2).put(i+3);
+            }
+            b.flip();
+            gl.glDrawElements(GL.GL_TRIANGLES, count, GL.GL_UNSIGNED_INT, b);
+        } else {
+            final ShortBuffer b = (ShortBuffer) quadIndices;
+            for (int j = 0; j < idxLen; j++) {
+                final int i = getIndex(indices, type, idx0+j);
+                if( i + 3 <= 0xffff ) {
+                    b.put((short)i).put((short)(i+1)).put((short)(i+2)).put((short)i).put((short)(i+2)).put((short)(i+3));
+                } else {
+                    drawQuadIndicesChunk(gl, b);
+                    gl.glDrawArrays(GL.GL_TRIANGLE_FAN, i, 4);
+                }
+            }
+            drawQuadIndicesChunk(gl, b);
+        }
+    }
+    
+    /** Draws the pending <code>GL_UNSIGNED_SHORT</code> quad indices, if any, and clears the buffer. */
+    private static void drawQuadIndicesChunk(GL gl, ShortBuffer b) {
+        if( 0 < b.position() ) {
+            b.flip();
+            gl.glDrawElements(GL.GL_TRIANGLES, b.limit(), GL.GL_UNSIGNED_SHORT, b);
+            b.clear();
+        }
+    }
+    
+    private static int getIndex(Buffer indices, int type, int idx) {
+        if( GL.GL_UNSIGNED_BYTE == type ) {
+            return 0x000000ff & ((ByteBuffer) indices).get(idx);
+        } else if( GL.GL_UNSIGNED_SHORT == type ) {
+            return 0x0000ffff & ((ShortBuffer) indices).get(idx);
+        } else {
+            return ((IntBuffer) indices).get(idx);
+        }
+    }
+
     public void glVertexv(Buffer v) {
         checkSeal(false);
         Buffers.put(vertexArray, v);
@@ -905,6 +1041,21 @@ public class ImmModeSink {
         vertexArray=null; colorArray=null; normalArray=null; textCoordArray=null;
         vArrayData=null; cArrayData=null; nArrayData=null; tArrayData=null;
         buffer=null;
+        vboStoreSize=0;
+        quadIndices=null;
+        if( null != quadIndexVBO ) {
+            quadIndexVBO.release(gl);
+            quadIndexVBO = null;
+        }
+        if( null != gl && null != streamVBONames ) {
+            for(int i=0; i<streamVBONames.length; i++) {
+                if( 0 != streamVBONames[i] ) {
+                    gl.glDeleteBuffers(1, streamVBONames, i);
+                }
+            }
+            vboName = 0;
+        }
+        streamVBONames = null;
     }
 
     public void reset(GL gl) {
@@ -938,7 +1089,9 @@ public class ImmModeSink {
         GL gl = glObj.getGL();
         if(seal) {
             if(useVBO) {
-                if(0 == vboName) {
+                if( 0 < streamVBOCount ) {
+                    vboName = nextStreamingVBO(gl);
+                } else if(0 == vboName) {
                     int[] tmp = new int[1];
                     gl.glGenBuffers(1, tmp, 0);
                     vboName = tmp[0];
@@ -991,29 +1144,116 @@ public class ImmModeSink {
     }
   }
 
-  private final void writeBuffer(GL gl) {
+  /** Returns the next VBO of the streaming ring, generated on demand */
+  private int nextStreamingVBO(GL gl) {
+    if( null == streamVBONames || streamVBONames.length != streamVBOCount ) {
+        final int[] names = new int[streamVBOCount];
+        if( null != streamVBONames ) {
+            for(int i=0; i<streamVBONames.length; i++) {
+                if( i < names.length ) {
+                    names[i] = streamVBONames[i];
+                } else if( 0 != streamVBONames[i] ) {
+                    gl.glDeleteBuffers(1, streamVBONames, i);
+                }
+            }
+        }
+        streamVBONames = names;
+        streamVBOIdx = -1;
+    }
+    streamVBOIdx = ( streamVBOIdx + 1 ) % streamVBONames.length;
+    if( 0 == streamVBONames[streamVBOIdx] ) {
+        gl.glGenBuffers(1, streamVBONames, streamVBOIdx);
+    }
+    return streamVBONames[streamVBOIdx];
+  }
+  
+  /** Streaming mode: orphan the bound VBO's data storage and write the used ranges of all arrays */
+  private final void writeBufferStreaming(GL gl) {
     final int vBytes  = vElems * vCompsBytes;
     final int cBytes  = cElems * cCompsBytes;
     final int nBytes  = nElems * nCompsBytes;
     final int tBytes  = tElems * tCompsBytes;
-    final int delta = buffer.limit() - (vBytes+cBytes+nBytes+tBytes);
-    if( bufferWrittenOnce && delta > pageSize ) {
-        if(0 < vBytes) {
-            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, vOffset, vBytes, vertexArray);
-        }
-        if(0 < cBytes) {
-            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, cOffset, cBytes, colorArray);
-        }
-        if(0 < nBytes) {
-            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, nOffset, nBytes, normalArray);
+    final int size = buffer.limit();
+    gl.glBufferData(GL.GL_ARRAY_BUFFER, size, null, glBufferUsage);
+    
+    if( 0 > streamMapBufferRange ) {
+        streamMapBufferRange = gl.isFunctionAvailable("glMapBufferRange") ? 1 : 0;
+    }
+    if( 0 < streamMapBufferRange ) {
+        final ByteBuffer m = gl.glMapBufferRange(GL.GL_ARRAY_BUFFER, 0, size, 
+                             GL.GL_MAP_WRITE_BIT | GL.GL_MAP_INVALIDATE_BUFFER_BIT | GL.GL_MAP_UNSYNCHRONIZED_BIT);
+        if( null != m ) {
+            putRange(m, vOffset, vBytes);
+            putRange(m, cOffset, cBytes);
+            putRange(m, nOffset, nBytes);
+            putRange(m, tOffset, tBytes);
+            if( gl.glUnmapBuffer(GL.GL_ARRAY_BUFFER) ) {
+                return;
+            } // else data store corrupted while mapped, rewrite
+        } else {
+            streamMapBufferRange = 0;
         }
-        if(0 < tBytes) {
-            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, tOffset, tBytes, textCoordArray);
+    }
+    writeBufferRanges(gl, vBytes, cBytes, nBytes, tBytes);
+  }
+  
+  private final void putRange(ByteBuffer dest, int offset, int bytes) {
+    if( 0 < bytes ) {
+        final ByteBuffer src = buffer.duplicate();
+        src.limit(offset+bytes);
+        src.position(offset);
+        dest.position(offset);
+        dest.put(src);
+    }
+  }
+  
+  /** Writes the used ranges of all arrays to the bound VBO via <code>glBufferSubData(..)</code> */
+  private final void writeBufferRanges(GL gl, int vBytes, int cBytes, int nBytes, int tBytes) {
+    if(0 < vBytes) {
+        gl.glBufferSubData(GL.GL_ARRAY_BUFFER, vOffset, vBytes, vertexArray);
+    }
+    if(0 < cBytes) {
+        gl.glBufferSubData(GL.GL_ARRAY_BUFFER, cOffset, cBytes, colorArray);
+    }
+    if(0 < nBytes) {
+        gl.glBufferSubData(GL.GL_ARRAY_BUFFER, nOffset, nBytes, normalArray);
+    }
+    if(0 < tBytes) {
+        gl.glBufferSubData(GL.GL_ARRAY_BUFFER, tOffset, tBytes, textCoordArray);
+    }
+  }
+  
+  /**
+   * Writes the used ranges of all arrays to the bound VBO.
+   * <p>
+   * The VBO's data store is only (re)allocated if its size differs from the buffer's, 
+   * e.g. after the buffer has grown. In case the unused buffer space exceeds the page size, 
+   * the data store is allocated w/o data and only the used ranges are written, 
+   * otherwise the whole buffer is written at once.
+   * </p>
+   */
+  private final void writeBuffer(GL gl) {
+    if( 0 < streamVBOCount ) {
+        vboStoreSize = 0; // ring VBO
+        writeBufferStreaming(gl);
+        return;
+    }
+    final int vBytes  = vElems * vCompsBytes;
+    final int cBytes  = cElems * cCompsBytes;
+    final int nBytes  = nElems * nCompsBytes;
+    final int tBytes  = tElems * tCompsBytes;
+    final int size = buffer.limit();
+    if( vboStoreSize != size ) {
+        final int delta = size - (vBytes+cBytes+nBytes+tBytes);
+        vboStoreSize = size;
+        if( delta > pageSize ) {
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, size, null, glBufferUsage);
+        } else {
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, size, buffer, glBufferUsage);
+            return;
         }
-    } else {
-        gl.glBufferData(GL.GL_ARRAY_BUFFER, buffer.limit(), buffer, glBufferUsage);
-        bufferWrittenOnce = true;                    
-    }                      
+    }
+    writeBufferRanges(gl, vBytes, cBytes, nBytes, tBytes);
   }
   
   private void enableBufferFixed(GL gl, boolean enable) {
@@ -1244,8 +1484,9 @@ public class ImmModeSink {
                        ", sealed "+sealed+ 
                        ", sealedGL "+sealedGL+
                        ", bufferEnabled "+bufferEnabled+ 
-                       ", bufferWritten "+bufferWritten+" (once "+bufferWrittenOnce+")"+
-                       ", useVBO "+useVBO+", vboName "+vboName+
+                       ", bufferWritten "+bufferWritten+" (store "+vboStoreSize+")"+
+                       ", useVBO "+useVBO+", vboName "+vboName+", streaming "+streamVBOCount+
+                       ", resize "+resizeElementCount+" (factor "+resizeGrowthFactor+", max "+resizeMaxElementCount+")"+
                        ", useGLSL "+useGLSL+
                        glslS+
                        ",\n\t"+vArrayData+
@@ -1365,8 +1606,6 @@ public class ImmModeSink {
             tArrayData = null;
         }
         
-        bufferWrittenOnce = false; // new buffer data storage size!
-        
         if(DEBUG_BUFFER) {
             System.err.println("ImmModeSink.realloc.X: "+this.toString());
             Thread.dumpStack();
@@ -1374,14 +1613,38 @@ public class ImmModeSink {
         return true;
     }
 
-    /** grow buffer by initialElementCount if there is no space for one more element in the designated buffer */
+    /** 
+     * Returns the additional element count of a buffer resize for the designated buffer,
+     * see {@link ImmModeSink#setResizeGrowth(float, int)}.
+     */
+    protected final int getResizeElementCount(int type) {
+        final int count;
+        switch (type) {
+            case VERTEX:   count = vCount; break;
+            case COLOR:    count = cCount; break;
+            case NORMAL:   count = nCount; break;
+            case TEXTCOORD: count = tCount; break;
+            default:
+                throw new InternalError("XXX");
+        }
+        int add = resizeElementCount;
+        if( 1f < resizeGrowthFactor ) {
+            add = Math.max(add, (int) Math.min( (long) ( count * ( resizeGrowthFactor - 1f ) ), Integer.MAX_VALUE / 2 ) );
+            if( 0 < resizeMaxElementCount ) {
+                add = Math.min(add, Math.max(resizeElementCount, resizeMaxElementCount));
+            }
+        }
+        return Math.max(1, add);
+    }
+    
+    /** grow buffer per growth policy if there is no space for one more element in the designated buffer */
     protected final boolean growBuffer(int type) {
         if( null !=buffer && !sealed ) {
             if( !fitElementInBuffer(type) ) {
                 // save olde values ..
                 final Buffer _vertexArray=vertexArray, _colorArray=colorArray, _normalArray=normalArray, _textCoordArray=textCoordArray;
         
-                if ( reallocateBuffer(resizeElementCount) ) {
+                if ( reallocateBuffer(getResizeElementCount(type)) ) {
                     if(null!=_vertexArray) {
                         _vertexArray.flip();
                         Buffers.put(vertexArray, _vertexArray);
@@ -1467,9 +1730,18 @@ public class ImmModeSink {
     final private ShaderState shaderState;
     private int shaderProgram;
     private int mode, modeOrig, resizeElementCount;
+    private float resizeGrowthFactor = 2f;
+    private int resizeMaxElementCount = 0;
+    
+    private int streamVBOCount = 0;
+    private int[] streamVBONames = null; // streaming VBO ring, generated on demand
+    private int streamVBOIdx = -1;
+    private int streamMapBufferRange = -1; // -1 unknown, 0 not available, 1 available
 
     private ByteBuffer buffer;
     private int vboName;
+    private Buffer quadIndices; // rewritten user indices for GL_QUADS on !GL2
+    private QuadIndices quadIndexVBO; // shared GL_QUADS index VBO on !GL2, referenced until destroy
 
     private static final int VERTEX = 0;
     private static final int COLOR = 1;
@@ -1488,9 +1760,111 @@ public class ImmModeSink {
     private GLArrayDataWrapper vArrayData, cArrayData, nArrayData, tArrayData;
 
     private boolean sealed, sealedGL;    
-    private boolean bufferEnabled, bufferWritten, bufferWrittenOnce;
+    private boolean bufferEnabled, bufferWritten;
+    private int vboStoreSize; // size of the non streaming VBO's data store in bytes, 0 if not allocated
     private boolean glslLocationSet;
   }
 
-}
+  /**
+   * Shared triangle index buffer object emulating <code>GL_QUADS</code> on !GL2 profiles,
+   * i.e. <code>0, 1, 2, 0, 2, 3</code> per quad.
+   * <p>
+   * One instance is attached to each {@link GLContext} and used by all sinks of it.
+   * The buffer grows on demand, using <code>GL_UNSIGNED_SHORT</code> indices
+   * until more than 16384 quads are requested and <code>GL_UNSIGNED_INT</code> indices
+   * are supported, see {@link #bind(GL, int)}.
+   * </p>
+   */
+  private static class QuadIndices {
+    private static final String ATTACHMENT_KEY = "com.jogamp.opengl.util.ImmModeSink.QuadIndices";
+    private static final int MAX_USHORT_QUADS = 0x10000 / 4;
+    
+    private final GLContext context;
+    private int refCount = 0;
+    private int vboName = 0;
+    private int quadCount = 0;
+    private int type = GL.GL_UNSIGNED_SHORT;
+    
+    private QuadIndices(GLContext context) {
+        this.context = context;
+    }
+    
+    /** Returns the instance shared by all {@link VBOSet}s of the current context, adding a reference. */
+    static QuadIndices acquire(GL gl) {
+        final GLContext ctx = gl.getContext();
+        QuadIndices qi = (QuadIndices) ctx.getAttachedObject(ATTACHMENT_KEY);
+        if( null == qi ) {
+            qi = new QuadIndices(ctx);
+            ctx.attachObject(ATTACHMENT_KEY, qi);
+        }
+        qi.refCount++;
+        return qi;
+    }
+    
+    /**
+     * Removes a reference. Releasing the last reference deletes the index buffer object
+     * and detaches this instance from its context, if the given <code>gl</code> is not <code>null</code>.
+     */
+    void release(GL gl) {
+        refCount--;
+        if( 0 >= refCount && null != gl ) {
+            refCount = 0;
+            if( 0 != vboName ) {
+                gl.glDeleteBuffers(1, new int[] { vboName }, 0);
+                vboName = 0;
+                quadCount = 0;
+                type = GL.GL_UNSIGNED_SHORT;
+            }
+            if( this == context.getAttachedObject(ATTACHMENT_KEY) ) {
+                context.detachObject(ATTACHMENT_KEY);
+            }
+        }
+    }
+    
+    /**
+     * Binds the index buffer object to <code>GL_ELEMENT_ARRAY_BUFFER</code>,
+     * growing it to cover the given number of quads if possible.
+     * @return the number of quads covered, may be less than requested
+     *         if exceeding the <code>GL_UNSIGNED_SHORT</code> range w/o <code>GL_UNSIGNED_INT</code> index support. 
+     */
+    int bind(GL gl, int quads) {
+        if( 0 == vboName ) {
+            final int[] tmp = new int[1];
+            gl.glGenBuffers(1, tmp, 0);
+            vboName = tmp[0];
+        }
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, vboName);
+        if( quads > quadCount ) {
+            final boolean useInt = GL.GL_UNSIGNED_INT == type || 
+                                   ( quads > MAX_USHORT_QUADS && ( gl.isGL2ES3() || gl.isExtensionAvailable(GLExtensions.OES_element_index_uint) ) );
+            final int maxQuads = useInt ? Integer.MAX_VALUE / 6 : MAX_USHORT_QUADS;
+            if( quadCount < maxQuads ) {
+                final int n = Math.min(maxQuads, Math.max(quads, quadCount * 2));
+                final Buffer b;
+                if( useInt ) {
+                    final IntBuffer ib = Buffers.newDirectIntBuffer(n * 6);
+                    for(int i = 0, v = 0; i < n; i++, v += 4) {
+                        ib.put(v).put(v+1).put(v+2).put(v).put(v+2).put(v+3);
+                    }
+                    b = ib;
+                } else {
+                    final ShortBuffer sb = Buffers.newDirectShortBuffer(n * 6);
+                    for(int i = 0, v = 0; i < n; i++, v += 4) {
+                        sb.put((short)v).put((short)(v+1)).put((short)(v+2)).put((short)v).put((short)(v+2)).put((short)(v+3));
+                    }
+                    b = sb;
+                }
+                b.flip();
+                gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, b.limit() * Buffers.sizeOfBufferElem(b), b, GL.GL_STATIC_DRAW);
+                quadCount = n;
+                type = useInt ? GL.GL_UNSIGNED_INT : GL.GL_UNSIGNED_SHORT;
+                if(DEBUG_DRAW) {
+                    System.err.println("ImmModeSink.QuadIndices: vbo "+vboName+", quads "+quadCount+", type 0x"+Integer.toHexString(type));
+                }
+            }
+        }
+        return Math.min(quads, quadCount);
+    }
+  }
 
+}
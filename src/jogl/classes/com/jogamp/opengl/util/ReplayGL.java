@@ -0,0 +1,436 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLException;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.common.nio.PointerBuffer;
+
+/**
+ * Re-issues a GL command stream recorded by {@link GLCommandRecorder} against any {@link GL} implementation,
+ * e.g. to benchmark the call overhead of a captured frame or to compare command counts between releases.
+ * <p>
+ * The whole stream is decoded into memory at construction, 
+ * hence {@link #replay(GL)} only dispatches the calls, which may be repeated.
+ * Calls are dispatched via reflection to the methods of the same name and argument types 
+ * of the GL interfaces implemented by the target GL object, 
+ * calls of methods not available are skipped.
+ * Object names returned by the target GL, e.g. via <code>glGenTextures</code>, are not remapped,
+ * i.e. the recorded names are used.
+ * </p>
+ * <p>
+ * Buffer arguments are passed as direct buffers holding the recorded contents, 
+ * generic {@link Buffer} arguments as {@link ByteBuffer}.
+ * Recorded argument values are shared by all replays, 
+ * i.e. values written by the target GL into arrays or buffers are visible by later replays.
+ * A stream recorded on a machine of different byte order is decoded correctly, 
+ * however the buffer contents are passed as recorded.
+ * </p>
+ * <p>
+ * Command line usage, dumps the number of calls per method:
+ * <pre>
+ *   java com.jogamp.opengl.util.ReplayGL frame.glrec
+ * </pre>
+ * </p>
+ */
+public class ReplayGL {
+    private static final Map<String, Class<?>> argTypes = new HashMap<String, Class<?>>();
+    static {
+        final Class<?>[] types = new Class<?>[] { 
+            Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE, Short.TYPE, Byte.TYPE, Boolean.TYPE,
+            int[].class, long[].class, float[].class, double[].class, short[].class, byte[].class, 
+            Buffer.class, ByteBuffer.class, ShortBuffer.class, IntBuffer.class, LongBuffer.class, FloatBuffer.class, DoubleBuffer.class,
+            PointerBuffer.class, String.class, String[].class };
+        for(int i=0; i<types.length; i++) {
+            argTypes.put(types[i].getSimpleName(), types[i]);
+        }
+    }
+    
+    private final String[] methodNames;
+    /** Argument types per method id, <code>null</code> if not supported */
+    private final Class<?>[][] methodArgTypes;
+    private final int[] callMethodIds;
+    private final Object[][] callArgs;
+    private final int[] callCounts;
+    private final long byteCount;
+    private final Map<Class<?>, Method[]> resolved = new IdentityHashMap<Class<?>, Method[]>();
+    private int skippedCallCount;
+    
+    /**
+     * Reads and decodes the whole stream, the channel is not closed.
+     * @throws IOException if reading fails or the stream is not a valid GL command stream
+     */
+    public ReplayGL(ReadableByteChannel in) throws IOException {
+        final ByteBuffer b = readFully(in);
+        byteCount = b.limit();
+        if( 12 > b.remaining() ) {
+            throw new IOException("Not a GL command stream, too short");
+        }
+        if( GLCommandRecorder.MAGIC != b.getInt(0) ) {
+            b.order( ByteOrder.BIG_ENDIAN == b.order() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN );
+            if( GLCommandRecorder.MAGIC != b.getInt(0) ) {
+                throw new IOException("Not a GL command stream, magic 0x"+Integer.toHexString(b.getInt(0)));
+            }
+        }
+        b.getInt();
+        final int version = b.getInt();
+        if( GLCommandRecorder.VERSION != version ) {
+            throw new IOException("Unsupported GL command stream version "+version);
+        }
+        final int methodCount = b.getInt();
+        methodNames = new String[methodCount];
+        methodArgTypes = new Class<?>[methodCount][];
+        for(int i=0; i<methodCount; i++) {
+            methodNames[i] = getString(b);
+            methodArgTypes[i] = parseArgTypes(methodNames[i]);
+        }
+        callCounts = new int[methodCount];
+        
+        final ArrayList<Integer> ids = new ArrayList<Integer>();
+        final ArrayList<Object[]> args = new ArrayList<Object[]>();
+        try {
+            while( b.hasRemaining() ) {
+                final int id = b.getShort();
+                if( 0 > id || methodCount <= id ) {
+                    throw new IOException("Invalid method id "+id+" at "+(b.position()-2));
+                }
+                final Class<?>[] types = methodArgTypes[id];
+                if( null == types ) {
+                    throw new IOException("Unsupported argument types of "+methodNames[id]);
+                }
+                final Object[] a = new Object[types.length];
+                for(int i=0; i<types.length; i++) {
+                    a[i] = getArg(b, types[i]);
+                }
+                ids.add(Integer.valueOf(id));
+                args.add(a);
+                callCounts[id]++;
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Truncated GL command stream after "+ids.size()+" calls");
+        }
+        callMethodIds = new int[ids.size()];
+        for(int i=0; i<callMethodIds.length; i++) {
+            callMethodIds[i] = ids.get(i).intValue();
+        }
+        callArgs = args.toArray(new Object[args.size()][]);
+    }
+    
+    /** Returns the method names incl. argument types indexed by their method id, as recorded. */
+    public final String[] getMethodNames() { return methodNames; }
+    
+    /** Returns the number of recorded calls per method id. */
+    public final int[] getCallCounts() { return callCounts; }
+    
+    /** Returns the number of recorded calls. */
+    public final int getCallCount() { return callMethodIds.length; }
+    
+    /** Returns the size of the stream in bytes. */
+    public final long getByteCount() { return byteCount; }
+    
+    /** Returns the number of calls skipped by the last {@link #replay(GL)}, since not available on the target GL. */
+    public final int getSkippedCallCount() { return skippedCallCount; }
+    
+    /**
+     * Issues all recorded calls on the given GL object.
+     * @return the number of issued calls
+     * @throws GLException if a call throws a checked exception, runtime exceptions are passed through
+     */
+    public final int replay(GL gl) throws GLException {
+        final Method[] methods = resolve(gl.getClass());
+        int issued = 0;
+        int skipped = 0;
+        final int[] ids = callMethodIds;
+        final Object[][] args = callArgs;
+        for(int i=0; i<ids.length; i++) {
+            final Method m = methods[ids[i]];
+            if( null == m ) {
+                skipped++;
+                continue;
+            }
+            try {
+                m.invoke(gl, args[i]);
+            } catch (InvocationTargetException e) {
+                final Throwable t = e.getTargetException();
+                if( t instanceof RuntimeException ) {
+                    throw (RuntimeException) t;
+                }
+                throw new GLException("Caught "+t.getClass().getSimpleName()+" replaying call "+i+", "+methodNames[ids[i]], t);
+            } catch (IllegalAccessException e) {
+                throw new GLException(e);
+            }
+            issued++;
+        }
+        skippedCallCount = skipped;
+        return issued;
+    }
+    
+    /** Resolves all recorded methods on the GL interfaces implemented by the given class, cached per class. */
+    private Method[] resolve(Class<?> glClass) {
+        Method[] methods = resolved.get(glClass);
+        if( null == methods ) {
+            final Map<String, Method> available = new HashMap<String, Method>();
+            collectInterfaceMethods(glClass, available);
+            methods = new Method[methodNames.length];
+            for(int i=0; i<methodNames.length; i++) {
+                methods[i] = available.get(methodNames[i]);
+            }
+            resolved.put(glClass, methods);
+        }
+        return methods;
+    }
+    
+    private static void collectInterfaceMethods(Class<?> c, Map<String, Method> available) {
+        for(Class<?> s = c; null != s; s = s.getSuperclass()) {
+            final Class<?>[] ifaces = s.getInterfaces();
+            for(int i=0; i<ifaces.length; i++) {
+                final Method[] ms = ifaces[i].getMethods();
+                for(int j=0; j<ms.length; j++) {
+                    available.put(getMethodName(ms[j]), ms[j]);
+                }
+            }
+        }
+    }
+    
+    /** Returns the method name incl. simple argument type names, e.g. <code>glUniform1fv(int,int,FloatBuffer)</code> */
+    private static String getMethodName(Method m) {
+        final StringBuilder sb = new StringBuilder(m.getName());
+        sb.append('(');
+        final Class<?>[] params = m.getParameterTypes();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(params[i].getSimpleName());
+        }
+        sb.append(')');
+        return sb.toString();
+    }
+    
+    private static Class<?>[] parseArgTypes(String name) {
+        final int s = name.indexOf('(');
+        final int e = name.lastIndexOf(')');
+        if( 0 > s || s > e ) {
+            return null;
+        }
+        final String list = name.substring(s+1, e);
+        if( 0 == list.length() ) {
+            return new Class<?>[0];
+        }
+        final String[] names = list.split(",");
+        final Class<?>[] types = new Class<?>[names.length];
+        for(int i=0; i<names.length; i++) {
+            types[i] = argTypes.get(names[i]);
+            if( null == types[i] ) {
+                return null; // not recordable, e.g. GLArrayData
+            }
+        }
+        return types;
+    }
+    
+    private static ByteBuffer readFully(ReadableByteChannel in) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(64 * 1024);
+        while( true ) {
+            if( !b.hasRemaining() ) {
+                final ByteBuffer n = ByteBuffer.allocate(b.capacity() * 2);
+                b.flip();
+                n.put(b);
+                b = n;
+            }
+            if( 0 > in.read(b) ) {
+                break;
+            }
+        }
+        b.flip();
+        return b.order(ByteOrder.nativeOrder());
+    }
+    
+    private static String getString(ByteBuffer b) {
+        final int len = b.getInt();
+        if( 0 > len ) {
+            return null;
+        }
+        final byte[] s = new byte[len];
+        b.get(s);
+        return new String(s, GLCommandRecorder.UTF8);
+    }
+    
+    private static Object getArg(ByteBuffer b, Class<?> type) {
+        if( Integer.TYPE == type ) {
+            return Integer.valueOf(b.getInt());
+        } else if( Long.TYPE == type ) {
+            return Long.valueOf(b.getLong());
+        } else if( Float.TYPE == type ) {
+            return Float.valueOf(b.getFloat());
+        } else if( Double.TYPE == type ) {
+            return Double.valueOf(b.getDouble());
+        } else if( Short.TYPE == type ) {
+            return Short.valueOf(b.getShort());
+        } else if( Byte.TYPE == type ) {
+            return Byte.valueOf(b.get());
+        } else if( Boolean.TYPE == type ) {
+            return Boolean.valueOf(0 != b.get());
+        } else if( String.class == type ) {
+            return getString(b);
+        } else if( String[].class == type ) {
+            final int n = b.getInt();
+            if( 0 > n ) {
+                return null;
+            }
+            final String[] a = new String[n];
+            for(int i=0; i<n; i++) {
+                a[i] = getString(b);
+            }
+            return a;
+        } else if( PointerBuffer.class == type ) {
+            final int n = b.getInt();
+            if( 0 > n ) {
+                return null;
+            }
+            final PointerBuffer p = PointerBuffer.allocateDirect(n);
+            for(int i=0; i<n; i++) {
+                p.put(i, b.getLong());
+            }
+            return p;
+        } else if( type.isArray() ) {
+            return getArray(b, type.getComponentType());
+        } else {
+            return getBuffer(b, type);
+        }
+    }
+    
+    private static Object getArray(ByteBuffer b, Class<?> type) {
+        final int n = b.getInt();
+        if( 0 > n ) {
+            return null;
+        }
+        if( Byte.TYPE == type ) {
+            final byte[] a = new byte[n];
+            b.get(a);
+            return a;
+        }
+        final Object a;
+        final int bytes;
+        if( Integer.TYPE == type ) {
+            final int[] v = new int[n];
+            b.asIntBuffer().get(v);
+            a = v; bytes = n * Buffers.SIZEOF_INT;
+        } else if( Float.TYPE == type ) {
+            final float[] v = new float[n];
+            b.asFloatBuffer().get(v);
+            a = v; bytes = n * Buffers.SIZEOF_FLOAT;
+        } else if( Short.TYPE == type ) {
+            final short[] v = new short[n];
+            b.asShortBuffer().get(v);
+            a = v; bytes = n * Buffers.SIZEOF_SHORT;
+        } else if( Long.TYPE == type ) {
+            final long[] v = new long[n];
+            b.asLongBuffer().get(v);
+            a = v; bytes = n * Buffers.SIZEOF_LONG;
+        } else if( Double.TYPE == type ) {
+            final double[] v = new double[n];
+            b.asDoubleBuffer().get(v);
+            a = v; bytes = n * Buffers.SIZEOF_DOUBLE;
+        } else {
+            throw new InternalError("Unsupported array type "+type);
+        }
+        b.position(b.position() + bytes);
+        return a;
+    }
+    
+    private static Buffer getBuffer(ByteBuffer b, Class<?> type) {
+        final int bytes = b.getInt();
+        if( 0 > bytes ) {
+            return null;
+        }
+        final boolean contents = 0 != b.get();
+        final ByteBuffer v = Buffers.newDirectByteBuffer(bytes);
+        if( contents ) {
+            final ByteBuffer src = b.slice();
+            src.limit(bytes);
+            v.put(src);
+            v.rewind();
+            b.position(b.position() + bytes);
+        }
+        if( ShortBuffer.class == type ) {
+            return v.asShortBuffer();
+        } else if( IntBuffer.class == type ) {
+            return v.asIntBuffer();
+        } else if( LongBuffer.class == type ) {
+            return v.asLongBuffer();
+        } else if( FloatBuffer.class == type ) {
+            return v.asFloatBuffer();
+        } else if( DoubleBuffer.class == type ) {
+            return v.asDoubleBuffer();
+        }
+        return v;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if( 1 > args.length ) {
+            System.err.println("Usage: ReplayGL <recorded-stream-file>");
+            return;
+        }
+        final FileChannel in = new FileInputStream(args[0]).getChannel();
+        final ReplayGL replay;
+        try {
+            replay = new ReplayGL(in);
+        } finally {
+            in.close();
+        }
+        final String[] names = replay.getMethodNames();
+        final int[] counts = replay.getCallCounts();
+        System.out.println("Calls "+replay.getCallCount()+", bytes "+replay.getByteCount());
+        for(int i=0; i<names.length; i++) {
+            if( 0 < counts[i] ) {
+                System.out.println(counts[i]+"\t"+names[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.glsl;
+
+import java.util.Collection;
+import java.util.Map;
+
+import javax.media.opengl.GL2ES2;
+
+/**
+ * Cache of linked GLSL program binaries, 
+ * used by {@link ShaderProgram#link(GL2ES2, java.io.PrintStream)} 
+ * to skip compiling and linking a program which has been linked before.
+ * <p>
+ * The default implementation is a persistent on-disk cache, enabled via the property <code>jogl.glsl.programcache</code>,
+ * see {@link ShaderProgram#setProgramBinaryCache(ProgramBinaryCache)}.
+ * </p>
+ */
+public interface ProgramBinaryCache {
+    /**
+     * Returns the key of a program consisting of the given shader codes and bound attribute locations,
+     * or <code>null</code> if the program cannot be cached w/ the given GL.
+     * <p>
+     * The key shall identify the GL implementation as well, 
+     * since program binaries are only valid w/ the driver they were retrieved from.
+     * </p>
+     * @param attribLocations bound attribute locations by name, may be <code>null</code>
+     */
+    public String getKey(GL2ES2 gl, Collection<ShaderCode> codes, Map<String, Integer> attribLocations);
+
+    /**
+     * Hints the GL to keep the binary of the given program retrievable,
+     * called before linking a program w/ a key.
+     */
+    public void setRetrievable(GL2ES2 gl, int program);
+
+    /**
+     * Loads the cached binary of the given key into the given program.
+     * @return true if the program has been linked w/ the cached binary, otherwise false,
+     *         in which case the program is compiled and linked as usual
+     */
+    public boolean load(GL2ES2 gl, int program, String key);
+
+    /**
+     * Stores the binary of the given linked program w/ the given key.
+     * @return true if the binary has been stored, otherwise false
+     */
+    public boolean store(GL2ES2 gl, int program, String key);
+}
@@ -30,8 +30,11 @@ package com.jogamp.opengl.util.glsl;
 
 import javax.media.opengl.*;
 
+import jogamp.opengl.util.glsl.ProgramBinaryCacheImpl;
+
 import com.jogamp.common.os.Platform;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.io.PrintStream;
@@ -99,12 +102,29 @@ public class ShaderProgram {
         }
         allShaderCode.clear();
         attachedShaderCode.clear();
+        boundAttribLocations.clear();
         if( 0 != shaderProgram ) {
             gl.glDeleteProgram(shaderProgram);
             shaderProgram=0;
         }
     }
 
+    /**
+     * Sets the program binary cache used by {@link #link(GL2ES2, PrintStream)},
+     * defaults to the one enabled via the property <code>jogl.glsl.programcache</code>.
+     * <p>
+     * Passing <code>null</code> disables the cache for this program.
+     * </p>
+     */
+    public synchronized void setProgramBinaryCache(ProgramBinaryCache cache) {
+        binaryCache = cache;
+    }
+
+    /** Returns the program binary cache used by {@link #link(GL2ES2, PrintStream)}, may be <code>null</code>. */
+    public ProgramBinaryCache getProgramBinaryCache() {
+        return binaryCache;
+    }
+
     //
     // ShaderCode handling
     //
@@ -212,11 +232,21 @@ public class ShaderProgram {
         }
         
         add(newShader);
-        if(attachedShaderCode.add(newShader)) {
-            ShaderUtil.attachShader(gl, shaderProgram, newShader.shader());
+        // shader code of a program loaded from the binary cache is neither compiled nor attached
+        for(Iterator<ShaderCode> iter=allShaderCode.iterator(); iter.hasNext(); ) {
+            final ShaderCode shaderCode = iter.next();
+            if(!attachedShaderCode.contains(shaderCode)) {
+                if(!shaderCode.compile(gl, verboseOut)) {
+                    programLinked = false;
+                    return false;
+                }
+                attachedShaderCode.add(shaderCode);
+                ShaderUtil.attachShader(gl, shaderProgram, shaderCode.shader());
+            }
         }
         
         gl.glLinkProgram(shaderProgram);
+        linkCount++;
         
         programLinked = ShaderUtil.isProgramLinkStatusValid(gl, shaderProgram, System.err);
         if ( programLinked && shaderWasInUse )  {
@@ -232,11 +262,16 @@ public class ShaderProgram {
      * 
      * <p>Within this process, all GL resources (shader and program objects) are created if necessary.</p>
      *  
+     * <p>If a {@link #getProgramBinaryCache() program binary cache} is set and holds the binary
+     * of this program, the binary is loaded instead, i.e. the shader code is not compiled.
+     * Otherwise the binary of the newly linked program is stored in the cache.</p>
+     *  
      * @param gl
      * @param verboseOut
      * @return true if program was successfully linked and is valid, otherwise false
      * 
      * @see #init(GL2ES2)
+     * @see #setProgramBinaryCache(ProgramBinaryCache)
      */
     public synchronized boolean link(GL2ES2 gl, PrintStream verboseOut) {
         if( !init(gl) ) { 
@@ -244,6 +279,14 @@ public class ShaderProgram {
             return false;
         }
 
+        final ProgramBinaryCache cache = binaryCache;
+        final String binaryKey = null != cache ? cache.getKey(gl, allShaderCode, boundAttribLocations) : null;
+        if( null != binaryKey && cache.load(gl, shaderProgram, binaryKey) ) {
+            linkCount++;
+            programLinked = true;
+            return true;
+        }
+
         for(Iterator<ShaderCode> iter=allShaderCode.iterator(); iter.hasNext(); ) {
             final ShaderCode shaderCode = iter.next();
             if(!shaderCode.compile(gl, verboseOut)) {
@@ -256,9 +299,16 @@ public class ShaderProgram {
         }
 
         // Link the program
+        if( null != binaryKey ) {
+            cache.setRetrievable(gl, shaderProgram);
+        }
         gl.glLinkProgram(shaderProgram);
+        linkCount++;
 
         programLinked = ShaderUtil.isProgramLinkStatusValid(gl, shaderProgram, System.err);
+        if( programLinked && null != binaryKey ) {
+            cache.store(gl, shaderProgram, binaryKey);
+        }
 
         return programLinked;
     }
@@ -312,10 +362,15 @@ public class ShaderProgram {
 
     protected boolean programLinked = false;
     protected boolean programInUse = false;
+    /** Number of glLinkProgram calls, each resetting the program's uniform values, see {@link ShaderState#uniform(GL2ES2, int)}. */
+    int linkCount = 0;
     protected int shaderProgram = 0; // non zero is valid!
     protected HashSet<ShaderCode> allShaderCode = new HashSet<ShaderCode>();
     protected HashSet<ShaderCode> attachedShaderCode = new HashSet<ShaderCode>();
     protected int id = -1;
+    /** Attribute locations bound via {@link ShaderState} before linking, part of the program binary cache key. */
+    final HashMap<String, Integer> boundAttribLocations = new HashMap<String, Integer>();
+    private ProgramBinaryCache binaryCache = ProgramBinaryCacheImpl.getDefault();
 
     private static synchronized int getNextID() {
         return nextID++;
@@ -28,6 +28,8 @@
 
 package com.jogamp.opengl.util.glsl;
 
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -251,6 +253,66 @@ public class ShaderState {
         }
     }
 
+    //
+    // Handles
+    //
+
+    /**
+     * Returns the handle of the named shader attribute, which stays valid for the lifetime of this ShaderState.
+     * <p>
+     * The handle allows accessing the attribute's state w/o a name lookup,
+     * see {@link #enableVertexAttribArray(GL2ES2, int)}, {@link #disableVertexAttribArray(GL2ES2, int)}
+     * and {@link #vertexAttribPointer(GL2ES2, int)}.
+     * </p>
+     * @return the handle &ge; 0
+     */
+    public final int getAttribHandle(String name) {
+        return attribSlot(name).handle;
+    }
+
+    /**
+     * Returns the handle of the named shader uniform, which stays valid for the lifetime of this ShaderState.
+     * <p>
+     * The handle allows accessing the uniform's state w/o a name lookup, see {@link #uniform(GL2ES2, int, GLUniformData)}.
+     * </p>
+     * @return the handle &ge; 0
+     */
+    public final int getUniformHandle(String name) {
+        return uniformSlot(name).handle;
+    }
+
+    private final AttribSlot attribSlot(String name) {
+        final Integer h = attribHandles.get(name);
+        if( null != h ) {
+            return attribSlots.get(h.intValue());
+        }
+        final AttribSlot s = new AttribSlot(name, attribSlots.size());
+        attribSlots.add(s);
+        attribHandles.put(name, Integer.valueOf(s.handle));
+        return s;
+    }
+
+    private final AttribSlot attribSlotOrNull(String name) {
+        final Integer h = attribHandles.get(name);
+        return null != h ? attribSlots.get(h.intValue()) : null;
+    }
+
+    private final UniformSlot uniformSlot(String name) {
+        final Integer h = uniformHandles.get(name);
+        if( null != h ) {
+            return uniformSlots.get(h.intValue());
+        }
+        final UniformSlot s = new UniformSlot(name, uniformSlots.size());
+        uniformSlots.add(s);
+        uniformHandles.put(name, Integer.valueOf(s.handle));
+        return s;
+    }
+
+    private final UniformSlot uniformSlotOrNull(String name) {
+        final Integer h = uniformHandles.get(name);
+        return null != h ? uniformSlots.get(h.intValue()) : null;
+    }
+
     //
     // Shader attribute handling
     //
@@ -267,8 +329,8 @@ public class ShaderState {
      * @see GL2ES2#glGetAttribLocation(int, String)
      */
     public int getCachedAttribLocation(String name) {
-        Integer idx = activeAttribLocationMap.get(name);
-        return (null!=idx)?idx.intValue():-1;
+        final AttribSlot s = attribSlotOrNull(name);
+        return null != s ? s.location : -1;
     }
     
     /**
@@ -287,11 +349,12 @@ public class ShaderState {
      * @see ShaderProgram#glReplaceShader
      */
     public GLArrayData getAttribute(String name) {
-        return activeAttribDataMap.get(name);
+        final AttribSlot s = attribSlotOrNull(name);
+        return null != s ? s.data : null;
     }
     
     public boolean isActiveAttribute(GLArrayData attribute) {
-        return attribute == activeAttribDataMap.get(attribute.getName());
+        return attribute == getAttribute(attribute.getName());
     }
     
     /**
@@ -347,8 +410,8 @@ public class ShaderState {
     public void bindAttribLocation(GL2ES2 gl, int location, String name) {
         if(null==shaderProgram) throw new GLException("No program is attached");
         if(shaderProgram.linked()) throw new GLException("Program is already linked");        
-        final Integer loc = new Integer(location);
-        activeAttribLocationMap.put(name, loc);
+        attribSlot(name).location = location;
+        shaderProgram.boundAttribLocations.put(name, Integer.valueOf(location));
         gl.glBindAttribLocation(shaderProgram.program(), location, name);
     }
 
@@ -370,10 +433,11 @@ public class ShaderState {
     public void bindAttribLocation(GL2ES2 gl, int location, GLArrayData data) {
         if(null==shaderProgram) throw new GLException("No program is attached");
         if(shaderProgram.linked()) throw new GLException("Program is already linked");
-        final String name = data.getName();
-        activeAttribLocationMap.put(name, new Integer(location));
+        final AttribSlot s = attribSlot(data.getName());
+        s.location = location;
+        shaderProgram.boundAttribLocations.put(data.getName(), Integer.valueOf(location));
         data.setLocation(gl, shaderProgram.program(), location);
-        activeAttribDataMap.put(data.getName(), data);
+        s.data = data;
     }
 
     /**
@@ -393,13 +457,18 @@ public class ShaderState {
      * @see GL2ES2#glGetAttribLocation(int, String)
      */
     public int getAttribLocation(GL2ES2 gl, String name) {
+        return getAttribLocation(gl, attribSlot(name));
+    }
+
+    private final int getAttribLocation(GL2ES2 gl, AttribSlot s) {
         if(null==shaderProgram) throw new GLException("No program is attached");
-        int location = getCachedAttribLocation(name);
+        final String name = s.name;
+        int location = s.location;
         if(0>location) {
             if(!shaderProgram.linked()) throw new GLException("Program is not linked");
             location = gl.glGetAttribLocation(shaderProgram.program(), name);
             if(0<=location) {
-                activeAttribLocationMap.put(name, new Integer(location));
+                s.location = location;
                 if(DEBUG) {
                     System.err.println("ShaderState: glGetAttribLocation: "+name+", loc: "+location);
                 }
@@ -433,17 +502,20 @@ public class ShaderState {
      * @see #getAttribute(String)
      */
     public int getAttribLocation(GL2ES2 gl, GLArrayData data) {
+        return getAttribLocation(gl, attribSlot(data.getName()), data);
+    }
+
+    private final int getAttribLocation(GL2ES2 gl, AttribSlot s, GLArrayData data) {
         if(null==shaderProgram) throw new GLException("No program is attached");
-        final String name = data.getName();
-        int location = getCachedAttribLocation(name);
+        final String name = s.name;
+        int location = s.location;
         if(0<=location) {
             data.setLocation(location);
         } else {
             if(!shaderProgram.linked()) throw new GLException("Program is not linked");
             location = data.setLocation(gl, shaderProgram.program());
             if(0<=location) {
-                Integer idx = new Integer(location);
-                activeAttribLocationMap.put(name, idx);
+                s.location = location;
                 if(DEBUG) {
                     System.err.println("ShaderState: glGetAttribLocation: "+name+", loc: "+location);
                 }
@@ -454,7 +526,7 @@ public class ShaderState {
                 }                    
             }
         }        
-        activeAttribDataMap.put(data.getName(), data);
+        s.data = data;
         return location;
     }
     
@@ -466,8 +538,8 @@ public class ShaderState {
      * @return true if the named attribute is enable
      */
     public final boolean isVertexAttribArrayEnabled(String name) {
-        final Boolean v = activedAttribEnabledMap.get(name);
-        return null != v && v.booleanValue();
+        final AttribSlot s = attribSlotOrNull(name);
+        return null != s && Boolean.TRUE == s.enabled;
     }
     
     /**
@@ -477,10 +549,11 @@ public class ShaderState {
         return isVertexAttribArrayEnabled(data.getName());
     }
     
-    private boolean enableVertexAttribArray(GL2ES2 gl, String name, int location) {
-        activedAttribEnabledMap.put(name, Boolean.TRUE);
+    private boolean enableVertexAttribArray(GL2ES2 gl, AttribSlot s, int location) {
+        final String name = s.name;
+        s.enabled = Boolean.TRUE;
         if(0>location) {
-            location = getAttribLocation(gl, name);
+            location = getAttribLocation(gl, s);
             if(0>location) {
                 if(verbose) {
                     System.err.println("ShaderState: glEnableVertexAttribArray failed, no index for: "+name);
@@ -517,7 +590,25 @@ public class ShaderState {
      * @see #getVertexAttribPointer
      */
     public boolean enableVertexAttribArray(GL2ES2 gl, String name) {
-        return enableVertexAttribArray(gl, name, -1);
+        return enableVertexAttribArray(gl, attribSlot(name), -1);
+    }
+
+    /**
+     * Enables a vertex attribute array by its {@link #getAttribHandle(String) handle}.
+     * <p>
+     * Uses the location of the attribute's {@link GLArrayData} if set, 
+     * otherwise the cached location or the GLSL queried one.
+     * </p>
+     *
+     * @return false, if the location could not be determined, otherwise true
+     *
+     * @throws GLException if the program is not linked and no location was cached.
+     *
+     * @see #enableVertexAttribArray(GL2ES2, GLArrayData)
+     */
+    public boolean enableVertexAttribArray(GL2ES2 gl, int attribHandle) {
+        final AttribSlot s = attribSlots.get(attribHandle);
+        return enableVertexAttribArray(gl, s, null != s.data ? s.data.getLocation() : -1);
     }
     
 
@@ -543,19 +634,21 @@ public class ShaderState {
      * @see GLArrayDataEditable#enableBuffer(GL, boolean)
      */
     public boolean enableVertexAttribArray(GL2ES2 gl, GLArrayData data) {
+        final AttribSlot s = attribSlot(data.getName());
         if(0 > data.getLocation()) {
-            getAttribLocation(gl, data);
+            getAttribLocation(gl, s, data);
         } else {
             // ensure data is the current bound one
-            activeAttribDataMap.put(data.getName(), data);             
+            s.data = data;
         }
-        return enableVertexAttribArray(gl, data.getName(), data.getLocation());
+        return enableVertexAttribArray(gl, s, data.getLocation());
     }
     
-    private boolean disableVertexAttribArray(GL2ES2 gl, String name, int location) {
-        activedAttribEnabledMap.put(name, Boolean.FALSE);
+    private boolean disableVertexAttribArray(GL2ES2 gl, AttribSlot s, int location) {
+        final String name = s.name;
+        s.enabled = Boolean.FALSE;
         if(0>location) {
-            location = getAttribLocation(gl, name);
+            location = getAttribLocation(gl, s);
             if(0>location) {
                 if(verbose) {
                     System.err.println("ShaderState: glDisableVertexAttribArray failed, no index for: "+name);
@@ -593,7 +686,22 @@ public class ShaderState {
      * @see #getVertexAttribPointer
      */
     public boolean disableVertexAttribArray(GL2ES2 gl, String name) {
-        return disableVertexAttribArray(gl, name, -1);
+        return disableVertexAttribArray(gl, attribSlot(name), -1);
+    }
+
+    /**
+     * Disables a vertex attribute array by its {@link #getAttribHandle(String) handle}.
+     *
+     * @return false, if the location could not be determined, otherwise true
+     *
+     * @throws GLException if no program is attached
+     * @throws GLException if the program is not linked and no location was cached.
+     *
+     * @see #disableVertexAttribArray(GL2ES2, GLArrayData)
+     */
+    public boolean disableVertexAttribArray(GL2ES2 gl, int attribHandle) {
+        final AttribSlot s = attribSlots.get(attribHandle);
+        return disableVertexAttribArray(gl, s, null != s.data ? s.data.getLocation() : -1);
     }
 
     /**
@@ -618,10 +726,11 @@ public class ShaderState {
      * @see #getVertexAttribPointer
      */
     public boolean disableVertexAttribArray(GL2ES2 gl, GLArrayData data) {
+        final AttribSlot s = attribSlot(data.getName());
         if(0 > data.getLocation()) {
-            getAttribLocation(gl, data);
+            getAttribLocation(gl, s, data);
         }
-        return disableVertexAttribArray(gl, data.getName(), data.getLocation());
+        return disableVertexAttribArray(gl, s, data.getLocation());
     }
     
     /**
@@ -658,6 +767,20 @@ public class ShaderState {
         return false;
     }
 
+    /**
+     * Set the vertex attribute data of the given {@link #getAttribHandle(String) handle},
+     * i.e. the {@link GLArrayData} previously bound to this state, see {@link #vertexAttribPointer(GL2ES2, GLArrayData)}.
+     *
+     * @return false, if no data is bound or the location could not be determined, otherwise true
+     *
+     * @throws GLException if no program is attached
+     * @throws GLException if the program is not linked and no location was cached.
+     */
+    public boolean vertexAttribPointer(GL2ES2 gl, int attribHandle) {
+        final GLArrayData data = attribSlots.get(attribHandle).data;
+        return null != data && vertexAttribPointer(gl, data);
+    }
+
     /**
      * Releases all mapped vertex attribute data,
      * disables all enabled attributes and loses all indices
@@ -673,16 +796,22 @@ public class ShaderState {
      */
     public void releaseAllAttributes(GL2ES2 gl) {
         if(null!=shaderProgram) {
-            for(Iterator<GLArrayData> iter = activeAttribDataMap.values().iterator(); iter.hasNext(); ) {
-                disableVertexAttribArray(gl, iter.next());
+            for(int i=0; i<attribSlots.size(); i++) {
+                final GLArrayData data = attribSlots.get(i).data;
+                if( null != data ) {
+                    disableVertexAttribArray(gl, data);
+                }
             }
-            for(Iterator<String> iter = activedAttribEnabledMap.keySet().iterator(); iter.hasNext(); ) {
-                disableVertexAttribArray(gl, iter.next());
+            for(int i=0; i<attribSlots.size(); i++) {
+                final AttribSlot s = attribSlots.get(i);
+                if( null != s.enabled ) {
+                    disableVertexAttribArray(gl, s, -1);
+                }
             }
         }
-        activeAttribDataMap.clear();
-        activedAttribEnabledMap.clear();
-        activeAttribLocationMap.clear();
+        for(int i=0; i<attribSlots.size(); i++) {
+            attribSlots.get(i).reset();
+        }
         managedAttributes.clear();        
     }
         
@@ -704,12 +833,15 @@ public class ShaderState {
      * @see ShaderProgram#glReplaceShader
      */
     public void disableAllVertexAttributeArrays(GL2ES2 gl, boolean removeFromState) {
-        for(Iterator<String> iter = activedAttribEnabledMap.keySet().iterator(); iter.hasNext(); ) {
-            final String name = iter.next();
+        for(int i=0; i<attribSlots.size(); i++) {
+            final AttribSlot s = attribSlots.get(i);
+            if( null == s.enabled ) {
+                continue;
+            }
             if(removeFromState) {
-                activedAttribEnabledMap.remove(name);
+                s.enabled = null;
             }
-            final int index = getAttribLocation(gl, name);
+            final int index = getAttribLocation(gl, s);
             if(0<=index) {
                 gl.glDisableVertexAttribArray(index);
             }
@@ -717,11 +849,11 @@ public class ShaderState {
     }
 
     private final void relocateAttribute(GL2ES2 gl, GLArrayData attribute) {
-        // get new location .. note: 'activeAttribLocationMap' is cleared before 
+        // get new location .. note: cached locations are cleared before 
         final String name = attribute.getName();
         final int loc = attribute.setLocation(gl, shaderProgram.program());
         if(0<=loc) {
-            activeAttribLocationMap.put(name, new Integer(loc));
+            attribSlot(name).location = loc;
             if(DEBUG) {
                 System.err.println("ShaderState: relocateAttribute: "+name+", loc: "+loc);
             }
@@ -763,13 +895,18 @@ public class ShaderState {
      */
     private final void resetAllAttributes(GL2ES2 gl) {
         if(!shaderProgram.linked()) throw new GLException("Program is not linked");
-        activeAttribLocationMap.clear();
+        for(int i=0; i<attribSlots.size(); i++) {
+            attribSlots.get(i).location = -1;
+        }
         
         for(int i=0; i<managedAttributes.size(); i++) {
             ((GLArrayData)managedAttributes.get(i)).setLocation(-1);
         }
-        for(Iterator<GLArrayData> iter = activeAttribDataMap.values().iterator(); iter.hasNext(); ) {
-            relocateAttribute(gl, iter.next());
+        for(int i=0; i<attribSlots.size(); i++) {
+            final GLArrayData data = attribSlots.get(i).data;
+            if( null != data ) {
+                relocateAttribute(gl, data);
+            }
         }
     }
 
@@ -800,8 +937,11 @@ public class ShaderState {
      * preserves the attribute location .. (program not linked)
      */
     private final void setAllAttributes(GL2ES2 gl) {
-        for(Iterator<GLArrayData> iter = activeAttribDataMap.values().iterator(); iter.hasNext(); ) {
-            setAttribute(gl, iter.next());
+        for(int i=0; i<attribSlots.size(); i++) {
+            final GLArrayData data = attribSlots.get(i).data;
+            if( null != data ) {
+                setAttribute(gl, data);
+            }
         }
     }
 
@@ -816,8 +956,8 @@ public class ShaderState {
      *         otherwise >= 0
      */
     public final int getCachedUniformLocation(String name) {
-        Integer idx = (Integer) activeUniformLocationMap.get(name);
-        return (null!=idx)?idx.intValue():-1;
+        final UniformSlot s = uniformSlotOrNull(name);
+        return null != s ? s.location : -1;
     }
 
     /**
@@ -835,11 +975,11 @@ public class ShaderState {
      * @see #getUniform(String)
      */
     public void ownUniform(GLUniformData uniform) {
-        final int location = getCachedUniformLocation(uniform.getName());
-        if(0<=location) {
-            uniform.setLocation(location);
+        final UniformSlot s = uniformSlot(uniform.getName());
+        if(0<=s.location) {
+            uniform.setLocation(s.location);
         }        
-        activeUniformDataMap.put(uniform.getName(), uniform);
+        s.data = uniform;
         managedUniforms.add(uniform);        
     }
     
@@ -868,13 +1008,13 @@ public class ShaderState {
      */
     public final int getUniformLocation(GL2ES2 gl, String name) {
         if(!shaderProgram.inUse()) throw new GLException("Program is not in use");
-        int location = getCachedUniformLocation(name);
+        final UniformSlot s = uniformSlot(name);
+        int location = s.location;
         if(0>location) {
             if(!shaderProgram.linked()) throw new GLException("Program is not linked");
             location = gl.glGetUniformLocation(shaderProgram.program(), name);
             if(0<=location) {
-                Integer idx = new Integer(location);
-                activeUniformLocationMap.put(name, idx);
+                s.location = location;
             } else if(verbose) {
                 System.err.println("ShaderState: glUniform failed, no location for: "+name+", index: "+location);
                 if(DEBUG) {
@@ -907,15 +1047,19 @@ public class ShaderState {
      */
     public int getUniformLocation(GL2ES2 gl, GLUniformData data) {
         if(!shaderProgram.inUse()) throw new GLException("Program is not in use");
-        final String name = data.getName();
-        int location = getCachedUniformLocation(name);
+        return getUniformLocation(gl, uniformSlot(data.getName()), data);
+    }
+
+    private final int getUniformLocation(GL2ES2 gl, UniformSlot s, GLUniformData data) {
+        final String name = s.name;
+        int location = s.location;
         if(0<=location) {
             data.setLocation(location);
         } else {
             if(!shaderProgram.linked()) throw new GLException("Program is not linked");
             location = data.setLocation(gl, shaderProgram.program());
             if(0<=location) {
-                activeUniformLocationMap.put(name, new Integer(location));
+                s.location = location;
             } else if(verbose) {
                 System.err.println("ShaderState: glUniform failed, no location for: "+name+", index: "+location);
                 if(DEBUG) {
@@ -923,7 +1067,7 @@ public class ShaderState {
                 }
             }
         }        
-        activeUniformDataMap.put(name, data);        
+        s.data = data;
         return location;
     }
     
@@ -934,6 +1078,10 @@ public class ShaderState {
      * If data's location is invalid, it will be retrieved via {@link #getUniformLocation(GL2ES2, GLUniformData)}, 
      * set and cached in this state.
      * </p>
+     * <p>
+     * Resolves the {@link #getUniformHandle(String) handle} by the data's name,
+     * see {@link #uniform(GL2ES2, int, GLUniformData)}.
+     * </p>
      *
      * @return false, if the location could not be determined, otherwise true
      *
@@ -944,21 +1092,78 @@ public class ShaderState {
      * @see ShaderProgram#glReplaceShader
      */
     public boolean uniform(GL2ES2 gl, GLUniformData data) {
+        return uniform(gl, getUniformHandle(data.getName()), data);
+    }
+
+    /**
+     * Binds the uniform data to the given {@link #getUniformHandle(String) handle}
+     * and sets it, if it's location is valid, i.e. &ge; 0.
+     * <p>
+     * This method uses the {@link GLUniformData}'s location if valid, i.e. &ge; 0.<br/>
+     * If data's location is invalid, it will be retrieved via {@link #getUniformLocation(GL2ES2, GLUniformData)}, 
+     * set and cached in this state.
+     * </p>
+     * <p>
+     * The value is only passed to the GL if it differs from the one previously passed 
+     * for the handle to the current program and location via this ShaderState.
+     * A relinked program has lost its uniform values and is updated.
+     * Uniforms of the current program set w/o this ShaderState 
+     * require {@link #invalidateUniformValues()}.
+     * </p>
+     *
+     * @return false, if the location could not be determined, otherwise true
+     *
+     * @throws GLException if the program is not in use
+     */
+    public boolean uniform(GL2ES2 gl, int uniformHandle, GLUniformData data) {
         if(!shaderProgram.inUse()) throw new GLException("Program is not in use");
+        final UniformSlot s = uniformSlots.get(uniformHandle);
         int location = data.getLocation();
         if(0>location) {
-            location = getUniformLocation(gl, data);
+            location = getUniformLocation(gl, s, data);
+        } else {
+            s.data = data;
         }
         if(0<=location) {
             // only pass the data, if the uniform exists in the current shader
-            if(DEBUG) {
-                System.err.println("ShaderState: glUniform: "+data);
+            // and its value has changed
+            if( !s.isUploaded(shaderProgram, location, data) ) {
+                if(DEBUG) {
+                    System.err.println("ShaderState: glUniform: "+data);
+                }
+                gl.glUniform(data);
+                s.setUploaded(shaderProgram, location, data);
             }
-            gl.glUniform(data);
             return true;
         }
         return false;
     }
+
+    /**
+     * Sets the uniform data bound to the given {@link #getUniformHandle(String) handle},
+     * see {@link #uniform(GL2ES2, int, GLUniformData)}.
+     *
+     * @return false, if no data is bound or the location could not be determined, otherwise true
+     *
+     * @throws GLException if the program is not in use
+     */
+    public boolean uniform(GL2ES2 gl, int uniformHandle) {
+        final GLUniformData data = uniformSlots.get(uniformHandle).data;
+        return null != data && uniform(gl, uniformHandle, data);
+    }
+
+    /**
+     * Forgets the uniform values passed to the GL, 
+     * hence the next {@link #uniform(GL2ES2, int, GLUniformData)} call of each uniform passes its value.
+     * <p>
+     * Shall be called if uniforms of the current program have been set w/o this ShaderState.
+     * </p>
+     */
+    public void invalidateUniformValues() {
+        for(int i=0; i<uniformSlots.size(); i++) {
+            uniformSlots.get(i).invalidate();
+        }
+    }
     
     /**
      * Get the uniform data, previously set.
@@ -966,7 +1171,8 @@ public class ShaderState {
      * @return the GLUniformData object, null if not previously set.
      */
     public GLUniformData getUniform(String name) {
-        return activeUniformDataMap.get(name);
+        final UniformSlot s = uniformSlotOrNull(name);
+        return null != s ? s.data : null;
     }
 
     /**
@@ -974,8 +1180,9 @@ public class ShaderState {
      * and loses all indices
      */
     public void releaseAllUniforms(GL2ES2 gl) {
-        activeUniformDataMap.clear();
-        activeUniformLocationMap.clear();
+        for(int i=0; i<uniformSlots.size(); i++) {
+            uniformSlots.get(i).reset();
+        }
         managedUniforms.clear();
     }
         
@@ -996,20 +1203,27 @@ public class ShaderState {
      */
     private final void resetAllUniforms(GL2ES2 gl) {
         if(!shaderProgram.inUse()) throw new GLException("Program is not in use");        
-        activeUniformLocationMap.clear();
+        for(int i=0; i<uniformSlots.size(); i++) {
+            uniformSlots.get(i).location = -1;
+        }
         for(Iterator<GLUniformData> iter = managedUniforms.iterator(); iter.hasNext(); ) {
             iter.next().setLocation(-1);
         }        
-        for(Iterator<GLUniformData> iter = activeUniformDataMap.values().iterator(); iter.hasNext(); ) {
-            final GLUniformData data = iter.next();
+        for(int i=0; i<uniformSlots.size(); i++) {
+            final UniformSlot s = uniformSlots.get(i);
+            final GLUniformData data = s.data;
+            if( null == data ) {
+                continue;
+            }
             final int loc = data.setLocation(gl, shaderProgram.program());
             if( 0 <= loc ) {
                 // only pass the data, if the uniform exists in the current shader
-                activeUniformLocationMap.put(data.getName(), new Integer(loc));
+                s.location = loc;
                 if(DEBUG) {
                     System.err.println("ShaderState: resetAllUniforms: "+data);
                 }
                 gl.glUniform(data);
+                s.setUploaded(shaderProgram, loc, data);
             }
         }
     }
@@ -1028,17 +1242,16 @@ public class ShaderState {
             sb.append("ShaderProgram: null");
         }
         sb.append(Platform.getNewline()).append(" enabledAttributes [");
-        {
-            Iterator<String> names = activedAttribEnabledMap.keySet().iterator();
-            Iterator<Boolean> values = activedAttribEnabledMap.values().iterator();
-            while( names.hasNext() ) {
-                sb.append(Platform.getNewline()).append("  ").append(names.next()).append(": ").append(values.next());
+        for(int i=0; i<attribSlots.size(); i++) {
+            final AttribSlot s = attribSlots.get(i);
+            if( null != s.enabled ) {
+                sb.append(Platform.getNewline()).append("  ").append(s.name).append(": ").append(s.enabled);
             }
         }
         sb.append(Platform.getNewline()).append(" ],").append(" activeAttributes [");
-        for(Iterator<GLArrayData> iter = activeAttribDataMap.values().iterator(); iter.hasNext(); ) {
-            final GLArrayData ad = iter.next();
-            if( alsoUnlocated || 0 <= ad.getLocation() ) {
+        for(int i=0; i<attribSlots.size(); i++) {
+            final GLArrayData ad = attribSlots.get(i).data;
+            if( null != ad && ( alsoUnlocated || 0 <= ad.getLocation() ) ) {
                 sb.append(Platform.getNewline()).append("  ").append(ad);
             }
         }
@@ -1050,9 +1263,9 @@ public class ShaderState {
             }
         }
         sb.append(Platform.getNewline()).append(" ],").append(" activeUniforms [");
-        for(Iterator<GLUniformData> iter=activeUniformDataMap.values().iterator(); iter.hasNext(); ) {
-            final GLUniformData ud = iter.next();
-            if( alsoUnlocated || 0 <= ud.getLocation() ) {
+        for(int i=0; i<uniformSlots.size(); i++) {
+            final GLUniformData ud = uniformSlots.get(i).data;
+            if( null != ud && ( alsoUnlocated || 0 <= ud.getLocation() ) ) {
                 sb.append(Platform.getNewline()).append("  ").append(ud);
             }
         }
@@ -1075,16 +1288,169 @@ public class ShaderState {
     private boolean verbose = DEBUG;
     private ShaderProgram shaderProgram=null;
     
-    private HashMap<String, Boolean> activedAttribEnabledMap = new HashMap<String, Boolean>();
-    private HashMap<String, Integer> activeAttribLocationMap = new HashMap<String, Integer>();
-    private HashMap<String, GLArrayData> activeAttribDataMap = new HashMap<String, GLArrayData>();
+    private HashMap<String, Integer> attribHandles = new HashMap<String, Integer>();
+    private ArrayList<AttribSlot> attribSlots = new ArrayList<AttribSlot>();
     private ArrayList<GLArrayData> managedAttributes = new ArrayList<GLArrayData>();
     
-    private HashMap<String, Integer> activeUniformLocationMap = new HashMap<String, Integer>();
-    private HashMap<String, GLUniformData> activeUniformDataMap = new HashMap<String, GLUniformData>();
+    private HashMap<String, Integer> uniformHandles = new HashMap<String, Integer>();
+    private ArrayList<UniformSlot> uniformSlots = new ArrayList<UniformSlot>();
     private ArrayList<GLUniformData> managedUniforms = new ArrayList<GLUniformData>();
     
     private HashMap<String, Object> attachedObjectsByString = new HashMap<String, Object>();    
     private boolean resetAllShaderData = false;
-}
 
+    /** Attribute state of one name, addressed by its handle. */
+    private static final class AttribSlot {
+        final String name;
+        final int handle;
+        /** Bound data or null */
+        GLArrayData data = null;
+        /** Cached location or -1 */
+        int location = -1;
+        /** Enabled state or null if not set */
+        Boolean enabled = null;
+
+        AttribSlot(String name, int handle) {
+            this.name = name;
+            this.handle = handle;
+        }
+
+        final void reset() {
+            data = null;
+            location = -1;
+            enabled = null;
+        }
+    }
+
+    /** Uniform state of one name, addressed by its handle, incl. the value last passed to the GL. */
+    private static final class UniformSlot {
+        final String name;
+        final int handle;
+        /** Bound data or null */
+        GLUniformData data = null;
+        /** Cached location or -1 */
+        int location = -1;
+
+        /** Program, its link count and location of the last passed value, null if none */
+        private ShaderProgram valueProgram = null;
+        private int valueLinkCount;
+        private int valueLocation;
+        private boolean valueMatrix;
+        private int valueRows, valueColumns;
+        /** Number of values in fvalue or ivalue */
+        private int valueLength;
+        private float[] fvalue = null;
+        private int[] ivalue = null;
+        /** true if fvalue holds the value, otherwise ivalue */
+        private boolean valueIsFloat;
+
+        UniformSlot(String name, int handle) {
+            this.name = name;
+            this.handle = handle;
+        }
+
+        final void reset() {
+            data = null;
+            location = -1;
+            invalidate();
+        }
+
+        final void invalidate() {
+            valueProgram = null;
+        }
+
+        /** Returns true if the data's value has been passed for the program at its current link and given location. */
+        final boolean isUploaded(ShaderProgram program, int location, GLUniformData data) {
+            if( program != valueProgram || program.linkCount != valueLinkCount || location != valueLocation ||
+                data.isMatrix() != valueMatrix || data.rows() != valueRows || data.columns() != valueColumns ) {
+                return false;
+            }
+            final Object o = data.getObject();
+            if( o instanceof FloatBuffer ) {
+                final FloatBuffer b = (FloatBuffer) o;
+                final int n = data.count() * data.components();
+                if( !valueIsFloat || n != valueLength ) {
+                    return false;
+                }
+                final int p = b.position();
+                for(int i=0; i<n; i++) {
+                    if( b.get(p+i) != fvalue[i] ) {
+                        return false;
+                    }
+                }
+                return true;
+            } else if( o instanceof IntBuffer ) {
+                final IntBuffer b = (IntBuffer) o;
+                final int n = data.count() * data.components();
+                if( valueIsFloat || n != valueLength ) {
+                    return false;
+                }
+                final int p = b.position();
+                for(int i=0; i<n; i++) {
+                    if( b.get(p+i) != ivalue[i] ) {
+                        return false;
+                    }
+                }
+                return true;
+            } else if( o instanceof Float ) {
+                return valueIsFloat && 1 == valueLength && ((Float)o).floatValue() == fvalue[0];
+            } else if( o instanceof Integer ) {
+                return !valueIsFloat && 1 == valueLength && ((Integer)o).intValue() == ivalue[0];
+            }
+            return false;
+        }
+
+        /** Stores the data's value as passed for the program at its current link and given location. */
+        final void setUploaded(ShaderProgram program, int location, GLUniformData data) {
+            final Object o = data.getObject();
+            if( o instanceof FloatBuffer ) {
+                final FloatBuffer b = (FloatBuffer) o;
+                final int n = data.count() * data.components();
+                if( null == fvalue || fvalue.length < n ) {
+                    fvalue = new float[n];
+                }
+                final int p = b.position();
+                for(int i=0; i<n; i++) {
+                    fvalue[i] = b.get(p+i);
+                }
+                valueIsFloat = true;
+                valueLength = n;
+            } else if( o instanceof IntBuffer ) {
+                final IntBuffer b = (IntBuffer) o;
+                final int n = data.count() * data.components();
+                if( null == ivalue || ivalue.length < n ) {
+                    ivalue = new int[n];
+                }
+                final int p = b.position();
+                for(int i=0; i<n; i++) {
+                    ivalue[i] = b.get(p+i);
+                }
+                valueIsFloat = false;
+                valueLength = n;
+            } else if( o instanceof Float ) {
+                if( null == fvalue ) {
+                    fvalue = new float[1];
+                }
+                fvalue[0] = ((Float)o).floatValue();
+                valueIsFloat = true;
+                valueLength = 1;
+            } else if( o instanceof Integer ) {
+                if( null == ivalue ) {
+                    ivalue = new int[1];
+                }
+                ivalue[0] = ((Integer)o).intValue();
+                valueIsFloat = false;
+                valueLength = 1;
+            } else {
+                valueProgram = null;
+                return;
+            }
+            valueProgram = program;
+            valueLinkCount = program.linkCount;
+            valueLocation = location;
+            valueMatrix = data.isMatrix();
+            valueRows = data.rows();
+            valueColumns = data.columns();
+        }
+    }
+}
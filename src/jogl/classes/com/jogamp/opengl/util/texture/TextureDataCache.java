@@ -0,0 +1,575 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.media.opengl.GLProfile;
+
+import jogamp.opengl.Debug;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+
+/**
+ * Cache of decoded {@link TextureData}, skipping the decoding of previously loaded textures.
+ * <p>
+ * Entries are identified by a {@link Key}, composed of the source's identity,
+ * i.e. its canonical path, modification time and length for files or the hash of its content otherwise,
+ * and the load parameters.
+ * </p>
+ * <p>
+ * The memory tier holds the {@link TextureData} up to a byte budget, evicting the least recently used entries.
+ * </p>
+ * <p>
+ * The optional disk tier stores the decoded, GL ready pixel data of all mipmap levels 
+ * along with its format, type and dimensions in a raw container file per entry.
+ * The file is memory mapped on a memory tier miss, hence its levels are 
+ * direct {@link ByteBuffer}s backed by the file w/o any copy.
+ * Only {@link ByteBuffer} based {@link TextureData} is stored on disk.
+ * </p>
+ * <p>
+ * Each call returns a new {@link TextureData} instance sharing the cached buffers,
+ * users shall not modify the buffer's content.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+public class TextureDataCache {
+    private static final boolean DEBUG = Debug.debug("TextureDataCache");
+
+    /** Disk container file magic 'JTDC' */
+    private static final int MAGIC = 0x4A544443;
+    private static final int VERSION = 1;
+    /** Alignment of the levels within the disk container */
+    private static final int LEVEL_ALIGNMENT = 64;
+    private static final String FILE_SUFFIX = ".tdc";
+
+    private static final int FLAG_MIPMAP = 1 << 0;
+    private static final int FLAG_COMPRESSED = 1 << 1;
+    private static final int FLAG_FLIP = 1 << 2;
+    private static final int FLAG_MIPMAP_DATA = 1 << 3;
+
+    /** Identifies a cache entry by source and load parameters. */
+    public static final class Key {
+        private final String id;
+        private final GLProfile glp;
+
+        private Key(String source, GLProfile glp, int internalFormat, int pixelFormat, boolean mipmap, String fileSuffix) {
+            this.glp = glp;
+            this.id = source+"|"+( null != glp ? glp.getName() : "nil" )+"|0x"+Integer.toHexString(internalFormat)+
+                      "|0x"+Integer.toHexString(pixelFormat)+"|"+mipmap+"|"+fileSuffix;
+        }
+
+        /** 
+         * Returns a key identifying the given file by its canonical path, modification time and length. 
+         * @param internalFormat the requested internal format or 0
+         * @param pixelFormat the requested pixel format or 0
+         */
+        public static Key create(File file, GLProfile glp, int internalFormat, int pixelFormat, boolean mipmap, String fileSuffix) throws IOException {
+            return new Key("file:"+file.getCanonicalPath()+"@"+file.lastModified()+"/"+file.length(), 
+                           glp, internalFormat, pixelFormat, mipmap, fileSuffix);
+        }
+
+        /** 
+         * Returns a key identifying the given encoded content by its SHA-1 hash. 
+         * @param internalFormat the requested internal format or 0
+         * @param pixelFormat the requested pixel format or 0
+         */
+        public static Key create(byte[] content, GLProfile glp, int internalFormat, int pixelFormat, boolean mipmap, String fileSuffix) {
+            return new Key("sha1:"+toHexString(sha1(content))+"/"+content.length, 
+                           glp, internalFormat, pixelFormat, mipmap, fileSuffix);
+        }
+
+        /** Returns the unique textual representation. */
+        public String getID() { return id; }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || ( o instanceof Key && id.equals(((Key)o).id) );
+        }
+        @Override
+        public int hashCode() { return id.hashCode(); }
+        @Override
+        public String toString() { return "Key["+id+"]"; }
+    }
+
+    private static class Entry {
+        final TextureData data;
+        final long size;
+        Entry(TextureData data) {
+            this.data = data;
+            this.size = data.getEstimatedMemorySize();
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> memCache = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private final File diskDir;
+    private long memBudget;
+    private long memSize = 0;
+    private long memHits = 0, diskHits = 0, misses = 0;
+
+    /**
+     * @param memoryBudget maximum number of bytes held by the memory tier, 0 disables the memory tier
+     * @param diskDir directory of the disk tier, created if not existing, or null to disable the disk tier
+     * @throws IOException if <code>diskDir</code> could not be created
+     */
+    public TextureDataCache(long memoryBudget, File diskDir) throws IOException {
+        this.memBudget = memoryBudget;
+        this.diskDir = diskDir;
+        if( null != diskDir && !diskDir.isDirectory() && !diskDir.mkdirs() ) {
+            throw new IOException("Could not create cache directory "+diskDir);
+        }
+    }
+
+    /** Returns the directory of the disk tier or null if disabled. */
+    public final File getDiskDirectory() { return diskDir; }
+
+    /** Returns the byte budget of the memory tier. */
+    public final synchronized long getMemoryBudget() { return memBudget; }
+
+    /** Sets the byte budget of the memory tier, evicting entries if required. */
+    public final synchronized void setMemoryBudget(long bytes) {
+        memBudget = bytes;
+        evict();
+    }
+
+    /** Returns the number of bytes held by the memory tier. */
+    public final synchronized long getMemorySize() { return memSize; }
+
+    /** Returns the number of entries held by the memory tier. */
+    public final synchronized int getMemoryEntryCount() { return memCache.size(); }
+
+    public final synchronized long getMemoryHitCount() { return memHits; }
+    public final synchronized long getDiskHitCount() { return diskHits; }
+    public final synchronized long getMissCount() { return misses; }
+
+    /**
+     * Returns the cached data of the given key, looking up the memory tier first and the disk tier second.
+     * A disk tier hit is added to the memory tier.
+     * @return the data or null if not cached
+     */
+    public TextureData get(Key key) {
+        synchronized( this ) {
+            final Entry e = memCache.get(key);
+            if( null != e ) {
+                memHits++;
+                return copyOf(e.data);
+            }
+        }
+        TextureData data = null;
+        if( null != diskDir ) {
+            final File file = getFile(key);
+            if( file.isFile() ) {
+                try {
+                    data = readFile(file, key);
+                } catch (IOException ioe) {
+                    if(DEBUG) {
+                        System.err.println("TextureDataCache: Dropping "+file+": "+ioe.getMessage());
+                    }
+                    file.delete();
+                }
+            }
+        }
+        synchronized( this ) {
+            if( null == data ) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            putMemory(key, data);
+        }
+        return copyOf(data);
+    }
+
+    /**
+     * Adds the given data to the memory tier and the disk tier, if enabled.
+     * <p>
+     * The cache keeps references to the data's buffers, hence the user shall not modify their content afterwards.
+     * </p>
+     */
+    public void put(Key key, TextureData data) {
+        synchronized( this ) {
+            putMemory(key, copyOf(data));
+        }
+        if( null != diskDir && isDiskCompatible(data) ) {
+            try {
+                writeFile(getFile(key), key, data);
+            } catch (IOException ioe) {
+                if(DEBUG) {
+                    System.err.println("TextureDataCache: Could not store "+key+": "+ioe.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Removes all entries of the memory tier, and if <code>disk</code> is true, all files of the disk tier. */
+    public void clear(boolean disk) {
+        synchronized( this ) {
+            memCache.clear();
+            memSize = 0;
+        }
+        if( disk && null != diskDir ) {
+            final File[] files = diskDir.listFiles();
+            if( null != files ) {
+                for(int i=0; i<files.length; i++) {
+                    if( files[i].getName().endsWith(FILE_SUFFIX) ) {
+                        files[i].delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached variant of {@link TextureIO#newTextureData(GLProfile, File, boolean, String)}.
+     */
+    public TextureData newTextureData(GLProfile glp, File file, boolean mipmap, String fileSuffix) throws IOException {
+        if( null == fileSuffix ) {
+            fileSuffix = IOUtil.getFileSuffix(file);
+        }
+        final Key key = Key.create(file, glp, 0, 0, mipmap, fileSuffix);
+        TextureData data = get(key);
+        if( null == data ) {
+            data = TextureIO.newTextureData(glp, file, mipmap, fileSuffix);
+            put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Cached variant of {@link TextureIO#newTextureData(GLProfile, URL, boolean, String)}.
+     * <p>
+     * Files are identified via {@link Key#create(File, GLProfile, int, int, boolean, String)},
+     * other URLs by their content.
+     * </p>
+     */
+    public TextureData newTextureData(GLProfile glp, URL url, boolean mipmap, String fileSuffix) throws IOException {
+        if( null == fileSuffix ) {
+            fileSuffix = IOUtil.getFileSuffix(url.getPath());
+        }
+        if( "file".equals(url.getProtocol()) ) {
+            File file = null;
+            try {
+                file = new File(url.toURI());
+            } catch (URISyntaxException e) { 
+                // identify by content
+            } catch (IllegalArgumentException e) { 
+                // identify by content
+            }
+            if( null != file ) {
+                return newTextureData(glp, file, mipmap, fileSuffix);
+            }
+        }
+        return newTextureData(glp, url.openStream(), mipmap, fileSuffix);
+    }
+
+    /**
+     * Cached variant of {@link TextureIO#newTextureData(GLProfile, InputStream, boolean, String)},
+     * identifying the stream by its content. The stream is read completely and closed.
+     */
+    public TextureData newTextureData(GLProfile glp, InputStream stream, boolean mipmap, String fileSuffix) throws IOException {
+        final byte[] content;
+        try {
+            content = IOUtil.copyStream2ByteArray(stream);
+        } finally {
+            stream.close();
+        }
+        final Key key = Key.create(content, glp, 0, 0, mipmap, fileSuffix);
+        TextureData data = get(key);
+        if( null == data ) {
+            data = TextureIO.newTextureData(glp, new ByteArrayInputStream(content), mipmap, fileSuffix);
+            put(key, data);
+        }
+        return data;
+    }
+
+    private void putMemory(Key key, TextureData data) {
+        final Entry e = new Entry(data);
+        if( e.size > memBudget ) {
+            return;
+        }
+        final Entry old = memCache.put(key, e);
+        if( null != old ) {
+            memSize -= old.size;
+        }
+        memSize += e.size;
+        evict();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<Key, Entry>> iter = memCache.entrySet().iterator();
+        while( memSize > memBudget && iter.hasNext() ) {
+            final Map.Entry<Key, Entry> e = iter.next(); // least recently used first
+            iter.remove();
+            memSize -= e.getValue().size;
+            if(DEBUG) {
+                System.err.println("TextureDataCache: Evicted "+e.getKey()+", "+e.getValue().size+" bytes");
+            }
+        }
+    }
+
+    /** Returns a new instance w/ the same attributes, sharing the buffer's content. */
+    private static TextureData copyOf(TextureData data) {
+        final TextureData res;
+        final Buffer[] mipmapData = data.getMipmapData();
+        if( null != mipmapData ) {
+            final Buffer[] levels = new Buffer[mipmapData.length];
+            for(int i=0; i<levels.length; i++) {
+                levels[i] = duplicate(mipmapData[i]);
+            }
+            res = new TextureData(data.getGLProfile(), data.getInternalFormat(), data.getWidth(), data.getHeight(), data.getBorder(),
+                                  data.getPixelAttributes(), data.isDataCompressed(), data.getMustFlipVertically(), levels, null);
+            res.setMipmap(data.getMipmap());
+        } else {
+            res = new TextureData(data.getGLProfile(), data.getInternalFormat(), data.getWidth(), data.getHeight(), data.getBorder(),
+                                  data.getPixelAttributes(), data.getMipmap(), data.isDataCompressed(), data.getMustFlipVertically(), 
+                                  duplicate(data.getBuffer()), null);
+        }
+        res.setAlignment(data.getAlignment());
+        res.setRowLength(data.getRowLength());
+        res.setColorSpace(data.getColorSpace());
+        return res;
+    }
+
+    private static Buffer duplicate(Buffer b) {
+        if( b instanceof ByteBuffer ) {
+            final ByteBuffer bb = (ByteBuffer) b;
+            return bb.duplicate().order(bb.order());
+        } else if( b instanceof java.nio.ShortBuffer ) {
+            return ((java.nio.ShortBuffer) b).duplicate();
+        } else if( b instanceof java.nio.IntBuffer ) {
+            return ((java.nio.IntBuffer) b).duplicate();
+        } else if( b instanceof java.nio.FloatBuffer ) {
+            return ((java.nio.FloatBuffer) b).duplicate();
+        }
+        return b;
+    }
+
+    private static boolean isDiskCompatible(TextureData data) {
+        final Buffer[] mipmapData = data.getMipmapData();
+        if( null != mipmapData ) {
+            for(int i=0; i<mipmapData.length; i++) {
+                if( !( mipmapData[i] instanceof ByteBuffer ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return data.getBuffer() instanceof ByteBuffer;
+    }
+
+    private File getFile(Key key) {
+        return new File(diskDir, toHexString(sha1(utf8(key.getID())))+FILE_SUFFIX);
+    }
+
+    /**
+     * Container layout, big endian header:
+     * <pre>
+     *   int magic, int version, short keyLength, byte[keyLength] key (UTF-8),
+     *   int width, int height, int border, int internalFormat,
+     *   int componentCount, int pixelFormat, int pixelType,
+     *   int flags, int alignment, int rowLength, int colorSpace,
+     *   int levelCount, int[levelCount] levelSize,
+     *   levels, each aligned to {@link #LEVEL_ALIGNMENT} bytes
+     * </pre>
+     */
+    private static void writeFile(File file, Key key, TextureData data) throws IOException {
+        final Buffer[] mipmapData = data.getMipmapData();
+        final ByteBuffer[] levels;
+        if( null != mipmapData ) {
+            levels = new ByteBuffer[mipmapData.length];
+            for(int i=0; i<levels.length; i++) {
+                levels[i] = ((ByteBuffer)mipmapData[i]).duplicate();
+            }
+        } else {
+            levels = new ByteBuffer[] { ((ByteBuffer)data.getBuffer()).duplicate() };
+        }
+        final byte[] keyBytes = utf8(key.getID());
+        final GLPixelAttributes pa = data.getPixelAttributes();
+        final int flags = ( data.getMipmap() ? FLAG_MIPMAP : 0 ) | ( data.isDataCompressed() ? FLAG_COMPRESSED : 0 ) |
+                          ( data.getMustFlipVertically() ? FLAG_FLIP : 0 ) | ( null != mipmapData ? FLAG_MIPMAP_DATA : 0 ); 
+        final ByteBuffer header = ByteBuffer.allocate(align(4*2 + 2 + keyBytes.length + 4*13 + 4*levels.length));
+        header.putInt(MAGIC).putInt(VERSION);
+        header.putShort((short)keyBytes.length).put(keyBytes);
+        header.putInt(data.getWidth()).putInt(data.getHeight()).putInt(data.getBorder()).putInt(data.getInternalFormat());
+        header.putInt(pa.componentCount).putInt(pa.format).putInt(pa.type);
+        header.putInt(flags).putInt(data.getAlignment()).putInt(data.getRowLength()).putInt(data.getColorSpace().ordinal());
+        header.putInt(levels.length);
+        for(int i=0; i<levels.length; i++) {
+            header.putInt(levels[i].remaining());
+        }
+        header.clear();
+
+        // write to a temporary file first, concurrent readers only see complete files
+        final File tmp = File.createTempFile("tdc", ".tmp", file.getParentFile());
+        boolean ok = false;
+        final FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            final FileChannel ch = out.getChannel();
+            writeFully(ch, header);
+            final ByteBuffer pad = ByteBuffer.allocate(LEVEL_ALIGNMENT);
+            for(int i=0; i<levels.length; i++) {
+                final int size = levels[i].remaining();
+                writeFully(ch, levels[i]);
+                pad.clear().limit(align(size) - size);
+                writeFully(ch, pad);
+            }
+            ok = true;
+        } finally {
+            out.close();
+            if( !ok ) {
+                tmp.delete();
+            }
+        }
+        if( !tmp.renameTo(file) ) {
+            file.delete();
+            if( !tmp.renameTo(file) ) {
+                tmp.delete();
+                throw new IOException("Could not rename "+tmp+" to "+file);
+            }
+        }
+        if(DEBUG) {
+            System.err.println("TextureDataCache: Stored "+key+" -> "+file+", "+file.length()+" bytes");
+        }
+    }
+
+    private static TextureData readFile(File file, Key key) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        final MappedByteBuffer map;
+        try {
+            map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()); // valid after close
+        } finally {
+            raf.close();
+        }
+        try {
+            if( MAGIC != map.getInt() || VERSION != map.getInt() ) {
+                throw new IOException("Not a cache file version "+VERSION);
+            }
+            final byte[] keyBytes = new byte[map.getShort()];
+            map.get(keyBytes);
+            if( !key.getID().equals(new String(keyBytes, "UTF-8")) ) {
+                throw new IOException("Key mismatch");
+            }
+            final int width = map.getInt(), height = map.getInt(), border = map.getInt(), internalFormat = map.getInt();
+            final GLPixelAttributes pa = new GLPixelAttributes(map.getInt(), map.getInt(), map.getInt());
+            final int flags = map.getInt(), alignment = map.getInt(), rowLength = map.getInt();
+            final TextureData.ColorSpace cs = TextureData.ColorSpace.values()[map.getInt()];
+            final ByteBuffer[] levels = new ByteBuffer[map.getInt()];
+            final int[] sizes = new int[levels.length];
+            for(int i=0; i<levels.length; i++) {
+                sizes[i] = map.getInt();
+            }
+            int offset = align(map.position());
+            for(int i=0; i<levels.length; i++) {
+                map.limit(offset + sizes[i]).position(offset);
+                levels[i] = map.slice().order(ByteOrder.nativeOrder());
+                map.limit(map.capacity());
+                offset += align(sizes[i]);
+            }
+            final boolean mipmap = 0 != ( flags & FLAG_MIPMAP );
+            final boolean compressed = 0 != ( flags & FLAG_COMPRESSED );
+            final boolean flip = 0 != ( flags & FLAG_FLIP );
+            final TextureData data;
+            if( 0 != ( flags & FLAG_MIPMAP_DATA ) ) {
+                data = new TextureData(key.glp, internalFormat, width, height, border, pa, compressed, flip, levels, null);
+                data.setMipmap(mipmap);
+            } else {
+                data = new TextureData(key.glp, internalFormat, width, height, border, pa, mipmap, compressed, flip, levels[0], null);
+            }
+            data.setAlignment(alignment);
+            data.setRowLength(rowLength);
+            data.setColorSpace(cs);
+            if(DEBUG) {
+                System.err.println("TextureDataCache: Mapped "+file+" -> "+data);
+            }
+            return data;
+        } catch (RuntimeException re) {
+            throw new IOException("Corrupt cache file: "+re.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b) throws IOException {
+        while( b.hasRemaining() ) {
+            ch.write(b);
+        }
+    }
+
+    private static int align(int v) {
+        return ( v + LEVEL_ALIGNMENT - 1 ) & ~( LEVEL_ALIGNMENT - 1 );
+    }
+
+    private static byte[] utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    private static byte[] sha1(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    private static String toHexString(byte[] data) {
+        final StringBuilder sb = new StringBuilder(data.length * 2);
+        for(int i=0; i<data.length; i++) {
+            final int v = 0xff & data[i];
+            sb.append(Character.forDigit(v >> 4, 16)).append(Character.forDigit(v & 0x0f, 16));
+        }
+        return sb.toString();
+    }
+
+    public String toString() {
+        return "TextureDataCache[mem "+getMemorySize()+"/"+getMemoryBudget()+" bytes, "+getMemoryEntryCount()+" entries, disk "+diskDir+
+               ", hits mem "+getMemoryHitCount()+", disk "+getDiskHitCount()+", misses "+getMissCount()+"]";
+    }
+}
@@ -0,0 +1,615 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.texture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLException;
+import javax.media.opengl.GLProfile;
+import javax.media.opengl.GLRunnable;
+
+import jogamp.opengl.Debug;
+
+import com.jogamp.common.util.IOUtil;
+
+/**
+ * Asynchronous texture loading service on top of {@link TextureIO}.
+ * <p>
+ * Requests are decoded to {@link TextureData} on a bounded pool of worker threads,
+ * higher {@link Request#getPriority() priority} first, requests of equal priority in order of submission.
+ * Loading the same {@link File} or {@link URL} w/ the same parameters while a request is in flight
+ * returns the pending {@link Request}, raising its priority if required.
+ * </p>
+ * <p>
+ * Decoded data is uploaded to a {@link Texture} on the GL thread, either by calling {@link #upload(GL)}
+ * within the rendering loop, e.g. {@link javax.media.opengl.GLEventListener#display(GLAutoDrawable) display(..)},
+ * or after {@link #attach(GLAutoDrawable) attaching} a {@link GLAutoDrawable}, 
+ * which receives the uploads via {@link GLAutoDrawable#invoke(boolean, GLRunnable)}.
+ * Each upload pass is limited by a {@link #setUploadBudget(long, long) time and byte budget}
+ * to avoid stalling the frame, the remaining data is uploaded by the following passes.
+ * </p>
+ * <p>
+ * The {@link Listener} of a request is notified on the GL thread after its upload or failure.
+ * The caller owns the resulting {@link Texture} and must {@link Texture#destroy(GL) destroy} it.
+ * </p>
+ */
+public class TextureLoader {
+    private static final boolean DEBUG = Debug.debug("TextureLoader");
+
+    /** Notified on the GL thread while {@link TextureLoader#upload(GL) uploading}. */
+    public static interface Listener {
+        /** The texture of the given request has been created. */
+        public void textureLoaded(Request request, Texture texture);
+
+        /** The given request failed, either while decoding or while creating the texture. */
+        public void textureFailed(Request request, Throwable error);
+    }
+
+    /** A pending or completed texture load. */
+    public static final class Request {
+        public static enum State {
+            /** Waiting for a worker thread */
+            QUEUED,
+            /** Decoding on a worker thread */
+            DECODING,
+            /** Decoded, waiting for upload on the GL thread */
+            DECODED,
+            /** Texture created, see {@link Request#getTexture()} */
+            LOADED,
+            /** Decoding or upload failed, see {@link Request#getError()} */
+            FAILED,
+            /** Cancelled before completion */
+            CANCELLED
+        };
+
+        private final TextureLoader loader;
+        private final Object key;
+        private final Object source;
+        private final boolean mipmap;
+        private final String fileSuffix;
+        private final ArrayList<Listener> listeners = new ArrayList<Listener>();
+        private volatile State state = State.QUEUED;
+        private volatile int priority;
+        private volatile TextureData data;
+        private volatile Texture texture;
+        private volatile Throwable error;
+        /** The currently queued decode task */
+        private DecodeTask task;
+        /** Number of {@link TextureLoader#load(File, boolean, String, int, Listener) load} calls sharing this request */
+        private int refCount = 1;
+
+        private Request(TextureLoader loader, Object key, Object source, boolean mipmap, String fileSuffix, int priority) {
+            this.loader = loader;
+            this.key = key;
+            this.source = source;
+            this.mipmap = mipmap;
+            this.fileSuffix = fileSuffix;
+            this.priority = priority;
+        }
+
+        /** Returns the source, either a {@link File}, {@link URL} or {@link InputStream}. */
+        public Object getSource() { return source; }
+        public boolean getMipmap() { return mipmap; }
+        public String getFileSuffix() { return fileSuffix; }
+        /** Returns the priority, higher values are decoded first. */
+        public int getPriority() { return priority; }
+        public State getState() { return state; }
+
+        /** Returns true if the request is {@link State#LOADED loaded}, {@link State#FAILED failed} or {@link State#CANCELLED cancelled}. */
+        public boolean isDone() {
+            final State s = state;
+            return State.LOADED == s || State.FAILED == s || State.CANCELLED == s;
+        }
+
+        /** Returns the decoded data if {@link State#DECODED decoded} or {@link State#LOADED loaded}, otherwise null. */
+        public TextureData getTextureData() { return data; }
+
+        /** Returns the texture if {@link State#LOADED loaded}, otherwise null. */
+        public Texture getTexture() { return texture; }
+
+        /** Returns the cause if {@link State#FAILED failed}, otherwise null. */
+        public Throwable getError() { return error; }
+
+        /**
+         * Cancels this request if not yet {@link #isDone() done}.
+         * <p>
+         * If this request is shared by multiple {@link TextureLoader#load(File, boolean, String, int, Listener) load} calls,
+         * it is only cancelled by the last caller.
+         * A caller which passed a {@link Listener} shall use {@link #cancel(Listener)}.
+         * </p>
+         * @return true if the request has been cancelled 
+         */
+        public boolean cancel() {
+            return loader.cancel(this, null);
+        }
+
+        /**
+         * Cancels the {@link TextureLoader#load(File, boolean, String, int, Listener) load} call
+         * which passed the given listener, if this request is not yet {@link #isDone() done}.
+         * <p>
+         * The listener is removed and not notified anymore, even if this request is shared
+         * and hence only cancelled by the last caller.
+         * </p>
+         * @return true if the request has been cancelled 
+         */
+        public boolean cancel(Listener listener) {
+            return loader.cancel(this, listener);
+        }
+
+        public String toString() {
+            return "TextureLoader.Request["+source+", suffix "+fileSuffix+", mipmap "+mipmap+", prio "+priority+", "+state+"]";
+        }
+    }
+
+    /** Decodes a {@link Request} on a worker thread. */
+    private class DecodeTask implements Runnable, Comparable<DecodeTask> {
+        final Request request;
+        final int priority;
+        final long seq;
+
+        DecodeTask(Request request, int priority) {
+            this.request = request;
+            this.priority = priority;
+            synchronized( lock ) {
+                this.seq = taskSeq++;
+            }
+        }
+
+        @Override
+        public int compareTo(DecodeTask o) {
+            if( priority != o.priority ) {
+                return priority > o.priority ? -1 : 1;
+            }
+            return seq < o.seq ? -1 : ( seq > o.seq ? 1 : 0 );
+        }
+
+        @Override
+        public void run() {
+            decodeRequest(this);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final GLProfile glp;
+    private final ThreadPoolExecutor executor;
+    /** Schedules the next upload pass off the GL thread, independent of busy decoding workers. */
+    private final ThreadPoolExecutor uploadScheduler;
+    private final HashMap<Object, Request> inFlight = new HashMap<Object, Request>();
+    private final ConcurrentLinkedQueue<Request> decoded = new ConcurrentLinkedQueue<Request>();
+    private long taskSeq = 0;
+    private volatile long uploadTimeBudget = 4000000L; // 4ms
+    private volatile long uploadByteBudget = 16L * 1024L * 1024L;
+    private volatile GLAutoDrawable drawable = null;
+    private volatile TextureDataCache cache = null;
+    private boolean uploadScheduled = false;
+    private volatile boolean destroyed = false;
+
+    private final GLRunnable uploadRunnable = new GLRunnable() {
+        @Override
+        public boolean run(GLAutoDrawable drawable) {
+            synchronized( lock ) {
+                uploadScheduled = false;
+            }
+            upload(drawable.getGL());
+            if( !decoded.isEmpty() && !destroyed ) {
+                // over budget, continue w/ next frame - not from within display()
+                uploadScheduler.execute(scheduleUploadRunnable);
+            }
+            return true;
+        }
+    };
+
+    private final Runnable scheduleUploadRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scheduleUpload();
+        }
+    };
+
+    /**
+     * @param glp the profile the {@link TextureData} is decoded for
+     * @param threadCount number of worker threads, if &lt;= 0 the number of available processors is used
+     */
+    public TextureLoader(GLProfile glp, int threadCount) {
+        this.glp = glp;
+        if( 0 >= threadCount ) {
+            threadCount = Runtime.getRuntime().availableProcessors();
+        }
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 10, TimeUnit.SECONDS, 
+                                          new PriorityBlockingQueue<Runnable>(), createThreadFactory("TextureLoader-", Thread.NORM_PRIORITY - 1));
+        executor.allowCoreThreadTimeOut(true);
+        uploadScheduler = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, 
+                                                 new LinkedBlockingQueue<Runnable>(), createThreadFactory("TextureLoader-Upload-", Thread.NORM_PRIORITY));
+        uploadScheduler.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory createThreadFactory(final String prefix, final int priority) {
+        return new ThreadFactory() {
+            private int count = 0;
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, prefix+(count++));
+                t.setDaemon(true);
+                t.setPriority(priority);
+                return t;
+            }
+        };
+    }
+
+    /** Returns the profile the {@link TextureData} is decoded for. */
+    public final GLProfile getGLProfile() { return glp; }
+
+    /**
+     * Sets the budget of each upload pass, see {@link #upload(GL)}.
+     * @param timeNanos maximum duration in nanoseconds, default 4ms
+     * @param bytes maximum number of bytes uploaded, default 16MB
+     */
+    public final void setUploadBudget(long timeNanos, long bytes) {
+        uploadTimeBudget = timeNanos;
+        uploadByteBudget = bytes;
+    }
+
+    /**
+     * Uploads decoded data via {@link GLAutoDrawable#invoke(boolean, GLRunnable)} of the given drawable,
+     * if not null. Otherwise the user shall call {@link #upload(GL)} on the GL thread.
+     */
+    public final void attach(GLAutoDrawable drawable) {
+        this.drawable = drawable;
+        if( null != drawable && !decoded.isEmpty() ) {
+            scheduleUpload();
+        }
+    }
+
+    /** Decodes via the given cache if not null, see {@link #decode(Request)}. */
+    public final void setCache(TextureDataCache cache) {
+        this.cache = cache;
+    }
+
+    /** Returns the cache used for decoding, may be null. */
+    public final TextureDataCache getCache() { return cache; }
+
+    /** Loads the texture from the given file, see {@link TextureIO#newTextureData(GLProfile, File, boolean, String)}. */
+    public Request load(File file, boolean mipmap, String fileSuffix, int priority, Listener listener) {
+        if( null == fileSuffix ) {
+            fileSuffix = IOUtil.getFileSuffix(file);
+        }
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        return load("file:"+path+"|"+fileSuffix+"|"+mipmap, file, mipmap, fileSuffix, priority, listener);
+    }
+
+    /** Loads the texture from the given URL, see {@link TextureIO#newTextureData(GLProfile, URL, boolean, String)}. */
+    public Request load(URL url, boolean mipmap, String fileSuffix, int priority, Listener listener) {
+        if( null == fileSuffix ) {
+            fileSuffix = IOUtil.getFileSuffix(url.getPath());
+        }
+        return load(url.toExternalForm()+"|"+fileSuffix+"|"+mipmap, url, mipmap, fileSuffix, priority, listener);
+    }
+
+    /** 
+     * Loads the texture from the given stream, see {@link TextureIO#newTextureData(GLProfile, InputStream, boolean, String)}.
+     * <p>
+     * The stream is read on a worker thread and closed afterwards.
+     * </p>
+     */
+    public Request load(InputStream stream, boolean mipmap, String fileSuffix, int priority, Listener listener) {
+        return load(stream, stream, mipmap, fileSuffix, priority, listener);
+    }
+
+    private Request load(Object key, Object source, boolean mipmap, String fileSuffix, int priority, Listener listener) {
+        if( destroyed ) {
+            throw new IllegalStateException("destroyed: "+this);
+        }
+        final Request req;
+        DecodeTask oldTask = null, newTask = null;
+        synchronized( lock ) {
+            final Request pending = inFlight.get(key);
+            if( null != pending ) {
+                req = pending;
+                req.refCount++;
+                if( priority > req.priority ) {
+                    req.priority = priority;
+                    if( Request.State.QUEUED == req.state ) {
+                        oldTask = req.task;
+                        newTask = new DecodeTask(req, priority);
+                        req.task = newTask;
+                    }
+                }
+            } else {
+                req = new Request(this, key, source, mipmap, fileSuffix, priority);
+                inFlight.put(key, req);
+                newTask = new DecodeTask(req, priority);
+                req.task = newTask;
+            }
+            if( null != listener ) {
+                req.listeners.add(listener);
+            }
+        }
+        if( null != oldTask ) {
+            executor.remove(oldTask); // requeue w/ higher priority, a stale task would be skipped
+        }
+        if( null != newTask ) {
+            submit(newTask);
+        }
+        if(DEBUG) {
+            System.err.println("TextureLoader.load: "+req+( null == newTask || null != oldTask ? " (pending)" : "" ));
+        }
+        return req;
+    }
+
+    private void submit(DecodeTask task) {
+        if( !destroyed ) {
+            executor.execute(task);
+        }
+    }
+
+    private boolean cancel(Request req, Listener listener) {
+        synchronized( lock ) {
+            if( req.isDone() ) {
+                return false;
+            }
+            if( null != listener ) {
+                req.listeners.remove(listener);
+            }
+            if( 0 < --req.refCount ) {
+                return false;
+            }
+            req.state = Request.State.CANCELLED;
+            req.listeners.clear();
+            inFlight.remove(req.key);
+            if( null != req.task ) {
+                executor.remove(req.task);
+                req.task = null;
+            }
+        }
+        if(DEBUG) {
+            System.err.println("TextureLoader.cancel: "+req);
+        }
+        return true;
+    }
+
+    /** 
+     * Decodes the request's source on a worker thread.
+     * <p>
+     * Default implementation uses the {@link #setCache(TextureDataCache) cache} if set, otherwise {@link TextureIO}. 
+     * May be overridden for custom sources.
+     * </p>
+     * @return the decoded data or null if no provider could read the source
+     */
+    protected TextureData decode(Request req) throws IOException {
+        final Object source = req.getSource();
+        final TextureDataCache c = cache;
+        if( null != c ) {
+            if( source instanceof File ) {
+                return c.newTextureData(glp, (File)source, req.getMipmap(), req.getFileSuffix());
+            } else if( source instanceof URL ) {
+                return c.newTextureData(glp, (URL)source, req.getMipmap(), req.getFileSuffix());
+            } else {
+                return c.newTextureData(glp, (InputStream)source, req.getMipmap(), req.getFileSuffix());
+            }
+        } else if( source instanceof File ) {
+            return TextureIO.newTextureData(glp, (File)source, req.getMipmap(), req.getFileSuffix());
+        } else if( source instanceof URL ) {
+            return TextureIO.newTextureData(glp, (URL)source, req.getMipmap(), req.getFileSuffix());
+        } else {
+            final InputStream stream = (InputStream)source;
+            try {
+                return TextureIO.newTextureData(glp, stream, req.getMipmap(), req.getFileSuffix());
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    /** 
+     * Creates the texture on the GL thread.
+     * <p>
+     * Default implementation uses {@link TextureIO#newTexture(GL, TextureData)}.
+     * </p>
+     */
+    protected Texture createTexture(GL gl, TextureData data) throws GLException {
+        return TextureIO.newTexture(gl, data);
+    }
+
+    private void decodeRequest(DecodeTask task) {
+        final Request req = task.request;
+        synchronized( lock ) {
+            if( req.task != task || Request.State.QUEUED != req.state ) {
+                return; // stale or cancelled
+            }
+            req.task = null;
+            req.state = Request.State.DECODING;
+        }
+        TextureData data = null;
+        Throwable error = null;
+        try {
+            data = decode(req);
+            if( null == data ) {
+                error = new IOException("No texture provider for "+req);
+            }
+        } catch (Throwable t) {
+            error = t;
+        }
+        synchronized( lock ) {
+            if( Request.State.CANCELLED == req.state ) {
+                if( null != data ) {
+                    data.flush();
+                }
+                return;
+            }
+            req.data = data;
+            req.error = error;
+            req.state = Request.State.DECODED;
+        }
+        decoded.add(req);
+        scheduleUpload();
+    }
+
+    private void scheduleUpload() {
+        final GLAutoDrawable d = drawable;
+        if( null == d || decoded.isEmpty() ) {
+            return;
+        }
+        synchronized( lock ) {
+            if( uploadScheduled ) {
+                return;
+            }
+            uploadScheduled = true;
+        }
+        if( !d.invoke(false, uploadRunnable) ) {
+            synchronized( lock ) {
+                uploadScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Creates the textures of decoded requests and notifies their {@link Listener}s,
+     * until the {@link #setUploadBudget(long, long) budget} is exceeded.
+     * At least one request is processed if available.
+     * <p>
+     * Must be called on the GL thread w/ a current context.
+     * </p>
+     * @return the number of processed requests
+     */
+    public int upload(GL gl) {
+        final long t0 = System.nanoTime();
+        final long timeBudget = uploadTimeBudget;
+        final long byteBudget = uploadByteBudget;
+        long bytes = 0;
+        int count = 0;
+        Request req;
+        while( ( 0 == count || ( System.nanoTime() - t0 < timeBudget && bytes < byteBudget ) ) && 
+               null != ( req = decoded.poll() ) ) {
+            final TextureData data = req.data;
+            Texture texture = null;
+            Throwable error = req.error;
+            if( null == error ) {
+                synchronized( lock ) {
+                    if( Request.State.CANCELLED == req.state ) {
+                        data.flush();
+                        continue;
+                    }
+                }
+                try {
+                    texture = createTexture(gl, data);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                data.flush();
+                bytes += data.getEstimatedMemorySize();
+            }
+            final Listener[] listeners;
+            synchronized( lock ) {
+                if( Request.State.CANCELLED == req.state ) {
+                    if( null != texture ) {
+                        texture.destroy(gl);
+                    }
+                    continue;
+                }
+                req.texture = texture;
+                req.error = error;
+                req.state = null != texture ? Request.State.LOADED : Request.State.FAILED;
+                inFlight.remove(req.key);
+                listeners = req.listeners.toArray(new Listener[req.listeners.size()]);
+                req.listeners.clear();
+            }
+            count++;
+            if(DEBUG) {
+                System.err.println("TextureLoader.upload: "+req+( null != error ? ", error "+error : "" ));
+            }
+            for(int i=0; i<listeners.length; i++) {
+                if( null != texture ) {
+                    listeners[i].textureLoaded(req, texture);
+                } else {
+                    listeners[i].textureFailed(req, error);
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Returns the number of requests not yet {@link Request#isDone() done}. */
+    public int getPendingCount() {
+        synchronized( lock ) {
+            return inFlight.size();
+        }
+    }
+
+    /** Returns the number of decoded requests waiting for {@link #upload(GL)}. */
+    public int getDecodedCount() {
+        return decoded.size();
+    }
+
+    /** 
+     * Cancels all pending requests and stops the worker threads.
+     * Textures already created are not affected.
+     */
+    public void destroy() {
+        destroyed = true;
+        drawable = null;
+        executor.shutdownNow();
+        uploadScheduler.shutdownNow();
+        synchronized( lock ) {
+            for(Iterator<Request> iter = inFlight.values().iterator(); iter.hasNext(); ) {
+                final Request req = iter.next();
+                req.state = Request.State.CANCELLED;
+                req.task = null;
+            }
+            inFlight.clear();
+        }
+        Request req;
+        while( null != ( req = decoded.poll() ) ) {
+            if( null != req.data ) {
+                req.data.flush();
+            }
+        }
+    }
+
+    public String toString() {
+        return "TextureLoader[threads "+executor.getMaximumPoolSize()+", pending "+getPendingCount()+", decoded "+getDecodedCount()+", destroyed "+destroyed+"]";
+    }
+}
@@ -42,6 +42,11 @@ import com.jogamp.opengl.util.texture.TextureData.ColorSpace;
 public class JPEGImage {
     private static final boolean DEBUG = Debug.debug("JPEGImage");    
     
+    /** 
+     * Decode images w/ multiple threads, enabled via property <code>jogl.texture.jpeg.parallel</code>,
+     * see {@link JPEGDecoder#setParallelMode(boolean)}.
+     */
+    private static final boolean PARALLEL_DECODE = Debug.isPropertyDefined("jogl.texture.jpeg.parallel", true);
     
     /**
      * Reads a JPEG image from the specified InputStream, using the given color space for storage.
@@ -60,7 +65,7 @@ public class JPEGImage {
         return new JPEGImage(in, ColorSpace.RGB);
     }
     
-    private static class JPEGColorSink implements JPEGDecoder.ColorSink  {
+    private static class JPEGColorSink implements JPEGDecoder.ColorLineSink  {
         int width=0, height=0;
         int sourceComponents=0;
         ColorSpace sourceCS = ColorSpace.YCbCr;
@@ -91,25 +96,14 @@ public class JPEGImage {
         }
 
         @Override
-        public final void storeRGB(int x, int y, byte r, byte g, byte b) {
-            int i = ( ( height - y - 1 ) * width + x ) * storageComponents;
-            data.put(i++, r);
-            data.put(i++, g);
-            data.put(i++, b);
-            // data.put(i++, (byte)0xff);            
-        }
-
-        @Override
-        public final void store2(int x, int y, byte c1, byte c2) {
-            throw new RuntimeException("not supported yet");
-        }
-
-        @Override
-        public final void storeYCbCr(int x, int y, byte Y, byte Cb, byte Cr) {
-            int i = ( ( height - y - 1 ) * width + x ) * storageComponents;
-            data.put(i++, Y);
-            data.put(i++, Cb);
-            data.put(i++, Cr);
+        public final void storeLine(int y, byte[] line, int components) {
+            if( components != storageComponents ) {
+                throw new RuntimeException("not supported yet: "+components+" components");
+            }
+            // bulk store whole line, implicitly flip image to GL orientation (bottom-to-top)
+            final int lineSize = width * storageComponents;
+            data.position( ( height - y - 1 ) * lineSize );
+            data.put(line, 0, lineSize);
         }
         
         public String toString() {
@@ -120,11 +114,15 @@ public class JPEGImage {
     private JPEGImage(InputStream in, ColorSpace cs) throws IOException {
         pixelStorage = new JPEGColorSink(cs);
         final JPEGDecoder decoder = new JPEGDecoder();
+        if( PARALLEL_DECODE && JPEGDecoder.isParallelModeAvailable() ) {
+            decoder.setParallelMode(true);
+        }
         decoder.parse(in);
         pixelWidth = decoder.getWidth();
         pixelHeight = decoder.getHeight();
-        decoder.getPixel(pixelStorage, pixelWidth, pixelHeight);
+        decoder.getPixelLines(pixelStorage, pixelWidth, pixelHeight);
         data = pixelStorage.data;
+        data.rewind();
         final boolean hasAlpha = false;
         
         bytesPerPixel = 3;
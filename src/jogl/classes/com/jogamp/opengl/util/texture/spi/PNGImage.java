@@ -36,11 +36,11 @@ import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
 import javax.media.opengl.GL;
+import javax.media.opengl.GL2GL3;
 
 import jogamp.opengl.Debug;
 import jogamp.opengl.util.pngj.ImageInfo;
 import jogamp.opengl.util.pngj.ImageLine;
-import jogamp.opengl.util.pngj.ImageLineHelper;
 import jogamp.opengl.util.pngj.PngReader;
 import jogamp.opengl.util.pngj.PngWriter;
 import jogamp.opengl.util.pngj.chunks.PngChunkPLTE;
@@ -53,6 +53,12 @@ import com.jogamp.common.util.IOUtil;
 public class PNGImage {
     private static final boolean DEBUG = Debug.debug("PNGImage");    
     
+    /** 
+     * Compress {@link #write(File, boolean) written} images w/ multiple threads,
+     * enabled via property <code>jogl.texture.png.parallel</code>, see {@link PngWriter#setParallelMode(boolean)}.
+     */
+    private static final boolean PARALLEL_WRITE = Debug.isPropertyDefined("jogl.texture.png.parallel", true);
+    
     /**
      * Creates a PNGImage from data supplied by the end user. Shares
      * data with the passed ByteBuffer. Assumes the data is already in
@@ -79,25 +85,63 @@ public class PNGImage {
      * Reads a PNG image from the specified InputStream.
      * <p>
      * Implicitly flip image to GL orientation, see {@link #isGLOriented()}.
+     * Channels are stored in RGB[A] order.
      * </p> 
      */
     public static PNGImage read(InputStream in) throws IOException {
-        return new PNGImage(in);
+        return new PNGImage(in, false, true);
     }
     
-    /** Reverse read and store, implicitly flip image to GL orientation, see {@link #isGLOriented()}. */
-    private static final int getPixelRGBA8(ByteBuffer d, int dOff, int[] scanline, int lineOff, boolean hasAlpha) {
-        final int b = hasAlpha ? 4-1 : 3-1;
-        if( d.limit() <= dOff || dOff - b < 0 ) {
-            throw new IndexOutOfBoundsException("Buffer has unsufficient bytes left, needs ["+(dOff-b)+".."+dOff+"]: "+d);
+    /** 
+     * Reads a PNG image from the specified InputStream.
+     * <p>
+     * Passing <code>isGLOriented</code> <code>false</code> keeps the PNG <i>top-to-bottom</i> row order
+     * and avoids flipping the image, see {@link #isGLOriented()}.
+     * </p>
+     * <p>
+     * Passing <code>reversedChannels</code> <code>true</code> stores RGB[A] images in BGR[A] order,
+     * see {@link #getHasReversedChannels()}. Luminance images are not affected.
+     * </p>
+     * @param in the PNG source
+     * @param reversedChannels if <code>true</code> store pixels as BGR[A], otherwise as RGB[A]
+     * @param isGLOriented if <code>true</code> flip image to GL orientation, otherwise keep the PNG orientation
+     */
+    public static PNGImage read(InputStream in, boolean reversedChannels, boolean isGLOriented) throws IOException {
+        return new PNGImage(in, reversedChannels, isGLOriented);
+    }
+    
+    /**
+     * Expands the palette and the optional transparency chunk into a lookup table
+     * of <code>256 * channels</code> bytes, indexed by <code>index * channels</code>.
+     * Unused entries are black, opaque.
+     */
+    private static byte[] createPaletteLUT(PngChunkPLTE plte, PngChunkTRNS trns, int channels, boolean reversedChannels) {
+        final byte[] lut = new byte[256 * channels];
+        final int[] rgb = new int[3];
+        final int[] alpha = null != trns ? trns.getPalletteAlpha() : null;
+        final int entries = Math.min(256, plte.getNentries());
+        for(int i=0; i<256; i++) {
+            final int off = i * channels;
+            if( i < entries ) {
+                plte.getEntryRgb(i, rgb, 0);
+                lut[off + ( reversedChannels ? 2 : 0 )] = (byte)rgb[0]; // R
+                lut[off + 1                           ] = (byte)rgb[1]; // G
+                lut[off + ( reversedChannels ? 0 : 2 )] = (byte)rgb[2]; // B
+            }
+            if( 4 == channels ) {
+                lut[off + 3] = ( null != alpha && i < alpha.length ) ? (byte)alpha[i] : (byte)0xff; // A
+            }
         }
-    	if(hasAlpha) {
-            d.put(dOff--, (byte)scanline[lineOff + 3]); // A
+        return lut;
+    }
+    
+    /** Swaps the R and B channel of each pixel in place, i.e. RGB[A] <-> BGR[A]. */
+    private static void swapRB(byte[] line, int len, int bytesPerPixel) {
+        for(int i=0; i<len; i+=bytesPerPixel) {
+            final byte t = line[i];
+            line[i] = line[i+2];
+            line[i+2] = t;
         }
-        d.put(dOff--, (byte)scanline[lineOff + 2]); // B
-        d.put(dOff--, (byte)scanline[lineOff + 1]); // G        
-        d.put(dOff--, (byte)scanline[lineOff    ]); // R
-        return dOff;
     }
     
     /** Reverse write and store, implicitly flip image from current orientation, see {@link #isGLOriented()}. Handle reversed channels (BGR[A]). */
@@ -107,12 +151,12 @@ public class PNGImage {
             throw new IndexOutOfBoundsException("Buffer has unsufficient bytes left, needs ["+dOff+".."+(dOff+b)+"]: "+d);
         }
         if( reversedChannels ) {
+            line.scanline[lineOff + 2] = d.get(dOff++); // B
+            line.scanline[lineOff + 1] = d.get(dOff++); // G
+            line.scanline[lineOff    ] = d.get(dOff++); // R
             if(hasAlpha) {
                 line.scanline[lineOff + 3] = d.get(dOff++); // A
             }
-            line.scanline[lineOff + 2] = d.get(dOff++); // R
-            line.scanline[lineOff + 1] = d.get(dOff++); // G
-            line.scanline[lineOff    ] = d.get(dOff++); // B
         } else {
             line.scanline[lineOff    ] = d.get(dOff++); // R
             line.scanline[lineOff + 1] = d.get(dOff++); // G
@@ -141,7 +185,7 @@ public class PNGImage {
         this.data = data;        
     }
     
-    private PNGImage(InputStream in) {
+    private PNGImage(InputStream in, boolean reversedChannels, boolean isGLOriented) {
         final PngReader pngr = new PngReader(new BufferedInputStream(in), null);
         final ImageInfo imgInfo = pngr.imgInfo;
         final PngChunkPLTE plte = pngr.getMetadata().getPLTE();
@@ -169,19 +213,13 @@ public class PNGImage {
             dpi[0]=dpi2[0];
             dpi[1]=dpi2[1];
         }
-        if ( indexed ) {
-        	if ( hasAlpha ) {
-        		glFormat = GL.GL_RGBA;
-        	} else {
-        		glFormat = GL.GL_RGB;
-        	}
-        } else {
-        	switch( channels ) {
-                case 1: glFormat = GL.GL_LUMINANCE; break;
-                case 3: glFormat = GL.GL_RGB; break;
-                case 4: glFormat = GL.GL_RGBA; break;
-                default: throw new InternalError("XXX: channels: "+channels+", bytesPerPixel "+bytesPerPixel);
-            }
+        this.reversedChannels = reversedChannels && 1 < channels;
+        this.isGLOriented = isGLOriented;
+        switch( channels ) {
+            case 1: glFormat = GL.GL_LUMINANCE; break;
+            case 3: glFormat = this.reversedChannels ? GL2GL3.GL_BGR : GL.GL_RGB; break;
+            case 4: glFormat = this.reversedChannels ? GL.GL_BGRA : GL.GL_RGBA; break;
+            default: throw new InternalError("XXX: channels: "+channels+", bytesPerPixel "+bytesPerPixel);
         }
         if(DEBUG) {
             System.err.println("PNGImage: "+imgInfo);
@@ -190,33 +228,37 @@ public class PNGImage {
                                ", pixels "+pixelWidth+"x"+pixelHeight+", dpi "+dpi[0]+"x"+dpi[1]+", glFormat 0x"+Integer.toHexString(glFormat));
         }
         
-        data = Buffers.newDirectByteBuffer(bytesPerPixel * pixelWidth * pixelHeight);
-        reversedChannels = false; // RGB[A]
-        isGLOriented = true;
-        int dataOff = bytesPerPixel * pixelWidth * pixelHeight - 1; // start at end-of-buffer, reverse store
-
-        int[] rgbaScanline = indexed ? new int[imgInfo.cols * channels] : null;
+        final int stride = bytesPerPixel * pixelWidth;
+        data = Buffers.newDirectByteBuffer(stride * pixelHeight);
+        
+        // Convert whole rows: palette lookup and channel swap are performed in the row buffer,
+        // which is then bulk copied into its destination row (PNG top-left -> OpenGL bottom-left origin if isGLOriented).
+        final byte[] lut = indexed ? createPaletteLUT(plte, trns, channels, this.reversedChannels) : null;
+        final byte[] pngLine = indexed ? new byte[pixelWidth] : new byte[stride];
+        final byte[] rgbaLine = indexed ? new byte[stride] : pngLine;
+        if( indexed ) {
+            pngr.setUnpackedMode(true); // one palette index per byte
+        }
         
         for (int row = 0; row < pixelHeight; row++) {
-            final ImageLine l1 = pngr.readRow(row);
-            int lineOff = ( pixelWidth - 1 ) * bytesPerPixel ; // start w/ last pixel in line, reverse read (PNG top-left -> OpenGL bottom-left origin)
+            pngr.readRowByte(pngLine, row);
             if( indexed ) {
-                for (int j = pixelWidth - 1; j >= 0; j--) {
-                    rgbaScanline = ImageLineHelper.palette2rgb(l1, plte, trns, rgbaScanline); // reuse rgbaScanline and update if resized
-                    dataOff = getPixelRGBA8(data, dataOff, rgbaScanline, lineOff, hasAlpha);
-                    lineOff -= bytesPerPixel;
-                }
-            } else if( 1 == channels ) {
-                for (int j = pixelWidth - 1; j >= 0; j--) {
-                    data.put(dataOff--, (byte)l1.scanline[lineOff--]); // Luminance, 1 bytesPerPixel
-                }
-            } else {
-                for (int j = pixelWidth - 1; j >= 0; j--) {
-            		dataOff = getPixelRGBA8(data, dataOff, l1.scanline, lineOff, hasAlpha);
-                    lineOff -= bytesPerPixel;
+                for (int j = 0, k = 0; j < pixelWidth; j++) {
+                    final int lutOff = ( pngLine[j] & 0xff ) * channels;
+                    rgbaLine[k++] = lut[lutOff    ];
+                    rgbaLine[k++] = lut[lutOff + 1];
+                    rgbaLine[k++] = lut[lutOff + 2];
+                    if( hasAlpha ) {
+                        rgbaLine[k++] = lut[lutOff + 3];
+                    }
                 }
+            } else if( this.reversedChannels ) {
+                swapRB(rgbaLine, stride, bytesPerPixel);
             }
+            data.position( isGLOriented ? ( pixelHeight - 1 - row ) * stride : row * stride );
+            data.put(rgbaLine, 0, stride);
         }
+        data.rewind();
         pngr.end();
     }
     private final int pixelWidth, pixelHeight, glFormat, bytesPerPixel;
@@ -257,7 +299,8 @@ public class PNGImage {
     public int getBytesPerPixel() { return bytesPerPixel; }
 
     /** Returns the raw data for this texture in the correct
-        (bottom-to-top) order for calls to glTexImage2D. */
+        (bottom-to-top) order for calls to glTexImage2D,
+        or in <i>top-to-bottom</i> order if not {@link #isGLOriented()}. */
     public ByteBuffer getData()  { return data; }
 
     public void write(File out, boolean allowOverwrite) throws IOException {        
@@ -266,6 +309,9 @@ public class PNGImage {
         final OutputStream outs = new BufferedOutputStream(IOUtil.getFileOutputStream(out, allowOverwrite));
         try {
             final PngWriter png = new PngWriter(outs, imi); 
+            if( PARALLEL_WRITE && PngWriter.isParallelModeAvailable() ) {
+                png.setParallelMode(true);
+            }
             // add some optional metadata (chunks)
             png.getMetadata().setDpi(dpi[0], dpi[1]);
             png.getMetadata().setTimeNow(0); // 0 seconds fron now = now
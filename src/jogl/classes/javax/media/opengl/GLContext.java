@@ -1477,6 +1477,29 @@ public abstract class GLContext {
           }
       }
   }
+  /**
+   * Removes all mapped GL versions of the given device and clears its
+   * {@link #getAvailableGLVersionsSet(AbstractGraphicsDevice) available GL versions set} state,
+   * allowing them to be mapped again, e.g. if restored values turned out to be stale.
+   */
+  protected static void resetAvailableGLVersions(AbstractGraphicsDevice device) {
+      final String devKey = device.getUniqueID();
+      synchronized ( deviceVersionAvailable ) {
+          final String prefix = devKey + "-";
+          for(Iterator<String> iter = deviceVersionAvailable.keySet().iterator(); iter.hasNext(); ) {
+              if( iter.next().startsWith(prefix) ) {
+                  iter.remove();
+              }
+          }
+      }
+      synchronized ( deviceVersionsAvailableSet ) {
+          deviceVersionsAvailableSet.remove(devKey);
+      }
+      if (DEBUG) {
+          System.err.println(getThreadName() + ": resetAvailableGLVersions "+devKey);
+      }
+  }
+
 
   /** 
    * Returns a unique String object using {@link String#intern()} for the given arguments, 
@@ -60,6 +60,21 @@ public class GLPipelineFactory {
      *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Debug", GL2ES2.class, gl, null) );
      *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Trace", GL2ES2.class, gl, new Object[] { System.err } ) );
      * </pre>
+     * Profiling pipelines counting GL calls are available via <code>javax.media.opengl.Profile</code>,
+     * see {@link com.jogamp.opengl.util.GLCallStats}.
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Profile", null, gl, null) );
+     * </pre>
+     * State caching pipelines dropping redundant state changes are available via <code>javax.media.opengl.StateCache</code>,
+     * see {@link com.jogamp.opengl.util.GLStateCache}.
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.StateCache", null, gl, null) );
+     * </pre>
+     * Recording pipelines serializing all GL calls are available via <code>javax.media.opengl.Record</code>,
+     * see {@link com.jogamp.opengl.util.GLCommandRecorder} and {@link com.jogamp.opengl.util.ReplayGL}.
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Record", null, gl, null) );
+     * </pre>
      * or automatic w/ automatic defined class:
      * <pre>
      *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Debug",         null, gl, null) );
@@ -41,6 +41,7 @@ import jogamp.nativewindow.NWJNILibLoader;
 import jogamp.opengl.Debug;
 import jogamp.opengl.GLContextImpl;
 import jogamp.opengl.GLDrawableFactoryImpl;
+import jogamp.opengl.GLProfileCache;
 import jogamp.opengl.DesktopGLDynamicLookupHelper;
 
 import com.jogamp.common.GlueGenVersion;
@@ -1697,6 +1698,9 @@ public class GLProfile {
                 throw new InternalError("Available GLVersions not set");
             }
             addedDesktopProfile = computeProfileMap(device, false /* desktopCtxUndef*/, false /* esCtxUndef */);
+            if( desktopSharedCtxAvail ) {
+                validateProfileCache(device);
+            }
         }
         
         final boolean deviceIsEGLCompatible = hasEGLFactory && eglFactory.getIsDeviceCompatible(device);
@@ -1810,6 +1814,37 @@ public class GLProfile {
         sb.append("]");
     }
 
+    /**
+     * Validates the desktop profile map of the device w/ its {@link GLProfileCache} entry, if enabled,
+     * i.e. records and stores it if the available GL versions have been mapped
+     * or compares it if they have been restored.
+     */
+    private static void validateProfileCache(AbstractGraphicsDevice device) {
+        final GLProfileCache profileCache = GLProfileCache.getDefault();
+        if( null == profileCache ) {
+            return;
+        }
+        final GLProfileCache.Entry e = profileCache.get(device.getUniqueID());
+        if( null == e ) {
+            return;
+        }
+        final HashMap<String, GLProfile> map = deviceConn2ProfileMap.get(device.getUniqueID());
+        final StringBuilder sb = new StringBuilder();
+        for(int i=0; i<=GL_PROFILE_LIST_ALL.length; i++) {
+            final String profile = i < GL_PROFILE_LIST_ALL.length ? GL_PROFILE_LIST_ALL[i] : GL_DEFAULT;
+            final GLProfile glp = null != map ? map.get(profile) : null;
+            if( null != glp ) {
+                if( sb.length() > 0 ) {
+                    sb.append(",");
+                }
+                sb.append(profile).append("=").append(glp.getImplName()).append(glp.isHardwareRasterizer() ? ".hw" : ".sw");
+            }
+        }
+        if( profileCache.validateProfileMap(e, sb.toString()) ) {
+            profileCache.store(e);
+        }
+    }
+
     private static boolean computeProfileMap(AbstractGraphicsDevice device, boolean desktopCtxUndef, boolean esCtxUndef) {
         if (DEBUG) {
             System.err.println("GLProfile.init map "+device.getConnection()+", desktopCtxUndef "+desktopCtxUndef+", esCtxUndef "+esCtxUndef);
@@ -0,0 +1,21 @@
+package javax.media.opengl;
+
+/**
+ * <p>
+ * Composable pipeline which wraps an underlying {@link GL} implementation,
+ * counting the invocations of each OpenGL method, the bytes passed to buffer and texture uploads
+ * and optionally the duration of each call, see {@link com.jogamp.opengl.util.GLCallStats}.
+ * </p>
+ * <p>
+ * Sample code which installs this pipeline, manual:
+ * <pre>
+ *     gl = drawable.setGL(new ProfileGL(drawable.getGL()));
+ * </pre> 
+ * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}.
+ * </p>
+ */
+public class ProfileGL2 extends ProfileGL4bc {
+    public ProfileGL2(GL2 downstream) {
+        super((GL4bc)downstream);
+    }
+}
@@ -0,0 +1,21 @@
+package javax.media.opengl;
+
+/**
+ * <p>
+ * Composable pipeline which wraps an underlying {@link GL} implementation,
+ * serializing each OpenGL call w/ its arguments into a binary stream while recording,
+ * see {@link com.jogamp.opengl.util.GLCommandRecorder} and {@link com.jogamp.opengl.util.ReplayGL}.
+ * </p>
+ * <p>
+ * Sample code which installs this pipeline, manual:
+ * <pre>
+ *     gl = drawable.setGL(new RecordGL(drawable.getGL()));
+ * </pre> 
+ * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}.
+ * </p>
+ */
+public class RecordGL2 extends RecordGL4bc {
+    public RecordGL2(GL2 downstream) {
+        super((GL4bc)downstream);
+    }
+}
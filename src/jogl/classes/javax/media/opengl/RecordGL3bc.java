@@ -0,0 +1,21 @@
+package javax.media.opengl;
+
+/**
+ * <p>
+ * Composable pipeline which wraps an underlying {@link GL} implementation,
+ * serializing each OpenGL call w/ its arguments into a binary stream while recording,
+ * see {@link com.jogamp.opengl.util.GLCommandRecorder} and {@link com.jogamp.opengl.util.ReplayGL}.
+ * </p>
+ * <p>
+ * Sample code which installs this pipeline, manual:
+ * <pre>
+ *     gl = drawable.setGL(new RecordGL(drawable.getGL()));
+ * </pre> 
+ * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}.
+ * </p>
+ */
+public class RecordGL3bc extends RecordGL4bc {
+    public RecordGL3bc(GL3bc downstream) {
+        super((GL4bc)downstream);
+    }
+}
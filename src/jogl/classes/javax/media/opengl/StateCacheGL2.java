@@ -0,0 +1,21 @@
+package javax.media.opengl;
+
+/**
+ * <p>
+ * Composable pipeline which wraps an underlying {@link GL} implementation,
+ * dropping redundant state changing calls, e.g. binding an already bound texture,
+ * see {@link com.jogamp.opengl.util.GLStateCache}.
+ * </p>
+ * <p>
+ * Sample code which installs this pipeline, manual:
+ * <pre>
+ *     gl = drawable.setGL(new StateCacheGL(drawable.getGL()));
+ * </pre> 
+ * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}.
+ * </p>
+ */
+public class StateCacheGL2 extends StateCacheGL4bc {
+    public StateCacheGL2(GL2 downstream) {
+        super((GL4bc)downstream);
+    }
+}
@@ -96,6 +96,8 @@ import com.jogamp.nativewindow.awt.AWTGraphicsScreen;
 import com.jogamp.nativewindow.awt.AWTPrintLifecycle;
 import com.jogamp.nativewindow.awt.AWTWindowClosingProtocol;
 import com.jogamp.nativewindow.awt.JAWTWindow;
+import com.jogamp.opengl.FrameMetrics;
+import com.jogamp.opengl.GLFrameMetricsDrawable;
 import com.jogamp.opengl.JoglVersion;
 import com.jogamp.opengl.util.GLDrawableUtil;
 import com.jogamp.opengl.util.TileRenderer;
@@ -155,7 +157,7 @@ import jogamp.opengl.awt.AWTTilePainter;
  */
 
 @SuppressWarnings("serial")
-public class GLCanvas extends Canvas implements AWTGLAutoDrawable, WindowClosingProtocol, OffscreenLayerOption, AWTPrintLifecycle {
+public class GLCanvas extends Canvas implements AWTGLAutoDrawable, GLFrameMetricsDrawable, WindowClosingProtocol, OffscreenLayerOption, AWTPrintLifecycle {
 
   private static final boolean DEBUG = Debug.debug("GLCanvas");
 
@@ -915,6 +917,16 @@ public class GLCanvas extends Canvas implements AWTGLAutoDrawable, WindowClosing
       return helper.getExclusiveContextThread();
   }
 
+  @Override
+  public final FrameMetrics setFrameMetrics(FrameMetrics metrics) {
+      return helper.setFrameMetrics(metrics);
+  }
+
+  @Override
+  public final FrameMetrics getFrameMetrics() {
+      return helper.getFrameMetrics();
+  }
+
   @Override
   public boolean invoke(boolean wait, GLRunnable glRunnable) {
     return helper.invoke(this, wait, glRunnable);
@@ -92,6 +92,8 @@ import com.jogamp.common.util.awt.AWTEDTExecutor;
 import com.jogamp.nativewindow.awt.AWTPrintLifecycle;
 import com.jogamp.nativewindow.awt.AWTWindowClosingProtocol;
 import com.jogamp.opengl.FBObject;
+import com.jogamp.opengl.FrameMetrics;
+import com.jogamp.opengl.GLFrameMetricsDrawable;
 import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
 import com.jogamp.opengl.util.GLPixelBuffer.SingletonGLPixelBufferProvider;
 import com.jogamp.opengl.util.GLDrawableUtil;
@@ -145,7 +147,7 @@ import com.jogamp.opengl.util.awt.AWTGLPixelBuffer.SingleAWTGLPixelBufferProvide
 */
 
 @SuppressWarnings("serial")
-public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosingProtocol, AWTPrintLifecycle {
+public class GLJPanel extends JPanel implements AWTGLAutoDrawable, GLFrameMetricsDrawable, WindowClosingProtocol, AWTPrintLifecycle {
   private static final boolean DEBUG;
   private static final boolean DEBUG_VIEWPORT;
   private static final boolean USE_GLSL_TEXTURE_RASTERIZER;    
@@ -712,6 +714,16 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
       return helper.getExclusiveContextThread();
   }
 
+  @Override
+  public final FrameMetrics setFrameMetrics(FrameMetrics metrics) {
+      return helper.setFrameMetrics(metrics);
+  }
+
+  @Override
+  public final FrameMetrics getFrameMetrics() {
+      return helper.getFrameMetrics();
+  }
+
   @Override
   public boolean invoke(boolean wait, GLRunnable glRunnable) {
     return helper.invoke(this, wait, glRunnable);
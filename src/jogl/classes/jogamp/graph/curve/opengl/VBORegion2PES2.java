@@ -39,8 +39,7 @@ import jogamp.graph.curve.opengl.shader.AttributeNames;
 import jogamp.graph.curve.opengl.shader.UniformNames;
 
 import com.jogamp.common.nio.Buffers;
-import com.jogamp.graph.geom.Triangle;
-import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
 
 import com.jogamp.graph.curve.opengl.GLRegion;
 import com.jogamp.graph.curve.opengl.RenderState;
@@ -52,9 +51,7 @@ import com.jogamp.opengl.util.PMVMatrix;
 import com.jogamp.opengl.util.glsl.ShaderState;
 
 public class VBORegion2PES2  extends GLRegion {
-    private GLArrayDataServer verticeTxtAttr;
-    private GLArrayDataServer texCoordTxtAttr;
-    private GLArrayDataServer indicesTxt;
+    private VBORegionData dataTxt;
     private GLArrayDataServer verticeFboAttr;
     private GLArrayDataServer texCoordFboAttr;
     private GLArrayDataServer indicesFbo;
@@ -105,69 +102,18 @@ public class VBORegion2PES2  extends GLRegion {
             st.ownAttribute(verticeFboAttr, true);
             
             
-            indicesTxt = GLArrayDataServer.createData(3, GL2ES2.GL_SHORT, initialElementCount, GL.GL_STATIC_DRAW, GL.GL_ELEMENT_ARRAY_BUFFER);                
-            
-            verticeTxtAttr = GLArrayDataServer.createGLSL(AttributeNames.VERTEX_ATTR_NAME, 3, GL2ES2.GL_FLOAT, 
-                                                          false, initialElementCount, GL.GL_STATIC_DRAW);
-            st.ownAttribute(verticeTxtAttr, true);
-            
-            texCoordTxtAttr = GLArrayDataServer.createGLSL(AttributeNames.TEXCOORD_ATTR_NAME, 2, GL2ES2.GL_FLOAT, 
-                                                           false, initialElementCount, GL.GL_STATIC_DRAW);
-            st.ownAttribute(texCoordTxtAttr, true);
+            dataTxt = new VBORegionData(st, initialElementCount);
             
             if(DEBUG_INSTANCE) {
                 System.err.println("VBORegion2PES2 Create: " + this);
             }                    
         }
-        // process triangles
-        indicesTxt.seal(gl, false);
-        indicesTxt.rewind();        
-        for(int i=0; i<triangles.size(); i++) {
-            final Triangle t = triangles.get(i);
-            final Vertex[] t_vertices = t.getVertices();
-            
-            if(t_vertices[0].getId() == Integer.MAX_VALUE){
-                t_vertices[0].setId(numVertices++);
-                t_vertices[1].setId(numVertices++);
-                t_vertices[2].setId(numVertices++);
-                
-                vertices.add(t_vertices[0]);
-                vertices.add(t_vertices[1]);
-                vertices.add(t_vertices[2]);
-                
-                indicesTxt.puts((short) t_vertices[0].getId());
-                indicesTxt.puts((short) t_vertices[1].getId());
-                indicesTxt.puts((short) t_vertices[2].getId());
-            } else {
-                indicesTxt.puts((short) t_vertices[0].getId());
-                indicesTxt.puts((short) t_vertices[1].getId());
-                indicesTxt.puts((short) t_vertices[2].getId());                
-            }
-        }
-        indicesTxt.seal(gl, true);
-        indicesTxt.enableBuffer(gl, false);
+        final VertexStore vs = getVertexStore();
+        dataTxt.update(gl, vs);
 
-        // process vertices and update bbox
+        // update bbox
         box.reset();
-        verticeTxtAttr.seal(gl, false);
-        verticeTxtAttr.rewind();
-        texCoordTxtAttr.seal(gl, false);
-        texCoordTxtAttr.rewind();
-        for(int i=0; i<vertices.size(); i++) {
-            final Vertex v = vertices.get(i);
-            verticeTxtAttr.putf(v.getX());
-            verticeTxtAttr.putf(v.getY());
-            verticeTxtAttr.putf(v.getZ());            
-            box.resize(v.getX(), v.getY(), v.getZ());            
-            
-            final float[] tex = v.getTexCoord();
-            texCoordTxtAttr.putf(tex[0]);
-            texCoordTxtAttr.putf(tex[1]);            
-        }
-        texCoordTxtAttr.seal(gl, true);
-        texCoordTxtAttr.enableBuffer(gl, false);
-        verticeTxtAttr.seal(gl, true);     
-        verticeTxtAttr.enableBuffer(gl, false);
+        vs.getBounds(box);
         
         // update all bbox related data
         verticeFboAttr.seal(gl, false);
@@ -285,15 +231,7 @@ public class VBORegion2PES2  extends GLRegion {
     }
     
     private void renderRegion(GL2ES2 gl) {
-        verticeTxtAttr.enableBuffer(gl, true);       
-        texCoordTxtAttr.enableBuffer(gl, true);
-        indicesTxt.bindBuffer(gl, true); // keeps VBO binding
-        
-        gl.glDrawElements(GL2ES2.GL_TRIANGLES, indicesTxt.getElementCount() * indicesTxt.getComponentCount(), GL2ES2.GL_UNSIGNED_SHORT, 0);
-        
-        indicesTxt.bindBuffer(gl, false);        
-        texCoordTxtAttr.enableBuffer(gl, false);
-        verticeTxtAttr.enableBuffer(gl, false);       
+        dataTxt.draw(gl);
     }
     
     public void destroy(GL2ES2 gl, RenderState rs) {
@@ -306,19 +244,9 @@ public class VBORegion2PES2  extends GLRegion {
             fbo = null;
             texA = null;
         }        
-        if(null != verticeTxtAttr) {
-            st.ownAttribute(verticeTxtAttr, false);
-            verticeTxtAttr.destroy(gl);
-            verticeTxtAttr = null;
-        }
-        if(null != texCoordTxtAttr) {
-            st.ownAttribute(texCoordTxtAttr, false);
-            texCoordTxtAttr.destroy(gl);
-            texCoordTxtAttr = null;
-        }
-        if(null != indicesTxt) {
-            indicesTxt.destroy(gl);
-            indicesTxt = null;
+        if(null != dataTxt) {
+            dataTxt.destroy(gl, st);
+            dataTxt = null;
         }
         if(null != verticeFboAttr) {
             st.ownAttribute(verticeFboAttr, false);
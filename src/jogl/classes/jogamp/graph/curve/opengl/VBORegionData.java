@@ -0,0 +1,184 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.graph.curve.opengl;
+
+import java.nio.ShortBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+
+import jogamp.graph.curve.opengl.shader.AttributeNames;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.graph.geom.VertexStore;
+import com.jogamp.opengl.GLExtensions;
+import com.jogamp.opengl.util.GLArrayDataServer;
+import com.jogamp.opengl.util.glsl.ShaderState;
+
+/**
+ * Vertex, texture coordinate and index VBOs of a region's {@link VertexStore},
+ * as used by {@link VBORegionSPES2} and {@link VBORegion2PES2}.
+ * <p>
+ * Indices are uploaded as <code>GL_UNSIGNED_SHORT</code> if all vertices are addressable,
+ * otherwise as <code>GL_UNSIGNED_INT</code> if supported, see {@link #isUIntIndexAvailable(GL)}.
+ * Otherwise the triangles are split into chunks of at most {@link #MAX_USHORT_VERTICES} vertices,
+ * see {@link VertexStore#splitChunks(int, VertexStore)}, each drawn w/ its own attribute offset.
+ * </p>
+ */
+class VBORegionData {
+    /** Maximum number of vertices addressable w/ <code>GL_UNSIGNED_SHORT</code> indices. */
+    static final int MAX_USHORT_VERTICES = 1 << 16;
+
+    private final int initialElementCount;
+    private GLArrayDataServer verticeAttr;
+    private GLArrayDataServer texCoordAttr;
+    private GLArrayDataServer indices = null;
+    private int indexType = 0;
+    /** Chunk table, see {@link VertexStore#splitChunks(int, VertexStore)}, or <code>null</code> if drawn at once. */
+    private int[] chunks = null;
+
+    VBORegionData(ShaderState st, int initialElementCount) {
+        this.initialElementCount = initialElementCount;
+        verticeAttr = GLArrayDataServer.createGLSL(AttributeNames.VERTEX_ATTR_NAME, 3, GL2ES2.GL_FLOAT, 
+                false, initialElementCount, GL.GL_STATIC_DRAW);
+        st.ownAttribute(verticeAttr, true);
+
+        texCoordAttr = GLArrayDataServer.createGLSL(AttributeNames.TEXCOORD_ATTR_NAME, 2, GL2ES2.GL_FLOAT, 
+                false, initialElementCount, GL.GL_STATIC_DRAW);
+        st.ownAttribute(texCoordAttr, true);
+    }
+
+    /** Returns true if <code>GL_UNSIGNED_INT</code> indices are supported, i.e. on desktop GL, ES3 or w/ <code>GL_OES_element_index_uint</code>. */
+    static boolean isUIntIndexAvailable(GL gl) {
+        return gl.isGL2ES3() || gl.isExtensionAvailable(GLExtensions.OES_element_index_uint);
+    }
+
+    /** Returns the index type, <code>GL_UNSIGNED_SHORT</code> or <code>GL_UNSIGNED_INT</code>. */
+    final int getIndexType() { return indexType; }
+
+    /** Returns the number of draw calls issued by {@link #draw(GL2ES2)}. */
+    final int getDrawCallCount() { return null != chunks ? chunks.length / 4 : 1; }
+
+    /** Uploads the given vertex store, choosing the index type or splitting it into chunks. */
+    final void update(GL2ES2 gl, VertexStore vs) {
+        final VertexStore data;
+        final int type;
+        if( vs.getVertexCount() <= MAX_USHORT_VERTICES ) {
+            data = vs;
+            type = GL.GL_UNSIGNED_SHORT;
+            chunks = null;
+        } else if( isUIntIndexAvailable(gl) ) {
+            data = vs;
+            type = GL.GL_UNSIGNED_INT;
+            chunks = null;
+        } else {
+            data = new VertexStore(vs.getVertexCount());
+            type = GL.GL_UNSIGNED_SHORT;
+            chunks = vs.splitChunks(MAX_USHORT_VERTICES, data);
+        }
+        final int indexCount = 3*data.getTriangleCount();
+        if( null == indices || type != indexType || indices.getBuffer().capacity() < indexCount ) {
+            if( null != indices ) {
+                indices.destroy(gl);
+            }
+            indices = GLArrayDataServer.createData(3, type, Math.max(initialElementCount, data.getTriangleCount()), 
+                                                   GL.GL_STATIC_DRAW, GL.GL_ELEMENT_ARRAY_BUFFER);
+            indexType = type;
+        }
+
+        // process triangles
+        indices.seal(gl, false);
+        indices.rewind();
+        if( GL.GL_UNSIGNED_INT == type ) {
+            indices.put(data.getIndexBuffer());
+        } else {
+            // narrow into the index buffer, holding all indices as sized above
+            final int[] src = data.getIndices();
+            final ShortBuffer dst = (ShortBuffer) indices.getBuffer();
+            for(int i=0; i<indexCount; i++) {
+                dst.put((short) src[i]);
+            }
+        }
+        indices.seal(gl, true);
+        indices.enableBuffer(gl, false);
+
+        // process vertices
+        verticeAttr.seal(gl, false);
+        verticeAttr.rewind();
+        texCoordAttr.seal(gl, false);
+        texCoordAttr.rewind();
+        verticeAttr.put(data.getCoordBuffer());
+        texCoordAttr.put(data.getTexCoordBuffer());
+        verticeAttr.seal(gl, true);        
+        verticeAttr.enableBuffer(gl, false);
+        texCoordAttr.seal(gl, true);
+        texCoordAttr.enableBuffer(gl, false);
+    }
+
+    final void draw(GL2ES2 gl) {
+        verticeAttr.enableBuffer(gl, true);       
+        texCoordAttr.enableBuffer(gl, true);        
+        indices.bindBuffer(gl, true); // keeps VBO binding
+
+        if( null == chunks ) {
+            gl.glDrawElements(GL2ES2.GL_TRIANGLES, indices.getElementCount() * indices.getComponentCount(), indexType, 0);
+        } else {
+            for(int c=0; c<chunks.length; c+=4) {
+                final long firstVertex = chunks[c+2];
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, verticeAttr.getVBOName());
+                gl.glVertexAttribPointer(verticeAttr.getLocation(), 3, GL.GL_FLOAT, false, 0, firstVertex * 3 * Buffers.SIZEOF_FLOAT);
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, texCoordAttr.getVBOName());
+                gl.glVertexAttribPointer(texCoordAttr.getLocation(), 2, GL.GL_FLOAT, false, 0, firstVertex * 2 * Buffers.SIZEOF_FLOAT);
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+                gl.glDrawElements(GL2ES2.GL_TRIANGLES, 3 * chunks[c+1], GL.GL_UNSIGNED_SHORT, (long) chunks[c+0] * 3 * Buffers.SIZEOF_SHORT);
+            }
+        }
+
+        indices.bindBuffer(gl, false);
+        texCoordAttr.enableBuffer(gl, false);
+        verticeAttr.enableBuffer(gl, false);       
+    }
+
+    final void destroy(GL2ES2 gl, ShaderState st) {
+        if(null != verticeAttr) {
+            st.ownAttribute(verticeAttr, false);
+            verticeAttr.destroy(gl);
+            verticeAttr = null;
+        }
+        if(null != texCoordAttr) {
+            st.ownAttribute(texCoordAttr, false);
+            texCoordAttr.destroy(gl);
+            texCoordAttr = null;
+        }
+        if(null != indices) {
+            indices.destroy(gl);
+            indices = null;
+        }
+        chunks = null;
+    }
+}
@@ -27,22 +27,14 @@
  */
 package jogamp.graph.curve.opengl;
 
-import javax.media.opengl.GL;
 import javax.media.opengl.GL2ES2;
 
-import jogamp.graph.curve.opengl.shader.AttributeNames;
-
 import com.jogamp.graph.curve.opengl.GLRegion;
 import com.jogamp.graph.curve.opengl.RenderState;
-import com.jogamp.graph.geom.Vertex;
-import com.jogamp.graph.geom.Triangle;
-import com.jogamp.opengl.util.GLArrayDataServer;
-import com.jogamp.opengl.util.glsl.ShaderState;
+import com.jogamp.graph.geom.VertexStore;
 
 public class VBORegionSPES2 extends GLRegion {
-    private GLArrayDataServer verticeAttr = null;
-    private GLArrayDataServer texCoordAttr = null;
-    private GLArrayDataServer indices = null;
+    private VBORegionData data = null;
 
     protected VBORegionSPES2(int renderModes) { 
         super(renderModes);
@@ -53,108 +45,35 @@ public class VBORegionSPES2 extends GLRegion {
             return; 
         }
 
-        if(null == indices) {
-            final int initialElementCount = 256;
-            final ShaderState st = rs.getShaderState();
-
-            indices = GLArrayDataServer.createData(3, GL2ES2.GL_SHORT, initialElementCount, GL.GL_STATIC_DRAW, GL.GL_ELEMENT_ARRAY_BUFFER);
-
-            verticeAttr = GLArrayDataServer.createGLSL(AttributeNames.VERTEX_ATTR_NAME, 3, GL2ES2.GL_FLOAT, 
-                    false, initialElementCount, GL.GL_STATIC_DRAW);         
-            st.ownAttribute(verticeAttr, true);
-
-            texCoordAttr = GLArrayDataServer.createGLSL(AttributeNames.TEXCOORD_ATTR_NAME, 2, GL2ES2.GL_FLOAT, 
-                    false, initialElementCount, GL.GL_STATIC_DRAW);
-            st.ownAttribute(texCoordAttr, true);
+        if(null == data) {
+            data = new VBORegionData(rs.getShaderState(), 256);
 
             if(DEBUG_INSTANCE) {
                 System.err.println("VBORegionSPES2 Create: " + this);
             }
         }
 
-        // process triangles
-        indices.seal(gl, false);
-        indices.rewind();        
-        for(int i=0; i<triangles.size(); i++) {
-            final Triangle t = triangles.get(i);
-            final Vertex[] t_vertices = t.getVertices();
+        final VertexStore vs = getVertexStore();
+        data.update(gl, vs);
 
-            if(t_vertices[0].getId() == Integer.MAX_VALUE){
-                t_vertices[0].setId(numVertices++);
-                t_vertices[1].setId(numVertices++);
-                t_vertices[2].setId(numVertices++);
-
-                vertices.add(t_vertices[0]);
-                vertices.add(t_vertices[1]);
-                vertices.add(t_vertices[2]);
-
-                indices.puts((short) t_vertices[0].getId());
-                indices.puts((short) t_vertices[1].getId());
-                indices.puts((short) t_vertices[2].getId());
-            } else {
-                indices.puts((short) t_vertices[0].getId());
-                indices.puts((short) t_vertices[1].getId());
-                indices.puts((short) t_vertices[2].getId());
-            }
-        }
-        indices.seal(gl, true);
-        indices.enableBuffer(gl, false);
-
-        // process vertices and update bbox
+        // update bbox
         box.reset();
-        verticeAttr.seal(gl, false); 
-        verticeAttr.rewind();
-        texCoordAttr.seal(gl, false);
-        texCoordAttr.rewind();
-        for(int i=0; i<vertices.size(); i++) {
-            final Vertex v = vertices.get(i);
-            verticeAttr.putf(v.getX());
-            verticeAttr.putf(v.getY());
-            verticeAttr.putf(v.getZ());            
-            box.resize(v.getX(), v.getY(), v.getZ());
-
-            final float[] tex = v.getTexCoord();
-            texCoordAttr.putf(tex[0]);
-            texCoordAttr.putf(tex[1]);
-        }
-        verticeAttr.seal(gl, true);        
-        verticeAttr.enableBuffer(gl, false);
-        texCoordAttr.seal(gl, true);
-        texCoordAttr.enableBuffer(gl, false);
+        vs.getBounds(box);
 
         setDirty(false);
     }
 
     protected void drawImpl(GL2ES2 gl, RenderState rs, int vp_width, int vp_height, int[/*1*/] texWidth) {
-        verticeAttr.enableBuffer(gl, true);       
-        texCoordAttr.enableBuffer(gl, true);        
-        indices.bindBuffer(gl, true); // keeps VBO binding
-        
-        gl.glDrawElements(GL2ES2.GL_TRIANGLES, indices.getElementCount() * indices.getComponentCount(), GL2ES2.GL_UNSIGNED_SHORT, 0);
-        
-        indices.bindBuffer(gl, false);
-        texCoordAttr.enableBuffer(gl, false);
-        verticeAttr.enableBuffer(gl, false);       
+        data.draw(gl);
     }    
 
     public final void destroy(GL2ES2 gl, RenderState rs) {
         if(DEBUG_INSTANCE) {
             System.err.println("VBORegionSPES2 Destroy: " + this);
         }        
-        final ShaderState st = rs.getShaderState();
-        if(null != verticeAttr) {
-            st.ownAttribute(verticeAttr, false);
-            verticeAttr.destroy(gl);
-            verticeAttr = null;
-        }
-        if(null != texCoordAttr) {
-            st.ownAttribute(texCoordAttr, false);
-            texCoordAttr.destroy(gl);
-            texCoordAttr = null;
-        }
-        if(null != indices) {
-            indices.destroy(gl);
-            indices = null;
+        if(null != data) {
+            data.destroy(gl, rs.getShaderState());
+            data = null;
         }
     }    
 }
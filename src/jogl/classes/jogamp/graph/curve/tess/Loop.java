@@ -200,7 +200,7 @@ public class Loop {
             GraphVertex nextV = initVertices.get(i+1);
             for(int pos=0; pos<vertices.size(); pos++) {
                 GraphVertex cand = vertices.get(pos);
-                float distance = VectorUtil.computeLength(v.getCoord(), cand.getCoord());
+                float distance = VectorUtil.computeLength(v.getPoint(), cand.getPoint());
                 if(distance < minDistance){
                     for (GraphVertex vert:vertices){
                         if(vert == v || vert == nextV || vert == cand)
@@ -54,6 +54,10 @@ public class GlyphString {
     public static final int STATIC_FONT_SIZE = 10;
     
     private ArrayList<GlyphShape> glyphs = new ArrayList<GlyphShape>();
+    /** Cached glyph geometry, see {@link #createString(Font, int, String, GlyphTriangulationCache)}. */
+    private ArrayList<GlyphTriangulationCache.Geometry> cachedGlyphs = null;
+    /** Per cached glyph translation x, y and scale. */
+    private float[] cachedGlyphTransforms = null;
     private CharSequence str;
     private String fontname;
     private GLRegion region;
@@ -97,6 +101,58 @@ public class GlyphString {
         return glyphString;
     }
     
+    /**
+     * Creates a {@link GlyphString} using the triangulated glyph geometry of the given {@link GlyphTriangulationCache},
+     * i.e. each glyph is only triangulated once and {@link #createRegion(GL2ES2, int)} copies the cached geometry.
+     * <p>
+     * The resulting instance has no {@link GlyphShape}s,
+     * its region is created from the cached {@link com.jogamp.graph.geom.VertexStore}s w/o any {@link Vertex} objects.
+     * </p>
+     *
+     * @param font the target {@link Font}
+     * @param fontSize font size
+     * @param str string text
+     * @param cache the glyph triangulation cache to use
+     * @return the created {@link GlyphString} instance
+     */
+    public static GlyphString createString(Font font, int fontSize, String str, GlyphTriangulationCache cache) {
+        final GlyphString glyphString = new GlyphString(font.getName(Font.NAME_UNIQUNAME), str);
+        glyphString.cachedGlyphs = new ArrayList<GlyphTriangulationCache.Geometry>(str.length());
+        glyphString.cachedGlyphTransforms = new float[3*str.length()];
+
+        // Same layout as FontInt.getOutlineShapes(..)
+        final Font.Metrics metrics = font.getMetrics();
+        final float lineGap = metrics.getLineGap(fontSize) ;
+        final float ascent = metrics.getAscent(fontSize) ;
+        final float descent = metrics.getDescent(fontSize) ;
+        final float advanceY = lineGap - descent + ascent;
+        final float scale = metrics.getScale(fontSize);
+        float advanceTotal = 0;
+        float y = 0;
+        for(int i=0; i<str.length(); i++) {
+            final char character = str.charAt(i);
+            if (character == '\n') {
+                y += advanceY;
+                advanceTotal = 0;
+                continue;
+            } else if (character == ' ') {
+                advanceTotal += font.getAdvanceWidth(Font.Glyph.ID_SPACE, fontSize);
+                continue;
+            }
+            final Font.Glyph glyph = font.getGlyph(character);
+            final GlyphTriangulationCache.Geometry g = cache.get((FontInt)font, (FontInt.GlyphInt)glyph);
+            if( null != g ) {
+                final int j = 3*glyphString.cachedGlyphs.size();
+                glyphString.cachedGlyphs.add(g);
+                glyphString.cachedGlyphTransforms[j+0] = advanceTotal;
+                glyphString.cachedGlyphTransforms[j+1] = y;
+                glyphString.cachedGlyphTransforms[j+2] = scale;
+            }
+            advanceTotal += glyph.getAdvance(fontSize, true);
+        }
+        return glyphString;
+    }
+
     /** Create a new GlyphString object
      * @param fontname the name of the font that this String is
      * associated with
@@ -135,6 +191,30 @@ public class GlyphString {
     }
     
     
+    /**
+     * Adds the cached glyph geometry to the given region, translated by <code>x</code> and <code>y</code>.
+     * <p>
+     * Only supported for instances created via {@link #createString(Font, int, String, GlyphTriangulationCache)},
+     * allows to batch multiple strings into one region, see {@link com.jogamp.graph.curve.opengl.GLRegionBatch}.
+     * </p>
+     * @throws IllegalStateException if this instance has no cached glyph geometry
+     */
+    public void addTo(Region region, float x, float y) {
+        if( null == cachedGlyphs ) {
+            throw new IllegalStateException("No cached glyph geometry: "+str);
+        }
+        int vertexCount = 0, triangleCount = 0;
+        for(int i=0; i< cachedGlyphs.size(); i++) {
+            final GlyphTriangulationCache.Geometry g = cachedGlyphs.get(i);
+            vertexCount += g.getVertexCount();
+            triangleCount += g.getTriangleCount();
+        }
+        region.getVertexStore().ensureCapacity(vertexCount, triangleCount); // sized once for all glyphs
+        for(int i=0; i< cachedGlyphs.size(); i++) {
+            region.addVertexStore(cachedGlyphs.get(i).getVertexStore(), x + cachedGlyphTransforms[3*i+0], y + cachedGlyphTransforms[3*i+1], cachedGlyphTransforms[3*i+2]);
+        }
+    }
+
     /** Generate a OGL Region to represent this Object.
      * @param gl the current gl object
      * @param rs the current attached RenderState
@@ -144,6 +224,11 @@ public class GlyphString {
         region = RegionFactory.create(renderModes);
         // region.setFlipped(true);
         
+        if( null != cachedGlyphs ) {
+            addTo(region, 0f, 0f);
+            return region;
+        }
+        
         int numVertices = region.getNumVertices();
         
         for(int i=0; i< glyphs.size(); i++) {
@@ -205,6 +290,9 @@ public class GlyphString {
             throw new InternalError("destroy called w/o GL context, but has a region");
         }
         glyphs.clear();
+        if( null != cachedGlyphs ) {
+            cachedGlyphs.clear();
+        }
     }
     
     public AABBox getBounds(){
@@ -0,0 +1,285 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.graph.curve.text;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jogamp.graph.font.FontInt;
+import jogamp.graph.font.FontInt.GlyphInt;
+import jogamp.opengl.Debug;
+
+import com.jogamp.graph.curve.OutlineShape;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.geom.Triangle;
+import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
+import com.jogamp.graph.geom.opengl.SVertex;
+
+/**
+ * Cache of triangulated glyph geometry per {@link Font} and glyph id,
+ * shared by all {@link GlyphString}s, see {@link #getDefault()}.
+ * <p>
+ * The {@link Geometry} is stored in font units and copied into a {@link com.jogamp.graph.curve.Region}
+ * while applying the glyph's position and scale, i.e. each glyph is triangulated only once.
+ * </p>
+ * <p>
+ * The cache is bounded by its byte size, evicting the least recently used glyphs.
+ * The default limit of {@link #DEFAULT_BYTE_LIMIT} can be set
+ * via the property <code>jogl.graph.glyph.cache.limit</code> in bytes, where <code>0</code> disables the cache.
+ * </p>
+ * <p>
+ * All methods are thread safe.
+ * </p>
+ */
+public class GlyphTriangulationCache {
+    /** Default byte limit of 4 MiB. */
+    public static final int DEFAULT_BYTE_LIMIT = 4 * 1024 * 1024;
+
+    private static final GlyphTriangulationCache defaultCache;
+
+    static {
+        Debug.initSingleton();
+        final int limit = Debug.getIntProperty("jogl.graph.glyph.cache.limit", true, DEFAULT_BYTE_LIMIT);
+        defaultCache = 0 != limit ? new GlyphTriangulationCache(limit) : null;
+    }
+
+    /**
+     * Returns the shared default cache, or <code>null</code> if disabled via property <code>jogl.graph.glyph.cache.limit=0</code>.
+     */
+    public static GlyphTriangulationCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Triangulated glyph geometry in font units, stored in a {@link VertexStore}.
+     */
+    public static class Geometry {
+        private final VertexStore store;
+
+        Geometry(VertexStore store) {
+            this.store = store;
+        }
+
+        /** Returns the vertex store, which shall not be modified. */
+        public final VertexStore getVertexStore() { return store; }
+
+        public final int getVertexCount() { return store.getVertexCount(); }
+
+        public final int getTriangleCount() { return store.getTriangleCount(); }
+
+        /** Returns the estimated heap size in bytes. */
+        public final int getByteSize() {
+            return 16 + store.getByteSize();
+        }
+
+        /**
+         * Adds this geometry's transformed vertices and triangles to the given store.
+         * <p>
+         * Vertex coordinates are transformed via <code>x' = tx + scale * x</code> and <code>y' = ty + scale * y</code>.
+         * </p>
+         * @return the number of added vertices
+         */
+        public final int addTo(VertexStore dest, float tx, float ty, float scale) {
+            dest.addVertexStore(store, tx, ty, scale);
+            return store.getVertexCount();
+        }
+
+        /**
+         * Adds this geometry's transformed vertices and triangles to the given lists.
+         * <p>
+         * Vertex coordinates are transformed via <code>x' = tx + scale * x</code> and <code>y' = ty + scale * y</code>.
+         * Vertex ids are assigned in sequence starting at <code>firstId</code>.
+         * </p>
+         * @return the number of added vertices
+         */
+        public final int addTo(Vertex.Factory<? extends Vertex> vertexFactory, float tx, float ty, float scale,
+                               int firstId, ArrayList<Vertex> vertices, ArrayList<Triangle> triangles) {
+            final int vertexCount = getVertexCount();
+            final Vertex[] verts = new Vertex[vertexCount];
+            for(int i=0; i<vertexCount; i++) {
+                final Vertex v = vertexFactory.create(tx + scale * store.getX(i), ty + scale * store.getY(i), store.getZ(i), store.isOnCurve(i));
+                v.setTexCoord(store.getS(i), store.getT(i));
+                v.setId(firstId + i);
+                verts[i] = v;
+                vertices.add(v);
+            }
+            final int triangleCount = getTriangleCount();
+            for(int j=0; j<triangleCount; j++) {
+                triangles.add(new Triangle(verts[store.getIndex(j, 0)], verts[store.getIndex(j, 1)], verts[store.getIndex(j, 2)]));
+            }
+            return vertexCount;
+        }
+    }
+
+    /** Marks glyphs w/o geometry, e.g. w/o outline. */
+    private static final Geometry EMPTY = new Geometry(new VertexStore(1));
+
+    private final LinkedHashMap<GlyphKey, Geometry> cache;
+    private int byteLimit;
+    private int byteSize;
+    private long hits, misses, evictions;
+
+    /**
+     * @param byteLimit the maximum byte size of all cached {@link Geometry}, <code>-1</code> for unlimited
+     */
+    public GlyphTriangulationCache(int byteLimit) {
+        this.cache = new LinkedHashMap<GlyphKey, Geometry>(256, 0.75f, true /* access order */);
+        this.byteLimit = byteLimit;
+        this.byteSize = 0;
+    }
+
+    /**
+     * Returns the triangulated {@link Geometry} of the given glyph in font units,
+     * triangulating and caching it on first access.
+     * @return the glyph's geometry or <code>null</code> if the glyph has no fillable outline.
+     */
+    public final Geometry get(FontInt font, GlyphInt glyph) {
+        final GlyphKey key = new GlyphKey(font, glyph.getID());
+        Geometry g;
+        synchronized( this ) {
+            g = cache.get(key);
+            if( null != g ) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if( null == g ) {
+            // Triangulate outside of the lock, a concurrently created duplicate is dropped
+            g = triangulate(font, glyph);
+            synchronized( this ) {
+                final Geometry o = cache.get(key);
+                if( null != o ) {
+                    g = o;
+                } else {
+                    cache.put(key, g);
+                    byteSize += g.getByteSize();
+                    validate();
+                }
+            }
+        }
+        return EMPTY != g ? g : null;
+    }
+
+    private static Geometry triangulate(FontInt font, GlyphInt glyph) {
+        // Triangulation runs on SVertex objects,
+        // the geometry's store only receives the vertices of the final outline and triangles.
+        final OutlineShape shape = font.getOutlineShape(glyph, SVertex.factory());
+        shape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
+        final int vertexCount = shape.getVertices().size();
+        if( vertexCount < 3 ) {
+            return EMPTY;
+        }
+        final VertexStore store = new VertexStore(vertexCount);
+        if( 0 == shape.triangulate(store) ) {
+            return EMPTY;
+        }
+        store.trimToSize();
+        return new Geometry(store);
+    }
+
+    private void validate() {
+        if( 0 <= byteLimit ) {
+            final Iterator<Map.Entry<GlyphKey, Geometry>> it = cache.entrySet().iterator();
+            while( byteSize > byteLimit && it.hasNext() ) {
+                byteSize -= it.next().getValue().getByteSize();
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Sets the byte limit, evicting least recently used glyphs if required.
+     * @param byteLimit the maximum byte size of all cached {@link Geometry}, <code>-1</code> for unlimited
+     */
+    public final synchronized void setByteLimit(int byteLimit) {
+        this.byteLimit = byteLimit;
+        validate();
+    }
+
+    public final synchronized int getByteLimit() { return byteLimit; }
+
+    /** Returns the estimated byte size of all cached {@link Geometry}, see {@link Geometry#getByteSize()}. */
+    public final synchronized int getByteSize() { return byteSize; }
+
+    public final synchronized int getGlyphCount() { return cache.size(); }
+
+    /** Removes all cached glyphs of the given font. */
+    public final synchronized void clear(Font font) {
+        final Iterator<Map.Entry<GlyphKey, Geometry>> it = cache.entrySet().iterator();
+        while( it.hasNext() ) {
+            final Map.Entry<GlyphKey, Geometry> e = it.next();
+            if( e.getKey().font == font ) {
+                byteSize -= e.getValue().getByteSize();
+                it.remove();
+            }
+        }
+    }
+
+    /** Removes all cached glyphs. */
+    public final synchronized void clear() {
+        cache.clear();
+        byteSize = 0;
+    }
+
+    public final synchronized String toString() {
+        return "GlyphTriangulationCache[glyphs "+cache.size()+", bytes "+byteSize+" / "+byteLimit+
+               ", hits "+hits+", misses "+misses+", evictions "+evictions+"]";
+    }
+
+    private static class GlyphKey {
+        final Font font;
+        final int id;
+        final int hash;
+
+        GlyphKey(Font font, short id) {
+            this.font = font;
+            this.id = id & 0xffff;
+            this.hash = 31 * System.identityHashCode(font) + this.id;
+        }
+
+        @Override
+        public final int hashCode() { return hash; }
+
+        @Override
+        public final boolean equals(Object o) {
+            if( this == o ) {
+                return true;
+            }
+            if( !(o instanceof GlyphKey) ) {
+                return false;
+            }
+            final GlyphKey k = (GlyphKey) o;
+            return font == k.font && id == k.id;
+        }
+    }
+}
@@ -39,9 +39,13 @@ import com.jogamp.graph.geom.Vertex.Factory;
 public interface FontInt extends Font {
 
     public interface GlyphInt extends Font.Glyph {
+        public short getID();
         public Path2D getPath();  // unscaled path
         public Path2D getPath(float pixelSize);         
     }
 
     public ArrayList<OutlineShape> getOutlineShapes(CharSequence string, float pixelSize, Factory<? extends Vertex> vertexFactory);
+
+    /** Returns the unscaled {@link OutlineShape} of the given glyph in font units. */
+    public OutlineShape getOutlineShape(GlyphInt glyph, Factory<? extends Vertex> vertexFactory);
 }
@@ -28,8 +28,10 @@
 package jogamp.graph.font.typecast;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jogamp.graph.font.FontInt;
+import jogamp.graph.font.FontInt.GlyphInt;
 import jogamp.graph.font.typecast.ot.OTFont;
 import jogamp.graph.font.typecast.ot.OTFontCollection;
 import jogamp.graph.font.typecast.ot.table.CmapFormat;
@@ -40,7 +42,6 @@ import jogamp.graph.font.typecast.ot.table.ID;
 import jogamp.graph.geom.plane.AffineTransform;
 import jogamp.graph.geom.plane.Path2D;
 
-import com.jogamp.common.util.IntObjectHashMap;
 import com.jogamp.graph.curve.OutlineShape;
 import com.jogamp.graph.font.Font;
 import com.jogamp.graph.font.FontFactory;
@@ -52,14 +53,27 @@ import com.jogamp.opengl.math.geom.AABBox;
 class TypecastFont implements FontInt {
     static final boolean DEBUG = false;
     
+    /** Number of lock stripes of the glyph cache, a power of two. */
+    private static final int GLYPH_STRIPES = 16;
+    
     final OTFontCollection fontset;
     final OTFont font;
-    TypecastHMetrics metrics;
+    final TypecastHMetrics metrics;
     final CmapFormat cmapFormat;
     int cmapentries;
     
-    // FIXME: Add cache size to limit memory usage ??    
-    IntObjectHashMap char2Glyph; 
+    /** 
+     * Glyph cache allowing concurrent {@link #getGlyph(char)} calls.
+     * <p>
+     * Lookups are lock free, inserts only lock the map's segment of the symbol.
+     * Glyph creation is guarded by the stripe's monitor in {@link #char2GlyphLocks}, creating each glyph only once.
+     * </p>
+     * <p>
+     * FIXME: Add cache size to limit memory usage ??
+     * </p>
+     */
+    final ConcurrentHashMap<Character, TypecastGlyph> char2Glyph; 
+    private final Object[] char2GlyphLocks;
 
     public TypecastFont(OTFontCollection fontset) {
         this.fontset = fontset;
@@ -145,7 +159,12 @@ class TypecastFont implements FontInt {
                 }
             }
         }
-        char2Glyph = new IntObjectHashMap(cmapentries + cmapentries/4);
+        char2Glyph = new ConcurrentHashMap<Character, TypecastGlyph>(256, 0.75f, GLYPH_STRIPES);
+        char2GlyphLocks = new Object[GLYPH_STRIPES];
+        for(int i=0; i<GLYPH_STRIPES; i++) {
+            char2GlyphLocks[i] = new Object();
+        }
+        metrics = new TypecastHMetrics(this);
     }
     
     public StringBuilder getName(StringBuilder sb, int nameIndex) {
@@ -168,54 +187,68 @@ class TypecastFont implements FontInt {
     }
     
     public Metrics getMetrics() {
-        if (metrics == null) {
-            metrics = new TypecastHMetrics(this);
-        }
         return metrics;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Thread safe, the glyph is created once and cached.
+     * </p>
+     */
     public Glyph getGlyph(char symbol) {
-        TypecastGlyph result = (TypecastGlyph) char2Glyph.get(symbol);        
+        final Character key = Character.valueOf(symbol);
+        TypecastGlyph result = char2Glyph.get(key);
         if (null == result) {
-            // final short code = (short) char2Code.get(symbol);
-            short code = (short) cmapFormat.mapCharCode(symbol);
-            if(0 == code && 0 != symbol) {
-                // reserved special glyph IDs by convention
-                switch(symbol) {
-                    case ' ':  code = Glyph.ID_SPACE; break;
-                    case '\n': code = Glyph.ID_CR; break;
-                    default:   code = Glyph.ID_UNKNOWN;
+            synchronized( char2GlyphLocks[ symbol & ( GLYPH_STRIPES - 1 ) ] ) {
+                result = char2Glyph.get(key);
+                if (null == result) {
+                    result = createGlyph(symbol);
+                    char2Glyph.put(key, result);
                 }
             }
-            
-            jogamp.graph.font.typecast.ot.OTGlyph glyph = font.getGlyph(code);
-            if(null == glyph) {
-                glyph = font.getGlyph(Glyph.ID_UNKNOWN);
-            }
-            if(null == glyph) {
-                throw new RuntimeException("Could not retrieve glyph for symbol: <"+symbol+"> "+(int)symbol+" -> glyph id "+code);
-            }
-            Path2D path = TypecastRenderer.buildPath(glyph);
-            result = new TypecastGlyph(this, symbol, code, glyph.getBBox(), glyph.getAdvanceWidth(), path);
-            if(DEBUG) {
-                System.err.println("New glyph: " + (int)symbol + " ( " + (char)symbol +" ) -> " + code + ", contours " + glyph.getPointCount() + ": " + path);
+        }
+        return result;
+    }
+
+    private TypecastGlyph createGlyph(char symbol) {
+        // final short code = (short) char2Code.get(symbol);
+        short code = (short) cmapFormat.mapCharCode(symbol);
+        if(0 == code && 0 != symbol) {
+            // reserved special glyph IDs by convention
+            switch(symbol) {
+                case ' ':  code = Glyph.ID_SPACE; break;
+                case '\n': code = Glyph.ID_CR; break;
+                default:   code = Glyph.ID_UNKNOWN;
             }
-            final HdmxTable hdmx = font.getHdmxTable();            
-            if (null!= result && null != hdmx) {
-                /*if(DEBUG) {
-                    System.err.println("hdmx "+hdmx);
-                }*/
-                for (int i=0; i<hdmx.getNumberOfRecords(); i++)
-                {
-                    final HdmxTable.DeviceRecord dr = hdmx.getRecord(i); 
-                    result.addAdvance(dr.getWidth(code), dr.getPixelSize());
-                    /* if(DEBUG) {
-                        System.err.println("hdmx advance : pixelsize = "+dr.getWidth(code)+" : "+ dr.getPixelSize());
-                    } */
-                }
-            }            
-            char2Glyph.put(symbol, result);
         }
+        
+        jogamp.graph.font.typecast.ot.OTGlyph glyph = font.getGlyph(code);
+        if(null == glyph) {
+            glyph = font.getGlyph(Glyph.ID_UNKNOWN);
+        }
+        if(null == glyph) {
+            throw new RuntimeException("Could not retrieve glyph for symbol: <"+symbol+"> "+(int)symbol+" -> glyph id "+code);
+        }
+        Path2D path = TypecastRenderer.buildPath(glyph);
+        final TypecastGlyph result = new TypecastGlyph(this, symbol, code, glyph.getBBox(), glyph.getAdvanceWidth(), path);
+        if(DEBUG) {
+            System.err.println("New glyph: " + (int)symbol + " ( " + (char)symbol +" ) -> " + code + ", contours " + glyph.getPointCount() + ": " + path);
+        }
+        final HdmxTable hdmx = font.getHdmxTable();            
+        if (null!= result && null != hdmx) {
+            /*if(DEBUG) {
+                System.err.println("hdmx "+hdmx);
+            }*/
+            for (int i=0; i<hdmx.getNumberOfRecords(); i++)
+            {
+                final HdmxTable.DeviceRecord dr = hdmx.getRecord(i); 
+                result.addAdvance(dr.getWidth(code), dr.getPixelSize());
+                /* if(DEBUG) {
+                    System.err.println("hdmx advance : pixelsize = "+dr.getWidth(code)+" : "+ dr.getPixelSize());
+                } */
+            }
+        }            
         return result;
     }
    
@@ -224,6 +257,10 @@ class TypecastFont implements FontInt {
     	return TypecastRenderer.getOutlineShapes(this, string, pixelSize, transform, vertexFactory);
     }
 
+    public OutlineShape getOutlineShape(GlyphInt glyph, Factory<? extends Vertex> vertexFactory) {
+        return TypecastRenderer.getOutlineShape(glyph, vertexFactory);
+    }
+
     public float getStringWidth(CharSequence string, float pixelSize) {
         float width = 0;
         final int len = string.length();
@@ -29,7 +29,10 @@ package jogamp.graph.font.typecast;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
@@ -64,27 +67,51 @@ public class TypecastFontConstructor implements FontConstructor  {
         throw new InternalError("Unexpected Object: "+o);
     }
     
+    /**
+     * File based URLs are {@link #create(File) memory mapped},
+     * other resources are read into a buffer w/o a temporary file.
+     */
     public Font create(final URLConnection fconn) throws IOException {
-        return AccessController.doPrivileged(new PrivilegedAction<Font>() {
-            public Font run() {
-                File tf = null;
-                int len=0;
-                Font f = null;
-                try {         
-                    tf = IOUtil.createTempFile( "jogl.font", ".ttf", false);
-                    len = IOUtil.copyURLConn2File(fconn, tf);
-                    if(len==0) {
-                        tf.delete();
+        final File ffile = toFile(fconn.getURL());
+        if( null != ffile ) {
+            return create(ffile);
+        }
+        Object o = AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            public Object run() {
+                try {
+                    final InputStream is = fconn.getInputStream();
+                    final ByteBuffer data;
+                    try {
+                        data = IOUtil.copyStream2ByteBuffer(is);
+                    } finally {
+                        is.close();
+                    }
+                    if( 0 == data.remaining() ) {
                         throw new GLException("Font of stream "+fconn.getURL()+" was zero bytes");
                     }
-                    f = create(tf);
-                    tf.delete();
+                    return new TypecastFont(OTFontCollection.create(data, fconn.getURL().getPath()));
                 } catch (IOException e) {
-                    e.printStackTrace();
+                    return e;
                 }
-                return f;
             }
-        });        
+        });
+        if(o instanceof Font) {
+            return (Font)o;
+        }
+        if(o instanceof IOException) {
+            throw (IOException)o;
+        }
+        throw new InternalError("Unexpected Object: "+o);
+    }
+
+    private static File toFile(URL url) {
+        if( !"file".equals(url.getProtocol()) ) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (Exception e) {
+            return null;
+        }
     }
-    
 }
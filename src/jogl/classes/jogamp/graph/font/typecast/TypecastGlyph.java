@@ -27,7 +27,7 @@
  */
 package jogamp.graph.font.typecast;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jogamp.graph.font.FontInt;
 import jogamp.graph.geom.plane.AffineTransform;
@@ -41,7 +41,8 @@ public class TypecastGlyph implements FontInt.GlyphInt {
     {
         final Font      font;
         final float     advance; 
-        HashMap<Float, Float> size2advance = new HashMap<Float, Float>(); 
+        /** Concurrent, since advances are lazily added while the glyph is shared between threads. */
+        final ConcurrentHashMap<Float, Float> size2advance = new ConcurrentHashMap<Float, Float>(); 
         
         public Advance(Font font, float advance)
         {
@@ -220,7 +221,7 @@ public class TypecastGlyph implements FontInt.GlyphInt {
         return this.path;
     }
         
-    public Path2D getPath(float pixelSize) {
+    public synchronized Path2D getPath(float pixelSize) {
         final float size = getScale(pixelSize);
         
         if (this.numberSized != size) {
@@ -102,18 +102,33 @@ public class TypecastRenderer {
             }
             OutlineShape shape = new OutlineShape(vertexFactory);
             shapes.add(shape);
-            PathIterator iterator = paths[index].iterator(transform);
-            if(null != iterator){
-                while(!iterator.isDone()){
-                    float[] coords = new float[6];
-                    int segmentType = iterator.currentSegment(coords);
-                    addPathVertexToOutline(shape, vertexFactory, coords, segmentType);
-                    iterator.next();
-                }
-            }
+            addPathToOutline(shape, vertexFactory, paths[index].iterator(transform));
         }
         return shapes;
     }
+
+    /**
+     * Returns the unscaled {@link OutlineShape} of the given glyph in font units.
+     */
+    public static OutlineShape getOutlineShape(GlyphInt glyph, Factory<? extends Vertex> vertexFactory) {
+        final OutlineShape shape = new OutlineShape(vertexFactory);
+        final Path2D path = glyph.getPath();
+        if(null != path) {
+            addPathToOutline(shape, vertexFactory, path.iterator());
+        }
+        return shape;
+    }
+
+    private static void addPathToOutline(OutlineShape shape, Factory<? extends Vertex> vertexFactory, PathIterator iterator) {
+        if(null != iterator){
+            while(!iterator.isDone()){
+                float[] coords = new float[6];
+                int segmentType = iterator.currentSegment(coords);
+                addPathVertexToOutline(shape, vertexFactory, coords, segmentType);
+                iterator.next();
+            }
+        }
+    }
     private static void addPathVertexToOutline(OutlineShape shape, Factory<? extends Vertex> vertexFactory, float[] coords, int segmentType){
         switch(segmentType) {
         case PathIterator.SEG_MOVETO:
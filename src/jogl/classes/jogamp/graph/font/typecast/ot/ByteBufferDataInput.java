@@ -0,0 +1,126 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.graph.font.typecast.ot;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DataInputStream} reading from a {@link ByteBuffer},
+ * e.g. a read-only memory mapped font file.
+ * <p>
+ * Supports {@link #mark(int)}, {@link #reset()} and {@link #skip(long)} as plain positioning
+ * and allows tables to reference their data via {@link #slice(int)} w/o copying it.
+ * </p>
+ * <p>
+ * The given buffer's position and limit are not modified.
+ * </p>
+ */
+public class ByteBufferDataInput extends DataInputStream {
+
+    public ByteBufferDataInput(ByteBuffer data) {
+        super(new ByteBufferInputStream(data));
+    }
+
+    /**
+     * Returns a view of the next <code>length</code> bytes, starting at the current position,
+     * and skips them.
+     */
+    public ByteBuffer slice(int length) {
+        return ((ByteBufferInputStream)in).slice(length);
+    }
+
+    static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+        private int mark = 0;
+
+        ByteBufferInputStream(ByteBuffer data) {
+            buf = data.slice();
+        }
+
+        @Override
+        public final int available() {
+            return buf.remaining();
+        }
+
+        @Override
+        public final boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public final synchronized void mark(int readlimit) {
+            mark = buf.position();
+        }
+
+        @Override
+        public final synchronized void reset() {
+            buf.position(mark);
+        }
+
+        @Override
+        public final long skip(long n) {
+            if( 0 >= n ) {
+                return 0;
+            }
+            final int s = (int) Math.min(n, buf.remaining());
+            buf.position(buf.position() + s);
+            return s;
+        }
+
+        @Override
+        public final int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override
+        public final int read(byte[] b, int off, int len) {
+            if( 0 == len ) {
+                return 0;
+            }
+            final int n = Math.min(len, buf.remaining());
+            if( 0 == n ) {
+                return -1;
+            }
+            buf.get(b, off, n);
+            return n;
+        }
+
+        final ByteBuffer slice(int length) {
+            final int pos = buf.position();
+            if( length > buf.remaining() ) {
+                throw new IndexOutOfBoundsException("slice length "+length+" exceeds remaining "+buf.remaining()+" at "+pos);
+            }
+            final ByteBuffer v = buf.duplicate();
+            v.limit(pos + length);
+            buf.position(pos + length);
+            return v.slice();
+        }
+    }
+}
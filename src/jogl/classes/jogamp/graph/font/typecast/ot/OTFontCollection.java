@@ -21,10 +21,12 @@
 package jogamp.graph.font.typecast.ot;
 
 import java.io.File;
-import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import java.util.ArrayList;
 
@@ -35,6 +37,7 @@ import jogamp.graph.font.typecast.ot.mac.ResourceType;
 import jogamp.graph.font.typecast.ot.table.DirectoryEntry;
 import jogamp.graph.font.typecast.ot.table.TTCHeader;
 import jogamp.graph.font.typecast.ot.table.Table;
+import jogamp.opengl.Debug;
 
 
 /**
@@ -44,26 +47,77 @@ import jogamp.graph.font.typecast.ot.table.Table;
  */
 public class OTFontCollection {
 
+    /** Property <code>jogl.graph.font.glyf.eager</code> disables lazy 'glyf' decoding, see {@link #isLazyGlyf()}. */
+    private static final boolean EAGER_GLYF = Debug.isPropertyDefined("jogl.graph.font.glyf.eager", true);
+
+    /** Property <code>jogl.graph.font.nommap</code> reads font files into heap instead of memory mapping them, see {@link #create(File, boolean)}. */
+    private static final boolean NO_MMAP = Debug.isPropertyDefined("jogl.graph.font.nommap", true);
+
     private String _pathName;
     private String _fileName;
     private TTCHeader _ttcHeader;
     private OTFont[] _fonts;
     private ArrayList<Table> _tables = new ArrayList<Table>();
     private boolean _resourceFork = false;
+    private final boolean _lazyGlyf;
 
     /** Creates new FontCollection */
-    protected OTFontCollection() {
+    protected OTFontCollection(boolean lazyGlyf) {
+        _lazyGlyf = lazyGlyf;
     }
 
     /**
      * @param file The OpenType font file
      */
     public static OTFontCollection create(File file) throws IOException {
-        OTFontCollection fc = new OTFontCollection();
+        return create(file, !EAGER_GLYF);
+    }
+
+    /**
+     * The font file is mapped read-only into memory and all tables are parsed from the mapped region,
+     * i.e. the file data is shared via the page cache and not copied into the heap.
+     * <p>
+     * Property <code>jogl.graph.font.nommap</code> reads the file into the heap instead.
+     * </p>
+     * @param file The OpenType font file
+     * @param lazyGlyf if <code>true</code> glyph descriptions are decoded on demand, otherwise all at once.
+     */
+    public static OTFontCollection create(File file, boolean lazyGlyf) throws IOException {
+        OTFontCollection fc = new OTFontCollection(lazyGlyf);
         fc.read(file);
         return fc;
     }
 
+    /**
+     * @param data The OpenType font file data, see {@link #create(ByteBuffer, String, boolean)}.
+     * @param name The font file name
+     */
+    public static OTFontCollection create(ByteBuffer data, String name) throws IOException {
+        return create(data, name, !EAGER_GLYF);
+    }
+
+    /**
+     * @param data The OpenType font file data, its position and limit are not modified.
+     * The data is referenced by the parsed tables and hence must not be modified afterwards.
+     * @param name The font file name, used to identify Macintosh font suitcases via the <i>.dfont</i> suffix.
+     * @param lazyGlyf if <code>true</code> glyph descriptions are decoded on demand, otherwise all at once.
+     */
+    public static OTFontCollection create(ByteBuffer data, String name, boolean lazyGlyf) throws IOException {
+        OTFontCollection fc = new OTFontCollection(lazyGlyf);
+        fc._pathName = name;
+        fc._fileName = name;
+        fc.read(data);
+        return fc;
+    }
+
+    /**
+     * Returns <code>true</code> if the 'glyf' table decodes glyph descriptions
+     * on demand, otherwise all glyphs are decoded while reading the font.
+     */
+    public boolean isLazyGlyf() {
+        return _lazyGlyf;
+    }
+
     public String getPathName() {
         return _pathName;
     }
@@ -120,12 +174,39 @@ public class OTFontCollection {
             _resourceFork = true;
         }
 
-        DataInputStream dis = new DataInputStream(
-            new BufferedInputStream(
-                new FileInputStream(file), (int) file.length()));
-        dis.mark((int) file.length());
+        read(NO_MMAP ? readFile(file) : mapFile(file));
+    }
+
+    private static ByteBuffer mapFile(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel fch = raf.getChannel();
+            // The mapping stays valid after closing the channel
+            return fch.map(FileChannel.MapMode.READ_ONLY, 0, fch.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static ByteBuffer readFile(File file) throws IOException {
+        final byte[] data = new byte[(int) file.length()];
+        final DataInputStream dis = new DataInputStream(new FileInputStream(file));
+        try {
+            dis.readFully(data);
+        } finally {
+            dis.close();
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    /**
+     * @param data The OpenType font file data
+     */
+    protected void read(ByteBuffer data) throws IOException {
+        DataInputStream dis = new ByteBufferDataInput(data);
+        dis.mark(data.remaining());
 
-        if (_resourceFork || _pathName.endsWith(".dfont")) {
+        if (_resourceFork || ( null != _pathName && _pathName.endsWith(".dfont") ) ) {
 
             // This is a Macintosh font suitcase resource
             ResourceHeader resourceHeader = new ResourceHeader(dis);
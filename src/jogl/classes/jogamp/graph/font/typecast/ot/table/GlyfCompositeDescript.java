@@ -81,6 +81,7 @@ public class GlyfCompositeDescript extends GlyfDescript {
         try {
             do {
                 _components.add(comp = new GlyfCompositeComp(firstIndex, firstContour, di));
+                // Reference cycles of malformed fonts are cut by GlyfTable, returning null
                 GlyfDescript desc = parentTable.getDescription(comp.getGlyphIndex());
                 if (desc != null) {
                     firstIndex += desc.getPointCount();
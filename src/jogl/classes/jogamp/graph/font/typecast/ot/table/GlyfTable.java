@@ -50,70 +50,137 @@
 
 package jogamp.graph.font.typecast.ot.table;
 
-import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import jogamp.graph.font.typecast.ot.ByteBufferDataInput;
 
 /**
+ * The 'glyf' table.
+ * <p>
+ * By default the raw table data is retained and each {@link GlyfDescript}
+ * is decoded on its first {@link #getDescription(int)} call only,
+ * including the components referenced by a composite glyph.
+ * Decoding is thread safe, a concurrently decoded duplicate is dropped.
+ * Cyclic composite glyph references of malformed fonts are cut,
+ * i.e. a component being decoded by the current thread is treated as having no outline.
+ * If the font is read via {@link ByteBufferDataInput}, e.g. from a memory mapped file,
+ * the raw table data is referenced and not copied.
+ * </p>
+ * <p>
+ * The eager decoding of all glyphs at construction may be requested via
+ * {@link jogamp.graph.font.typecast.ot.OTFontCollection#create(java.io.File, boolean)} or the property <code>jogl.graph.font.glyf.eager</code>,
+ * releasing the raw table data afterwards.
+ * </p>
  * @version $Id: GlyfTable.java,v 1.6 2010-08-10 11:46:30 davidsch Exp $
  * @author <a href="mailto:davidsch@dev.java.net">David Schweinsberg</a>
  */
 public class GlyfTable implements Table {
 
     private DirectoryEntry _de;
-    private GlyfDescript[] _descript;
+    private final LocaTable _loca;
+    private final AtomicReferenceArray<GlyfDescript> _descript;
+    /** Raw table data, <code>null</code> after eager decoding. */
+    private volatile ByteBuffer _buf;
+    /** Glyph ids being decoded by the current thread, detecting composite reference cycles. */
+    private final ThreadLocal<BitSet> _decoding = new ThreadLocal<BitSet>() {
+        @Override
+        protected BitSet initialValue() {
+            return new BitSet();
+        }
+    };
 
     protected GlyfTable(
             DirectoryEntry de,
             DataInput di,
             MaxpTable maxp,
-            LocaTable loca) throws IOException {
+            LocaTable loca,
+            boolean lazy) throws IOException {
         _de = (DirectoryEntry) de.clone();
-        _descript = new GlyfDescript[maxp.getNumGlyphs()];
-        
-        // Buffer the whole table so we can randomly access it
-        byte[] buf = new byte[de.getLength()];
-        di.readFully(buf);
-        ByteArrayInputStream bais = new ByteArrayInputStream(buf);
+        _loca = loca;
+        _descript = new AtomicReferenceArray<GlyfDescript>(maxp.getNumGlyphs());
         
-        // Process all the simple glyphs
-        for (int i = 0; i < maxp.getNumGlyphs(); i++) {
-            int len = loca.getOffset(i + 1) - loca.getOffset(i);
-            if (len > 0) {
-                bais.reset();
-                bais.skip(loca.getOffset(i));
-                DataInputStream dis = new DataInputStream(bais);
-                short numberOfContours = dis.readShort();
-                if (numberOfContours >= 0) {
-                    _descript[i] = new GlyfSimpleDescript(this, i, numberOfContours, dis);
-                }
-            } else {
-                _descript[i] = null;
-            }
+        // Reference or buffer the whole table so we can randomly access it
+        if( di instanceof ByteBufferDataInput ) {
+            _buf = ((ByteBufferDataInput)di).slice(de.getLength());
+        } else {
+            byte[] buf = new byte[de.getLength()];
+            di.readFully(buf);
+            _buf = ByteBuffer.wrap(buf);
         }
 
-        // Now do all the composite glyphs
-        for (int i = 0; i < maxp.getNumGlyphs(); i++) {
-            int len = loca.getOffset(i + 1) - loca.getOffset(i);
-            if (len > 0) {
-                bais.reset();
-                bais.skip(loca.getOffset(i));
-                DataInputStream dis = new DataInputStream(bais);
-                short numberOfContours = dis.readShort();
-                if (numberOfContours < 0) {
-                    _descript[i] = new GlyfCompositeDescript(this, i, dis);
-                }
+        if( !lazy ) {
+            for (int i = 0; i < maxp.getNumGlyphs(); i++) {
+                getDescription(i);
             }
+            _buf = null;
         }
     }
 
+    /** Returns <code>true</code> if glyph descriptions are decoded on demand. */
+    public boolean isLazy() {
+        return null != _buf;
+    }
+
+    /**
+     * Returns the description of glyph <code>i</code>, decoding it on first access.
+     * @return the glyph description or <code>null</code> if glyph <code>i</code> has no outline or does not exist.
+     */
     public GlyfDescript getDescription(int i) {
-        if (i < _descript.length) {
-            return _descript[i];
-        } else {
+        if ( 0 > i || i >= _descript.length() ) {
             return null;
         }
+        final GlyfDescript d = _descript.get(i);
+        if( null != d ) {
+            return d;
+        }
+        final ByteBuffer buf = _buf;
+        if( null == buf ) {
+            return null; // eager decoded, no outline
+        }
+        final BitSet decoding = _decoding.get();
+        if( decoding.get(i) ) {
+            return null; // composite reference cycle
+        }
+        final GlyfDescript nd;
+        decoding.set(i);
+        try {
+            nd = decode(buf, i);
+        } catch (IOException e) {
+            throw new RuntimeException("Error decoding glyph "+i+" of "+this, e);
+        } finally {
+            decoding.clear(i);
+        }
+        if( null == nd ) {
+            return null;
+        }
+        if( _descript.compareAndSet(i, null, nd) ) {
+            return nd;
+        }
+        return _descript.get(i);
+    }
+
+    private GlyfDescript decode(ByteBuffer buf, int i) throws IOException {
+        final int off = _loca.getOffset(i);
+        final int len = _loca.getOffset(i + 1) - off;
+        if ( 0 >= len || off + len > buf.limit() ) {
+            return null;
+        }
+        final ByteBuffer glyph = buf.duplicate(); // thread local position
+        glyph.position(off);
+        glyph.limit(off + len);
+        final DataInputStream dis = new ByteBufferDataInput(glyph);
+        final short numberOfContours = dis.readShort();
+        if (numberOfContours >= 0) {
+            return new GlyfSimpleDescript(this, i, numberOfContours, dis);
+        } else {
+            // Resolves its components via getDescription(..)
+            return new GlyfCompositeDescript(this, i, dis);
+        }
     }
 
     public int getType() {
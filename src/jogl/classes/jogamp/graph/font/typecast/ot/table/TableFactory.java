@@ -136,7 +136,7 @@ public class TableFactory {
             t = new GaspTable(de, dis);
             break;
         case Table.glyf:
-            t = new GlyfTable(de, dis, font.getMaxpTable(), font.getLocaTable());
+            t = new GlyfTable(de, dis, font.getMaxpTable(), font.getLocaTable(), null == fc || fc.isLazyGlyf());
             break;
         case Table.hdmx:
             t = new HdmxTable(de, dis, font.getMaxpTable());
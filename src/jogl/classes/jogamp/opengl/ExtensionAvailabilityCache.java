@@ -79,6 +79,25 @@ final class ExtensionAvailabilityCache {
     initAvailableExtensions(context);
   }
 
+  /**
+   * Flush and rebuild the cache from the given extension strings w/o querying the GL,
+   * e.g. as restored via {@link GLProfileCache}.
+   */
+  final void reset(GLContextImpl context, String glExtensions, String platformExtensions) {
+    flush();
+    if (DEBUG) {
+        System.err.println(getThreadName() + ":ExtensionAvailabilityCache: Restoring extension availability OpenGL "+context.getGLVersion());
+    }
+    final HashSet<String> glExtensionSet = new HashSet<String>(320);
+    final StringTokenizer tok = new StringTokenizer(glExtensions);
+    while (tok.hasMoreTokens()) {
+        glExtensionSet.add(tok.nextToken().trim());
+    }
+    this.glExtensions = glExtensions;
+    glExtensionCount = glExtensionSet.size();
+    initAvailableExtensions(context, glExtensionSet, platformExtensions);
+  }
+
   final boolean isInitialized() {
     return initialized && !availableExtensionCache.isEmpty() ;
   }
@@ -191,11 +210,15 @@ final class ExtensionAvailabilityCache {
                                                ", used "+ ( useGetStringi ? "glGetStringi" : "glGetString" ) );
       }
 
+      initAvailableExtensions(context, glExtensionSet, context.getPlatformExtensionsStringImpl().toString());
+  }
+
+  private final void initAvailableExtensions(GLContextImpl context, HashSet<String> glExtensionSet, String platformExtensions) {
       // Platform Extensions
       HashSet<String> glXExtensionSet = new HashSet<String>(50);
       {         
           // unify platform extension .. might have duplicates          
-          StringTokenizer tok = new StringTokenizer(context.getPlatformExtensionsStringImpl().toString());
+          StringTokenizer tok = new StringTokenizer(platformExtensions);
           while (tok.hasMoreTokens()) {
               glXExtensionSet.add(tok.nextToken().trim());              
           }
@@ -215,7 +238,7 @@ final class ExtensionAvailabilityCache {
 
       if (DEBUG) {
           System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GLX_EXTENSIONS: "+glXExtensionCount);
-          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL vendor: " + gl.glGetString(GL.GL_VENDOR));
+          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL vendor: " + context.getGL().glGetString(GL.GL_VENDOR));
           System.err.println(getThreadName() + ":ExtensionAvailabilityCache: ALL EXTENSIONS: "+availableExtensionCache.size());
       }
 
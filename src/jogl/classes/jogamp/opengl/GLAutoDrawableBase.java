@@ -49,6 +49,8 @@ import javax.media.opengl.GLProfile;
 import javax.media.opengl.GLRunnable;
 
 import com.jogamp.common.util.locks.RecursiveLock;
+import com.jogamp.opengl.FrameMetrics;
+import com.jogamp.opengl.GLFrameMetricsDrawable;
 import com.jogamp.opengl.GLAutoDrawableDelegate;
 import com.jogamp.opengl.GLEventListenerState;
 import com.jogamp.opengl.GLStateKeeper;
@@ -62,7 +64,7 @@ import com.jogamp.opengl.GLStateKeeper;
  * @see GLPBufferImpl
  * @see GLWindow
  */
-public abstract class GLAutoDrawableBase implements GLAutoDrawable, GLStateKeeper, FPSCounter {
+public abstract class GLAutoDrawableBase implements GLAutoDrawable, GLFrameMetricsDrawable, GLStateKeeper, FPSCounter {
     public static final boolean DEBUG = GLDrawableImpl.DEBUG;
     
     protected final GLDrawableHelper helper = new GLDrawableHelper();
@@ -511,6 +513,16 @@ public abstract class GLAutoDrawableBase implements GLAutoDrawable, GLStateKeepe
     public final Thread getExclusiveContextThread() {
         return helper.getExclusiveContextThread();
     }
+
+    @Override
+    public final FrameMetrics setFrameMetrics(FrameMetrics metrics) {
+        return helper.setFrameMetrics(metrics);
+    }
+
+    @Override
+    public final FrameMetrics getFrameMetrics() {
+        return helper.getFrameMetrics();
+    }
     
     @Override
     public final boolean invoke(boolean wait, GLRunnable glRunnable) {
@@ -815,8 +815,10 @@ public abstract class GLContextImpl extends GLContext {
                GLContext.getAvailableGLVersionsSet(device));
     }
 
+    boolean restoredGLVersions = false;
     if ( !GLContext.getAvailableGLVersionsSet(device) ) {
-        if(!mapGLVersions(device)) {
+        restoredGLVersions = restoreGLVersions(device);
+        if( !restoredGLVersions && !mapGLVersions(device) ) {
             // none of the ARB context creation calls was successful, bail out
             return 0;
         }
@@ -826,6 +828,30 @@ public abstract class GLContextImpl extends GLContext {
     final int[] reqMajorCTP = new int[] { 0, 0 };
     getRequestMajorAndCompat(glCaps.getGLProfile(), reqMajorCTP);
     
+    long _ctx = createContextARBMapped(device, reqMajorCTP, share, direct);
+    if( restoredGLVersions && ( 0 == _ctx || null == GLProfileCache.getDefault().get(device.getUniqueID()) ) ) {
+        // restored GL versions are stale, i.e. the requested version is not available or its creation failed, 
+        // or have been invalidated w/ this context's driver strings: drop them and map them again
+        if( 0 != _ctx ) {
+            destroyContextARBImpl(_ctx);
+        }
+        resetStates();
+        GLProfileCache.getDefault().invalidate(device.getUniqueID());
+        GLContext.resetAvailableGLVersions(device);
+        if( !mapGLVersions(device) ) {
+            return 0;
+        }
+        _ctx = createContextARBMapped(device, reqMajorCTP, share, direct);
+    }
+    return _ctx;
+  }
+  
+  /**
+   * Creates a context of the mapped GL version available for the requested major version and profile,
+   * making it current and setting the GL function availability if successful.
+   * @return the context handle or 0 if no GL version is mapped or the creation failed
+   */
+  private final long createContextARBMapped(AbstractGraphicsDevice device, int[] reqMajorCTP, long share, boolean direct) {
     int _major[] = { 0 };
     int _minor[] = { 0 };
     int _ctp[] = { 0 };
@@ -840,11 +866,51 @@ public abstract class GLContextImpl extends GLContext {
     }
     return _ctx;
   }
+
+  /**
+   * Restores the available GL versions of the given device from the {@link GLProfileCache}, if enabled,
+   * sparing the temporary contexts of {@link #mapGLVersions(AbstractGraphicsDevice)}.
+   * <p>
+   * The restored entry is validated w/ the first context created on the device,
+   * see {@link #setGLFunctionAvailability(boolean, int, int, int, boolean)}.
+   * </p>
+   */
+  private static final boolean restoreGLVersions(AbstractGraphicsDevice device) {
+    final GLProfileCache profileCache = GLProfileCache.getDefault();
+    if( null == profileCache ) {
+        return false;
+    }
+    synchronized (GLContext.deviceVersionAvailable) {
+        final GLProfileCache.Entry e = profileCache.restore(device.getUniqueID());
+        if( null == e ) {
+            return false;
+        }
+        for(int reqMajor=4; reqMajor>=1; reqMajor--) {
+            for(int i=0; i<PROFILE_CACHE_PROFILES.length; i++) {
+                final Integer val = e.getVersion(reqMajor, PROFILE_CACHE_PROFILES[i]);
+                if( null != val ) {
+                    final int bits = val.intValue();
+                    GLContext.mapAvailableGLVersion(device, reqMajor, PROFILE_CACHE_PROFILES[i],
+                                                    bits >>> 24, ( bits >>> 16 ) & 0xFF, bits & 0xFFFF);
+                }
+            }
+        }
+        GLContext.setAvailableGLVersionsSet(device);
+        if(DEBUG) {
+            System.err.println(getThreadName() + ": createContextARB: restored GL versions "+e);
+        }
+        return true;
+    }
+  }
+  private static final int[] PROFILE_CACHE_PROFILES = { CTX_PROFILE_CORE, CTX_PROFILE_COMPAT, CTX_PROFILE_ES };
   
   private final boolean mapGLVersions(AbstractGraphicsDevice device) {
     synchronized (GLContext.deviceVersionAvailable) {
         final long t0 = ( DEBUG ) ? System.nanoTime() : 0;
         boolean success = false;
+        // records the probing contexts' driver and extension strings
+        final GLProfileCache profileCache = GLProfileCache.getDefault();
+        final GLProfileCache.Entry profileCacheEntry = null != profileCache ? profileCache.create(device.getUniqueID()) : null;
         // Following GLProfile.GL_PROFILE_LIST_ALL order of profile detection { GL4bc, GL3bc, GL2, GL4, GL3, GL2GL3, GLES2, GL2ES2, GLES1, GL2ES1 }
         boolean hasGL4bc = false;
         boolean hasGL3bc = false;
@@ -930,6 +996,16 @@ public abstract class GLContextImpl extends GLContext {
         if(success) {
             // only claim GL versions set [and hence detected] if ARB context creation was successful
             GLContext.setAvailableGLVersionsSet(device);
+            if( null != profileCacheEntry ) {
+                for(int reqMajor=4; reqMajor>=1; reqMajor--) {
+                    for(int i=0; i<PROFILE_CACHE_PROFILES.length; i++) {
+                        final Integer val = GLContext.getAvailableGLVersion(device, reqMajor, PROFILE_CACHE_PROFILES[i]);
+                        if( null != val ) {
+                            profileCacheEntry.putVersion(reqMajor, PROFILE_CACHE_PROFILES[i], val.intValue());
+                        }
+                    }
+                }
+            }
             if(DEBUG) {
                 final long t1 = System.nanoTime();
                 System.err.println("GLContextImpl.mapGLVersions: "+device+", profileAliasing: "+PROFILE_ALIASING+", total "+(t1-t0)/1e6 +"ms");
@@ -1504,6 +1580,17 @@ public abstract class GLContextImpl extends GLContext {
         }
     }
 
+    //
+    // Validate GLProfileCache entry of device, if enabled and restored or mapping
+    //
+    final int profileCacheCtxBits = composeBits(major, minor, ctxProfileBits & CTX_IMPL_CACHE_MASK);
+    final GLProfileCache profileCache = GLProfileCache.getDefault();
+    GLProfileCache.Entry profileCacheEntry = null != profileCache ? profileCache.get(adevice.getUniqueID()) : null;
+    if( null != profileCacheEntry &&
+        !profileCache.validate(profileCacheEntry, glVendor, glRenderer, profileCacheCtxBits, glVersion) ) {
+        profileCacheEntry = null;
+    }
+
     //
     // Update ExtensionAvailabilityCache
     //
@@ -1519,7 +1606,18 @@ public abstract class GLContextImpl extends GLContext {
     } else {
         extensionAvailability = new ExtensionAvailabilityCache();
         setContextVersion(major, minor, ctxProfileBits, vendorVersion, false); // pre-set of GL version, required for extension cache usage
-        extensionAvailability.reset(this);
+        if( null != profileCacheEntry && profileCacheEntry.hasContext(profileCacheCtxBits) ) {
+            extensionAvailability.reset(this, profileCacheEntry.getGLExtensions(profileCacheCtxBits),
+                                              profileCacheEntry.getPlatformExtensions(profileCacheCtxBits));
+        } else {
+            extensionAvailability.reset(this);
+            if( null != profileCacheEntry ) {
+                profileCacheEntry.putContext(profileCacheCtxBits, glVersion,
+                                             extensionAvailability.getGLExtensionsString(),
+                                             extensionAvailability.getPlatformExtensionsString());
+                profileCache.store(profileCacheEntry); // no-op until complete
+            }
+        }
         synchronized(mappedContextTypeObjectLock) {
             mappedExtensionAvailabilityCache.put(contextFQN, extensionAvailability);
             if(DEBUG) {
@@ -58,6 +58,8 @@ import javax.media.opengl.GLException;
 import javax.media.opengl.GLFBODrawable;
 import javax.media.opengl.GLRunnable;
 
+import com.jogamp.opengl.FrameMetrics;
+
 /** Encapsulates the implementation of most of the GLAutoDrawable's
     methods to be able to share it between GLAutoDrawable implementations like GLAutoDrawableBase, GLCanvas and GLJPanel. */
 public class GLDrawableHelper {
@@ -80,6 +82,11 @@ public class GLDrawableHelper {
   /** -1 release, 0 nop, 1 claim */
   private volatile int exclusiveContextSwitch;
   private GLAnimatorControl animatorCtrl;
+  private volatile FrameMetrics frameMetrics;
+  /** Per frame phase durations, only accessed by the rendering thread holding the context. */
+  private final long[] frameMetricsNanos = new long[FrameMetrics.Phase.COUNT];
+  /** True if {@link #display(GLAutoDrawable)} has been issued within the current measured frame. */
+  private boolean frameMetricsDisplayed;
   private static Runnable nop = new Runnable() { public void run() {} };
 
   public GLDrawableHelper() {
@@ -342,7 +349,11 @@ public class GLDrawableHelper {
   public final GLEventListener removeGLEventListener(GLEventListener listener) {
     synchronized(listenersLock) {
         listenersToBeInit.remove(listener);
-        return listeners.remove(listener) ? listener : null;
+        if( listeners.remove(listener) ) {
+            removeFrameMetricsHistogram(listener);
+            return listener;
+        }
+        return null;
     }
   }
 
@@ -353,6 +364,7 @@ public class GLDrawableHelper {
         }
         final GLEventListener listener = listeners.remove(index);
         listenersToBeInit.remove(listener);
+        removeFrameMetricsHistogram(listener);
         return listener;
     }
   }
@@ -410,6 +422,7 @@ public class GLDrawableHelper {
                   if( !listenersToBeInit.remove(listener) ) {              
                       listener.dispose(autoDrawable);
                   }
+                  removeFrameMetricsHistogram(listener);
                   return listener;
               }
           } else {
@@ -447,6 +460,7 @@ public class GLDrawableHelper {
                   listener.dispose(autoDrawable);
                   disposeCount++;
               }
+              removeFrameMetricsHistogram(listener);
             }
         } else {
             for (int i = 0; i < listeners.size(); i++) {
@@ -569,12 +583,35 @@ public class GLDrawableHelper {
   }
 
   public final void display(GLAutoDrawable drawable) {
-    displayImpl(drawable);
+    final FrameMetrics metrics = frameMetrics;
+    if( null != metrics ) {
+        displayMetrics(drawable, metrics);
+        return;
+    }
+    displayImpl(drawable, null);
     if( glRunnables.size()>0 && !execGLRunnables(drawable) ) { // glRunnables volatile OK; execGL.. only executed if size > 0
-        displayImpl(drawable);  
+        displayImpl(drawable, null);  
     }
   }
-  private final void displayImpl(GLAutoDrawable drawable) {
+  private final void displayMetrics(GLAutoDrawable drawable, FrameMetrics metrics) {
+    final int iDisplay = FrameMetrics.Phase.DISPLAY.ordinal();
+    final int iRunnables = FrameMetrics.Phase.GL_RUNNABLES.ordinal();
+    frameMetricsDisplayed = true;
+    long t0 = System.nanoTime();
+    displayImpl(drawable, metrics);
+    long t1 = System.nanoTime();
+    frameMetricsNanos[iDisplay] = Math.max(0, frameMetricsNanos[iDisplay]) + ( t1 - t0 );
+    if( glRunnables.size()>0 ) { // glRunnables volatile OK
+        final boolean res = execGLRunnables(drawable);
+        t0 = System.nanoTime();
+        frameMetricsNanos[iRunnables] = Math.max(0, frameMetricsNanos[iRunnables]) + ( t0 - t1 );
+        if( !res ) {
+            displayImpl(drawable, metrics);
+            frameMetricsNanos[iDisplay] += System.nanoTime() - t0;
+        }
+    }
+  }
+  private final void displayImpl(GLAutoDrawable drawable, FrameMetrics metrics) {
       synchronized(listenersLock) {
           final ArrayList<GLEventListener> _listeners = listeners;
           final int listenerCount = _listeners.size();
@@ -585,11 +622,43 @@ public class GLDrawableHelper {
             if( listenersToBeInit.remove(listener) ) {
                 init( listener, drawable, true /* sendReshape */, listenersToBeInit.size() + 1 == listenerCount /* setViewport if 1st init */ );
             }
-            listener.display(drawable);
+            if( null != metrics ) {
+                final long t0 = System.nanoTime();
+                listener.display(drawable);
+                metrics.recordDisplay(listener, System.nanoTime() - t0);
+            } else {
+                listener.display(drawable);
+            }
           }
       }
   }
   
+  /**
+   * Attaches the given {@link FrameMetrics}, or detaches the current one if <code>null</code>.
+   * <p>
+   * Per frame timings are only measured w/ attached <code>FrameMetrics</code>.
+   * </p>
+   * @return the previously attached instance, may be <code>null</code>
+   */
+  public final FrameMetrics setFrameMetrics(FrameMetrics metrics) {
+      final FrameMetrics old = frameMetrics;
+      frameMetrics = metrics;
+      return old;
+  }
+  
+  /** Returns the attached {@link FrameMetrics}, may be <code>null</code>. */
+  public final FrameMetrics getFrameMetrics() {
+      return frameMetrics;
+  }
+  
+  /** Drops the removed listener's display histogram of the attached {@link FrameMetrics}, if any. */
+  private final void removeFrameMetricsHistogram(GLEventListener listener) {
+      final FrameMetrics metrics = frameMetrics;
+      if( null != metrics ) {
+          metrics.removeHistogram(listener);
+      }
+  }
+  
   private final void reshape(GLEventListener listener, GLAutoDrawable drawable,
                              int x, int y, int width, int height, boolean setViewport, boolean checkInit) {
     if(checkInit) {
@@ -906,7 +975,7 @@ public class GLDrawableHelper {
     if(PERF_STATS) {
         invokeGLImplStats(drawable, context, runnable, initAction);    
     } else {
-        invokeGLImpl(drawable, context, runnable, initAction);
+        invokeGLImpl(drawable, context, runnable, initAction, frameMetrics);
     }
   }
 
@@ -972,10 +1041,15 @@ public class GLDrawableHelper {
     }
   }
 
+  /**
+   * @param metrics if not <code>null</code>, the frame's phases are measured and recorded 
+   *                if {@link #display(GLAutoDrawable)} has been issued within the frame
+   */
   private final void invokeGLImpl(final GLDrawable drawable,
           final GLContext context,
           final Runnable  runnable,
-          final Runnable  initAction) {                                  
+          final Runnable  initAction,
+          final FrameMetrics metrics) {                                  
       final Thread currentThread = Thread.currentThread();
 
       // Exclusive Cases:
@@ -1014,6 +1088,21 @@ public class GLDrawableHelper {
           }
       }
       
+      final long t0;
+      if( null != metrics ) {
+          final long[] tdN = frameMetricsNanos;
+          for(int i=0; i<tdN.length; i++) {
+              tdN[i] = -1;
+          }
+          frameMetricsDisplayed = false;
+          t0 = System.nanoTime();
+      } else {
+          t0 = 0;
+      }
+      long tdA = 0; // makeCurrent
+      long tdS = -1; // swapBuffers
+      long tdX = 0; // release
+      boolean ctxReleased = false;
       try {
           final boolean releaseContext;
           if( GLContext.CONTEXT_NOT_CURRENT == res ) {
@@ -1031,9 +1120,20 @@ public class GLDrawableHelper {
                       }
                       initAction.run();
                   }
+                  if( null != metrics ) {
+                      tdA = System.nanoTime() - t0;
+                  }
                   runnable.run();
+                  if( null != metrics ) {
+                      tdX = System.nanoTime();
+                  }
                   if ( autoSwapBufferMode ) {
                       drawable.swapBuffers();
+                      if( null != metrics ) {
+                          final long t1 = System.nanoTime();
+                          tdS = t1 - tdX;
+                          tdX = t1;
+                      }
                   }
               } finally {
                   if( _releaseExclusiveThread ) {
@@ -1045,6 +1145,7 @@ public class GLDrawableHelper {
                   if( releaseContext ) {
                       try {
                           context.release();
+                          ctxReleased = true;
                       } catch (Exception e) {
                           System.err.println("Catched Exception on thread "+getThreadName());
                           e.printStackTrace();
@@ -1053,6 +1154,9 @@ public class GLDrawableHelper {
               }
           }
       } finally {
+          if( null != metrics ) {
+              tdX = System.nanoTime() - tdX; // release
+          }
           if (lastContext != null) {
               final int res2 = lastContext.makeCurrent();
               if (null != lastInitAction && res2 == GLContext.CONTEXT_CURRENT_NEW) {
@@ -1060,6 +1164,15 @@ public class GLDrawableHelper {
               }
           }
       }
+      if( null != metrics && frameMetricsDisplayed ) {
+          frameMetricsDisplayed = false;
+          final long[] tdN = frameMetricsNanos;
+          tdN[FrameMetrics.Phase.MAKE_CURRENT.ordinal()] = tdA;
+          tdN[FrameMetrics.Phase.SWAP_BUFFERS.ordinal()] = tdS;
+          tdN[FrameMetrics.Phase.RELEASE.ordinal()] = ctxReleased ? tdX : -1;
+          tdN[FrameMetrics.Phase.FRAME.ordinal()] = System.nanoTime() - t0;
+          metrics.recordFrame(tdN);
+      }
   }
 
   private final void invokeGLImplStats(final GLDrawable drawable,
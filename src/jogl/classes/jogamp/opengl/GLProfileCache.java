@@ -0,0 +1,622 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.jogamp.common.os.Platform;
+import com.jogamp.opengl.JoglVersion;
+
+/**
+ * Persistent on-disk cache of the per device GL probing results,
+ * i.e. the mapped available GL versions, the driver strings, the extension sets per context type
+ * and the resulting {@link javax.media.opengl.GLProfile} map.
+ * <p>
+ * The cache is opt-in via the property <code>jogl.glprofile.cache</code>.
+ * If the property has a value other than <code>true</code>, it denotes the cache directory,
+ * otherwise <code>${user.home}/.jogamp/jogl/glprofile-cache</code> is being used.
+ * </p>
+ * <p>
+ * A restored {@link Entry} allows {@link GLContextImpl} to skip creating the temporary
+ * contexts required to map the available GL versions of a device.
+ * Since the driver strings are only known with a current context, a restored entry is validated
+ * against the first context created for the device, see {@link #validate(Entry, String, String, int, String)}.
+ * Any mismatch of the device, the JOGL build, the driver vendor, renderer or GL version string,
+ * the profile map, the file format or checksum invalidates the entry and deletes its file,
+ * hence the next run probes again.
+ * </p>
+ */
+public final class GLProfileCache {
+    protected static final boolean DEBUG = Debug.debug("GLProfileCache");
+
+    private static final int MAGIC = 0x4A474C50; // 'JGLP'
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_PAYLOAD_SIZE = 4 * 1024 * 1024;
+    private static final String FILE_PREFIX = "glprofile-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static final Object defaultLock = new Object();
+    private static boolean defaultInitialized = false;
+    private static GLProfileCache defaultCache = null;
+
+    /**
+     * Returns the default cache as configured via the property <code>jogl.glprofile.cache</code>,
+     * or <code>null</code> if the cache is disabled (default).
+     */
+    public static GLProfileCache getDefault() {
+        synchronized( defaultLock ) {
+            if( !defaultInitialized ) {
+                defaultInitialized = true;
+                if( Debug.isPropertyDefined("jogl.glprofile.cache", true) ) {
+                    final String value = Debug.getProperty("jogl.glprofile.cache", true);
+                    final File dir;
+                    if( null != value && value.length() > 0 && !value.equalsIgnoreCase("true") ) {
+                        dir = new File(value);
+                    } else {
+                        final String home = AccessController.doPrivileged(new PrivilegedAction<String>() {
+                            public String run() {
+                                return System.getProperty("user.home");
+                            } } );
+                        dir = new File(home, ".jogamp"+File.separator+"jogl"+File.separator+"glprofile-cache");
+                    }
+                    defaultCache = new GLProfileCache(dir, getDefaultBuildID());
+                    if( DEBUG ) {
+                        System.err.println("GLProfileCache: enabled "+defaultCache);
+                    }
+                }
+            }
+            return defaultCache;
+        }
+    }
+
+    /**
+     * Returns the build identifier of this JOGL build and platform,
+     * i.e. implementation version, build number, commit and os/arch.
+     */
+    public static String getDefaultBuildID() {
+        final JoglVersion v = JoglVersion.getInstance();
+        return "JOGL "+v.getImplementationVersion()+"-b"+v.getImplementationBuild()+"-"+v.getImplementationCommit()+" "+Platform.getOSAndArch();
+    }
+
+    private final File dir;
+    private final String buildID;
+    /** Restored or created entries of this JVM, key deviceKey */
+    private final HashMap<String, Entry> active = new HashMap<String, Entry>();
+    /** Device keys invalidated in this JVM, which are not restored again */
+    private final HashSet<String> invalidated = new HashSet<String>();
+
+    /**
+     * @param dir the cache directory, created on demand
+     * @param buildID identifier of the JOGL build, entries of other builds are invalid
+     */
+    public GLProfileCache(File dir, String buildID) {
+        if( null == dir || null == buildID ) {
+            throw new IllegalArgumentException("null dir or buildID");
+        }
+        this.dir = dir;
+        this.buildID = buildID;
+    }
+
+    public final File getDirectory() { return dir; }
+    public final String getBuildID() { return buildID; }
+
+    /** Returns the cache file of the given device key. */
+    public final File getFile(String deviceKey) {
+        final StringBuilder sb = new StringBuilder(FILE_PREFIX);
+        for(int i=0; i<deviceKey.length(); i++) {
+            final char c = deviceKey.charAt(i);
+            sb.append( Character.isLetterOrDigit(c) || '-' == c ? c : '_' );
+        }
+        // disambiguate the sanitized name, the exact device key is validated when loading
+        sb.append('-').append(Integer.toHexString(deviceKey.hashCode())).append(FILE_SUFFIX);
+        return new File(dir, sb.toString());
+    }
+
+    /** Returns the restored or created entry of the given device key in this JVM, or <code>null</code>. */
+    public final synchronized Entry get(String deviceKey) {
+        return active.get(deviceKey);
+    }
+
+    /**
+     * Returns the restored entry of the given device key,
+     * loading it from disk if not yet restored in this JVM.
+     * <p>
+     * Returns <code>null</code> if no valid entry exists, in which case an existing invalid file is deleted.
+     * </p>
+     */
+    public final synchronized Entry restore(String deviceKey) {
+        Entry e = active.get(deviceKey);
+        if( null != e ) {
+            return e.restored ? e : null;
+        }
+        if( invalidated.contains(deviceKey) ) {
+            return null;
+        }
+        final File file = getFile(deviceKey);
+        if( !file.exists() ) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.restore: miss "+deviceKey+" -> "+file);
+            }
+            return null;
+        }
+        try {
+            e = read(file, deviceKey);
+        } catch (IOException ioe) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.restore: invalid "+deviceKey+" -> "+file+": "+ioe.getMessage());
+            }
+            e = null;
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.restore: "+deviceKey+" -> "+file+": "+se.getMessage());
+            }
+            return null;
+        }
+        if( null == e ) {
+            invalidate(deviceKey);
+            return null;
+        }
+        active.put(deviceKey, e);
+        if( DEBUG ) {
+            System.err.println("GLProfileCache.restore: hit "+e);
+        }
+        return e;
+    }
+
+    /** Creates a new empty entry for the given device key, to be filled with probed values. */
+    public final synchronized Entry create(String deviceKey) {
+        final Entry e = new Entry(deviceKey, false);
+        active.put(deviceKey, e);
+        return e;
+    }
+
+    /**
+     * Drops the entry of the given device key in this JVM and deletes its file.
+     * The entry is not restored again in this JVM.
+     */
+    public final synchronized void invalidate(String deviceKey) {
+        active.remove(deviceKey);
+        invalidated.add(deviceKey);
+        final File file = getFile(deviceKey);
+        try {
+            if( file.exists() && !file.delete() && DEBUG ) {
+                System.err.println("GLProfileCache.invalidate: could not delete "+file);
+            }
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.invalidate: "+file+": "+se.getMessage());
+            }
+        }
+        if( DEBUG ) {
+            System.err.println("GLProfileCache.invalidate: "+deviceKey);
+        }
+    }
+
+    /**
+     * Validates the given entry against the driver strings of a current context
+     * of the entry's device, or records them for a created entry.
+     * <p>
+     * A restored entry is valid if vendor and renderer match
+     * and the GL version string matches the one recorded for the same context type, if any.
+     * Otherwise the entry is {@link #invalidate(String) invalidated}.
+     * </p>
+     * @param ctxBits the context type, i.e. the composed major, minor and masked profile bits
+     * @return true if the entry is valid, otherwise false
+     */
+    public final synchronized boolean validate(Entry e, String vendor, String renderer, int ctxBits, String glVersion) {
+        if( e != active.get(e.deviceKey) ) {
+            return false;
+        }
+        final String mismatch = e.validate(vendor, renderer, ctxBits, glVersion);
+        if( null != mismatch ) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.validate: "+e.deviceKey+": "+mismatch);
+            }
+            invalidate(e.deviceKey);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Validates the profile map of a restored entry or records the one of a created entry,
+     * which completes the latter and hence allows it to be {@link #store(Entry) stored}.
+     * <p>
+     * A mismatch {@link #invalidate(String) invalidates} the entry.
+     * </p>
+     * @return true if the entry is valid, otherwise false
+     */
+    public final synchronized boolean validateProfileMap(Entry e, String profileMap) {
+        if( e != active.get(e.deviceKey) ) {
+            return false;
+        }
+        final String mismatch = e.validateProfileMap(profileMap);
+        if( null != mismatch ) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.validateProfileMap: "+e.deviceKey+": "+mismatch);
+            }
+            invalidate(e.deviceKey);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the given entry to disk, if it is complete, i.e. has driver strings and a profile map,
+     * and has been modified since it was restored or stored.
+     * <p>
+     * The file is written to a temporary file first and renamed afterwards.
+     * </p>
+     * @return true if the entry has been written, otherwise false
+     */
+    public final synchronized boolean store(Entry e) {
+        synchronized( e ) {
+            if( !e.dirty || null == e.vendor || null == e.profileMap || e != active.get(e.deviceKey) ) {
+                return false;
+            }
+            return write(e);
+        }
+    }
+
+    private final boolean write(Entry e) {
+        final File file = getFile(e.deviceKey);
+        File tmp = null;
+        try {
+            if( !dir.isDirectory() && !dir.mkdirs() ) {
+                throw new IOException("Could not create directory "+dir);
+            }
+            tmp = File.createTempFile(FILE_PREFIX, ".tmp", dir);
+            final OutputStream out = new FileOutputStream(tmp);
+            try {
+                write(out, e);
+            } finally {
+                out.close();
+            }
+            if( !tmp.renameTo(file) ) {
+                // not atomic on all platforms, e.g. Windows
+                if( !file.delete() || !tmp.renameTo(file) ) {
+                    throw new IOException("Could not rename "+tmp+" to "+file);
+                }
+            }
+            tmp = null;
+            e.dirty = false;
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.store: "+e+" -> "+file);
+            }
+            return true;
+        } catch (IOException ioe) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.store: "+e.deviceKey+" -> "+file+": "+ioe.getMessage());
+            }
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.store: "+e.deviceKey+" -> "+file+": "+se.getMessage());
+            }
+        } finally {
+            if( null != tmp ) {
+                tmp.delete();
+            }
+        }
+        return false;
+    }
+
+    private final void write(OutputStream out, Entry e) throws IOException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(4096);
+        final DataOutputStream p = new DataOutputStream(payload);
+        writeString(p, e.deviceKey);
+        writeString(p, buildID);
+        writeString(p, e.vendor);
+        writeString(p, e.renderer);
+        writeString(p, e.profileMap);
+        p.writeInt(e.versions.size());
+        for(Iterator<Map.Entry<Integer, Integer>> iter = e.versions.entrySet().iterator(); iter.hasNext(); ) {
+            final Map.Entry<Integer, Integer> v = iter.next();
+            p.writeInt(v.getKey().intValue());
+            p.writeInt(v.getValue().intValue());
+        }
+        p.writeInt(e.contexts.size());
+        for(Iterator<Map.Entry<Integer, Context>> iter = e.contexts.entrySet().iterator(); iter.hasNext(); ) {
+            final Map.Entry<Integer, Context> c = iter.next();
+            p.writeInt(c.getKey().intValue());
+            writeString(p, c.getValue().glVersion);
+            writeString(p, c.getValue().glExtensions);
+            writeString(p, c.getValue().platformExtensions);
+        }
+        p.flush();
+        final byte[] bytes = payload.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        final DataOutputStream d = new DataOutputStream(out);
+        d.writeInt(MAGIC);
+        d.writeInt(FORMAT_VERSION);
+        d.writeInt(bytes.length);
+        d.writeLong(crc.getValue());
+        d.write(bytes);
+        d.flush();
+    }
+
+    /**
+     * Returns the validated entry read from the given file,
+     * or <code>null</code> if device key or build do not match.
+     * @throws IOException if the file is corrupt or of a different format
+     */
+    private final Entry read(File file, String deviceKey) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        final byte[] bytes;
+        try {
+            final DataInputStream d = new DataInputStream(in);
+            if( MAGIC != d.readInt() ) {
+                throw new IOException("Not a GLProfileCache file");
+            }
+            final int format = d.readInt();
+            if( FORMAT_VERSION != format ) {
+                throw new IOException("Format "+format+" != "+FORMAT_VERSION);
+            }
+            final int size = d.readInt();
+            if( 0 > size || MAX_PAYLOAD_SIZE < size ) {
+                throw new IOException("Invalid size "+size);
+            }
+            final long crcValue = d.readLong();
+            bytes = new byte[size];
+            d.readFully(bytes);
+            if( 0 <= d.read() ) {
+                throw new IOException("Trailing data");
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if( crc.getValue() != crcValue ) {
+                throw new IOException("Checksum mismatch");
+            }
+        } finally {
+            in.close();
+        }
+        final DataInputStream p = new DataInputStream(new ByteArrayInputStream(bytes));
+        final String _deviceKey = readString(p);
+        if( !deviceKey.equals(_deviceKey) ) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.read: device mismatch "+_deviceKey+" != "+deviceKey);
+            }
+            return null;
+        }
+        final String _buildID = readString(p);
+        if( !buildID.equals(_buildID) ) {
+            if( DEBUG ) {
+                System.err.println("GLProfileCache.read: build mismatch "+_buildID+" != "+buildID);
+            }
+            return null;
+        }
+        final Entry e = new Entry(deviceKey, true);
+        e.vendor = readString(p);
+        e.renderer = readString(p);
+        e.profileMap = readString(p);
+        final int versionCount = readCount(p);
+        for(int i=0; i<versionCount; i++) {
+            final int key = p.readInt();
+            e.versions.put(Integer.valueOf(key), Integer.valueOf(p.readInt()));
+        }
+        final int contextCount = readCount(p);
+        for(int i=0; i<contextCount; i++) {
+            final int bits = p.readInt();
+            e.contexts.put(Integer.valueOf(bits), new Context(readString(p), readString(p), readString(p)));
+        }
+        if( 0 <= p.read() ) {
+            throw new IOException("Trailing payload data");
+        }
+        if( 0 == e.versions.size() ) {
+            throw new IOException("No GL versions");
+        }
+        return e;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        // writeUTF is limited to 64k, which GL extension strings may exceed
+        final byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int len = in.readInt();
+        if( 0 > len || in.available() < len ) {
+            throw new EOFException("Invalid string length "+len);
+        }
+        final byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if( 0 > count || in.available() < count * 4 ) {
+            throw new EOFException("Invalid count "+count);
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "GLProfileCache["+dir+", "+buildID+"]";
+    }
+
+    /** Driver version and extension strings of one context type. */
+    private static class Context {
+        final String glVersion;
+        final String glExtensions;
+        final String platformExtensions;
+
+        Context(String glVersion, String glExtensions, String platformExtensions) {
+            this.glVersion = glVersion;
+            this.glExtensions = glExtensions;
+            this.platformExtensions = platformExtensions;
+        }
+    }
+
+    /**
+     * Probing results of one device.
+     * <p>
+     * Methods synchronize on the entry, the owning {@link GLProfileCache} locks the entry after itself.
+     * </p>
+     */
+    public static final class Entry {
+        private final String deviceKey;
+        private final boolean restored;
+        private String vendor = null;
+        private String renderer = null;
+        private String profileMap = null;
+        /** key: composed reqMajor and reqProfile, value: composed major, minor and ctp */
+        private final LinkedHashMap<Integer, Integer> versions = new LinkedHashMap<Integer, Integer>();
+        /** key: composed major, minor and masked ctp */
+        private final LinkedHashMap<Integer, Context> contexts = new LinkedHashMap<Integer, Context>();
+        private boolean validated = false;
+        private boolean dirty = false;
+
+        private Entry(String deviceKey, boolean restored) {
+            this.deviceKey = deviceKey;
+            this.restored = restored;
+        }
+
+        public final String getDeviceKey() { return deviceKey; }
+
+        /** Returns true if this entry has been read from disk, false if it has been created. */
+        public final boolean isRestored() { return restored; }
+
+        /** Returns true if this entry has been validated against a current context. */
+        public final synchronized boolean isValidated() { return validated; }
+
+        /** Returns true if this entry has been modified since it was restored or stored. */
+        public final synchronized boolean isDirty() { return dirty; }
+
+        public final synchronized String getVendor() { return vendor; }
+        public final synchronized String getRenderer() { return renderer; }
+        public final synchronized String getProfileMap() { return profileMap; }
+
+        /**
+         * Records the mapped GL version for the requested major version and profile.
+         * @param version the composed major, minor and context profile bits
+         */
+        public final synchronized void putVersion(int reqMajor, int reqProfile, int version) {
+            final Integer old = versions.put(Integer.valueOf(composeKey(reqMajor, reqProfile)), Integer.valueOf(version));
+            if( null == old || old.intValue() != version ) {
+                dirty = true;
+            }
+        }
+
+        public final synchronized int getVersionCount() { return versions.size(); }
+
+        /**
+         * Returns the mapped GL version for the requested major version and profile, or <code>null</code>.
+         * @return the composed major, minor and context profile bits
+         */
+        public final synchronized Integer getVersion(int reqMajor, int reqProfile) {
+            return versions.get(Integer.valueOf(composeKey(reqMajor, reqProfile)));
+        }
+
+        /** Returns a mismatch description, or <code>null</code> if valid. */
+        private synchronized String validate(String vendor, String renderer, int ctxBits, String glVersion) {
+            if( null == this.vendor ) {
+                this.vendor = vendor;
+                this.renderer = renderer;
+                dirty = true;
+            } else if( !this.vendor.equals(vendor) || !this.renderer.equals(renderer) ) {
+                return "driver "+this.vendor+", "+this.renderer+" != "+vendor+", "+renderer;
+            }
+            final Context c = contexts.get(Integer.valueOf(ctxBits));
+            if( null != c && !c.glVersion.equals(glVersion) ) {
+                return "version 0x"+Integer.toHexString(ctxBits)+": "+c.glVersion+" != "+glVersion;
+            }
+            validated = true;
+            return null;
+        }
+
+        /** Returns a mismatch description, or <code>null</code> if valid. */
+        private synchronized String validateProfileMap(String profileMap) {
+            if( null == this.profileMap ) {
+                this.profileMap = profileMap;
+                dirty = true;
+            } else if( !this.profileMap.equals(profileMap) ) {
+                return "profiles "+this.profileMap+" != "+profileMap;
+            }
+            return null;
+        }
+
+        private static int composeKey(int reqMajor, int reqProfile) {
+            return ( ( reqMajor & 0xFF ) << 24 ) | ( ( reqProfile & 0xFF ) << 16 );
+        }
+
+        /**
+         * Records the GL version string and extension strings of a context type.
+         * @param ctxBits the composed major, minor and masked profile bits
+         */
+        public final synchronized void putContext(int ctxBits, String glVersion, String glExtensions, String platformExtensions) {
+            contexts.put(Integer.valueOf(ctxBits), new Context(glVersion,
+                                                               null != glExtensions ? glExtensions : "",
+                                                               null != platformExtensions ? platformExtensions : ""));
+            dirty = true;
+        }
+
+        public final synchronized boolean hasContext(int ctxBits) { return contexts.containsKey(Integer.valueOf(ctxBits)); }
+        public final synchronized int getContextCount() { return contexts.size(); }
+
+        /** Returns the GL extension string of the given context type, or <code>null</code>. */
+        public final synchronized String getGLExtensions(int ctxBits) {
+            final Context c = contexts.get(Integer.valueOf(ctxBits));
+            return null != c ? c.glExtensions : null;
+        }
+
+        /** Returns the platform extension string of the given context type, or <code>null</code>. */
+        public final synchronized String getPlatformExtensions(int ctxBits) {
+            final Context c = contexts.get(Integer.valueOf(ctxBits));
+            return null != c ? c.platformExtensions : null;
+        }
+
+        @Override
+        public String toString() {
+            return "GLProfileCache.Entry["+deviceKey+", restored "+restored+", validated "+validated+", dirty "+dirty+
+                   ", "+vendor+", "+renderer+", versions "+versions.size()+", contexts "+contexts.size()+", profiles "+profileMap+"]";
+        }
+    }
+}
@@ -380,13 +380,13 @@ public class BuildMipmap {
       if( dstImage != null ) {
         switch( type ) {
           case( GL2.GL_UNSIGNED_BYTE ):
-            HalveImage.halveImage_ubyte( cmpts, width, height, data, dstImage, element_size, rowsize, group_size );
+            MipmapKernels.halveImage_ubyte( cmpts, width, height, data, dstImage, element_size, rowsize, group_size, MipmapKernels.PARALLEL );
             break;
           case( GL2.GL_BYTE ):
             HalveImage.halveImage_byte( cmpts, width, height, data, dstImage, element_size, rowsize, group_size );
             break;
           case( GL2.GL_UNSIGNED_SHORT ):
-            HalveImage.halveImage_ushort( cmpts, width, height, data, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes );
+            MipmapKernels.halveImage_ushort( cmpts, width, height, data, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
             break;
           case( GL2.GL_SHORT ):
             HalveImage.halveImage_short( cmpts, width, height, data, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes );
@@ -398,7 +398,7 @@ public class BuildMipmap {
             HalveImage.halveImage_int( cmpts, width, height, data, dstImage.asIntBuffer(), element_size, rowsize, group_size, myswap_bytes );
             break;
           case( GL2.GL_FLOAT ):
-            HalveImage.halveImage_float( cmpts, width, height, data, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes );
+            MipmapKernels.halveImage_float( cmpts, width, height, data, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
             break;
           case( GL2.GL_UNSIGNED_BYTE_3_3_2 ):
             assert( format == GL2.GL_RGB );
@@ -535,16 +535,16 @@ public class BuildMipmap {
       data.position( mark );
       switch( type ) {
         case( GL2.GL_UNSIGNED_BYTE ):
-          ScaleInternal.scale_internal_ubyte( cmpts, width, height, data, 
-                newwidth, newheight, dstImage, element_size, rowsize, group_size );
+          MipmapKernels.scale_internal_ubyte( cmpts, width, height, data, 
+                newwidth, newheight, dstImage, element_size, rowsize, group_size, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_BYTE ):
           ScaleInternal.scale_internal_byte( cmpts, width, height, data, newwidth, 
                   newheight, dstImage, element_size, rowsize, group_size );
           break;
         case( GL2.GL_UNSIGNED_SHORT ):
-          ScaleInternal.scale_internal_ushort( cmpts, width, height, data, newwidth, 
-                  newheight, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes );
+          MipmapKernels.scale_internal_ushort( cmpts, width, height, data, newwidth, 
+                  newheight, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_SHORT ):
           ScaleInternal.scale_internal_ushort( cmpts, width, height, data, newwidth,
@@ -559,8 +559,8 @@ public class BuildMipmap {
                   newheight, dstImage.asIntBuffer(), element_size, rowsize, group_size, myswap_bytes );
           break;
         case( GL2.GL_FLOAT ):
-          ScaleInternal.scale_internal_float( cmpts, width, height, data, newwidth,
-                  newheight, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes );
+          MipmapKernels.scale_internal_float( cmpts, width, height, data, newwidth,
+                  newheight, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_UNSIGNED_BYTE_3_3_2 ):
           ScaleInternal.scaleInternalPackedPixel( 3, new Extract332(), width, height, data, newwidth,
@@ -692,13 +692,13 @@ public class BuildMipmap {
       dstImage.rewind();
       switch( type ) {
         case( GL2.GL_UNSIGNED_BYTE ):
-          HalveImage.halveImage_ubyte( cmpts, newwidth, newheight, srcImage, dstImage, element_size, rowsize, group_size );
+          MipmapKernels.halveImage_ubyte( cmpts, newwidth, newheight, srcImage, dstImage, element_size, rowsize, group_size, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_BYTE ):
           HalveImage.halveImage_byte( cmpts, newwidth, newheight, srcImage, dstImage, element_size, rowsize, group_size );
           break;
         case( GL2.GL_UNSIGNED_SHORT ):
-          HalveImage.halveImage_ushort( cmpts, newwidth, newheight, srcImage, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes );
+          MipmapKernels.halveImage_ushort( cmpts, newwidth, newheight, srcImage, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_SHORT ):
           HalveImage.halveImage_short( cmpts, newwidth, newheight, srcImage, dstImage.asShortBuffer(), element_size, rowsize, group_size, myswap_bytes );
@@ -710,7 +710,7 @@ public class BuildMipmap {
           HalveImage.halveImage_int( cmpts, newwidth, newheight, srcImage, dstImage.asIntBuffer(), element_size, rowsize, group_size, myswap_bytes );
           break;
         case( GL2.GL_FLOAT ):
-          HalveImage.halveImage_float( cmpts, newwidth, newheight, srcImage, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes );
+          MipmapKernels.halveImage_float( cmpts, newwidth, newheight, srcImage, dstImage.asFloatBuffer(), element_size, rowsize, group_size, myswap_bytes, MipmapKernels.PARALLEL );
           break;
         case( GL2.GL_UNSIGNED_BYTE_3_3_2 ):
           assert( format == GL2.GL_RGB );
@@ -837,6 +837,95 @@ public class BuildMipmap {
     return( 0 );
   }
   
+  /**
+   * Returns true if the runtime supports the parallel mode of
+   * {@link #build2DMipmapChain(int, int, int, int, int, int, ByteBuffer, boolean) build2DMipmapChain(..)},
+   * i.e. provides fork-join.
+   */
+  public static boolean isParallelModeAvailable() {
+    return MipmapKernels.isParallelModeAvailable();
+  }
+  
+  /**
+   * Computes the complete 2D mipmap chain CPU-side w/o a GL context,
+   * e.g. to prepare the levels ahead of the GL thread.
+   * <p>
+   * The levels are identical to the ones uploaded by
+   * {@link #gluBuild2DMipmapLevelsCore(GL, int, int, int, int, int, int, int, int, int, int, int, ByteBuffer) gluBuild2DMipmapLevelsCore(..)}
+   * for <code>userLevel</code> 0 and a tightly packed image, i.e. an unpack alignment of 1
+   * w/o row length or skipped rows and pixels. The latter shall also be used to upload them.
+   * </p>
+   * <p>
+   * Only the <code>GL_UNSIGNED_BYTE</code>, <code>GL_UNSIGNED_SHORT</code> and <code>GL_FLOAT</code> types are supported.
+   * </p>
+   * @param data the image starting at index 0, its byte order is used to read multi-byte types
+   * @param parallel if true, large levels are split into row bands computed on a fork-join pool,
+   *                 if {@link #isParallelModeAvailable() available}.
+   * @return the levels 0 to n in native byte order. Level 0 shares the content of <code>data</code>
+   *         if the image size is already <code>widthPowerOf2</code> x <code>heightPowerOf2</code>.
+   * @throws IllegalArgumentException if the type is not supported or the level 0 size is not a power of two
+   */
+  public static ByteBuffer[] build2DMipmapChain( int width, int height, int widthPowerOf2, int heightPowerOf2,
+                int format, int type, ByteBuffer data, boolean parallel ) throws IllegalArgumentException {
+    if( type != GL2.GL_UNSIGNED_BYTE && type != GL2.GL_UNSIGNED_SHORT && type != GL2.GL_FLOAT ) {
+      throw new IllegalArgumentException( "Unsupported type 0x" + Integer.toHexString( type ) );
+    }
+    final int levels = Math.max( Mipmap.computeLog( widthPowerOf2 ), Mipmap.computeLog( heightPowerOf2 ) );
+    if( width < 1 || height < 1 || Mipmap.computeLog( widthPowerOf2 ) < 0 || Mipmap.computeLog( heightPowerOf2 ) < 0 ) {
+      throw new IllegalArgumentException( "Invalid size " + width + "x" + height + " -> " + widthPowerOf2 + "x" + heightPowerOf2 );
+    }
+    final int cmpts = Mipmap.elements_per_group( format, type );
+    final int element_size = Mipmap.bytes_per_element( type );
+    final int group_size = element_size * cmpts;
+    final ByteBuffer[] chain = new ByteBuffer[ levels + 1 ];
+    
+    int newwidth = widthPowerOf2;
+    int newheight = heightPowerOf2;
+    if( width == newwidth && height == newheight ) {
+      final ByteBuffer level0 = data.duplicate().order( data.order() );
+      level0.rewind();
+      chain[0] = level0;
+    } else {
+      chain[0] = Buffers.newDirectByteBuffer( newwidth * newheight * group_size );
+      switch( type ) {
+        case( GL2.GL_UNSIGNED_BYTE ):
+          MipmapKernels.scale_internal_ubyte( cmpts, width, height, data, newwidth, newheight, 
+                chain[0], element_size, width * group_size, group_size, parallel );
+          break;
+        case( GL2.GL_UNSIGNED_SHORT ):
+          MipmapKernels.scale_internal_ushort( cmpts, width, height, data, newwidth, newheight, 
+                chain[0].asShortBuffer(), element_size, width * group_size, group_size, false, parallel );
+          break;
+        default:
+          MipmapKernels.scale_internal_float( cmpts, width, height, data, newwidth, newheight, 
+                chain[0].asFloatBuffer(), element_size, width * group_size, group_size, false, parallel );
+          break;
+      }
+    }
+    for( int level = 1; level <= levels; level++ ) {
+      final ByteBuffer srcImage = chain[ level - 1 ];
+      final int nextWidth = Math.max( 1, newwidth / 2 );
+      final int nextHeight = Math.max( 1, newheight / 2 );
+      final ByteBuffer dstImage = Buffers.newDirectByteBuffer( nextWidth * nextHeight * group_size );
+      final int rowsize = newwidth * group_size;
+      switch( type ) {
+        case( GL2.GL_UNSIGNED_BYTE ):
+          MipmapKernels.halveImage_ubyte( cmpts, newwidth, newheight, srcImage, dstImage, element_size, rowsize, group_size, parallel );
+          break;
+        case( GL2.GL_UNSIGNED_SHORT ):
+          MipmapKernels.halveImage_ushort( cmpts, newwidth, newheight, srcImage, dstImage.asShortBuffer(), element_size, rowsize, group_size, false, parallel );
+          break;
+        default:
+          MipmapKernels.halveImage_float( cmpts, newwidth, newheight, srcImage, dstImage.asFloatBuffer(), element_size, rowsize, group_size, false, parallel );
+          break;
+      }
+      chain[ level ] = dstImage;
+      newwidth = nextWidth;
+      newheight = nextHeight;
+    }
+    return chain;
+  }
+  
   public static int fastBuild2DMipmaps( GL gl, PixelStorageModes psm, int target,
           int components, int width, int height, int format, int type, ByteBuffer data ) {
     int[] newwidth = new int[1];
@@ -890,6 +890,7 @@ public class HalveImage {
             datain.position( t + ysize );
             temp += datain.getFloat();
             datain.position( t + ysize + group_size );
+            temp += datain.getFloat();
             temp /= 4.0f;
             dataout.put( temp );
             t += element_size;
@@ -0,0 +1,597 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl.glu.mipmap;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import jogamp.opengl.Debug;
+import jogamp.opengl.util.ForkJoinHelper;
+
+/**
+ * Bulk array kernels for the 2D halving and scaling of the common
+ * <code>GL_UNSIGNED_BYTE</code>, <code>GL_UNSIGNED_SHORT</code> and <code>GL_FLOAT</code> types.
+ * <p>
+ * The output rows are split into bands. Each band copies the input rows it reads
+ * into a local array in one bulk get, filters them and stores its output rows in one bulk put.
+ * In parallel mode the bands are processed on the shared {@link ForkJoinHelper} pool.
+ * </p>
+ * <p>
+ * The results are bit-exact to {@link HalveImage} and {@link ScaleInternal},
+ * including their addressing and floating point summation order.
+ * Cases not covered, i.e. swapped bytes, 1D images and odd strides,
+ * are delegated to the latter.
+ * </p>
+ */
+final class MipmapKernels {
+  /**
+   * Enables the parallel mode of {@link BuildMipmap#gluBuild2DMipmapLevelsCore(javax.media.opengl.GL, int, int, int, int, int, int, int, int, int, int, int, ByteBuffer) gluBuild2DMipmapLevelsCore(..)},
+   * if {@link #isParallelModeAvailable() available}.
+   */
+  static final boolean PARALLEL = Debug.isPropertyDefined("jogl.glu.mipmap.parallel", true);
+
+  private static final int UBYTE = 0;
+  private static final int USHORT = 1;
+  private static final int FLOAT = 2;
+
+  /** Target number of output samples per band */
+  private static final int BAND_SAMPLES = 32 * 1024;
+
+  private static final boolean parallelModeAvailable;
+
+  static {
+    boolean ok;
+    try {
+      Class.forName("java.util.concurrent.ForkJoinPool");
+      ok = true;
+    } catch (Exception e) {
+      ok = false;
+    }
+    parallelModeAvailable = ok;
+  }
+
+  /** Returns true if the runtime supports the parallel mode, i.e. provides fork-join. */
+  static boolean isParallelModeAvailable() {
+    return parallelModeAvailable;
+  }
+
+  static void halveImage_ubyte( int components, int width, int height,
+                                ByteBuffer datain, ByteBuffer dataout,
+                                int element_size, int ysize, int group_size, boolean parallel ) {
+    if( !halve( UBYTE, components, width, height, datain, dataout, element_size, ysize, group_size, parallel ) ) {
+      HalveImage.halveImage_ubyte( components, width, height, datain, dataout, element_size, ysize, group_size );
+    }
+  }
+
+  static void halveImage_ushort( int components, int width, int height,
+                                 ByteBuffer datain, ShortBuffer dataout, int element_size,
+                                 int ysize, int group_size, boolean myswap_bytes, boolean parallel ) {
+    if( myswap_bytes || !halve( USHORT, components, width, height, datain, dataout, element_size, ysize, group_size, parallel ) ) {
+      HalveImage.halveImage_ushort( components, width, height, datain, dataout, element_size, ysize, group_size, myswap_bytes );
+    }
+  }
+
+  static void halveImage_float( int components, int width, int height,
+                                ByteBuffer datain, FloatBuffer dataout, int element_size,
+                                int ysize, int group_size, boolean myswap_bytes, boolean parallel ) {
+    if( myswap_bytes || !halve( FLOAT, components, width, height, datain, dataout, element_size, ysize, group_size, parallel ) ) {
+      HalveImage.halveImage_float( components, width, height, datain, dataout, element_size, ysize, group_size, myswap_bytes );
+    }
+  }
+
+  static void scale_internal_ubyte( int components, int widthin, int heightin,
+                                    ByteBuffer datain, int widthout, int heightout,
+                                    ByteBuffer dataout, int element_size, int ysize, int group_size, boolean parallel ) {
+    if( (widthin == (widthout * 2)) && (heightin == (heightout * 2)) ) {
+      halveImage_ubyte( components, widthin, heightin, datain, dataout, element_size, ysize, group_size, parallel );
+    } else if( !scale( UBYTE, components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size, parallel ) ) {
+      ScaleInternal.scale_internal_ubyte( components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size );
+    }
+  }
+
+  static void scale_internal_ushort( int components, int widthin, int heightin,
+                                     ByteBuffer datain, int widthout, int heightout,
+                                     ShortBuffer dataout, int element_size, int ysize,
+                                     int group_size, boolean myswap_bytes, boolean parallel ) {
+    if( (widthin == (widthout * 2)) && (heightin == (heightout * 2)) ) {
+      halveImage_ushort( components, widthin, heightin, datain, dataout, element_size, ysize, group_size, myswap_bytes, parallel );
+    } else if( myswap_bytes || !scale( USHORT, components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size, parallel ) ) {
+      ScaleInternal.scale_internal_ushort( components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size, myswap_bytes );
+    }
+  }
+
+  static void scale_internal_float( int components, int widthin, int heightin,
+                                    ByteBuffer datain, int widthout, int heightout,
+                                    FloatBuffer dataout, int element_size, int ysize,
+                                    int group_size, boolean myswap_bytes, boolean parallel ) {
+    if( (widthin == (widthout * 2)) && (heightin == (heightout * 2)) ) {
+      halveImage_float( components, widthin, heightin, datain, dataout, element_size, ysize, group_size, myswap_bytes, parallel );
+    } else if( myswap_bytes || !scale( FLOAT, components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size, parallel ) ) {
+      ScaleInternal.scale_internal_float( components, widthin, heightin, datain, widthout, heightout, dataout, element_size, ysize, group_size, myswap_bytes );
+    }
+  }
+
+  private static int elementSize( int kind ) {
+    switch( kind ) {
+      case UBYTE: return 1;
+      case USHORT: return 2;
+      default: return 4;
+    }
+  }
+
+  private static boolean isBulkLayout( int kind, int components, int element_size, int ysize, int group_size ) {
+    return 1 <= components && components <= 4 && element_size == elementSize( kind ) &&
+           group_size == components * element_size && 0 < ysize && 0 == ysize % element_size;
+  }
+
+  /** Returns false if not handled, i.e. the caller shall use {@link HalveImage}. */
+  private static boolean halve( int kind, int components, int width, int height,
+                                ByteBuffer datain, Buffer dataout,
+                                int element_size, int ysize, int group_size, boolean parallel ) {
+    if( width == 1 || height == 1 || !isBulkLayout( kind, components, element_size, ysize, group_size ) ) {
+      return false;
+    }
+    final int newwidth = width / 2;
+    final int newheight = height / 2;
+    final Job job = new Job( kind, false, components, datain, dataout, dataout.position(),
+                             newwidth, newheight, ysize );
+    // row stride of HalveImage, which skips only one row after each pair of output rows' source pixels
+    job.rowStride = 2 * newwidth * group_size + ysize;
+    run( job, parallel );
+    dataout.position( job.outBase + newwidth * newheight * components );
+    return true;
+  }
+
+  /** Returns false if not handled, i.e. the caller shall use {@link ScaleInternal}. */
+  private static boolean scale( int kind, int components, int widthin, int heightin,
+                                ByteBuffer datain, int widthout, int heightout, Buffer dataout,
+                                int element_size, int ysize, int group_size, boolean parallel ) {
+    if( !isBulkLayout( kind, components, element_size, ysize, group_size ) ) {
+      return false;
+    }
+    final Job job = new Job( kind, true, components, datain, dataout, 0,
+                             widthout, heightout, ysize );
+    final float convy = (float)heightin / heightout;
+    final float convx = (float)widthin / widthout;
+    final int convy_int = (int)Math.floor( convy );
+    final float convy_float = convy - convy_int;
+    final int convx_int = (int)Math.floor( convx );
+    final float convx_float = convx - convx_int;
+    job.area = convx * convy;
+
+    // The box of each column is the same for all rows, the box of each row the same for all columns.
+    // Both are computed upfront as ScaleInternal does, hence the rows can be processed in any order.
+    job.lowx_int = new int[widthout];
+    job.lowx_float = new float[widthout];
+    job.highx_int = new int[widthout];
+    job.highx_float = new float[widthout];
+    int lowx_int = 0;
+    float lowx_float = 0.0f;
+    int highx_int = convx_int;
+    float highx_float = convx_float;
+    for( int j = 0; j < widthout; j++ ) {
+      if( lowx_int < 0 ) {
+        return false;
+      }
+      job.lowx_int[j] = lowx_int;
+      job.lowx_float[j] = lowx_float;
+      job.highx_int[j] = highx_int;
+      job.highx_float[j] = highx_float;
+      lowx_int = highx_int;
+      lowx_float = highx_float;
+      highx_int += convx_int;
+      highx_float += convx_float;
+      if( highx_float > 1.0f ) {
+        highx_float -= 1.0f;
+        highx_int++;
+      }
+      if( highx_int > widthin - 1 ) {
+        final int delta = (highx_int - widthin + 1);
+        lowx_int -= delta;
+        highx_int -= delta;
+      }
+    }
+    job.lowy_int = new int[heightout];
+    job.lowy_float = new float[heightout];
+    job.highy_int = new int[heightout];
+    job.highy_float = new float[heightout];
+    int lowy_int = 0;
+    float lowy_float = 0.0f;
+    int highy_int = convy_int;
+    float highy_float = convy_float;
+    int maxSpan = 0;
+    for( int i = 0; i < heightout; i++ ) {
+      if( highy_int >= heightin ) {
+        highy_int = heightin - 1;
+      }
+      job.lowy_int[i] = lowy_int;
+      job.lowy_float[i] = lowy_float;
+      job.highy_int[i] = highy_int;
+      job.highy_float[i] = highy_float;
+      maxSpan = Math.max( maxSpan, highy_int - lowy_int );
+      lowy_int = highy_int;
+      lowy_float = highy_float;
+      highy_int += convy_int;
+      highy_float += convy_float;
+      if( highy_float > 1.0f ) {
+        highy_float -= 1.0f;
+        highy_int++;
+      }
+    }
+    // the 1st and last column pointers of ScaleInternal advance one pixel per inner row
+    job.maxSpan = maxSpan;
+    run( job, parallel );
+    dataout.position( widthout * heightout * components );
+    return true;
+  }
+
+  private static void run( final Job job, boolean parallel ) {
+    final int rowSamples = job.outWidth * job.components;
+    final int rowsPerBand = Math.max( 1, BAND_SAMPLES / rowSamples );
+    final int bands = ( job.outHeight + rowsPerBand - 1 ) / rowsPerBand;
+    if( parallel && bands > 1 && parallelModeAvailable ) {
+      final Runnable[] tasks = new Runnable[bands];
+      for( int b = 0; b < bands; b++ ) {
+        final int y0 = b * rowsPerBand;
+        final int y1 = Math.min( job.outHeight, y0 + rowsPerBand );
+        tasks[b] = new Runnable() {
+          public void run() {
+            job.run( y0, y1 );
+          }
+        };
+      }
+      ForkJoinHelper.invokeAll( tasks );
+    } else {
+      for( int y0 = 0; y0 < job.outHeight; y0 += rowsPerBand ) {
+        job.run( y0, Math.min( job.outHeight, y0 + rowsPerBand ) );
+      }
+    }
+  }
+
+  /** One halving or scaling operation, processing its output rows in independent bands. */
+  private static final class Job {
+    final int kind;
+    final boolean scale;
+    final int components;
+    final ByteBuffer datain;
+    final Buffer dataout;
+    final int outBase;
+    final int outWidth, outHeight;
+    /** input row size in bytes */
+    final int ysize;
+
+    /** halve: input bytes per output row */
+    int rowStride;
+
+    /** scale: box of each column and row */
+    int[] lowx_int, highx_int, lowy_int, highy_int;
+    float[] lowx_float, highx_float, lowy_float, highy_float;
+    float area;
+    int maxSpan;
+
+    Job( int kind, boolean scale, int components, ByteBuffer datain, Buffer dataout, int outBase,
+         int outWidth, int outHeight, int ysize ) {
+      this.kind = kind;
+      this.scale = scale;
+      this.components = components;
+      this.datain = datain;
+      this.dataout = dataout;
+      this.outBase = outBase;
+      this.outWidth = outWidth;
+      this.outHeight = outHeight;
+      this.ysize = ysize;
+    }
+
+    void run( int y0, int y1 ) {
+      final int es = elementSize( kind );
+      final int lo, hi;
+      if( scale ) {
+        lo = lowy_int[y0] * ysize;
+        hi = ( highy_int[y1 - 1] + 1 ) * ysize + ( maxSpan + 1 ) * components * es;
+      } else {
+        lo = y0 * rowStride;
+        hi = y1 * rowStride;
+      }
+      // datain's position is ignored, i.e. addressing starts at index 0 as in HalveImage and ScaleInternal
+      final ByteBuffer in = datain.duplicate().order( datain.order() );
+      in.limit( Math.min( in.limit(), hi ) / es * es );
+      in.position( lo );
+      final int n = ( y1 - y0 ) * outWidth * components;
+      final int outPos = outBase + y0 * outWidth * components;
+      switch( kind ) {
+        case UBYTE: {
+          final byte[] src = new byte[in.remaining()];
+          in.get( src );
+          final byte[] dst = new byte[n];
+          if( scale ) {
+            final float[] res = new float[n];
+            scaleRows( toFloat( src ), lo, y0, y1, res, true );
+            for( int i = 0; i < n; i++ ) {
+              dst[i] = (byte)res[i];
+            }
+          } else {
+            halveRows( src, lo, y0, y1, dst );
+          }
+          final ByteBuffer out = ((ByteBuffer)dataout).duplicate();
+          out.position( outPos );
+          out.put( dst );
+        } break;
+        case USHORT: {
+          final ShortBuffer sin = in.asShortBuffer();
+          final short[] src = new short[sin.remaining()];
+          sin.get( src );
+          final short[] dst = new short[n];
+          if( scale ) {
+            final float[] res = new float[n];
+            scaleRows( toFloat( src ), lo / 2, y0, y1, res, true );
+            for( int i = 0; i < n; i++ ) {
+              dst[i] = (short)res[i];
+            }
+          } else {
+            halveRows( src, lo / 2, y0, y1, dst );
+          }
+          final ShortBuffer out = ((ShortBuffer)dataout).duplicate();
+          out.position( outPos );
+          out.put( dst );
+        } break;
+        default: {
+          final FloatBuffer fin = in.asFloatBuffer();
+          final float[] src = new float[fin.remaining()];
+          fin.get( src );
+          final float[] dst = new float[n];
+          if( scale ) {
+            scaleRows( src, lo / 4, y0, y1, dst, false );
+          } else {
+            halveRows( src, lo / 4, y0, y1, dst );
+          }
+          final FloatBuffer out = ((FloatBuffer)dataout).duplicate();
+          out.position( outPos );
+          out.put( dst );
+        } break;
+      }
+    }
+
+    private void halveRows( byte[] src, int base, int y0, int y1, byte[] dst ) {
+      final int group_size = components;
+      int o = 0;
+      for( int i = y0; i < y1; i++ ) {
+        int t = i * rowStride - base;
+        for( int j = 0; j < outWidth; j++ ) {
+          for( int k = 0; k < components; k++ ) {
+            final int temp = ( 0x000000FF & src[t] ) + ( 0x000000FF & src[t + group_size] ) +
+                             ( 0x000000FF & src[t + ysize] ) + ( 0x000000FF & src[t + ysize + group_size] ) + 2;
+            dst[o++] = (byte)( temp / 4 );
+            t++;
+          }
+          t += group_size;
+        }
+      }
+    }
+
+    private void halveRows( short[] src, int base, int y0, int y1, short[] dst ) {
+      final int group_size = components;
+      final int ystride = ysize / 2;
+      final int rstride = rowStride / 2;
+      int o = 0;
+      for( int i = y0; i < y1; i++ ) {
+        int t = i * rstride - base;
+        for( int j = 0; j < outWidth; j++ ) {
+          for( int k = 0; k < components; k++ ) {
+            final int temp = ( 0x0000FFFF & src[t] ) + ( 0x0000FFFF & src[t + group_size] ) +
+                             ( 0x0000FFFF & src[t + ystride] ) + ( 0x0000FFFF & src[t + ystride + group_size] );
+            dst[o++] = (short)( ( temp + 2 ) / 4 );
+            t++;
+          }
+          t += group_size;
+        }
+      }
+    }
+
+    private void halveRows( float[] src, int base, int y0, int y1, float[] dst ) {
+      final int group_size = components;
+      final int ystride = ysize / 4;
+      final int rstride = rowStride / 4;
+      int o = 0;
+      for( int i = y0; i < y1; i++ ) {
+        int t = i * rstride - base;
+        for( int j = 0; j < outWidth; j++ ) {
+          for( int k = 0; k < components; k++ ) {
+            float temp = src[t];
+            temp += src[t + group_size];
+            temp += src[t + ystride];
+            temp += src[t + ystride + group_size];
+            dst[o++] = temp / 4.0f;
+            t++;
+          }
+          t += group_size;
+        }
+      }
+    }
+
+    /**
+     * Box filter of {@link ScaleInternal} on samples in element units.
+     * @param pairSum if true, the 1st and last column samples of a row are summed up
+     *                before being added to the totals, as for the integer types.
+     */
+    private void scaleRows( float[] src, int base, int y0, int y1, float[] dst, boolean pairSum ) {
+      final int group_size = components;
+      final int ystride = ysize / elementSize( kind );
+      final float[] totals = new float[4];
+      int o = 0;
+      for( int i = y0; i < y1; i++ ) {
+        final int lowy_i = lowy_int[i];
+        final float lowy_f = lowy_float[i];
+        final int highy_i = highy_int[i];
+        final float highy_f = highy_float[i];
+        for( int j = 0; j < outWidth; j++ ) {
+          final int lowx_i = lowx_int[j];
+          final float lowx_f = lowx_float[j];
+          final int highx_i = highx_int[j];
+          final float highx_f = highx_float[j];
+          float percent, x_percent, y_percent;
+          int temp, k, l, m;
+          totals[0] = totals[1] = totals[2] = totals[3] = 0.0f;
+
+          final int xindex = lowx_i * group_size - base;
+          if( ( highy_i > lowy_i ) && ( highx_i > lowx_i ) ) {
+            // 1st row
+            y_percent = 1 - lowy_f;
+            temp = xindex + lowy_i * ystride;
+            percent = y_percent * ( 1 - lowx_f );
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            int left = temp;
+            for( l = lowx_i + 1; l < highx_i; l++ ) {
+              temp += group_size;
+              for( k = 0; k < components; k++ ) {
+                totals[k] += src[temp + k] * y_percent;
+              }
+            }
+            temp += group_size;
+            int right = temp;
+            percent = y_percent * highx_f;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            // last row
+            y_percent = highy_f;
+            percent = y_percent * ( 1 - lowx_f );
+            temp = xindex + highy_i * ystride;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            for( l = lowx_i + 1; l < highx_i; l++ ) {
+              temp += group_size;
+              for( k = 0; k < components; k++ ) {
+                totals[k] += src[temp + k] * y_percent;
+              }
+            }
+            temp += group_size;
+            percent = y_percent * highx_f;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            // 1st and last column, left and right are not reset per row
+            for( m = lowy_i + 1; m < highy_i; m++ ) {
+              left += ystride;
+              right += ystride;
+              for( k = 0; k < components; k++, left++, right++ ) {
+                if( pairSum ) {
+                  float f = src[left] * ( 1 - lowx_f );
+                  f += src[right] * highx_f;
+                  totals[k] += f;
+                } else {
+                  totals[k] += src[left] * ( 1 - lowx_f );
+                  totals[k] += src[right] * highx_f;
+                }
+              }
+            }
+          } else if( highy_i > lowy_i ) {
+            x_percent = highx_f - lowx_f;
+            percent = ( 1 - lowy_f ) * x_percent;
+            temp = xindex + lowy_i * ystride;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            for( m = lowy_i + 1; m < highy_i; m++ ) {
+              temp += ystride;
+              for( k = 0; k < components; k++ ) {
+                totals[k] += src[temp + k] * x_percent;
+              }
+            }
+            percent = x_percent * highy_f;
+            temp += ystride;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+          } else if( highx_i > lowx_i ) {
+            y_percent = highy_f - lowy_f;
+            percent = ( 1 - lowx_f ) * y_percent;
+            temp = xindex + lowy_i * ystride;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+            for( l = lowx_i + 1; l < highx_i; l++ ) {
+              temp += group_size;
+              for( k = 0; k < components; k++ ) {
+                totals[k] += src[temp + k] * y_percent;
+              }
+            }
+            temp += group_size;
+            percent = y_percent * highx_f;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+          } else {
+            percent = ( highy_f - lowy_f ) * ( highx_f - lowx_f );
+            temp = xindex + lowy_i * ystride;
+            for( k = 0; k < components; k++ ) {
+              totals[k] += src[temp + k] * percent;
+            }
+          }
+
+          // body
+          int temp0 = xindex + group_size + ( lowy_i + 1 ) * ystride;
+          for( m = lowy_i + 1; m < highy_i; m++ ) {
+            temp = temp0;
+            for( l = lowx_i + 1; l < highx_i; l++ ) {
+              for( k = 0; k < components; k++ ) {
+                totals[k] += src[temp + k];
+              }
+              temp += group_size;
+            }
+            temp0 += ystride;
+          }
+
+          for( k = 0; k < components; k++ ) {
+            dst[o++] = totals[k] / area;
+          }
+        }
+      }
+    }
+  }
+
+  private static float[] toFloat( byte[] src ) {
+    final float[] f = new float[src.length];
+    for( int i = 0; i < src.length; i++ ) {
+      f[i] = 0x000000FF & src[i];
+    }
+    return f;
+  }
+
+  private static float[] toFloat( short[] src ) {
+    final float[] f = new float[src.length];
+    for( int i = 0; i < src.length; i++ ) {
+      f[i] = 0x0000FFFF & src[i];
+    }
+    return f;
+  }
+}
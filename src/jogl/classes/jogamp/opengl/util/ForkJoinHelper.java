@@ -0,0 +1,89 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Single fork-join pool shared by all parallel image codecs and filters,
+ * i.e. the JPEG decoder, the PNG writer and the GLU mipmap kernels,
+ * so that running them concurrently does not oversubscribe the processors.
+ * <p>
+ * Requires Java 7, hence users shall only load this class if <code>java.util.concurrent.ForkJoinPool</code> is available.
+ * </p>
+ */
+public final class ForkJoinHelper {
+    private static ForkJoinPool pool = null;
+
+    private static synchronized ForkJoinPool getPool() {
+        if( null == pool ) {
+            pool = new ForkJoinPool(); // daemon worker threads, one per available processor
+        }
+        return pool;
+    }
+
+    /** Returns the number of worker threads. */
+    public static int getParallelism() {
+        return getPool().getParallelism();
+    }
+
+    /** Submits the given task for asynchronous execution. */
+    public static <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return getPool().submit(task);
+    }
+
+    /**
+     * Runs all tasks and blocks until they are completed.
+     * <p>
+     * The first {@link RuntimeException} thrown by a task is rethrown,
+     * after all tasks have been completed.
+     * </p>
+     */
+    public static void invokeAll(Runnable[] tasks) {
+        final ForkJoinPool p = getPool();
+        final ForkJoinTask<?>[] futures = new ForkJoinTask<?>[tasks.length];
+        for(int i=0; i<tasks.length; i++) {
+            futures[i] = p.submit(tasks[i]);
+        }
+        RuntimeException error = null;
+        for(int i=0; i<futures.length; i++) {
+            try {
+                futures[i].join();
+            } catch (RuntimeException e) {
+                if( null == error ) {
+                    error = e;
+                }
+            }
+        }
+        if( null != error ) {
+            throw error;
+        }
+    }
+}
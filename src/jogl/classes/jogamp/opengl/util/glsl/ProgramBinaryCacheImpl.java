@@ -0,0 +1,661 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl.util.glsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GL4ES3;
+import javax.media.opengl.GLContext;
+
+import jogamp.opengl.Debug;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.common.util.VersionNumber;
+import com.jogamp.opengl.GLExtensions;
+import com.jogamp.opengl.util.glsl.ProgramBinaryCache;
+import com.jogamp.opengl.util.glsl.ShaderCode;
+import com.jogamp.opengl.util.glsl.ShaderUtil;
+
+/**
+ * Persistent on-disk {@link ProgramBinaryCache} of linked GLSL program binaries,
+ * used by {@link com.jogamp.opengl.util.glsl.ShaderProgram#link(GL2ES2, java.io.PrintStream)}
+ * to skip compiling and linking a program which has been linked before w/ the same driver.
+ * <p>
+ * The cache is opt-in via the property <code>jogl.glsl.programcache</code>.
+ * If the property has a value other than <code>true</code>, it denotes the cache directory,
+ * otherwise <code>${user.home}/.jogamp/jogl/program-cache</code> is being used.
+ * The directory is bounded to <code>jogl.glsl.programcache.maxsize</code> bytes, default {@link #DEFAULT_MAX_SIZE},
+ * evicting the least recently used binaries.
+ * </p>
+ * <p>
+ * A program is identified by its {@link #getKey(GL2ES2, Collection, Map) key},
+ * a digest of the GL vendor, renderer and version strings,
+ * all shader sources - including injected defines and version/precision preludes - or shader binaries,
+ * and the attribute locations bound before linking.
+ * Attribute locations bound directly via the GL, i.e. not via {@link com.jogamp.opengl.util.glsl.ShaderState},
+ * are not part of the key.
+ * </p>
+ * <p>
+ * Program binaries are retrieved and loaded via a {@link BinaryProvider},
+ * by default {@link #GL_PROVIDER} using <code>GL_ARB_get_program_binary</code> or <code>GL_OES_get_program_binary</code>.
+ * A binary rejected by the driver, e.g. after a driver update w/o changed version strings,
+ * or a corrupt cache file is deleted and the program is compiled and linked as usual.
+ * </p>
+ */
+public final class ProgramBinaryCacheImpl implements ProgramBinaryCache {
+    protected static final boolean DEBUG = Debug.debug("ProgramBinaryCache");
+
+    /** Default bound of the cache directory size in bytes, 16 MiB. */
+    public static final long DEFAULT_MAX_SIZE = 16L * 1024L * 1024L;
+
+    private static final int MAGIC = 0x4A475042; // 'JGPB'
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_BINARY_SIZE = 64 * 1024 * 1024;
+    private static final String FILE_PREFIX = "program-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    /** A program binary and its implementation specific format. */
+    public static class Binary {
+        public final int format;
+        public final byte[] data;
+
+        public Binary(int format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Retrieves and loads program binaries,
+     * abstracting the GL for testing purposes.
+     */
+    public static interface BinaryProvider {
+        /** Returns true if program binaries can be retrieved and loaded w/ the given current GL. */
+        boolean isAvailable(GL2ES2 gl);
+
+        /** Hints the implementation to keep the binary of the given program retrievable, called before linking. */
+        void setRetrievable(GL2ES2 gl, int program);
+
+        /** Returns the binary of the given linked program, or <code>null</code> if not available. */
+        Binary getBinary(GL2ES2 gl, int program);
+
+        /**
+         * Loads the given binary into the given program.
+         * @return true if the program is linked successfully, otherwise false, e.g. if the binary has been rejected
+         */
+        boolean loadBinary(GL2ES2 gl, int program, Binary binary);
+    }
+
+    private static final VersionNumber Version410 = new VersionNumber(4, 1, 0);
+
+    /** {@link BinaryProvider} using <code>glGetProgramBinary</code> and <code>glProgramBinary</code>. */
+    public static final BinaryProvider GL_PROVIDER = new BinaryProvider() {
+        @Override
+        public boolean isAvailable(GL2ES2 gl) {
+            final GLContext ctx = gl.getContext();
+            if( !ctx.isExtensionAvailable(GLExtensions.ARB_get_program_binary) &&
+                !ctx.isExtensionAvailable(GLExtensions.OES_get_program_binary) &&
+                !ctx.isGLES3() &&
+                !( !ctx.isGLES() && ctx.getGLVersionNumber().compareTo(Version410) >= 0 ) ) {
+                return false;
+            }
+            final int[] param = new int[1];
+            gl.glGetIntegerv(GL2ES2.GL_NUM_PROGRAM_BINARY_FORMATS, param, 0);
+            return GL.GL_NO_ERROR == gl.glGetError() && param[0] > 0;
+        }
+
+        @Override
+        public void setRetrievable(GL2ES2 gl, int program) {
+            if( gl.isGL4ES3() ) {
+                gl.getGL4ES3().glProgramParameteri(program, GL4ES3.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL.GL_TRUE);
+            } else if( gl.isGL2GL3() && gl.isExtensionAvailable(GLExtensions.ARB_get_program_binary) ) {
+                gl.getGL2GL3().glProgramParameteriARB(program, GL4ES3.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL.GL_TRUE);
+            }
+        }
+
+        @Override
+        public Binary getBinary(GL2ES2 gl, int program) {
+            final int[] param = new int[2];
+            gl.glGetProgramiv(program, GL2ES2.GL_PROGRAM_BINARY_LENGTH, param, 0);
+            final int size = param[0];
+            if( GL.GL_NO_ERROR != gl.glGetError() || 0 >= size || MAX_BINARY_SIZE < size ) {
+                return null;
+            }
+            final ByteBuffer buffer = Buffers.newDirectByteBuffer(size);
+            param[0] = 0;
+            gl.glGetProgramBinary(program, size, param, 0, param, 1, buffer);
+            if( GL.GL_NO_ERROR != gl.glGetError() || 0 >= param[0] || size < param[0] ) {
+                return null;
+            }
+            final byte[] data = new byte[param[0]];
+            buffer.get(data);
+            return new Binary(param[1], data);
+        }
+
+        @Override
+        public boolean loadBinary(GL2ES2 gl, int program, Binary binary) {
+            gl.glGetError(); // flush previous errors ..
+            final ByteBuffer buffer = Buffers.newDirectByteBuffer(binary.data.length);
+            buffer.put(binary.data).rewind();
+            gl.glProgramBinary(program, binary.format, buffer, binary.data.length);
+            // an unsupported format raises GL_INVALID_ENUM, a rejected binary clears the link status
+            return GL.GL_NO_ERROR == gl.glGetError() &&
+                   ShaderUtil.isProgramStatusValid(gl, program, GL2ES2.GL_LINK_STATUS);
+        }
+    };
+
+    private static final Object defaultLock = new Object();
+    private static boolean defaultInitialized = false;
+    private static ProgramBinaryCacheImpl defaultCache = null;
+
+    /**
+     * Returns the default cache as configured via the property <code>jogl.glsl.programcache</code>,
+     * or <code>null</code> if the cache is disabled (default).
+     */
+    public static ProgramBinaryCacheImpl getDefault() {
+        synchronized( defaultLock ) {
+            if( !defaultInitialized ) {
+                defaultInitialized = true;
+                if( Debug.isPropertyDefined("jogl.glsl.programcache", true) ) {
+                    final String value = Debug.getProperty("jogl.glsl.programcache", true);
+                    final File dir;
+                    if( null != value && value.length() > 0 && !value.equalsIgnoreCase("true") ) {
+                        dir = new File(value);
+                    } else {
+                        final String home = AccessController.doPrivileged(new PrivilegedAction<String>() {
+                            public String run() {
+                                return System.getProperty("user.home");
+                            } } );
+                        dir = new File(home, ".jogamp"+File.separator+"jogl"+File.separator+"program-cache");
+                    }
+                    long maxSize = DEFAULT_MAX_SIZE;
+                    final String maxSizeValue = Debug.getProperty("jogl.glsl.programcache.maxsize", true);
+                    if( null != maxSizeValue ) {
+                        try {
+                            maxSize = Long.parseLong(maxSizeValue);
+                        } catch (NumberFormatException nfe) {
+                            System.err.println("ProgramBinaryCache: invalid jogl.glsl.programcache.maxsize "+maxSizeValue);
+                        }
+                    }
+                    defaultCache = new ProgramBinaryCacheImpl(dir, maxSize, GL_PROVIDER);
+                    if( DEBUG ) {
+                        System.err.println("ProgramBinaryCache: enabled "+defaultCache);
+                    }
+                }
+            }
+            return defaultCache;
+        }
+    }
+
+    private final File dir;
+    private final long maxSize;
+    private final BinaryProvider provider;
+    private int hitCount = 0;
+    private int missCount = 0;
+    private int rejectCount = 0;
+    private int storeCount = 0;
+
+    /**
+     * @param dir the cache directory, created on demand
+     * @param maxSize the bound of the cache directory size in bytes
+     * @param provider the {@link BinaryProvider}, usually {@link #GL_PROVIDER}
+     */
+    public ProgramBinaryCacheImpl(File dir, long maxSize, BinaryProvider provider) {
+        if( null == dir || null == provider ) {
+            throw new IllegalArgumentException("null dir or provider");
+        }
+        this.dir = dir;
+        this.maxSize = maxSize;
+        this.provider = provider;
+    }
+
+    public final File getDirectory() { return dir; }
+    public final long getMaxSize() { return maxSize; }
+    public final BinaryProvider getProvider() { return provider; }
+    /** Returns the number of programs loaded from the cache. */
+    public final synchronized int getHitCount() { return hitCount; }
+    /** Returns the number of programs not found in the cache. */
+    public final synchronized int getMissCount() { return missCount; }
+    /** Returns the number of cached binaries which were rejected and deleted. */
+    public final synchronized int getRejectCount() { return rejectCount; }
+    /** Returns the number of binaries stored in the cache. */
+    public final synchronized int getStoreCount() { return storeCount; }
+
+    /** Returns the cache file of the given key. */
+    public final File getFile(String key) {
+        return new File(dir, FILE_PREFIX+key+FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the key of a program consisting of the given shader codes and bound attribute locations,
+     * or <code>null</code> if the program cannot be cached,
+     * i.e. the {@link BinaryProvider} is not available w/ the given GL or a shader binary is not a {@link ByteBuffer}.
+     * <p>
+     * The key is the hex SHA-1 digest of the GL vendor, renderer and version strings,
+     * the shader codes in a defined order and the bound attribute locations.
+     * </p>
+     * @param attribLocations bound attribute locations by name, may be <code>null</code>
+     */
+    @Override
+    public final String getKey(GL2ES2 gl, Collection<ShaderCode> codes, Map<String, Integer> attribLocations) {
+        if( !provider.isAvailable(gl) ) {
+            return null;
+        }
+        try {
+            // digest each shader code separately and sort the results, since the program's code set is unordered
+            final String[] codeDigests = new String[codes.size()];
+            int i = 0;
+            for(Iterator<ShaderCode> iter = codes.iterator(); iter.hasNext(); ) {
+                final byte[] digest = digest(iter.next());
+                if( null == digest ) {
+                    return null;
+                }
+                codeDigests[i++] = toHex(digest);
+            }
+            Arrays.sort(codeDigests);
+
+            final MessageDigest md = MessageDigest.getInstance("SHA-1");
+            final DataOutputStream out = new DataOutputStream(new DigestOutputStream(md));
+            writeString(out, gl.glGetString(GL.GL_VENDOR));
+            writeString(out, gl.glGetString(GL.GL_RENDERER));
+            writeString(out, gl.glGetString(GL.GL_VERSION));
+            out.writeInt(codeDigests.length);
+            for(i=0; i<codeDigests.length; i++) {
+                writeString(out, codeDigests[i]);
+            }
+            if( null != attribLocations ) {
+                final String[] names = attribLocations.keySet().toArray(new String[attribLocations.size()]);
+                Arrays.sort(names);
+                out.writeInt(names.length);
+                for(i=0; i<names.length; i++) {
+                    writeString(out, names[i]);
+                    out.writeInt(attribLocations.get(names[i]).intValue());
+                }
+            } else {
+                out.writeInt(0);
+            }
+            out.flush();
+            return toHex(md.digest());
+        } catch (NoSuchAlgorithmException nsae) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.getKey: "+nsae.getMessage());
+            }
+            return null;
+        } catch (IOException ioe) {
+            throw new InternalError(ioe.getMessage()); // no I/O involved
+        }
+    }
+
+    private static byte[] digest(ShaderCode code) throws NoSuchAlgorithmException, IOException {
+        final MessageDigest md = MessageDigest.getInstance("SHA-1");
+        final DataOutputStream out = new DataOutputStream(new DigestOutputStream(md));
+        out.writeInt(code.shaderType());
+        final CharSequence[][] source = code.shaderSource();
+        if( null != source ) {
+            out.writeInt(source.length);
+            for(int i=0; i<source.length; i++) {
+                out.writeInt(source[i].length);
+                for(int j=0; j<source[i].length; j++) {
+                    writeString(out, source[i][j].toString());
+                }
+            }
+        } else {
+            final Buffer binary = code.shaderBinary();
+            if( !( binary instanceof ByteBuffer ) ) {
+                return null;
+            }
+            final ByteBuffer bb = ((ByteBuffer) binary).duplicate();
+            bb.clear();
+            final byte[] data = new byte[bb.remaining()];
+            bb.get(data);
+            out.writeInt(-1);
+            out.writeInt(code.shaderBinaryFormat());
+            out.writeInt(data.length);
+            out.write(data);
+        }
+        out.flush();
+        return md.digest();
+    }
+
+    /**
+     * Hints the {@link BinaryProvider} to keep the binary of the given program retrievable,
+     * to be called before linking a program w/ a key.
+     */
+    @Override
+    public final void setRetrievable(GL2ES2 gl, int program) {
+        provider.setRetrievable(gl, program);
+    }
+
+    /**
+     * Loads the cached binary of the given key into the given program.
+     * <p>
+     * A corrupt cache file or a binary rejected by the {@link BinaryProvider} is deleted.
+     * </p>
+     * @return true if the program has been linked w/ the cached binary, otherwise false,
+     *         in which case the program shall be compiled and linked as usual
+     */
+    @Override
+    public final synchronized boolean load(GL2ES2 gl, int program, String key) {
+        final File file = getFile(key);
+        if( !file.exists() ) {
+            missCount++;
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.load: miss "+key);
+            }
+            return false;
+        }
+        Binary binary;
+        try {
+            binary = read(file, key);
+        } catch (IOException ioe) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.load: invalid "+file+": "+ioe.getMessage());
+            }
+            binary = null;
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.load: "+file+": "+se.getMessage());
+            }
+            missCount++;
+            return false;
+        }
+        if( null == binary || !provider.loadBinary(gl, program, binary) ) {
+            rejectCount++;
+            delete(file);
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.load: rejected "+key);
+            }
+            return false;
+        }
+        hitCount++;
+        file.setLastModified(System.currentTimeMillis()); // LRU
+        if( DEBUG ) {
+            System.err.println("ProgramBinaryCache.load: hit "+key+", "+binary.data.length+" bytes");
+        }
+        return true;
+    }
+
+    /**
+     * Stores the binary of the given linked program w/ the given key,
+     * evicting the least recently used binaries exceeding {@link #getMaxSize()}.
+     * <p>
+     * The file is written to a temporary file first and renamed afterwards.
+     * </p>
+     * @return true if the binary has been stored, otherwise false
+     */
+    @Override
+    public final synchronized boolean store(GL2ES2 gl, int program, String key) {
+        final Binary binary = provider.getBinary(gl, program);
+        if( null == binary ) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.store: no binary for "+key);
+            }
+            return false;
+        }
+        if( binary.data.length + 64 > maxSize ) {
+            return false;
+        }
+        final File file = getFile(key);
+        File tmp = null;
+        try {
+            if( !dir.isDirectory() && !dir.mkdirs() ) {
+                throw new IOException("Could not create directory "+dir);
+            }
+            tmp = File.createTempFile(FILE_PREFIX, ".tmp", dir);
+            final OutputStream out = new FileOutputStream(tmp);
+            try {
+                write(out, key, binary);
+            } finally {
+                out.close();
+            }
+            if( !tmp.renameTo(file) ) {
+                // not atomic on all platforms, e.g. Windows
+                if( !file.delete() || !tmp.renameTo(file) ) {
+                    throw new IOException("Could not rename "+tmp+" to "+file);
+                }
+            }
+            tmp = null;
+            storeCount++;
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.store: "+key+", "+binary.data.length+" bytes -> "+file);
+            }
+            trim(file);
+            return true;
+        } catch (IOException ioe) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.store: "+key+" -> "+file+": "+ioe.getMessage());
+            }
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.store: "+key+" -> "+file+": "+se.getMessage());
+            }
+        } finally {
+            if( null != tmp ) {
+                tmp.delete();
+            }
+        }
+        return false;
+    }
+
+    /** Deletes the least recently used cache files exceeding {@link #getMaxSize()}, but the given one. */
+    private final void trim(File keep) {
+        final File[] files = dir.listFiles(new FileFilter() {
+            public boolean accept(File f) {
+                final String name = f.getName();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) && f.isFile();
+            } } );
+        if( null == files ) {
+            return;
+        }
+        long size = 0;
+        for(int i=0; i<files.length; i++) {
+            size += files[i].length();
+        }
+        if( size <= maxSize ) {
+            return;
+        }
+        final long[] modified = new long[files.length];
+        for(int i=0; i<files.length; i++) {
+            modified[i] = files[i].lastModified();
+        }
+        final Integer[] order = new Integer[files.length];
+        for(int i=0; i<order.length; i++) {
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                final long ma = modified[a.intValue()];
+                final long mb = modified[b.intValue()];
+                return ma < mb ? -1 : ( ma > mb ? 1 : 0 );
+            } } );
+        for(int i=0; i<order.length && size > maxSize; i++) {
+            final File f = files[order[i].intValue()];
+            if( !f.equals(keep) ) {
+                final long len = f.length();
+                if( delete(f) ) {
+                    size -= len;
+                    if( DEBUG ) {
+                        System.err.println("ProgramBinaryCache.trim: evicted "+f);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean delete(File file) {
+        try {
+            return file.delete();
+        } catch (SecurityException se) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.delete: "+file+": "+se.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private static void write(OutputStream out, String key, Binary binary) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(binary.data.length + 64);
+        final DataOutputStream d = new DataOutputStream(bytes);
+        d.writeInt(MAGIC);
+        d.writeInt(FORMAT_VERSION);
+        writeString(d, key);
+        d.writeInt(binary.format);
+        d.writeInt(binary.data.length);
+        d.write(binary.data);
+        d.flush();
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        d.writeLong(crc.getValue());
+        d.flush();
+        bytes.writeTo(out);
+    }
+
+    /**
+     * Returns the binary read from the given file,
+     * or <code>null</code> if the key does not match.
+     * @throws IOException if the file is corrupt or of a different format
+     */
+    private static Binary read(File file, String key) throws IOException {
+        final long fileSize = file.length();
+        if( 0 > fileSize || MAX_BINARY_SIZE + 1024 < fileSize ) {
+            throw new IOException("Invalid size "+fileSize);
+        }
+        final byte[] bytes = new byte[(int)fileSize];
+        final InputStream in = new FileInputStream(file);
+        try {
+            new DataInputStream(in).readFully(bytes);
+        } finally {
+            in.close();
+        }
+        if( 8 > bytes.length ) {
+            throw new IOException("Truncated");
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        final DataInputStream d = new DataInputStream(new ByteArrayInputStream(bytes));
+        if( MAGIC != d.readInt() ) {
+            throw new IOException("Not a ProgramBinaryCache file");
+        }
+        final int format = d.readInt();
+        if( FORMAT_VERSION != format ) {
+            throw new IOException("Format "+format+" != "+FORMAT_VERSION);
+        }
+        final String _key = readString(d);
+        if( !key.equals(_key) ) {
+            if( DEBUG ) {
+                System.err.println("ProgramBinaryCache.read: key mismatch "+_key+" != "+key);
+            }
+            return null;
+        }
+        final int binFormat = d.readInt();
+        final int size = d.readInt();
+        if( 0 >= size || d.available() != size + 8 ) {
+            throw new IOException("Invalid binary size "+size);
+        }
+        final byte[] data = new byte[size];
+        d.readFully(data);
+        if( crc.getValue() != d.readLong() ) {
+            throw new IOException("Checksum mismatch");
+        }
+        return new Binary(binFormat, data);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        final byte[] bytes = ( null != s ? s : "" ).getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int len = in.readInt();
+        if( 0 > len || in.available() < len ) {
+            throw new IOException("Invalid string length "+len);
+        }
+        final byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static String toHex(byte[] digest) {
+        final StringBuilder sb = new StringBuilder(digest.length * 2);
+        for(int i=0; i<digest.length; i++) {
+            final int b = digest[i] & 0xff;
+            sb.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0x0f, 16));
+        }
+        return sb.toString();
+    }
+
+    /** Feeds written bytes to a {@link MessageDigest}. */
+    private static class DigestOutputStream extends OutputStream {
+        private final MessageDigest md;
+
+        DigestOutputStream(MessageDigest md) {
+            this.md = md;
+        }
+
+        @Override
+        public void write(int b) {
+            md.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            md.update(b, off, len);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProgramBinaryCache[dir "+dir+", maxSize "+maxSize+", hits "+hitCount+", misses "+missCount+
+               ", rejects "+rejectCount+", stores "+storeCount+"]";
+    }
+}
@@ -63,6 +63,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 import jogamp.opengl.Debug;
+import jogamp.opengl.util.ForkJoinHelper;
 
 import com.jogamp.common.util.ArrayHashSet;
 import com.jogamp.common.util.VersionNumber;
@@ -105,6 +106,34 @@ public class JPEGDecoder {
         public void storeYCbCr(int x, int y, byte Y, byte Cb, byte Cr);        
     }
     
+    /** 
+     * Allows user to receive whole decoded lines, see {@link JPEGDecoder#getPixelLines(ColorLineSink, int, int)}.
+     * <p>
+     * Compared to {@link ColorSink}, which is called for each pixel, 
+     * this sink is called once per line allowing bulk copies into the final storage.
+     * </p>
+     */
+    public static interface ColorLineSink {
+        /**
+         * @param width
+         * @param height
+         * @param sourceCS the color-space of the decoded JPEG
+         * @param sourceComponents number of components used for the given source color-space
+         * @return Either {@link TextureData.ColorSpace#RGB} or {@link TextureData.ColorSpace#YCbCr}. {@link TextureData.ColorSpace#YCCK} and {@link TextureData.ColorSpace#CMYK} will throw an exception! 
+         * @throws RuntimeException
+         */
+        public TextureData.ColorSpace allocate(int width, int height, TextureData.ColorSpace sourceCS, int sourceComponents) throws RuntimeException;
+        /**
+         * Stores one decoded line.
+         * @param y line number, <code>0</code> is the top line
+         * @param line interleaved pixel data of <code>width * components</code> bytes in the allocated storage color-space,
+         *             the array is reused for the next line.
+         * @param components <code>3</code> for {@link TextureData.ColorSpace#RGB} or {@link TextureData.ColorSpace#YCbCr},
+         *                   <code>2</code> for two component source data (see {@link ColorSink#store2(int, int, byte, byte)}).
+         */
+        public void storeLine(int y, byte[] line, int components);
+    }
+    
     public static class JFIF {
         final VersionNumber version;
         final int densityUnits;
@@ -347,6 +376,7 @@ public class JPEGDecoder {
             final int idx = compIDs.size();
             checkBounds(idx);
             compIDs.add(compID);
+            component.index = idx;
             comps[idx] = component;
         }
         public final ComponentIn getCompByIndex(int i) {
@@ -373,13 +403,14 @@ public class JPEGDecoder {
         final int h, v;
         /** index to frame.qtt[] */
         final int qttIdx;
+        /** index within {@link Frame} */
+        int index;
         int blocksPerColumn;
         int blocksPerColumnForMcu;
         int blocksPerLine;
         int blocksPerLineForMcu;
         /** [blocksPerColumnForMcu][blocksPerLineForMcu][64]; */
         int[][][] blocks; 
-        int pred;
         BinObj huffmanTableAC;
         BinObj huffmanTableDC;
 
@@ -420,6 +451,16 @@ public class JPEGDecoder {
             this.scaleY = scaleY;
         }
         
+        /** Returns the sample index within a line for each of the <code>width</code> pixels, as used by {@link JPEGDecoder#getPixel(ColorSink, int, int)}. */
+        final int[] getSampleIndices(int width, int scaleX) {
+            final int[] res = new int[width];
+            for (int x = 0; x < width; x++) {
+                final int xs = x * scaleX;
+                res[x] = (int)(xs * this.scaleX);
+            }
+            return res;
+        }
+        
         /** Safely returning a line, if index exceeds number of lines, last line is returned. */
         public final byte[] getLine(int i) {
             final int sz = lines.size();
@@ -449,6 +490,41 @@ public class JPEGDecoder {
     private EXIF exif = null;
     private Adobe adobe = null;
     private ComponentOut[] components = null;
+    private boolean parallelMode = false;
+
+    /**
+     * Enables the multi-threaded decoding mode, using the fork-join pool of {@link ForkJoinHelper}.
+     * <p>
+     * In parallel mode the restart intervals of baseline scans are entropy decoded in parallel, 
+     * as well as the dequantization and inverse DCT of all blocks and the color conversion
+     * of {@link #getPixelLines(ColorLineSink, int, int)}. 
+     * The scan data is buffered to locate the restart markers, hence memory usage is higher.
+     * The decoded pixels are identical to the sequential mode.
+     * </p>
+     * <p>
+     * Default: false. Requires Java 7, see {@link #isParallelModeAvailable()}.
+     * </p>
+     * @throws CodecException if enabled but not {@link #isParallelModeAvailable() available}.
+     */
+    public synchronized void setParallelMode(boolean enable) throws CodecException {
+        if( enable && !isParallelModeAvailable() ) {
+            throw new CodecException("parallel mode requires Java 7");
+        }
+        parallelMode = enable;
+    }
+
+    /** Returns true if {@link #setParallelMode(boolean) parallel mode} is enabled. */
+    public final boolean isParallelMode() { return parallelMode; }
+
+    /** Returns true if the runtime supports {@link #setParallelMode(boolean) parallel mode}, i.e. provides fork-join. */
+    public static boolean isParallelModeAvailable() {
+        try {
+            Class.forName("java.util.concurrent.ForkJoinPool");
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
     public final JFIF getJFIFHeader() { return jfif; }
     public final EXIF getEXIFHeader() { return exif; }
@@ -747,14 +823,24 @@ public class JPEGDecoder {
 
         final int compCount = frame.getCompCount();
         this.components = new ComponentOut[compCount];
+        final ArrayList<Runnable> tasks = parallelMode ? new ArrayList<Runnable>() : null;
         for (int i = 0; i < compCount; i++) {
             final ComponentIn component = frame.getCompByIndex(i);
             // System.err.println("JPG.parse.buildComponentData["+i+"]: "+component); // JAU
             // System.err.println("JPG.parse.buildComponentData["+i+"]: "+frame); // JAU
-            this.components[i] = new ComponentOut( output.buildComponentData(frame, component), 
+            final ArrayList<byte[]> lines = output.allocateComponentData(component);
+            if( parallelMode ) {
+                output.addBuildTasks(tasks, frame, component, lines);
+            } else {
+                output.buildComponentData(frame, component, lines, 0, component.blocksPerColumn);
+            }
+            this.components[i] = new ComponentOut( lines, 
                                                    (float)component.h / (float)frame.maxH, 
                                                    (float)component.v / (float)frame.maxV );
         }
+        if( parallelMode ) {
+            ForkJoinHelper.invokeAll(tasks.toArray(new Runnable[tasks.size()]));
+        }
         if(DEBUG) { System.err.println("JPG.parse.X: End of processing input "+this); }
         return this;
     }
@@ -853,24 +939,44 @@ public class JPEGDecoder {
 
     private final Output output = new Output();
     private static class Output {
-        private int blocksPerLine;
-        private int blocksPerColumn;
-        private int samplesPerLine;
-
-        private ArrayList<byte[]> buildComponentData(Frame frame, ComponentIn component) {
-            ArrayList<byte[]> lines = new ArrayList<byte[]>();
-            blocksPerLine = component.blocksPerLine;
-            blocksPerColumn = component.blocksPerColumn;
-            samplesPerLine = blocksPerLine << 3;
+        /** Minimum number of blocks per parallel task */
+        private static final int TASK_MIN_BLOCKS = 1024;
+
+        private ArrayList<byte[]> allocateComponentData(ComponentIn component) {
+            final int lineCount = component.blocksPerColumn << 3;
+            final int samplesPerLine = component.blocksPerLine << 3;
+            final ArrayList<byte[]> lines = new ArrayList<byte[]>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                lines.add(new byte[samplesPerLine]);
+            }
+            return lines;
+        }
+
+        /** Adds tasks building all block rows of the given component, each covering a range of block rows. */
+        private void addBuildTasks(ArrayList<Runnable> tasks, final Frame frame, final ComponentIn component, final ArrayList<byte[]> lines) {
+            final int blocksPerColumn = component.blocksPerColumn;
+            final int minRows = Math.max(1, TASK_MIN_BLOCKS / Math.max(1, component.blocksPerLine));
+            final int rowsPerTask = Math.max(minRows, blocksPerColumn / ( 4 * ForkJoinHelper.getParallelism() ) );
+            for (int blockRow = 0; blockRow < blocksPerColumn; blockRow += rowsPerTask) {
+                final int rowStart = blockRow;
+                final int rowEnd = Math.min(blocksPerColumn, blockRow + rowsPerTask);
+                tasks.add(new Runnable() {
+                    public void run() {
+                        buildComponentData(frame, component, lines, rowStart, rowEnd);
+                    }
+                });
+            }
+        }
+
+        /** Dequantizes, inverse transforms and stores the blocks of rows [<code>blockRowStart</code>..<code>blockRowEnd</code>[ into <code>lines</code>. */
+        private void buildComponentData(Frame frame, ComponentIn component, ArrayList<byte[]> lines, int blockRowStart, int blockRowEnd) {
+            final int blocksPerLine = component.blocksPerLine;
             final int[] R = new int[64];
             final byte[] r = new byte[64];
 
-            for (int blockRow = 0; blockRow < blocksPerColumn; blockRow++) {
+            for (int blockRow = blockRowStart; blockRow < blockRowEnd; blockRow++) {
                 final int scanLine = blockRow << 3;
                 // System.err.println("JPG.buildComponentData: row "+blockRow+"/"+blocksPerColumn+" -> scanLine "+scanLine); // JAU
-                for (int i = 0; i < 8; i++) {
-                    lines.add(new byte[samplesPerLine]);
-                }
                 for (int blockCol = 0; blockCol < blocksPerLine; blockCol++) {
                     // System.err.println("JPG.buildComponentData: col "+blockCol+"/"+blocksPerLine+", comp.qttIdx "+component.qttIdx+", qtt "+frame.qtt[component.qttIdx]); // JAU
                     quantizeAndInverse(component.getBlock(blockRow, blockCol), r, R, frame.qtt[component.qttIdx]);
@@ -884,7 +990,6 @@ public class JPEGDecoder {
                     }
                 }
             }
-            return lines;
         }
 
         // A port of poppler's IDCT method which in turn is taken from:
@@ -1053,6 +1158,8 @@ public class JPEGDecoder {
     }
 
     private class Decoder {
+        /** Minimum number of MCUs per parallel task */
+        private static final int TASK_MIN_MCUS = 256;
         // private int precision;
         // private int samplesPerLine;
         // private int scanLines;
@@ -1064,6 +1171,11 @@ public class JPEGDecoder {
         private int successive;
         private int eobrun;
         private int successiveACState, successiveACNextValue;
+        /** DC predictor per frame component */
+        private int[] pred;
+        /** Entropy coded data of one restart interval if decoding a segment, otherwise null and reading from the stream */
+        private byte[] segData;
+        private int segPos, segEnd;
 
         private int decodeScan(Frame frame, ArrayList<ComponentIn> components, int resetInterval,
                 int spectralStart, int spectralEnd, int successivePrev, int successive) throws IOException { 
@@ -1079,6 +1191,7 @@ public class JPEGDecoder {
             this.spectralStart = spectralStart;
             this.spectralEnd = spectralEnd;
             this.successive = successive;
+            this.pred = new int[frame.getCompCount()];
             
             final int componentsLength = components.size();
 
@@ -1107,12 +1220,13 @@ public class JPEGDecoder {
             if(DEBUG) {
                 System.err.println("JPEG.decodeScan.1 resetInterval "+resetInterval+", mcuExpected "+mcuExpected+", sA "+spectralStart+", sP "+successivePrev+", sE "+spectralEnd+", suc "+successive+", decodeFn "+decodeFn.getClass().getSimpleName());
             }
+            if( parallelMode && !progressive && resetInterval < mcuExpected ) {
+                return decodeScanParallel(frame, components, resetInterval, mcuExpected);
+            }
             int marker = 0;
             while ( /* untilMarker || */ mcu < mcuExpected) {
                 // reset interval stuff
-                for (int i = 0; i < componentsLength; i++) {
-                    components.get(i).pred = 0;
-                }
+                Arrays.fill(pred, 0);
                 eobrun = 0;
 
                 try {
@@ -1165,17 +1279,102 @@ public class JPEGDecoder {
             return marker;
         }
 
+        /**
+         * Baseline scan w/ restart intervals: Buffers the scan's entropy coded data
+         * and decodes its restart intervals in parallel, each w/ its own {@link Decoder}.
+         * The intervals cover distinct blocks, hence the result is identical to the sequential decoding.
+         * @return the marker terminating the scan
+         */
+        private int decodeScanParallel(final Frame frame, final ArrayList<ComponentIn> components, final int resetInterval, final int mcuExpected) throws IOException {
+            final ScanData scan = new ScanData();
+            scan.read();
+            final int segCount = Math.min(scan.segCount, ( mcuExpected + resetInterval - 1 ) / resetInterval);
+            if(DEBUG) {
+                System.err.println("JPEG.decodeScanParallel: segments "+segCount+"/"+scan.segCount+", bytes "+scan.size+", marker "+toHexString(scan.marker));
+            }
+            // each task decodes a range of consecutive intervals
+            final int segsPerTask = Math.max( ( TASK_MIN_MCUS + resetInterval - 1 ) / resetInterval, 
+                                              segCount / ( 4 * ForkJoinHelper.getParallelism() ) );
+            final Runnable[] tasks = new Runnable[( segCount + segsPerTask - 1 ) / segsPerTask];
+            for (int t = 0; t < tasks.length; t++) {
+                final int segFirst = t * segsPerTask;
+                final int segLast = Math.min(segCount, segFirst + segsPerTask);
+                tasks[t] = new Runnable() {
+                    public void run() {
+                        final Decoder d = new Decoder();
+                        for (int i = segFirst; i < segLast; i++) {
+                            final int mcuStart = i * resetInterval;
+                            final int mcuEnd = Math.min(mcuStart + resetInterval, mcuExpected);
+                            d.decodeSegment(frame, components, scan.data, scan.segStart[i], scan.segEnd[i], mcuStart, mcuEnd);
+                        }
+                    }
+                };
+            }
+            try {
+                ForkJoinHelper.invokeAll(tasks);
+            } catch (CodecException codecException) {
+                if(DEBUG) { System.err.println("JPEG.decodeScanParallel: Codec exception: "+codecException.getMessage()); codecException.printStackTrace(); }
+                return M_EOI; // force end !
+            }
+            return scan.marker;
+        }
+
+        /** Decodes the MCUs [<code>mcuStart</code>..<code>mcuEnd</code>[ of one baseline restart interval from <code>data</code>. */
+        private void decodeSegment(Frame frame, ArrayList<ComponentIn> components, byte[] data, int start, int end, int mcuStart, int mcuEnd) {
+            this.mcusPerLine = frame.mcusPerLine;
+            this.progressive = false;
+            this.bitsData = 0;
+            this.bitsCount = 0;
+            this.eobrun = 0;
+            this.pred = new int[frame.getCompCount()];
+            this.segData = data;
+            this.segPos = start;
+            this.segEnd = end;
+            final DecoderFunction decodeFn = decodeBaseline;
+            final int componentsLength = components.size();
+            try {
+                if (componentsLength == 1) {
+                    final ComponentIn component = components.get(0);
+                    for (int mcu = mcuStart; mcu < mcuEnd; mcu++) {
+                        decodeBlock(component, decodeFn, mcu);
+                    }
+                } else {
+                    for (int mcu = mcuStart; mcu < mcuEnd; mcu++) {
+                        for (int i = 0; i < componentsLength; i++) {
+                            final ComponentIn component = components.get(i);
+                            final int h = component.h;
+                            final int v = component.v;
+                            for (int j = 0; j < v; j++) {
+                                for (int k = 0; k < h; k++) {
+                                    decodeMcu(component, decodeFn, mcu, j, k);
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new CodecException("segment @ mcu "+mcuStart+": "+ioe.getMessage());
+            }
+        }
+
+        private int readByte() throws IOException {
+            if( null != segData ) {
+                return segPos < segEnd ? 0x000000FF & segData[segPos++] : -1;
+            }
+            return readUint8();
+        }
+
         private int readBit() throws MarkerException, IOException {
             if (bitsCount > 0) {
                 bitsCount--;
                 return (bitsData >> bitsCount) & 1;
             }
-            bitsData = readUint8();
+            bitsData = readByte();
             if( -1 == bitsData ) {
                 return -1;
             }
             if (bitsData == 0xFF) { // marker prefix
-                final int nextByte = readUint8(); // marker signature
+                final int nextByte = readByte(); // marker signature
                 if( -1 == nextByte ) {
                     throw new CodecException("marked prefix 0xFF, then EOF");
                 }
@@ -1230,7 +1429,7 @@ public class JPEGDecoder {
             public void decode(ComponentIn component, int[] zz) throws IOException {
                 final int t = decodeHuffman(component.huffmanTableDC);
                 final int diff = ( t == 0 ) ? 0 : receiveAndExtend(t);
-                zz[0] = ( component.pred += diff );
+                zz[0] = ( pred[component.index] += diff );
                 int k = 1;
                 while (k < 64) {
                     final int rs = decodeHuffman(component.huffmanTableAC);
@@ -1253,7 +1452,7 @@ public class JPEGDecoder {
             public void decode(ComponentIn component, int[] zz) throws IOException {
                 final int t = decodeHuffman(component.huffmanTableDC);
                 final int diff = ( t == 0 ) ? 0 : (receiveAndExtend(t) << successive);
-                zz[0] = ( component.pred += diff );
+                zz[0] = ( pred[component.index] += diff );
             }
         }
         class DCSuccessiveDecoder implements DecoderFunction {
@@ -1365,6 +1564,65 @@ public class JPEGDecoder {
 
     private final Decoder decoder = new Decoder();
 
+    /** Entropy coded data of one scan, split at its restart markers. Stuffed zero bytes are kept. */
+    private class ScanData {
+        byte[] data = new byte[64 * 1024];
+        int size = 0;
+        int[] segStart = new int[64];
+        int[] segEnd = new int[64];
+        int segCount = 0;
+        /** the marker terminating the scan, or {@link #M_EOI} at end of stream */
+        int marker;
+
+        /** Reads the scan's data from the stream up to and including the terminating marker. */
+        void read() throws IOException {
+            int start = 0;
+            int b = readUint8();
+            while( true ) {
+                if( -1 == b ) {
+                    marker = M_EOI;
+                    break;
+                }
+                if( 0xFF != b ) {
+                    put(b);
+                    b = readUint8();
+                    continue;
+                }
+                int n = readUint8();
+                while( 0xFF == n ) { // fill bytes
+                    n = readUint8();
+                }
+                if( 0 == n ) {
+                    put(0xFF);
+                    put(0);
+                } else if( 0xD0 <= n && n <= 0xD7 ) { // RSTx
+                    addSegment(start);
+                    start = size;
+                } else {
+                    marker = -1 == n ? M_EOI : 0xFF00 | n;
+                    break;
+                }
+                b = readUint8();
+            }
+            addSegment(start);
+        }
+        private void put(int b) {
+            if( size == data.length ) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = (byte)b;
+        }
+        private void addSegment(int start) {
+            if( segCount == segStart.length ) {
+                segStart = Arrays.copyOf(segStart, segCount * 2);
+                segEnd = Arrays.copyOf(segEnd, segCount * 2);
+            }
+            segStart[segCount] = start;
+            segEnd[segCount] = size;
+            segCount++;
+        }
+    }
+
     /** wrong color space ..
     private final void storeYCbCr2BGR(final PixelStorage pixelStorage, int x, int y, int Y, final int Cb, final int Cr)
     {
@@ -1532,6 +1790,224 @@ public class JPEGDecoder {
         }
     }
 
+    /** 
+     * Stores the decoded pixels line by line, see {@link ColorLineSink}.
+     * <p>
+     * YCbCr to RGB conversion uses integer lookup tables, the results may differ by one 
+     * from {@link #getPixel(ColorSink, int, int)}, which uses floating point arithmetic.
+     * </p>
+     */
+    public synchronized void getPixelLines(JPEGDecoder.ColorLineSink pixelStorage, final int width, int height) {
+        final int scaleX = this.width / width, scaleY = this.height / height;
+
+        final int componentCount = this.components.length;
+        final ColorSpace sourceCS = ( null != adobe ) ? adobe.colorSpace : ColorSpace.YCbCr; 
+        final ColorSpace storageCS = pixelStorage.allocate(width, height, sourceCS, componentCount);
+        if( ColorSpace.RGB != storageCS && ColorSpace.YCbCr != storageCS ) {
+            throw new IllegalArgumentException("Unsupported storage color space: "+storageCS); 
+        }
+        final boolean storeYCbCr = ColorSpace.YCbCr == storageCS;
+
+        switch (componentCount) {
+        case 1: {
+            // Grayscale
+            final ComponentOut component1 = this.components[0];
+            final int[] x1 = component1.getSampleIndices(width, scaleX);
+            final byte[] line = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                final byte[] component1Line = component1.getLine((int)(y * component1.scaleY * scaleY));
+                for (int x = 0, i = 0; x < width; x++) {
+                    final byte Y = component1Line[x1[x]];
+                    if( storeYCbCr ) {
+                        line[i++] = Y;
+                        line[i++] = 0;
+                        line[i++] = 0;
+                    } else {
+                        line[i++] = Y;
+                        line[i++] = Y;
+                        line[i++] = Y;
+                    }
+                }
+                pixelStorage.storeLine(y, line, 3);
+            }
+        }
+        break;
+        case 2: {
+            // PDF might compress two component data in custom colorspace
+            final ComponentOut component1 = this.components[0];
+            final ComponentOut component2 = this.components[1];
+            final int[] x1 = component1.getSampleIndices(width, scaleX);
+            final int[] x2 = component2.getSampleIndices(width, scaleX);
+            final byte[] line = new byte[width * 2];
+            for (int y = 0; y < height; y++) {
+                final int ys = y * scaleY;
+                final byte[] component1Line = component1.getLine((int)(ys * component1.scaleY));
+                final byte[] component2Line = component2.getLine((int)(ys * component2.scaleY));
+                for (int x = 0, i = 0; x < width; x++) {
+                    line[i++] = component1Line[x1[x]];
+                    line[i++] = component2Line[x2[x]];
+                }
+                pixelStorage.storeLine(y, line, 2);
+            }
+        }
+        break;
+        case 3: {
+            if (ColorSpace.YCbCr != sourceCS) {
+                throw new CodecException("Unsupported source color space w 3 components: "+sourceCS);
+            }
+            final ComponentOut component1 = this.components[0];
+            final ComponentOut component2 = this.components[1];
+            final ComponentOut component3 = this.components[2];
+            final int[] x1 = component1.getSampleIndices(width, scaleX);
+            final int[] x2 = component2.getSampleIndices(width, scaleX);
+            final int[] x3 = component3.getSampleIndices(width, scaleX);
+            if( parallelMode ) {
+                // convert chunks of lines in parallel, store them in order
+                final int parallelism = ForkJoinHelper.getParallelism();
+                final int linesPerTask = Math.max(1, Math.min(64, height / ( 4 * parallelism ) ) );
+                final byte[][] lines = new byte[Math.min(height, linesPerTask * 2 * parallelism)][width * 3];
+                for (int y0 = 0; y0 < height; y0 += lines.length) {
+                    final int chunkStart = y0;
+                    final int chunkEnd = Math.min(height, y0 + lines.length);
+                    final Runnable[] tasks = new Runnable[( chunkEnd - chunkStart + linesPerTask - 1 ) / linesPerTask];
+                    for (int t = 0; t < tasks.length; t++) {
+                        final int yStart = chunkStart + t * linesPerTask;
+                        final int yEnd = Math.min(chunkEnd, yStart + linesPerTask);
+                        tasks[t] = new Runnable() {
+                            public void run() {
+                                for (int y = yStart; y < yEnd; y++) {
+                                    getLine3(lines[y - chunkStart], width, y * scaleY, storeYCbCr, x1, x2, x3);
+                                }
+                            }
+                        };
+                    }
+                    ForkJoinHelper.invokeAll(tasks);
+                    for (int y = chunkStart; y < chunkEnd; y++) {
+                        pixelStorage.storeLine(y, lines[y - chunkStart], 3);
+                    }
+                }
+            } else {
+                final byte[] line = new byte[width * 3];
+                for (int y = 0; y < height; y++) {
+                    getLine3(line, width, y * scaleY, storeYCbCr, x1, x2, x3);
+                    pixelStorage.storeLine(y, line, 3);
+                }
+            }
+        }
+        break;
+        case 4: {
+            // Rare, convert via the per pixel implementation
+            final LineCollector collector = new LineCollector(pixelStorage);
+            getPixel(collector, width, height);
+            collector.flush();
+        }
+        break;
+        default:
+            throw new CodecException("Unsupported color model: Space "+sourceCS+", components "+componentCount);
+        }
+    }
+
+    /** Stores the 3 component source line <code>ys</code> in <code>line</code>, either as YCbCr or converted to RGB. */
+    private void getLine3(final byte[] line, final int width, final int ys, final boolean storeYCbCr, final int[] x1, final int[] x2, final int[] x3) {
+        final ComponentOut component1 = this.components[0];
+        final ComponentOut component2 = this.components[1];
+        final ComponentOut component3 = this.components[2];
+        final byte[] component1Line = component1.getLine((int)(ys * component1.scaleY));
+        final byte[] component2Line = component2.getLine((int)(ys * component2.scaleY));
+        final byte[] component3Line = component3.getLine((int)(ys * component3.scaleY));
+        if( storeYCbCr ) {
+            for (int x = 0, i = 0; x < width; x++) {
+                line[i++] = component1Line[x1[x]];
+                line[i++] = component2Line[x2[x]];
+                line[i++] = component3Line[x3[x]];
+            }
+        } else {
+            convertYCbCr2RGB(line, width, component1Line, x1, component2Line, x2, component3Line, x3);
+        }
+    }
+
+    /** Adapts {@link ColorSink} to {@link ColorLineSink}, pixels must be stored in line order. */
+    private static class LineCollector implements ColorSink {
+        private final ColorLineSink sink;
+        private byte[] line;
+        private int y = -1;
+        
+        LineCollector(ColorLineSink sink) {
+            this.sink = sink;
+        }
+        @Override
+        public ColorSpace allocate(int width, int height, ColorSpace sourceCS, int sourceComponents) throws RuntimeException {
+            line = new byte[width * 3];
+            return sink.allocate(width, height, sourceCS, sourceComponents);
+        }
+        private final int index(int x, int y) {
+            if( y != this.y ) {
+                flush();
+                this.y = y;
+            }
+            return x * 3;
+        }
+        final void flush() {
+            if( 0 <= y ) {
+                sink.storeLine(y, line, 3);
+            }
+        }
+        @Override
+        public void store2(int x, int y, byte c1, byte c2) {
+            throw new CodecException("not supported");
+        }
+        @Override
+        public void storeRGB(int x, int y, byte r, byte g, byte b) {
+            int i = index(x, y);
+            line[i++] = r;
+            line[i++] = g;
+            line[i++] = b;
+        }
+        @Override
+        public void storeYCbCr(int x, int y, byte Y, byte Cb, byte Cr) {
+            int i = index(x, y);
+            line[i++] = Y;
+            line[i++] = Cb;
+            line[i++] = Cr;
+        }
+    }
+
+    private static final int YCC_SCALEBITS = 16;
+    private static final int YCC_ONE_HALF = 1 << ( YCC_SCALEBITS - 1 );
+    /** Lookup tables for fixed point YCbCr -> RGB conversion, indexed by the unsigned chroma value. */
+    private static final int[] yccCrR = new int[256], yccCbB = new int[256], yccCrG = new int[256], yccCbG = new int[256];
+    /** Clamps the range [-384..639] to [0..255], index offset 384. */
+    private static final byte[] yccRangeLimit = new byte[1024];
+    private static final int YCC_RANGE_OFFSET = 384;
+    static {
+        for(int i=0; i<256; i++) {
+            final int x = i - 128;
+            yccCrR[i] = (   91881 * x + YCC_ONE_HALF ) >> YCC_SCALEBITS; // 1.40200
+            yccCbB[i] = (  116130 * x + YCC_ONE_HALF ) >> YCC_SCALEBITS; // 1.77200
+            yccCrG[i] =    -46802 * x;                                   // 0.71414
+            yccCbG[i] =    -22554 * x + YCC_ONE_HALF;                    // 0.34414
+        }
+        for(int i=0; i<yccRangeLimit.length; i++) {
+            final int v = i - YCC_RANGE_OFFSET;
+            yccRangeLimit[i] = (byte) ( v < 0 ? 0 : v > 0xFF ? 0xFF : v );
+        }
+    }
+    
+    private static void convertYCbCr2RGB(final byte[] line, final int width, 
+                                         final byte[] lineY, final int[] xY, 
+                                         final byte[] lineCb, final int[] xCb, 
+                                         final byte[] lineCr, final int[] xCr) {
+        final byte[] clamp = yccRangeLimit;
+        for (int x = 0, i = 0; x < width; x++) {
+            final int Y  = YCC_RANGE_OFFSET + ( 0x000000FF & lineY[xY[x]] );
+            final int Cb = 0x000000FF & lineCb[xCb[x]];
+            final int Cr = 0x000000FF & lineCr[xCr[x]];
+            line[i++] = clamp[ Y + yccCrR[Cr] ];
+            line[i++] = clamp[ Y + ( ( yccCbG[Cb] + yccCrG[Cr] ) >> YCC_SCALEBITS ) ];
+            line[i++] = clamp[ Y + yccCbB[Cb] ];
+        }
+    }
+    
     private static byte clampTo8bit(float a) {
         return (byte) ( a < 0f ? 0 : a > 255f ? 255 : a );
     }
@@ -0,0 +1,196 @@
+package jogamp.opengl.util.pngj;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+import jogamp.opengl.util.ForkJoinHelper;
+
+/**
+ * Compresses the filtered rows into a zlib stream using several threads, for
+ * the IDAT chunks of {@link PngWriter} in parallel mode.
+ * <p>
+ * The filtered rows are split in groups of whole rows, each group is deflated
+ * independently as raw deflate data on the shared {@link ForkJoinHelper} pool.
+ * The deflater is primed with the last 32k of the previous group as dictionary
+ * to preserve the compression ratio. All groups except the last end with a sync flush, hence
+ * on a byte boundary without a final block, so the concatenation is a valid
+ * deflate stream (the pigz approach). The zlib header is written upfront and
+ * the adler32 of the whole stream is combined from the per group checksums.
+ * <p>
+ * The compressed groups are written in order to the IDAT stream, which splits
+ * them into IDAT chunks and computes their CRC.
+ * <p>
+ * Requires Java 7 (fork-join and {@link Deflater#SYNC_FLUSH}), see
+ * {@link PngWriter#setParallelMode(boolean)}.
+ */
+class PngParallelDeflater {
+	/** Deflate window, dictionary size */
+	private static final int DICT_SIZE = 32768;
+	/** Target uncompressed size of one row group */
+	private static final int GROUP_SIZE_DEFAULT = 256 * 1024;
+	private static final int ADLER_BASE = 65521;
+
+	private final PngIDatChunkOutputStream datStream;
+	private final int compLevel;
+	private final int deflaterStrategy;
+	private final int groupSize; // whole rows
+	private final int maxPending;
+	private final ArrayDeque<ForkJoinTask<Group>> pending = new ArrayDeque<ForkJoinTask<Group>>();
+
+	private byte[] group; // current group, filled by the writer thread
+	private int groupLen = 0;
+	private byte[] prevGroup = null; // dictionary source for the current group
+	private int prevGroupLen = 0;
+	private long adler = 1L; // adler32 of all groups written so far
+	private boolean headerWritten = false;
+
+	/**
+	 * @param datStream
+	 *            IDAT stream
+	 * @param rowSize
+	 *            bytes per filtered row, including the filter type byte
+	 */
+	PngParallelDeflater(PngIDatChunkOutputStream datStream, int compLevel, int deflaterStrategy, int rowSize) {
+		this.datStream = datStream;
+		this.compLevel = compLevel;
+		this.deflaterStrategy = deflaterStrategy;
+		this.groupSize = Math.max(1, GROUP_SIZE_DEFAULT / rowSize) * rowSize;
+		this.maxPending = 2 * ForkJoinHelper.getParallelism();
+		this.group = new byte[groupSize];
+	}
+
+	/**
+	 * Queues filtered bytes, submitting each completed group for compression.
+	 */
+	void write(byte[] b, int off, int len) {
+		if (!headerWritten)
+			writeHeader();
+		while (len > 0) {
+			if (groupLen == groupSize) // only submit full groups once more data arrives, the last group is finished
+				submit(false);
+			final int n = Math.min(len, groupSize - groupLen);
+			System.arraycopy(b, off, group, groupLen, n);
+			groupLen += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Compresses the last group, writes all pending groups in order and the
+	 * adler32 trailer. Blocks until all groups are compressed.
+	 */
+	void finish() {
+		if (!headerWritten)
+			writeHeader();
+		submit(true);
+		while (!pending.isEmpty())
+			writeGroup(pending.poll().join());
+		final byte[] trailer = new byte[4];
+		PngHelperInternal.writeInt4tobytes((int) adler, trailer, 0);
+		datStream.write(trailer, 0, 4);
+	}
+
+	private void writeHeader() {
+		// CMF: deflate w/ 32k window, FLG: compression level hint and check bits
+		final int cmf = 0x78;
+		final int flevel = compLevel < 2 ? 0 : (compLevel < 6 ? 1 : (compLevel == 6 ? 2 : 3));
+		int flg = flevel << 6;
+		flg += (31 - ((cmf << 8) + flg) % 31) % 31;
+		datStream.write(new byte[] { (byte) cmf, (byte) flg }, 0, 2);
+		headerWritten = true;
+	}
+
+	private void submit(final boolean last) {
+		final byte[] data = group;
+		final int len = groupLen;
+		final byte[] dict = prevGroup;
+		final int dictLen = Math.min(DICT_SIZE, prevGroupLen);
+		final int dictOff = prevGroupLen - dictLen;
+		pending.add(ForkJoinHelper.submit(new Callable<Group>() {
+			public Group call() {
+				return deflate(data, len, dict, dictOff, dictLen, last);
+			}
+		}));
+		prevGroup = data;
+		prevGroupLen = len;
+		group = last ? null : new byte[groupSize];
+		groupLen = 0;
+		while (pending.size() > maxPending) // bound memory, keep the pool busy
+			writeGroup(pending.poll().join());
+	}
+
+	private void writeGroup(Group g) {
+		datStream.write(g.out, 0, g.outLen);
+		adler = adler32Combine(adler, g.adler, g.len);
+	}
+
+	private Group deflate(byte[] data, int len, byte[] dict, int dictOff, int dictLen, boolean last) {
+		final Deflater def = new Deflater(compLevel, true); // raw deflate, no zlib header/trailer
+		try {
+			def.setStrategy(deflaterStrategy);
+			if (dictLen > 0)
+				def.setDictionary(dict, dictOff, dictLen);
+			def.setInput(data, 0, len);
+			if (last)
+				def.finish();
+			byte[] out = new byte[len / 2 + 1024];
+			int outLen = 0;
+			while (true) {
+				if (outLen == out.length)
+					out = Arrays.copyOf(out, out.length * 2);
+				final int avail = out.length - outLen;
+				final int n = last ? def.deflate(out, outLen, avail) : def.deflate(out, outLen, avail,
+						Deflater.SYNC_FLUSH);
+				outLen += n;
+				// a pending strategy change is applied by a separate call w/o consuming input
+				if (last ? def.finished() : (n < avail && def.needsInput()))
+					break;
+			}
+			final Adler32 a = new Adler32();
+			a.update(data, 0, len);
+			return new Group(out, outLen, a.getValue(), len);
+		} finally {
+			def.end();
+		}
+	}
+
+	/**
+	 * Adler32 of the concatenation of two data blocks, given their adler32 and
+	 * the length of the second block (zlib's adler32_combine).
+	 */
+	static long adler32Combine(long adler1, long adler2, long len2) {
+		final long rem = len2 % ADLER_BASE;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (rem * sum1) % ADLER_BASE;
+		sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+		sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff) + ADLER_BASE - rem;
+		if (sum1 >= ADLER_BASE)
+			sum1 -= ADLER_BASE;
+		if (sum1 >= ADLER_BASE)
+			sum1 -= ADLER_BASE;
+		if (sum2 >= ((long) ADLER_BASE << 1))
+			sum2 -= ((long) ADLER_BASE << 1);
+		if (sum2 >= ADLER_BASE)
+			sum2 -= ADLER_BASE;
+		return sum1 | (sum2 << 16);
+	}
+
+	private static class Group {
+		final byte[] out;
+		final int outLen;
+		final long adler;
+		final int len;
+
+		Group(byte[] out, int outLen, long adler, int len) {
+			this.out = out;
+			this.outLen = outLen;
+			this.adler = adler;
+			this.len = len;
+		}
+	}
+}
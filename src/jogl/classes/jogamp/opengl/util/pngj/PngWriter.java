@@ -59,6 +59,10 @@ public class PngWriter {
 
 	private DeflaterOutputStream datStreamDeflated;
 
+	private boolean parallelMode = false;
+
+	private PngParallelDeflater datStreamParallel; // only in parallel mode
+
 	/**
 	 * Deflate algortithm compression strategy
 	 */
@@ -111,9 +115,13 @@ public class PngWriter {
 
 	private void init() {
 		datStream = new PngIDatChunkOutputStream(this.os, idatMaxSize);
-		Deflater def = new Deflater(compLevel);
-		def.setStrategy(deflaterStrategy);
-		datStreamDeflated = new DeflaterOutputStream(datStream, def);
+		if (parallelMode) {
+			datStreamParallel = new PngParallelDeflater(datStream, compLevel, deflaterStrategy, imgInfo.bytesPerRow + 1);
+		} else {
+			Deflater def = new Deflater(compLevel);
+			def.setStrategy(deflaterStrategy);
+			datStreamDeflated = new DeflaterOutputStream(datStream, def);
+		}
 		writeSignatureAndIHDR();
 		writeFirstChunks();
 	}
@@ -307,7 +315,10 @@ public class PngWriter {
 	private void filterAndSend(int rown) {
 		filterRow(rown);
 		try {
-			datStreamDeflated.write(rowbfilter, 0, imgInfo.bytesPerRow + 1);
+			if (datStreamParallel != null)
+				datStreamParallel.write(rowbfilter, 0, imgInfo.bytesPerRow + 1);
+			else
+				datStreamDeflated.write(rowbfilter, 0, imgInfo.bytesPerRow + 1);
 		} catch (IOException e) {
 			throw new PngjOutputException(e);
 		}
@@ -474,7 +485,10 @@ public class PngWriter {
 		if (rowNum != imgInfo.rows - 1)
 			throw new PngjOutputException("all rows have not been written");
 		try {
-			datStreamDeflated.finish();
+			if (datStreamParallel != null)
+				datStreamParallel.finish();
+			else
+				datStreamDeflated.finish();
 			datStream.flush();
 			writeLastChunks();
 			writeEndChunk();
@@ -569,6 +583,45 @@ public class PngWriter {
 		this.deflaterStrategy = deflaterStrategy;
 	}
 
+	/**
+	 * Enables or disables the parallel compression of the IDAT stream.
+	 * <p>
+	 * This must be called just after constructor, before starting writing.
+	 * <p>
+	 * If enabled, rows are still filtered sequentially, but the filtered rows
+	 * are split in groups which are deflated concurrently on a shared fork-join
+	 * pool using all available processors. The output is a valid PNG, slightly
+	 * larger than the sequential one. Rows are buffered until their group is
+	 * compressed, hence memory usage is higher.
+	 * <p>
+	 * Default: false. Requires Java 7, see {@link #isParallelModeAvailable()}.
+	 */
+	public void setParallelMode(boolean parallelMode) {
+		if (datStream != null)
+			throw new PngjOutputException("parallel mode must be set before writing rows");
+		if (parallelMode && !isParallelModeAvailable())
+			throw new PngjOutputException("parallel mode requires Java 7");
+		this.parallelMode = parallelMode;
+	}
+
+	public boolean isParallelMode() {
+		return parallelMode;
+	}
+
+	/**
+	 * Returns true if the runtime supports {@link #setParallelMode(boolean)},
+	 * i.e. provides fork-join and sync flush deflate.
+	 */
+	public static boolean isParallelModeAvailable() {
+		try {
+			Class.forName("java.util.concurrent.ForkJoinPool");
+			Deflater.class.getField("SYNC_FLUSH");
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Writes line, checks that the row number is consistent with that of the
 	 * ImageLine See writeRow(int[] newrow, int rown)
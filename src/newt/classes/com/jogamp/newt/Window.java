@@ -561,4 +561,32 @@ public interface Window extends NativeWindow, WindowClosingProtocol {
 
     MouseListener[] getMouseListeners();
 
+    /**
+     * Sets the mouse motion coalescing policy of this window.
+     * <p>
+     * If enabled, consecutive queued {@link com.jogamp.newt.event.MouseEvent#EVENT_MOUSE_MOVED MOVED} 
+     * or {@link com.jogamp.newt.event.MouseEvent#EVENT_MOUSE_DRAGGED DRAGGED} events w/ same modifiers
+     * not yet dispatched are collapsed to one event w/ the latest position. 
+     * This reduces the number of events to be processed by the {@link MouseListener}s 
+     * for high rate input devices, e.g. 1000 Hz mice or pen tablets.
+     * </p>
+     * <p>
+     * If <code>keepHistory</code> is <code>true</code>, the collapsed positions are available 
+     * via the event's history, see {@link com.jogamp.newt.event.MouseEvent#getHistorySize()}.
+     * </p>
+     * <p>
+     * Events sent directly w/o queueing are not affected.
+     * </p>
+     *
+     * @param coalesce defaults to <code>false</code>
+     * @param keepHistory defaults to <code>false</code>, ignored if <code>coalesce</code> is <code>false</code>
+     */
+    void setMouseMotionCoalescing(boolean coalesce, boolean keepHistory);
+
+    /** @see #setMouseMotionCoalescing(boolean, boolean) */
+    boolean isMouseMotionCoalescing();
+
+    /** @see #setMouseMotionCoalescing(boolean, boolean) */
+    boolean isMouseMotionHistoryKept();
+
 }
@@ -126,6 +126,10 @@ public class MouseEvent extends InputEvent
         this.rotationXYZ = rotationXYZ;
         this.rotationScale = rotationScale;
         this.pointerTypes = constMousePointerTypes;
+        this.historySize = 0;
+        this.historyX = null;
+        this.historyY = null;
+        this.historyWhen = null;
     }
 
     /** Constructor for multi-touch pointer events. */ 
@@ -152,6 +156,94 @@ public class MouseEvent extends InputEvent
         this.rotationXYZ = rotationXYZ;
         this.rotationScale = rotationScale;
         this.pointerTypes = pointerTypes;
+        this.historySize = 0;
+        this.historyX = null;
+        this.historyY = null;
+        this.historyWhen = null;
+    }
+    
+    /** Constructor for coalesced events, copying the given event's data, using the given history. */ 
+    private MouseEvent(MouseEvent e, int historySize, int[] historyX, int[] historyY, long[] historyWhen) {
+        super(e.getEventType(), e.getSource(), e.getWhen(), e.getModifiers());
+        this.x = e.x;
+        this.y = e.y;
+        this.pressure = e.pressure;
+        this.maxPressure= e.maxPressure;
+        this.pointerIDs = e.pointerIDs;
+        this.clickCount = e.clickCount;
+        this.button = e.button;
+        this.rotationXYZ = e.rotationXYZ;
+        this.rotationScale = e.rotationScale;
+        this.pointerTypes = e.pointerTypes;
+        this.historySize = historySize;
+        this.historyX = historyX;
+        this.historyY = historyY;
+        this.historyWhen = historyWhen;
+    }
+    
+    /**
+     * Returns <code>true</code> if the given <code>newer</code> event may replace this queued event,
+     * i.e. both are {@link #EVENT_MOUSE_MOVED} or {@link #EVENT_MOUSE_DRAGGED} events of the same type and source
+     * w/ same modifiers, button and pointer IDs.
+     * @see #createCoalesced(MouseEvent, MouseEvent, boolean)
+     */
+    public final boolean isCoalescable(MouseEvent newer) {
+        final short type = getEventType();
+        if( ( EVENT_MOUSE_MOVED != type && EVENT_MOUSE_DRAGGED != type ) ||
+            type != newer.getEventType() || getSource() != newer.getSource() ||
+            getModifiers() != newer.getModifiers() || button != newer.button ||
+            pointerIDs.length != newer.pointerIDs.length ) {
+            return false;
+        }
+        for(int i=0; i<pointerIDs.length; i++) {
+            if( pointerIDs[i] != newer.pointerIDs[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the coalesced event replacing the <code>older</code> queued event by the consecutive <code>newer</code> event,
+     * see {@link #isCoalescable(MouseEvent)}.
+     * <p>
+     * The returned event carries the <code>newer</code> event's data, i.e. the latest position.
+     * If <code>keepHistory</code> is <code>true</code>, the positions and times of the <code>older</code> event 
+     * and its history are kept as the history of the returned event, see {@link #getHistorySize()}.
+     * Otherwise the <code>newer</code> event is returned.
+     * </p>
+     * <p>
+     * The history storage of the <code>older</code> event is shared,
+     * hence the <code>older</code> event shall not be coalesced again.
+     * </p>
+     * @see com.jogamp.newt.Window#setMouseMotionCoalescing(boolean, boolean)
+     */
+    public static MouseEvent createCoalesced(MouseEvent older, MouseEvent newer, boolean keepHistory) {
+        if( !keepHistory ) {
+            return newer;
+        }
+        final int pc = newer.x.length;
+        final int size = older.historySize + 1;
+        int[] hx = older.historyX, hy = older.historyY;
+        long[] hw = older.historyWhen;
+        if( null == hw || hw.length < size ) {
+            final int capacity = Math.max(8, 2 * size);
+            hx = new int[capacity * pc];
+            hy = new int[capacity * pc];
+            hw = new long[capacity];
+            if( 0 < older.historySize ) {
+                System.arraycopy(older.historyX, 0, hx, 0, older.historySize * pc);
+                System.arraycopy(older.historyY, 0, hy, 0, older.historySize * pc);
+                System.arraycopy(older.historyWhen, 0, hw, 0, older.historySize);
+            }
+        }
+        final int o = older.historySize * pc;
+        for(int i=0; i<pc; i++) {
+            hx[o+i] = older.x[i];
+            hy[o+i] = older.y[i];
+        }
+        hw[older.historySize] = older.getWhen();
+        return new MouseEvent(newer, size, hx, hy, hw);
     }
     
     /**
@@ -216,6 +308,73 @@ public class MouseEvent extends InputEvent
         return y[index];
     }
     
+    /**
+     * Returns the number of historical positions of a coalesced 
+     * {@link #EVENT_MOUSE_MOVED} or {@link #EVENT_MOUSE_DRAGGED} event, which occurred between 
+     * the previously dispatched event and this event. 
+     * <p>
+     * Historical positions are only available if enabled via
+     * {@link com.jogamp.newt.Window#setMouseMotionCoalescing(boolean, boolean)}, otherwise <code>0</code> is returned.
+     * </p>
+     * @see #getHistoricalX(int, int)
+     * @see #getHistoricalY(int, int)
+     * @see #getHistoricalWhen(int)
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+    
+    /** 
+     * @param pos history position within [0 .. {@link #getHistorySize()}-1], oldest first
+     * @return historical X-Coord associated with the pointer-index 0.
+     */
+    public int getHistoricalX(int pos) {
+        return getHistoricalX(0, pos);
+    }
+    
+    /** 
+     * @param pos history position within [0 .. {@link #getHistorySize()}-1], oldest first
+     * @return historical Y-Coord associated with the pointer-index 0.
+     */
+    public int getHistoricalY(int pos) {
+        return getHistoricalY(0, pos);
+    }
+    
+    /** 
+     * @param index pointer-index within [0 .. {@link #getPointerCount()}-1]
+     * @param pos history position within [0 .. {@link #getHistorySize()}-1], oldest first
+     * @return historical X-Coord associated with the pointer-index.
+     */
+    public int getHistoricalX(int index, int pos) {
+        checkHistoryPos(pos);
+        return historyX[pos * x.length + index];
+    }
+    
+    /** 
+     * @param index pointer-index within [0 .. {@link #getPointerCount()}-1]
+     * @param pos history position within [0 .. {@link #getHistorySize()}-1], oldest first
+     * @return historical Y-Coord associated with the pointer-index.
+     */
+    public int getHistoricalY(int index, int pos) {
+        checkHistoryPos(pos);
+        return historyY[pos * y.length + index];
+    }
+    
+    /** 
+     * @param pos history position within [0 .. {@link #getHistorySize()}-1], oldest first
+     * @return time of the historical position in milliseconds, see {@link #getWhen()}.
+     */
+    public long getHistoricalWhen(int pos) {
+        checkHistoryPos(pos);
+        return historyWhen[pos];
+    }
+    
+    private final void checkHistoryPos(int pos) {
+        if( 0 > pos || pos >= historySize ) {
+            throw new IndexOutOfBoundsException("history position "+pos+" not within [0.."+historySize+"[");
+        }
+    }
+    
     /**
      * @param normalized if true, method returns the normalized pressure, i.e. <code>pressure / maxPressure</code> 
      * @return The pressure associated with the pointer-index 0.
@@ -339,6 +498,9 @@ public class MouseEvent extends InputEvent
             }
             sb.append("]");
         }        
+        if(historySize>0) {
+            sb.append(", history ").append(historySize);
+        }
         sb.append(", ");
         return super.toString(sb).append("]");
     }
@@ -365,6 +527,9 @@ public class MouseEvent extends InputEvent
     private final float maxPressure;
     private final short pointerIDs[];
     private final PointerType pointerTypes[];
+    private final int historySize;
+    private final int historyX[], historyY[]; // [pos * pointerCount + index]
+    private final long historyWhen[];
     
     private static final float[] constMousePressure = new float[]{0f};
     private static final short[] constMousePointerIDs = new short[]{0};
@@ -28,34 +28,32 @@
  
 package com.jogamp.newt.event;
 
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Lock-free FIFO of {@link NEWTEvent}s, which may be used by multiple producer and consumer threads.
+ */
 public class NEWTEventFiFo
 {
-    private LinkedList/*<NEWTEvent>*/ events = new LinkedList/*<NEWTEvent>*/();
+    private final ConcurrentLinkedQueue<NEWTEvent> events = new ConcurrentLinkedQueue<NEWTEvent>();
 
     /** Add NEWTEvent to tail */
-    public synchronized void put(NEWTEvent event) {
-        events.addLast(event);
-        notifyAll();
+    public void put(NEWTEvent event) {
+        events.offer(event);
     }
 
     /** Remove NEWTEvent from head */
-    public synchronized NEWTEvent get() {
-        if (0 == events.size()) {
-            return null;
-        }
-
-        return (NEWTEvent) events.removeFirst();
+    public NEWTEvent get() {
+        return events.poll();
     }
 
-    /** Get NEWTEvents in queue */
-    public synchronized int size() {
+    /** Get NEWTEvents in queue, traverses the queue */
+    public int size() {
         return events.size();
     }
 
     /** Clear all NEWTEvents from queue */
-    public synchronized void clear() {
+    public void clear() {
         events.clear();
     }
 
@@ -769,6 +769,21 @@ public class GLWindow extends GLAutoDrawableBase implements GLAutoDrawable, Wind
         return window.getMouseListener(index);
     }
 
+    @Override
+    public final void setMouseMotionCoalescing(boolean coalesce, boolean keepHistory) {
+        window.setMouseMotionCoalescing(coalesce, keepHistory);
+    }
+
+    @Override
+    public final boolean isMouseMotionCoalescing() {
+        return window.isMouseMotionCoalescing();
+    }
+
+    @Override
+    public final boolean isMouseMotionHistoryKept() {
+        return window.isMouseMotionHistoryKept();
+    }
+
     @Override
     public final MouseListener[] getMouseListeners() {
         return window.getMouseListeners();
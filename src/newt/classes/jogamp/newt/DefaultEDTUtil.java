@@ -37,7 +37,11 @@
 
 package jogamp.newt;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.LockSupport;
+
 import javax.media.nativewindow.NativeWindowException;
 
 import jogamp.common.util.locks.LockDebugUtil;
@@ -48,6 +52,14 @@ import com.jogamp.newt.util.EDTUtil;
 
 public class DefaultEDTUtil implements EDTUtil {
     public static final boolean DEBUG = Debug.debug("EDT");
+    
+    /** Default for {@link #setBatchMode(boolean)}, property <code>newt.edt.batch</code>. */
+    private static final boolean BATCH_MODE_DEFAULT;
+    
+    static {
+        Debug.initSingleton();
+        BATCH_MODE_DEFAULT = Debug.isPropertyDefined("newt.edt.batch", true);
+    }
 
     private final Object edtLock = new Object(); // locking the EDT start/stop state
     private final ThreadGroup threadGroup; 
@@ -56,6 +68,8 @@ public class DefaultEDTUtil implements EDTUtil {
     private NEDT edt = null;
     private int start_iter=0;
     private static long pollPeriod = EDTUtil.defaultEDTPollPeriod;
+    private volatile boolean batchMode = BATCH_MODE_DEFAULT;
+    private long delayedTaskSeq = 0; // FIFO order of delayed tasks w/ same deadline, guarded by edt.tasks
 
     public DefaultEDTUtil(ThreadGroup tg, String name, Runnable dispatchMessages) {
         this.threadGroup = tg;
@@ -108,6 +122,99 @@ public class DefaultEDTUtil implements EDTUtil {
         edt.start();
     }
 
+    /**
+     * Returns <code>true</code> if batch mode is enabled.
+     * @see #setBatchMode(boolean)
+     */
+    public final boolean isBatchMode() {
+        return batchMode;
+    }
+    
+    /**
+     * Enables or disables batch mode.
+     * <p>
+     * In batch mode the EDT executes all tasks queued at the start of an iteration
+     * before dispatching messages again, otherwise one task per iteration.
+     * Batch mode reduces the message dispatch overhead if many tasks are queued, e.g. via <code>invoke(false, ..)</code>,
+     * however, messages are dispatched less often while tasks are flooding the EDT.
+     * </p>
+     * <p>
+     * Defaults to <code>false</code>, or <code>true</code> if property <code>newt.edt.batch</code> is set.
+     * </p>
+     */
+    public final void setBatchMode(boolean v) {
+        batchMode = v;
+    }
+    
+    /**
+     * Enqueues the given task to be executed on the EDT after the given delay.
+     * <p>
+     * Tasks are executed in order of their deadline, tasks w/ same deadline in order of their submission.
+     * The EDT parks until the earliest deadline if it is before the end of the {@link #getPollPeriod() poll period},
+     * i.e. the latency is not bound to the poll period.
+     * </p>
+     * <p>
+     * Delayed tasks are not considered by {@link #waitUntilIdle()} before their deadline
+     * and dropped if the EDT is stopped before their deadline.
+     * Exceptions thrown by the task are caught and reported.
+     * </p>
+     * @param delayMillis delay in milliseconds, a value &le; 0 enqueues the task right away
+     * @param task the task
+     * @return true if the task has been enqueued, false if the EDT is not running
+     */
+    public final boolean invokeLater(long delayMillis, Runnable task) {
+        if( 0 >= delayMillis ) {
+            return invoke(false, task);
+        }
+        final long deadline = System.nanoTime() + delayMillis * 1000000L;
+        synchronized(edtLock) { // lock the EDT status
+            if( !edt.isRunning() ) {
+                if(DEBUG) {
+                    System.err.println(Thread.currentThread()+": Warning: Default-EDT is not running, dropping delayed task. NEDT "+edt);
+                }
+                return false;
+            }
+            synchronized(edt.tasks) {
+                final RunnableTask rTask = new RunnableTask(task, null, true /* always catch and report Exceptions, don't disturb EDT */, System.err);
+                edt.delayedTasks.add(new DelayedTask(rTask, deadline, delayedTaskSeq++));
+            }
+            edt.wakeup(); // recalculate park duration
+        }
+        return true;
+    }
+    
+    /** A task w/ its deadline in {@link System#nanoTime()} */
+    private static class DelayedTask implements Comparable<DelayedTask> {
+        final RunnableTask task;
+        final long deadline;
+        final long seq;
+        
+        DelayedTask(RunnableTask task, long deadline, long seq) {
+            this.task = task;
+            this.deadline = deadline;
+            this.seq = seq;
+        }
+        
+        @Override
+        public int compareTo(DelayedTask o) {
+            final long d = deadline - o.deadline; // overflow safe
+            if( 0 != d ) {
+                return d < 0 ? -1 : 1;
+            }
+            return seq < o.seq ? -1 : ( seq > o.seq ? 1 : 0 );
+        }
+    }
+    
+    /**
+     * Wakes up the EDT if idle, e.g. after enqueuing an event to be dispatched via <code>dispatchMessages</code>.
+     * <p>
+     * Lock-free, the EDT is only unparked if parked.
+     * </p>
+     */
+    public final void wakeup() {
+        edt.wakeup();
+    }
+
     @Override
     public final boolean isCurrentThreadEDT() {
         return edt == Thread.currentThread(); // EDT == NEDT
@@ -201,6 +308,7 @@ public class DefaultEDTUtil implements EDTUtil {
                             edt.tasks.add(rTask);
                             edt.tasks.notifyAll();
                         }
+                        edt.wakeup();
                     } else {
                         wait = false;
                     }
@@ -244,6 +352,7 @@ public class DefaultEDTUtil implements EDTUtil {
             while(_edt.isRunning && _edt.tasks.size()>0) {
                 try {
                     _edt.tasks.notifyAll();
+                    _edt.wakeup();
                     _edt.tasks.wait();
                 } catch (InterruptedException e) {
                     e.printStackTrace();
@@ -274,7 +383,11 @@ public class DefaultEDTUtil implements EDTUtil {
     class NEDT extends Thread {
         volatile boolean shouldStop = false;
         volatile boolean isRunning = false;
-        ArrayList<RunnableTask> tasks = new ArrayList<RunnableTask>(); // one shot tasks
+        ArrayDeque<RunnableTask> tasks = new ArrayDeque<RunnableTask>(); // one shot tasks, also the lock for delayedTasks
+        final PriorityQueue<DelayedTask> delayedTasks = new PriorityQueue<DelayedTask>(); // deadline ordered
+        private final ArrayList<RunnableTask> batch = new ArrayList<RunnableTask>(); // tasks executed in one iteration, EDT only
+        private volatile boolean parked = false; // EDT is about to park or parked
+        private volatile boolean signaled = false; // wakeup requested since last park
 
         public NEDT(ThreadGroup tg, String name) {
             super(tg, name);
@@ -284,6 +397,57 @@ public class DefaultEDTUtil implements EDTUtil {
             return isRunning && !shouldStop;
         }
 
+        /** 
+         * Signals new work. Either the EDT sees <code>signaled</code> before parking,
+         * or this thread sees <code>parked</code> and unparks it.
+         */
+        final void wakeup() {
+            signaled = true;
+            if( parked ) {
+                LockSupport.unpark(this);
+            }
+        }
+
+        /** 
+         * Parks the EDT unless signaled, EDT only.
+         * @param nanos park duration in nanoseconds, or a negative value to park until unparked
+         */
+        private final void parkIdle(long nanos) {
+            parked = true;
+            if( !signaled ) {
+                if( 0 <= nanos ) {
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            parked = false;
+            signaled = false;
+        }
+        
+        /** 
+         * Returns the idle duration in nanoseconds until the poll period ends or the earliest delayed task is due,
+         * <code>0</code> if a delayed task is due already or a negative value to park until unparked.
+         * Shall be called while holding the tasks lock.
+         */
+        private final long getIdleNanos(long now) {
+            long nanos = 0 < pollPeriod ? pollPeriod * 1000000L : -1;
+            final DelayedTask dt = delayedTasks.peek();
+            if( null != dt ) {
+                final long d = Math.max(0, dt.deadline - now);
+                nanos = 0 > nanos ? d : Math.min(nanos, d);
+            }
+            return nanos;
+        }
+        
+        /** Moves the due delayed tasks to the tasks queue. Shall be called while holding the tasks lock. */
+        private final void enqueueDueTasks(long now) {
+            DelayedTask dt;
+            while( null != ( dt = delayedTasks.peek() ) && 0 <= now - dt.deadline ) {
+                tasks.add(delayedTasks.poll().task);
+            }
+        }
+
         @Override
         final public void start() throws IllegalThreadStateException {
             isRunning = true;
@@ -316,27 +480,40 @@ public class DefaultEDTUtil implements EDTUtil {
                     if(!shouldStop) {
                         dispatchMessages.run();
                     }
-                    // wait and work on tasks
-                    RunnableTask task = null;
+                    // wait for tasks or events, w/o holding the tasks lock
+                    long idleNanos = 0;
                     synchronized(tasks) {
-                        // wait for tasks
-                        if(!shouldStop && tasks.size()==0) {
-                            try {
-                                tasks.wait(pollPeriod);
-                            } catch (InterruptedException e) {
-                                e.printStackTrace();
-                            }
+                        if( !shouldStop && tasks.size()==0 ) {
+                            idleNanos = getIdleNanos(System.nanoTime());
                         }
-                        // execute one task, if available
-                        if(tasks.size()>0) {
-                            task = tasks.remove(0);
-                            tasks.notifyAll();
+                    }
+                    if( 0 != idleNanos ) {
+                        parkIdle(idleNanos);
+                    }
+                    // work on tasks
+                    synchronized(tasks) {
+                        if( delayedTasks.size()>0 ) {
+                            enqueueDueTasks(System.nanoTime());
+                        }
+                        // take one task or all queued tasks in batch mode, up to the final task
+                        final boolean all = batchMode;
+                        while( tasks.size()>0 ) {
+                            final RunnableTask task = tasks.poll();
+                            batch.add(task);
                             if( null != task.getAttachment() ) {
                                 shouldStop = true;
+                                break;
                             }
+                            if( !all ) {
+                                break;
+                            }
+                        }
+                        if( batch.size()>0 ) {
+                            tasks.notifyAll();
                         }
                     }
-                    if(null!=task) {
+                    for(int i=0; i<batch.size(); i++) {
+                        final RunnableTask task = batch.get(i);
                         task.run();
                         if(Lock.DEBUG) {
                             validateNoRecursiveLocksHold();
@@ -347,6 +524,7 @@ public class DefaultEDTUtil implements EDTUtil {
                             task.getThrowable().printStackTrace();
                         }
                     }
+                    batch.clear();
                 } while(!shouldStop) ;
             } catch (Throwable t) {
                 // handle errors ..
@@ -358,7 +536,7 @@ public class DefaultEDTUtil implements EDTUtil {
                 }
             } finally {
                 if(DEBUG) {
-                    RunnableTask rt = ( tasks.size() > 0 ) ? tasks.get(0) : null ;
+                    RunnableTask rt = tasks.peek();
                     System.err.println(getName()+": Default-EDT run() END "+ getName()+", tasks: "+tasks.size()+", "+rt+", "+error); 
                 }
                 synchronized(edtLock) {
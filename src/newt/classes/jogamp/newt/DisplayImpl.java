@@ -37,12 +37,12 @@ package jogamp.newt;
 import com.jogamp.newt.Display;
 import com.jogamp.newt.NewtFactory;
 import com.jogamp.newt.event.NEWTEvent;
+import com.jogamp.newt.event.MouseEvent;
 import com.jogamp.newt.event.NEWTEventConsumer;
 
 import jogamp.newt.event.NEWTEventTask;
 import com.jogamp.newt.util.EDTUtil;
 
-import java.util.ArrayList;
 
 import javax.media.nativewindow.AbstractGraphicsDevice;
 import javax.media.nativewindow.NativeWindowException;
@@ -449,9 +449,9 @@ public abstract class DisplayImpl extends Display {
     /** Dispatch native Toolkit messageges */
     protected abstract void dispatchMessagesNative();
 
-    private Object eventsLock = new Object();
-    private ArrayList<NEWTEventTask> events = new ArrayList<NEWTEventTask>();
-    private volatile boolean haveEvents = false;
+    /** Lock-free event pipe, any thread enqueues, {@link #dispatchMessages()} consumes while holding <code>eventsConsumerLock</code>. */
+    private final MPSCQueue<NEWTEventTask> events = new MPSCQueue<NEWTEventTask>();
+    private final Object eventsConsumerLock = new Object();
 
     final protected Runnable dispatchMessagesRunnable = new Runnable() {
         public void run() {
@@ -481,8 +481,8 @@ public abstract class DisplayImpl extends Display {
         }
     }
     
-    final void dispatchMessage(final NEWTEventTask eventTask) {
-        final NEWTEvent event = eventTask.get();
+    /** Dispatches the given event {@link NEWTEventTask#take() taken} from the given task. */
+    final void dispatchMessage(final NEWTEventTask eventTask, final NEWTEvent event) {
         try { 
             if(null == event) {
                 // Ooops ?
@@ -512,23 +512,23 @@ public abstract class DisplayImpl extends Display {
             return;
         }
 
-        ArrayList<NEWTEventTask> _events = null;
-
-        if(haveEvents) { // volatile: ok
-            synchronized(eventsLock) {
-                if(haveEvents) {
-                    // swap events list to free ASAP
-                    _events = events;
-                    events = new ArrayList<NEWTEventTask>();
-                    haveEvents = false;
+        // Dispatch the events queued so far, events enqueued while dispatching are left for the next call.
+        // A nested call, e.g. by a listener, or a concurrent call may have dispatched the last task of this call,
+        // hence stop once it has been taken, not overrunning into events enqueued later.
+        // The consumer lock is usually uncontended, i.e. only taken by the EDT.
+        final NEWTEventTask last = events.peekLast();
+        if( null != last ) {
+            NEWTEventTask eTask;
+            do {
+                final NEWTEvent event;
+                synchronized(eventsConsumerLock) {
+                    eTask = last.isTaken() ? null : events.poll();
+                    event = null != eTask ? eTask.take() : null;
                 }
-                eventsLock.notifyAll();
-            }
-            if( null != _events ) {
-                for (int i=0; i < _events.size(); i++) {
-                    dispatchMessage(_events.get(i));
+                if( null != eTask ) {
+                    dispatchMessage(eTask, event);
                 }
-            }
+            } while( null != eTask && last != eTask );
         }
 
         // System.err.println("Display.dispatchMessages() NATIVE "+this+" "+getThreadName());
@@ -552,25 +552,48 @@ public abstract class DisplayImpl extends Display {
             return;
         }
         
-        final Object lock = new Object();
-        final NEWTEventTask eTask = new NEWTEventTask(e, wait?lock:null);
-        synchronized(lock) {
-            synchronized(eventsLock) {
-                events.add(eTask);
-                haveEvents = true;
-                eventsLock.notifyAll();
+        if( !wait && coalesceEvent(e) ) {
+            return;
+        }
+        final NEWTEventTask eTask = new NEWTEventTask(e, wait);
+        events.offer(eTask);
+        if( _edtUtil instanceof DefaultEDTUtil ) {
+            ((DefaultEDTUtil)_edtUtil).wakeup();
+        }
+        if( wait ) {
+            try {
+                eTask.waitForCompletion();
+            } catch (InterruptedException ie) {
+                throw new RuntimeException(ie);
             }
-            if( wait ) {
-                try {
-                    lock.wait();
-                } catch (InterruptedException ie) {
-                    throw new RuntimeException(ie);
-                }
-                if( null != eTask.getException() ) {
-                    throw eTask.getException();
+            if( null != eTask.getException() ) {
+                throw eTask.getException();
+            }
+        }
+    }
+
+    /**
+     * Replaces the event of the last queued non-waiting task w/ its coalesced version, if the event's source window
+     * {@link WindowImpl#coalesceMouseEvent(NEWTEvent, MouseEvent) coalesces} both
+     * and the task has not been taken by the consumer meanwhile.
+     * <p>
+     * Only the queue's tail event of the same source is coalesced, 
+     * i.e. an event of another source or a non-motion event enqueued in between ends coalescing.
+     * </p>
+     * @return true if the event has been coalesced, otherwise false
+     */
+    private boolean coalesceEvent(NEWTEvent e) {
+        if( e instanceof MouseEvent && e.getSource() instanceof WindowImpl ) {
+            final NEWTEventTask last = events.peekLast();
+            if( null != last && !last.isCallerWaiting() ) {
+                final NEWTEvent q = last.get();
+                if( null != q && q.getSource() == e.getSource() ) {
+                    final MouseEvent c = ((WindowImpl) e.getSource()).coalesceMouseEvent(q, (MouseEvent) e);
+                    return null != c && last.replace(q, c);
                 }
-            }            
+            }
         }
+        return false;
     }
 
     public interface DisplayRunnable<T> {
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.newt;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free unbounded multiple producer single consumer queue.
+ * <p>
+ * Producers append a node by atomically swapping the tail and linking the previous tail to it,
+ * i.e. {@link #offer(Object)} never blocks. The consumer follows the links from its private head,
+ * hence {@link #poll()} and {@link #isEmpty()} shall only be called by one thread at a time.
+ * </p>
+ * <p>
+ * An element just offered may not be visible to the consumer until its producer has linked it,
+ * a producer shall signal the consumer after {@link #offer(Object)} returns.
+ * </p>
+ */
+public final class MPSCQueue<E> {
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+        
+        Node(E value) { this.value = value; }
+    }
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> nextUpdater = 
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    
+    private final AtomicReference<Node<E>> tail;
+    private Node<E> head; // consumer only, the last consumed node or the stub
+    
+    public MPSCQueue() {
+        head = new Node<E>(null);
+        tail = new AtomicReference<Node<E>>(head);
+    }
+    
+    /** Appends the given non <code>null</code> element, may be called by any thread. */
+    public void offer(E e) {
+        final Node<E> n = new Node<E>(e);
+        final Node<E> prev = tail.getAndSet(n);
+        nextUpdater.lazySet(prev, n); // linked, visible to the consumer w/ the next volatile read
+    }
+    
+    /** 
+     * Returns the last offered element, may be called by any thread. 
+     * <p>
+     * The element may already be consumed, or <code>null</code> if the queue has not been used yet
+     * or the consumer has removed it already. 
+     * </p>
+     */
+    public E peekLast() {
+        return tail.get().value;
+    }
+    
+    /** Removes and returns the first element or <code>null</code> if empty, consumer only. */
+    public E poll() {
+        final Node<E> next = head.next;
+        if( null == next ) {
+            return null;
+        }
+        final E e = next.value;
+        next.value = null; // next becomes the new stub
+        head = next;
+        return e;
+    }
+    
+    /** Returns <code>true</code> if no linked element is available, consumer only. */
+    public boolean isEmpty() {
+        return null == head.next;
+    }
+}
@@ -183,6 +183,8 @@ public abstract class WindowImpl implements Window, NEWTEventConsumer
     private short lastMouseClickCount = (short)0; // last mouse button click count
     private boolean mouseInWindow = false;// mouse entered window - is inside the window (may be synthetic)
     private Point lastMousePosition = new Point();
+    private volatile boolean mouseMotionCoalescing = false;
+    private volatile boolean mouseMotionHistory = false;
 
     private ArrayList<KeyListener> keyListeners = new ArrayList<KeyListener>();
 
@@ -2434,6 +2436,44 @@ public abstract class WindowImpl implements Window, NEWTEventConsumer
         return mouseListeners.toArray(new MouseListener[mouseListeners.size()]);
     }
 
+    @Override
+    public final void setMouseMotionCoalescing(boolean coalesce, boolean keepHistory) {
+        mouseMotionHistory = coalesce && keepHistory;
+        mouseMotionCoalescing = coalesce;
+    }
+
+    @Override
+    public final boolean isMouseMotionCoalescing() {
+        return mouseMotionCoalescing;
+    }
+
+    @Override
+    public final boolean isMouseMotionHistoryKept() {
+        return mouseMotionHistory;
+    }
+
+    /**
+     * Returns the event replacing the <code>queued</code> event not yet dispatched 
+     * by the consecutive event <code>e</code> if {@link #setMouseMotionCoalescing(boolean, boolean) coalescing} is enabled
+     * and both are {@link MouseEvent#isCoalescable(MouseEvent) coalescable}, otherwise <code>null</code>.
+     * <p>
+     * Called by {@link DisplayImpl#enqueueEvent(boolean, NEWTEvent)} on the producer thread,
+     * the <code>queued</code> event is only replaced if not yet taken by the consumer.
+     * </p>
+     */
+    final MouseEvent coalesceMouseEvent(NEWTEvent queued, MouseEvent e) {
+        if( mouseMotionCoalescing && queued instanceof MouseEvent ) {
+            final MouseEvent q = (MouseEvent) queued;
+            if( q.isCoalescable(e) ) {
+                if(DEBUG_MOUSE_EVENT) {
+                    System.err.println("coalesceMouseEvent: "+q+" -> "+e);
+                }
+                return MouseEvent.createCoalesced(q, e, mouseMotionHistory);
+            }
+        }
+        return null;
+    }
+
     protected void consumeMouseEvent(MouseEvent e) {
         if(DEBUG_MOUSE_EVENT) {
             System.err.println("consumeMouseEvent: event:         "+e);
@@ -28,34 +28,66 @@
  
 package jogamp.newt.event;
 
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
 import com.jogamp.newt.event.NEWTEvent;
 
 /**
  * Helper class to provide a NEWTEvent queue implementation with a NEWTEvent wrapper
  * which notifies after sending the event for the <code>invokeAndWait()</code> semantics.
+ * <p>
+ * The waiting caller is parked until the consumer has {@link #notifyCaller() signaled} completion,
+ * no monitor is involved.
+ * </p>
  */
 public class NEWTEventTask {
-    private NEWTEvent event;
-    private Object notifyObject;
+    private final AtomicReference<NEWTEvent> event;
+    private final Thread waiter;
+    private volatile boolean done;
     private RuntimeException exception;
 
-    public NEWTEventTask(NEWTEvent event, Object notifyObject) {
-        this.event = event ;
-        this.notifyObject = notifyObject ;
+    /**
+     * @param event the event
+     * @param wait if <code>true</code>, the current thread may {@link #waitForCompletion() wait} for the completion
+     */
+    public NEWTEventTask(NEWTEvent event, boolean wait) {
+        this.event = new AtomicReference<NEWTEvent>(event);
+        this.waiter = wait ? Thread.currentThread() : null;
+        this.done = false;
         this.exception = null;
     }
 
-    public final NEWTEvent get() { return event; }
+    /** Returns the event or <code>null</code> if already {@link #take() taken} by the consumer. */
+    public final NEWTEvent get() { return event.get(); }
+    /** Consumer: Returns the event and clears it, i.e. no more {@link #replace(NEWTEvent, NEWTEvent) replacements}. */
+    public final NEWTEvent take() { return event.getAndSet(null); }
+    /** Returns <code>true</code> if the event has been {@link #take() taken} by the consumer. */
+    public final boolean isTaken() { return null == event.get(); }
+    /** Producer: Replaces the event by a coalesced event, returns <code>false</code> if already taken or replaced meanwhile. */
+    public final boolean replace(NEWTEvent expect, NEWTEvent update) { return null != expect && event.compareAndSet(expect, update); }
     public final void setException(RuntimeException e) { exception = e; }
     public final RuntimeException getException() { return exception; }
-    public final boolean isCallerWaiting() { return null != notifyObject; }
+    public final boolean isCallerWaiting() { return null != waiter; }
 
+    /** Consumer: Signals completion to the waiting caller, if any. */
     public void notifyCaller() {
-        if(null != notifyObject) {
-            synchronized (notifyObject) {
-                notifyObject.notifyAll();
+        if(null != waiter) {
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /** 
+     * Caller: Waits until {@link #notifyCaller()} has been called. 
+     * @throws InterruptedException if the caller has been interrupted while waiting 
+     */
+    public void waitForCompletion() throws InterruptedException {
+        while( !done ) {
+            LockSupport.park(this);
+            if( Thread.interrupted() ) {
+                throw new InterruptedException();
             }
         }
     }
 }
-
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.graph;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import jogamp.graph.font.UbuntuFontLoader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.font.FontFactory;
+import com.jogamp.opengl.math.geom.AABBox;
+
+/**
+ * Validates and benchmarks concurrent text layout, i.e. {@link Font#getGlyph(char)},
+ * {@link Font#getStringWidth(CharSequence, float)} and {@link Font#getStringBounds(CharSequence, float)}
+ * on multiple threads sharing one {@link Font}.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestFontConcurrentLayoutNOUI {
+    static final float fontSize = 24f;
+    static int loops = 200;
+    static int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    static final String[] texts;
+    static {
+        // printable latin-1 and latin extended-A glyphs, most are created concurrently on first use
+        final StringBuilder sb = new StringBuilder();
+        texts = new String[32];
+        for(int i=0; i<texts.length; i++) {
+            sb.setLength(0);
+            for(int j=0; j<48; j++) {
+                final char c = (char) ( 0x21 + ( i * 37 + j * 11 ) % ( 0x17f - 0x21 ) );
+                sb.append( FontFactory.isPrintableChar(c) ? c : ' ' );
+                if( 0 == j % 7 ) {
+                    sb.append(' ');
+                }
+            }
+            texts[i] = sb.toString();
+        }
+    }
+
+    static Font createFont() throws IOException {
+        // new instance w/ empty glyph cache
+        return FontFactory.get(IOUtil.getResource(UbuntuFontLoader.class, "fonts/ubuntu/Ubuntu-R.ttf"));
+    }
+
+    static void layout(Font font, int offset, float[] widths, AABBox[] bounds) {
+        for(int i=0; i<texts.length; i++) {
+            final int j = ( i + offset ) % texts.length;
+            widths[j] = font.getStringWidth(texts[j], fontSize);
+            bounds[j] = font.getStringBounds(texts[j], fontSize);
+        }
+    }
+
+    @Test
+    public void test01ConcurrentEqualsSequential() throws IOException, InterruptedException {
+        final float[] expWidths = new float[texts.length];
+        final AABBox[] expBounds = new AABBox[texts.length];
+        layout(createFont(), 0, expWidths, expBounds);
+
+        for(int k=0; k<10; k++) {
+            final Font font = createFont();
+            final float[][] widths = new float[maxThreads][texts.length];
+            final AABBox[][] bounds = new AABBox[maxThreads][texts.length];
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread[] threads = new Thread[maxThreads];
+            for(int t=0; t<threads.length; t++) {
+                final int offset = t;
+                threads[t] = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) { }
+                        layout(font, offset, widths[offset], bounds[offset]);
+                    } }, "Layout-"+t);
+                threads[t].start();
+            }
+            start.countDown();
+            for(int t=0; t<threads.length; t++) {
+                threads[t].join();
+            }
+            for(int t=0; t<threads.length; t++) {
+                for(int i=0; i<texts.length; i++) {
+                    Assert.assertEquals("Thread "+t+", text "+i, expWidths[i], widths[t][i], 0f);
+                    Assert.assertArrayEquals("Thread "+t+", text "+i, expBounds[i].getHigh(), bounds[t][i].getHigh(), 0f);
+                }
+            }
+            // each glyph is created only once
+            for(int i=0; i<texts[0].length(); i++) {
+                final char c = texts[0].charAt(i);
+                Assert.assertSame(font.getGlyph(c), font.getGlyph(c));
+            }
+        }
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException, InterruptedException {
+        for(int threadCount=1; threadCount<=maxThreads; threadCount*=2) {
+            benchmarkImpl(threadCount);
+        }
+    }
+
+    void benchmarkImpl(final int threadCount) throws IOException, InterruptedException {
+        final Font font = createFont();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadCount];
+        for(int t=0; t<threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    final float[] widths = new float[texts.length];
+                    final AABBox[] bounds = new AABBox[texts.length];
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) { }
+                    for(int l=0; l<loops; l++) {
+                        layout(font, offset, widths, bounds);
+                    }
+                } }, "Layout-"+t);
+            threads[t].start();
+        }
+        final long t0 = System.nanoTime();
+        start.countDown();
+        for(int t=0; t<threads.length; t++) {
+            threads[t].join();
+        }
+        final long dt = System.nanoTime() - t0;
+        final long strings = (long)threadCount * loops * texts.length * 2;
+        System.err.println("Threads "+threadCount+", loops "+loops+": "+(dt/1000000f)+" ms, "+( strings * 1000000000L / dt )+" strings/s");
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-threads")) {
+                i++;
+                maxThreads = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestFontConcurrentLayoutNOUI.class.getName());
+    }
+}
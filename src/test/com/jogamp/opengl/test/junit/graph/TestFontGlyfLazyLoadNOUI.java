@@ -0,0 +1,302 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.graph;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+
+import jogamp.graph.font.UbuntuFontLoader;
+import jogamp.graph.font.typecast.ot.OTFont;
+import jogamp.graph.font.typecast.ot.OTFontCollection;
+import jogamp.graph.font.typecast.ot.table.GlyfDescript;
+import jogamp.graph.font.typecast.ot.table.GlyfTable;
+import jogamp.graph.font.typecast.ot.table.LocaTable;
+import jogamp.graph.font.typecast.ot.table.Table;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.font.FontFactory;
+
+/**
+ * Validates lazy 'glyf' decoding against the eager path and memory mapped against heap font data,
+ * and benchmarks load time and retained heap of lazy and eager decoding.
+ * <p>
+ * Use <code>-font &lt;file&gt;</code> to benchmark a custom font, e.g. a CJK font w/ many glyphs.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestFontGlyfLazyLoadNOUI {
+    static final String ubuntuFontName = "Ubuntu-R.ttf";
+    static String fontFileName = null;
+    static int loops = 20;
+    static File fontFile;
+    static boolean deleteFontFile;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        if( null != fontFileName ) {
+            fontFile = new File(fontFileName);
+            deleteFontFile = false;
+        } else {
+            final URLConnection conn = IOUtil.getResource(UbuntuFontLoader.class, "fonts/ubuntu/"+ubuntuFontName);
+            Assert.assertNotNull(conn);
+            fontFile = IOUtil.createTempFile( "jogl.font", ".ttf", false);
+            Assert.assertTrue(0 < IOUtil.copyURLConn2File(conn, fontFile));
+            deleteFontFile = true;
+        }
+    }
+
+    @AfterClass
+    public static void release() {
+        if( deleteFontFile ) {
+            fontFile.delete();
+        }
+    }
+
+    static GlyfTable getGlyfTable(OTFontCollection fc) {
+        final GlyfTable glyf = (GlyfTable) fc.getFont(0).getTable(Table.glyf);
+        Assert.assertNotNull(glyf);
+        return glyf;
+    }
+
+    static void assertEquals(int i, GlyfDescript exp, GlyfDescript has) {
+        if( null == exp ) {
+            Assert.assertNull("Glyph "+i, has);
+            return;
+        }
+        Assert.assertNotNull("Glyph "+i, has);
+        Assert.assertEquals("Glyph "+i, exp.isComposite(), has.isComposite());
+        Assert.assertEquals("Glyph "+i, exp.getPointCount(), has.getPointCount());
+        Assert.assertEquals("Glyph "+i, exp.getContourCount(), has.getContourCount());
+        Assert.assertEquals("Glyph "+i, exp.getXMinimum(), has.getXMinimum());
+        Assert.assertEquals("Glyph "+i, exp.getYMaximum(), has.getYMaximum());
+        for(int j=0; j<exp.getPointCount(); j++) {
+            Assert.assertEquals("Glyph "+i+", point "+j, exp.getXCoordinate(j), has.getXCoordinate(j));
+            Assert.assertEquals("Glyph "+i+", point "+j, exp.getYCoordinate(j), has.getYCoordinate(j));
+            Assert.assertEquals("Glyph "+i+", point "+j, exp.getFlags(j), has.getFlags(j));
+        }
+        for(int j=0; j<exp.getContourCount(); j++) {
+            Assert.assertEquals("Glyph "+i+", contour "+j, exp.getEndPtOfContours(j), has.getEndPtOfContours(j));
+        }
+    }
+
+    @Test
+    public void test01LazyEqualsEager() throws IOException {
+        final OTFontCollection eager = OTFontCollection.create(fontFile, false);
+        final OTFontCollection lazy = OTFontCollection.create(fontFile, true);
+        final GlyfTable eagerGlyf = getGlyfTable(eager);
+        final GlyfTable lazyGlyf = getGlyfTable(lazy);
+        Assert.assertFalse(eagerGlyf.isLazy());
+        Assert.assertTrue(lazyGlyf.isLazy());
+
+        final int numGlyphs = eager.getFont(0).getNumGlyphs();
+        Assert.assertEquals(numGlyphs, lazy.getFont(0).getNumGlyphs());
+        // reverse order, i.e. composites are decoded before their components
+        for(int i=numGlyphs-1; i>=0; i--) {
+            assertEquals(i, eagerGlyf.getDescription(i), lazyGlyf.getDescription(i));
+        }
+        Assert.assertSame(lazyGlyf.getDescription(0), lazyGlyf.getDescription(0));
+    }
+
+    @Test
+    public void test02LazyConcurrentDecode() throws InterruptedException, IOException {
+        final OTFontCollection lazy = OTFontCollection.create(fontFile, true);
+        final GlyfTable lazyGlyf = getGlyfTable(lazy);
+        final int numGlyphs = lazy.getFont(0).getNumGlyphs();
+        final GlyfDescript[][] results = new GlyfDescript[4][numGlyphs];
+        final Thread[] threads = new Thread[results.length];
+        for(int t=0; t<threads.length; t++) {
+            final GlyfDescript[] res = results[t];
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for(int i=0; i<numGlyphs; i++) {
+                        res[i] = lazyGlyf.getDescription(i);
+                    }
+                } }, "GlyfDecode-"+t);
+            threads[t].start();
+        }
+        for(int t=0; t<threads.length; t++) {
+            threads[t].join();
+        }
+        for(int i=0; i<numGlyphs; i++) {
+            for(int t=1; t<results.length; t++) {
+                Assert.assertSame("Glyph "+i, results[0][i], results[t][i]);
+            }
+        }
+    }
+
+    @Test
+    public void test03MappedEqualsHeap() throws IOException {
+        final OTFontCollection mapped = OTFontCollection.create(fontFile, true);
+        final byte[] data = readFontFile();
+        final OTFontCollection heap = OTFontCollection.create(ByteBuffer.wrap(data), fontFile.getName(), true);
+        final GlyfTable mappedGlyf = getGlyfTable(mapped);
+        final GlyfTable heapGlyf = getGlyfTable(heap);
+        final int numGlyphs = mapped.getFont(0).getNumGlyphs();
+        Assert.assertEquals(numGlyphs, heap.getFont(0).getNumGlyphs());
+        for(int i=0; i<numGlyphs; i++) {
+            assertEquals(i, heapGlyf.getDescription(i), mappedGlyf.getDescription(i));
+        }
+
+        final Font fontByFile = FontFactory.get(fontFile);
+        final Font fontByURL = FontFactory.get(IOUtil.getResource(UbuntuFontLoader.class, "fonts/ubuntu/"+ubuntuFontName));
+        if( null == fontFileName ) {
+            final String text = "The quick brown fox jumps over the lazy dog";
+            Assert.assertEquals(fontByFile.getStringWidth(text, 24f), fontByURL.getStringWidth(text, 24f), 0f);
+        }
+    }
+
+    static byte[] readFontFile() throws IOException {
+        final byte[] data = new byte[(int)fontFile.length()];
+        final DataInputStream dis = new DataInputStream(new FileInputStream(fontFile));
+        try {
+            dis.readFully(data);
+        } finally {
+            dis.close();
+        }
+        return data;
+    }
+
+    /** Patches the first component of composite glyph <code>i</code> to reference glyph <code>ref</code>. */
+    static void setFirstComponent(byte[] data, int glyfOffset, LocaTable loca, int i, int ref) {
+        // header: numberOfContours, xMin, yMin, xMax, yMax; component: flags, glyphIndex
+        final int off = glyfOffset + loca.getOffset(i) + 12;
+        data[off] = (byte) ( ref >> 8 );
+        data[off+1] = (byte) ref;
+    }
+
+    @Test
+    public void test04CompositeCycle() throws IOException {
+        final byte[] data = readFontFile();
+        final OTFontCollection orig = OTFontCollection.create(ByteBuffer.wrap(data.clone()), fontFile.getName(), true);
+        final GlyfTable origGlyf = getGlyfTable(orig);
+        final LocaTable loca = (LocaTable) orig.getFont(0).getTable(Table.loca);
+        final int numGlyphs = orig.getFont(0).getNumGlyphs();
+        int a = -1, b = -1;
+        for(int i=0; i<numGlyphs && 0 > b; i++) {
+            final GlyfDescript d = origGlyf.getDescription(i);
+            if( null != d && d.isComposite() ) {
+                if( 0 > a ) {
+                    a = i;
+                } else {
+                    b = i;
+                }
+            }
+        }
+        if( 0 > b ) {
+            System.err.println("Font has less than two composite glyphs, skipping cycle test");
+            return;
+        }
+        // a -> b -> a
+        final int glyfOffset = origGlyf.getDirectoryEntry().getOffset();
+        setFirstComponent(data, glyfOffset, loca, a, b);
+        setFirstComponent(data, glyfOffset, loca, b, a);
+
+        final OTFontCollection lazy = OTFontCollection.create(ByteBuffer.wrap(data.clone()), fontFile.getName(), true);
+        final GlyfTable lazyGlyf = getGlyfTable(lazy);
+        Assert.assertNotNull(lazyGlyf.getDescription(a));
+        Assert.assertNotNull(lazyGlyf.getDescription(b));
+        Assert.assertTrue(lazyGlyf.getDescription(b).isComposite());
+
+        final OTFontCollection eager = OTFontCollection.create(ByteBuffer.wrap(data), fontFile.getName(), false);
+        final GlyfTable eagerGlyf = getGlyfTable(eager);
+        Assert.assertNotNull(eagerGlyf.getDescription(a));
+        Assert.assertNotNull(eagerGlyf.getDescription(b));
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException {
+        benchmarkImpl(true);
+        benchmarkImpl(false);
+        benchmarkImpl(true);
+        benchmarkImpl(false);
+    }
+
+    static long usedHeap() {
+        final Runtime rt = Runtime.getRuntime();
+        for(int i=0; i<3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    void benchmarkImpl(boolean lazyGlyf) throws IOException {
+        final OTFontCollection[] fonts = new OTFontCollection[loops];
+        final long heap0 = usedHeap();
+        final long t0 = System.nanoTime();
+        for(int i = 0; i< loops; i++ ) {
+            fonts[i] = OTFontCollection.create(fontFile, lazyGlyf);
+        }
+        final long t1 = System.nanoTime();
+        // typical UI usage: only a few glyphs are ever requested
+        for(int i = 0; i< loops; i++ ) {
+            final OTFont font = fonts[i].getFont(0);
+            for(int j='0'; j<='z'; j++) {
+                font.getGlyph(font.getCmapTable().getCmapFormat((short)3, (short)1).mapCharCode(j));
+            }
+        }
+        final long t2 = System.nanoTime();
+        final long heap1 = usedHeap();
+        final float loadMsPl = (t1 - t0) / 1000000f / loops;
+        final float glyphMsPl = (t2 - t1) / 1000000f / loops;
+        final float heapKiBPl = ( heap1 - heap0 ) / 1024f / loops;
+        System.err.println((lazyGlyf?"Lazy.":"Eager")+" Loops "+loops+", glyphs "+fonts[0].getFont(0).getNumGlyphs()+
+                           ": load "+loadMsPl+" ms/l, glyph access "+glyphMsPl+" ms/l, retained heap "+heapKiBPl+" KiB/l");
+        Assert.assertNotNull(fonts[loops-1]); // keep fonts reachable until measured
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-font")) {
+                i++;
+                fontFileName = args[i];
+            } else if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestFontGlyfLazyLoadNOUI.class.getName());
+    }
+}
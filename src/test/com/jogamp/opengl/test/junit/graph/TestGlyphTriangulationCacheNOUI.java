@@ -0,0 +1,208 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import jogamp.graph.curve.text.GlyphShape;
+import jogamp.graph.curve.text.GlyphTriangulationCache;
+import jogamp.graph.font.FontInt;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.graph.curve.OutlineShape;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.font.FontFactory;
+import com.jogamp.graph.geom.Triangle;
+import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
+import com.jogamp.graph.geom.opengl.SVertex;
+import com.jogamp.opengl.math.geom.AABBox;
+
+/**
+ * Validates the {@link GlyphTriangulationCache} against the uncached glyph triangulation
+ * and benchmarks both.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGlyphTriangulationCacheNOUI {
+    static final String text = "JogAmp graph text, 0123456789 !";
+    static final int fontSize = 24;
+    static int loops = 100;
+    static Font font;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        font = FontFactory.get(FontFactory.UBUNTU).getDefault();
+    }
+
+    static AABBox getBounds(ArrayList<Triangle> triangles) {
+        final AABBox box = new AABBox();
+        for(int j=0; j<triangles.size(); j++) {
+            for(Vertex v : triangles.get(j).getVertices()) {
+                box.resize(v.getX(), v.getY(), v.getZ());
+            }
+        }
+        return box;
+    }
+
+    /**
+     * The cached geometry is triangulated in font units,
+     * while the uncached triangulation operates on the scaled and translated outline.
+     * Both triangulations are valid, but may differ in detail due to rounding,
+     * hence we validate the covered bounds and the cached triangulation itself.
+     */
+    @Test
+    public void test01CachedEqualsUncached() {
+        final GlyphTriangulationCache cache = new GlyphTriangulationCache(-1);
+        final Vertex.Factory<SVertex> vf = SVertex.factory();
+        final float scale = font.getMetrics().getScale(fontSize);
+        for(int i=0; i<text.length(); i++) {
+            final char c = text.charAt(i);
+            if( ' ' == c ) {
+                continue;
+            }
+            final FontInt.GlyphInt glyph = (FontInt.GlyphInt)font.getGlyph(c);
+
+            // uncached: scaled outline at origin
+            final ArrayList<OutlineShape> shapes = ((FontInt)font).getOutlineShapes(String.valueOf(c), fontSize, vf);
+            Assert.assertEquals(1, shapes.size());
+            final ArrayList<Triangle> expTris = new GlyphShape(vf, shapes.get(0)).triangulate();
+            final AABBox expBox = getBounds(expTris);
+
+            // uncached: font units
+            final ArrayList<Triangle> expFUTris = new GlyphShape(vf, ((FontInt)font).getOutlineShape(glyph, vf)).triangulate();
+
+            final GlyphTriangulationCache.Geometry g = cache.get((FontInt)font, glyph);
+            Assert.assertNotNull("Glyph "+c, g);
+            Assert.assertEquals("Glyph "+c, expFUTris.size(), g.getTriangleCount());
+            Assert.assertSame(g, cache.get((FontInt)font, glyph));
+
+            final ArrayList<Vertex> hasVertices = new ArrayList<Vertex>();
+            final ArrayList<Triangle> hasTris = new ArrayList<Triangle>();
+            Assert.assertEquals(g.getVertexCount(), g.addTo(vf, 0f, 0f, 1f, 0, hasVertices, hasTris));
+            for(int j=0; j<hasTris.size(); j++) {
+                final Vertex[] exp = expFUTris.get(j).getVertices();
+                final Vertex[] has = hasTris.get(j).getVertices();
+                for(int k=0; k<3; k++) {
+                    Assert.assertEquals("Glyph "+c+", tri "+j, exp[k], has[k]);
+                    Assert.assertEquals("Glyph "+c+", tri "+j, has[k], hasVertices.get(has[k].getId()));
+                }
+            }
+
+            hasVertices.clear();
+            hasTris.clear();
+            g.addTo(vf, 0f, 0f, scale, 0, hasVertices, hasTris);
+            final AABBox hasBox = getBounds(hasTris);
+            Assert.assertArrayEquals("Glyph "+c, expBox.getLow(), hasBox.getLow(), 0.001f);
+            Assert.assertArrayEquals("Glyph "+c, expBox.getHigh(), hasBox.getHigh(), 0.001f);
+        }
+    }
+
+    @Test
+    public void test02Eviction() {
+        final GlyphTriangulationCache cache = new GlyphTriangulationCache(-1);
+        for(int i=0; i<text.length(); i++) {
+            cache.get((FontInt)font, (FontInt.GlyphInt)font.getGlyph(text.charAt(i)));
+        }
+        final int fullSize = cache.getByteSize();
+        final int fullCount = cache.getGlyphCount();
+        cache.setByteLimit(fullSize / 2);
+        Assert.assertTrue(cache.getByteSize() <= fullSize / 2);
+        Assert.assertTrue(cache.getGlyphCount() < fullCount);
+        System.err.println(cache);
+
+        cache.clear(font);
+        Assert.assertEquals(0, cache.getGlyphCount());
+        Assert.assertEquals(0, cache.getByteSize());
+    }
+
+    @Test
+    public void test10Benchmark() {
+        final Vertex.Factory<SVertex> vf = SVertex.factory();
+        final GlyphTriangulationCache cache = new GlyphTriangulationCache(GlyphTriangulationCache.DEFAULT_BYTE_LIMIT);
+        for(int k=0; k<2; k++) {
+            {
+                final long t0 = System.nanoTime();
+                int triCount = 0;
+                for(int l=0; l<loops; l++) {
+                    final ArrayList<OutlineShape> shapes = ((FontInt)font).getOutlineShapes(text, fontSize, vf);
+                    for(int i=0; i<shapes.size(); i++) {
+                        final GlyphShape glyphShape = new GlyphShape(vf, shapes.get(i));
+                        if( glyphShape.getNumVertices() >= 3 ) {
+                            triCount += glyphShape.triangulate().size();
+                        }
+                    }
+                }
+                final long t1 = System.nanoTime();
+                System.err.println("Uncached Loops "+loops+", "+( (t1-t0)/1000000f/loops )+" ms/l, triangles "+triCount/loops);
+            }
+            {
+                final long t0 = System.nanoTime();
+                int triCount = 0;
+                final float scale = font.getMetrics().getScale(fontSize);
+                final VertexStore store = new VertexStore();
+                for(int l=0; l<loops; l++) {
+                    store.clear();
+                    float x = 0;
+                    for(int i=0; i<text.length(); i++) {
+                        final Font.Glyph glyph = font.getGlyph(text.charAt(i));
+                        final GlyphTriangulationCache.Geometry g = cache.get((FontInt)font, (FontInt.GlyphInt)glyph);
+                        if( null != g ) {
+                            g.addTo(store, x, 0f, scale);
+                        }
+                        x += glyph.getAdvance(fontSize, true);
+                    }
+                    triCount += store.getTriangleCount();
+                }
+                final long t1 = System.nanoTime();
+                System.err.println("Cached.. Loops "+loops+", "+( (t1-t0)/1000000f/loops )+" ms/l, triangles "+triCount/loops+", "+cache);
+            }
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestGlyphTriangulationCacheNOUI.class.getName());
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.graph;
+
+import java.io.IOException;
+
+import jogamp.graph.curve.text.GlyphString;
+import jogamp.graph.curve.text.GlyphTriangulationCache;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.graph.curve.Region;
+import com.jogamp.graph.curve.opengl.GLRegion;
+import com.jogamp.graph.curve.opengl.GLRegionBatch;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.font.FontFactory;
+import com.jogamp.graph.geom.VertexStore;
+
+/**
+ * Validates {@link VertexStore#splitChunks(int, VertexStore)} used w/o 32 bit index support
+ * and the {@link GLRegionBatch} entries, and benchmarks region creation per string vs batched.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestRegionBatchNOUI {
+    static final int fontSize = 24;
+    static int loops = 10;
+    static Font font;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        font = FontFactory.get(FontFactory.UBUNTU).getDefault();
+    }
+
+    static void testSplitChunks(VertexStore src, int maxVertices) {
+        final VertexStore dest = new VertexStore();
+        final int[] chunks = src.splitChunks(maxVertices, dest);
+        Assert.assertEquals(0, chunks.length % 4);
+        int triangles = 0;
+        for(int c=0; c<chunks.length; c+=4) {
+            final int firstTriangle = chunks[c+0], triangleCount = chunks[c+1], firstVertex = chunks[c+2], vertexCount = chunks[c+3];
+            Assert.assertEquals(triangles, firstTriangle);
+            Assert.assertTrue(0 < triangleCount);
+            Assert.assertTrue(vertexCount <= maxVertices);
+            for(int j=firstTriangle; j<firstTriangle+triangleCount; j++) {
+                for(int k=0; k<3; k++) {
+                    final int local = dest.getIndex(j, k);
+                    Assert.assertTrue(0 <= local && local < vertexCount);
+                    final int si = src.getIndex(j, k);
+                    final int di = firstVertex + local;
+                    Assert.assertEquals(src.getX(si), dest.getX(di), 0f);
+                    Assert.assertEquals(src.getY(si), dest.getY(di), 0f);
+                    Assert.assertEquals(src.getS(si), dest.getS(di), 0f);
+                    Assert.assertEquals(src.isOnCurve(si), dest.isOnCurve(di));
+                }
+            }
+            triangles += triangleCount;
+        }
+        Assert.assertEquals(src.getTriangleCount(), triangles);
+        Assert.assertEquals(src.getTriangleCount(), dest.getTriangleCount());
+        System.err.println("Split "+src+" w/ max "+maxVertices+": "+chunks.length/4+" chunks, "+dest);
+    }
+
+    @Test
+    public void test01SplitChunks() {
+        final int count = 150000;
+        final VertexStore src = new VertexStore(count);
+        for(int i=0; i<count; i++) {
+            src.addVertex(i, -i, 0f, i & 0xff, 0f, 0 == ( i % 3 ));
+        }
+        for(int i=0; i+2<count; i+=2) {
+            src.addTriangle(i, i+1, i+2);
+            if( 0 == i % 1000 ) {
+                src.addTriangle(i, 0, count-1); // far references, duplicated per chunk
+                src.addTriangle(i+1, i+1, i+2); // degenerated
+            }
+        }
+        testSplitChunks(src, 65536);
+        testSplitChunks(src, 1000);
+        testSplitChunks(src, 3);
+
+        final VertexStore dest = new VertexStore();
+        Assert.assertEquals(1, src.splitChunks(count, dest).length / 4);
+        Assert.assertEquals(count, dest.getVertexCount());
+    }
+
+    @Test
+    public void test02BatchEntries() {
+        final String[] labels = { "Label", "JogAmp", "0123456789", "graph text !" };
+        final GLRegionBatch batch = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT);
+        final VertexStore vs = batch.getRegion().getVertexStore();
+        for(int i=0; i<100; i++) {
+            Assert.assertEquals(i, batch.addString(font, fontSize, labels[i % labels.length], 10f * i, 30f * i));
+        }
+        Assert.assertEquals(100, batch.getEntryCount());
+        int vertices = 0, triangles = 0;
+        for(int i=0; i<batch.getEntryCount(); i++) {
+            final GLRegionBatch.Entry e = batch.getEntry(i);
+            Assert.assertEquals(vertices, e.firstVertex);
+            Assert.assertEquals(triangles, e.firstTriangle);
+            Assert.assertTrue(0 < e.triangleCount);
+
+            // same geometry as the single string, translated
+            final GLRegionBatch single = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT);
+            single.addString(font, fontSize, labels[i % labels.length], 0f, 0f);
+            final VertexStore exp = single.getRegion().getVertexStore();
+            Assert.assertEquals(exp.getVertexCount(), e.vertexCount);
+            Assert.assertEquals(exp.getTriangleCount(), e.triangleCount);
+            for(int j=0; j<e.vertexCount; j++) {
+                Assert.assertEquals(exp.getX(j) + 10f * i, vs.getX(e.firstVertex + j), 0.001f);
+                Assert.assertEquals(exp.getY(j) + 30f * i, vs.getY(e.firstVertex + j), 0.001f);
+            }
+            for(int j=0; j<e.triangleCount; j++) {
+                Assert.assertEquals(exp.getIndex(j, 0) + e.firstVertex, vs.getIndex(e.firstTriangle + j, 0));
+            }
+            vertices += e.vertexCount;
+            triangles += e.triangleCount;
+        }
+        Assert.assertEquals(vertices, vs.getVertexCount());
+        Assert.assertEquals(triangles, vs.getTriangleCount());
+        Assert.assertEquals(vertices, batch.getRegion().getNumVertices());
+        System.err.println(batch);
+    }
+
+    @Test
+    public void test03CapacityHint() {
+        final String[] strings = { "Hello", "Batched", "World 0123" };
+        final GLRegionBatch sized = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT);
+        for(int i=0; i<strings.length; i++) {
+            sized.addString(font, fontSize, strings[i], 0f, 30f * i);
+        }
+        final VertexStore exp = sized.getRegion().getVertexStore();
+
+        final GLRegionBatch batch = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT, exp.getVertexCount(), exp.getTriangleCount());
+        final VertexStore vs = batch.getRegion().getVertexStore();
+        final float[] coords = vs.getCoords();
+        final int[] indices = vs.getIndices();
+        for(int i=0; i<strings.length; i++) {
+            batch.addString(font, fontSize, strings[i], 0f, 30f * i);
+        }
+        Assert.assertEquals(exp.getVertexCount(), vs.getVertexCount());
+        Assert.assertEquals(exp.getTriangleCount(), vs.getTriangleCount());
+        Assert.assertSame(coords, vs.getCoords());
+        Assert.assertSame(indices, vs.getIndices());
+    }
+
+    @Test
+    public void test10Benchmark() {
+        final int count = 500;
+        final GlyphTriangulationCache cache = GlyphTriangulationCache.getDefault();
+        for(int k=0; k<2; k++) {
+            {
+                final long t0 = System.nanoTime();
+                for(int l=0; l<loops; l++) {
+                    for(int i=0; i<count; i++) {
+                        final GLRegion region = GlyphString.createString(font, fontSize, "Label "+i, cache).createRegion(null, Region.VARIABLE_CURVE_WEIGHT_BIT);
+                        Assert.assertTrue(0 < region.getVertexStore().getTriangleCount());
+                    }
+                }
+                final long t1 = System.nanoTime();
+                System.err.println("Region per string: "+count+" strings, "+count+" regions/draw calls, "+( (t1-t0)/1000000f/loops )+" ms/l");
+            }
+            {
+                final long t0 = System.nanoTime();
+                GLRegionBatch batch = null;
+                for(int l=0; l<loops; l++) {
+                    batch = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT);
+                    for(int i=0; i<count; i++) {
+                        batch.addString(font, fontSize, "Label "+i, 0f, 30f * i);
+                    }
+                    Assert.assertTrue(0 < batch.getRegion().getVertexStore().getTriangleCount());
+                }
+                final long t1 = System.nanoTime();
+                System.err.println("Batched region...: "+count+" strings, 1 region/draw call, "+( (t1-t0)/1000000f/loops )+" ms/l, "+batch);
+                final VertexStore exp = batch.getRegion().getVertexStore();
+                final int vertexCount = exp.getVertexCount();
+                final int triangleCount = exp.getTriangleCount();
+                final long t2 = System.nanoTime();
+                for(int l=0; l<loops; l++) {
+                    batch = new GLRegionBatch(Region.VARIABLE_CURVE_WEIGHT_BIT, vertexCount, triangleCount);
+                    for(int i=0; i<count; i++) {
+                        batch.addString(font, fontSize, "Label "+i, 0f, 30f * i);
+                    }
+                    Assert.assertTrue(0 < batch.getRegion().getVertexStore().getTriangleCount());
+                }
+                final long t3 = System.nanoTime();
+                System.err.println("Batched, sized...: "+count+" strings, 1 region/draw call, "+( (t3-t2)/1000000f/loops )+" ms/l, "+batch);
+            }
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestRegionBatchNOUI.class.getName());
+    }
+}
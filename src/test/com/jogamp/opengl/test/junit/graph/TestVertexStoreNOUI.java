@@ -0,0 +1,241 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import jogamp.graph.font.FontInt;
+
+import com.jogamp.graph.curve.OutlineShape;
+import com.jogamp.graph.font.Font;
+import com.jogamp.graph.font.FontFactory;
+import com.jogamp.graph.geom.Triangle;
+import com.jogamp.graph.geom.Vertex;
+import com.jogamp.graph.geom.VertexStore;
+import com.jogamp.graph.geom.opengl.SVertex;
+
+/**
+ * Validates the {@link VertexStore} and its {@link Vertex} view against {@link SVertex},
+ * compares their heap footprint and benchmarks SVertex triangulation into a {@link Triangle} list vs into a {@link VertexStore}.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestVertexStoreNOUI {
+    static final String text = "JogAmp graph text, 0123456789 !";
+    static final int fontSize = 24;
+    static int loops = 100;
+    static Font font;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        font = FontFactory.get(FontFactory.UBUNTU).getDefault();
+    }
+
+    @Test
+    public void test01View() {
+        final VertexStore store = new VertexStore(1);
+        final VertexStore.Factory vf = store.factory();
+        final Vertex a = vf.create(1f, 2f, 3f, true);
+        final Vertex b = vf.create(new float[] { 0f, 4f, 5f }, 1, 2, false);
+        Assert.assertEquals(2, store.getVertexCount());
+        Assert.assertEquals(Integer.MAX_VALUE, a.getId());
+        Assert.assertArrayEquals(new float[] { 1f, 2f, 3f }, a.getCoord(), 0f);
+        Assert.assertArrayEquals(new float[] { 4f, 5f, 0f }, b.getCoord(), 0f);
+        Assert.assertTrue(a.isOnCurve());
+        Assert.assertFalse(b.isOnCurve());
+
+        // write through
+        a.setTexCoord(0.5f, 1f);
+        a.setZ(7f);
+        a.setId(42);
+        Assert.assertEquals(0.5f, store.getS(0), 0f);
+        Assert.assertEquals(1f, store.getT(0), 0f);
+        Assert.assertEquals(7f, store.getZ(0), 0f);
+        Assert.assertEquals(42, store.getId(0));
+
+        // value equality w/ SVertex
+        final SVertex s = new SVertex(1f, 2f, 7f, true);
+        s.setTexCoord(0.5f, 1f);
+        Assert.assertEquals(a, s);
+        Assert.assertEquals(s, a);
+        Assert.assertFalse(b.equals(s));
+
+        // clone appends w/ blank id
+        final Vertex c = a.clone();
+        Assert.assertEquals(3, store.getVertexCount());
+        Assert.assertEquals(a, c);
+        Assert.assertNotSame(a, c);
+        Assert.assertEquals(a.hashCode(), c.hashCode());
+        Assert.assertEquals(a.hashCode(), store.getVertex(0).hashCode());
+        Assert.assertEquals(Integer.MAX_VALUE, c.getId());
+        c.setX(9f);
+        Assert.assertEquals(1f, a.getX(), 0f);
+
+        // transformed append
+        store.addTriangle(0, 1, 2);
+        final VertexStore dest = new VertexStore(1);
+        dest.addVertex(0f, 0f, 0f, 0f, 0f, false);
+        Assert.assertEquals(1, dest.addVertexStore(store, 10f, 20f, 2f));
+        Assert.assertEquals(4, dest.getVertexCount());
+        Assert.assertEquals(1, dest.getTriangleCount());
+        Assert.assertEquals(12f, dest.getX(1), 0f);
+        Assert.assertEquals(24f, dest.getY(1), 0f);
+        Assert.assertEquals(7f, dest.getZ(1), 0f);
+        Assert.assertEquals(1, dest.getIndex(0, 0));
+        Assert.assertEquals(3, dest.getIndex(0, 2));
+    }
+
+    static VertexStore triangulate(Vertex.Factory<? extends Vertex> vf) {
+        final VertexStore dest = new VertexStore();
+        final ArrayList<OutlineShape> shapes = ((FontInt)font).getOutlineShapes(text, fontSize, vf);
+        for(int i=0; i<shapes.size(); i++) {
+            final OutlineShape shape = shapes.get(i);
+            shape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
+            if( shape.getVertices().size() >= 3 ) {
+                shape.triangulate(dest);
+            }
+        }
+        return dest;
+    }
+
+    @Test
+    public void test02TriangulationEquals() {
+        final VertexStore exp = triangulate(SVertex.factory());
+        final VertexStore has = triangulate(new VertexStore().factory());
+        Assert.assertTrue(0 < exp.getTriangleCount());
+        Assert.assertEquals(exp.getVertexCount(), has.getVertexCount());
+        Assert.assertEquals(exp.getTriangleCount(), has.getTriangleCount());
+        for(int i=0; i<exp.getVertexCount(); i++) {
+            Assert.assertEquals("Vertex "+i, exp.getVertex(i), has.getVertex(i));
+        }
+        for(int j=0; j<exp.getTriangleCount(); j++) {
+            for(int k=0; k<3; k++) {
+                Assert.assertEquals("Triangle "+j, exp.getIndex(j, k), has.getIndex(j, k));
+            }
+        }
+    }
+
+    static long usedMemory() {
+        final Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for(int i=0; i<4; i++) {
+            System.gc();
+            try { Thread.sleep(20); } catch (InterruptedException ie) {}
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    @Test
+    public void test03MemoryFootprint() {
+        final int count = 200000;
+        final long m0 = usedMemory();
+        final ArrayList<Vertex> svertices = new ArrayList<Vertex>(count);
+        final long m1 = usedMemory();
+        for(int i=0; i<count; i++) {
+            svertices.add(SVertex.factory().create(i, i, 0f, 0 == ( i & 1 )));
+        }
+        final long m2 = usedMemory();
+        final VertexStore store = new VertexStore(count);
+        for(int i=0; i<count; i++) {
+            store.addVertex(i, i, 0f, 0f, 0f, 0 == ( i & 1 ));
+        }
+        final long m3 = usedMemory();
+        final float sBytes = (float)( m2 - m1 ) / count;
+        final float vsBytes = (float)( m3 - m2 ) / count;
+        System.err.println("Footprint: SVertex "+sBytes+" bytes/vertex (w/o list "+(m1-m0)/(float)count+"), VertexStore "+vsBytes+
+                           " bytes/vertex, estimated "+(float)store.getByteSize()/count+", "+store);
+        Assert.assertEquals(count, svertices.size());
+        Assert.assertTrue("VertexStore "+vsBytes+" not less than half of SVertex "+sBytes, 2f*vsBytes < sBytes);
+    }
+
+    /** Legacy path, SVertex triangulation into a list of {@link Triangle}s. */
+    static int triangulateList() {
+        int triCount = 0;
+        final ArrayList<OutlineShape> shapes = ((FontInt)font).getOutlineShapes(text, fontSize, SVertex.factory());
+        for(int i=0; i<shapes.size(); i++) {
+            final OutlineShape shape = shapes.get(i);
+            shape.transformOutlines(OutlineShape.VerticesState.QUADRATIC_NURBS);
+            if( shape.getVertices().size() >= 3 ) {
+                final ArrayList<Triangle> triangles = shape.triangulate();
+                triCount += triangles.size();
+            }
+        }
+        return triCount;
+    }
+
+    @Test
+    public void test10TriangulationThroughput() {
+        float tList = 0f, tStore = 0f;
+        for(int k=0; k<2; k++) {
+            {
+                final long t0 = System.nanoTime();
+                int triCount = 0;
+                for(int l=0; l<loops; l++) {
+                    triCount += triangulateList();
+                }
+                final long t1 = System.nanoTime();
+                tList = (t1-t0)/1000000f/loops;
+                System.err.println("SVertex -> Triangle list... Loops "+loops+", "+tList+" ms/l, triangles "+triCount/loops);
+            }
+            {
+                final long t0 = System.nanoTime();
+                int triCount = 0;
+                for(int l=0; l<loops; l++) {
+                    triCount += triangulate(SVertex.factory()).getTriangleCount();
+                }
+                final long t1 = System.nanoTime();
+                tStore = (t1-t0)/1000000f/loops;
+                System.err.println("SVertex -> VertexStore..... Loops "+loops+", "+tStore+" ms/l, triangles "+triCount/loops);
+            }
+        }
+        System.err.println("VertexStore emission overhead "+( 100f*(tStore-tList)/tList )+" %");
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestVertexStoreNOUI.class.getName());
+    }
+}
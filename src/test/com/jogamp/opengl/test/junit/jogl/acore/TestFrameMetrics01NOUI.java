@@ -0,0 +1,346 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLDrawable;
+import javax.media.opengl.GLEventListener;
+
+import jogamp.opengl.GLDrawableHelper;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.FrameMetrics;
+import com.jogamp.opengl.test.junit.util.StubGLContext;
+
+/**
+ * Tests {@link FrameMetrics.Histogram} accuracy and concurrent recording,
+ * the per {@link GLEventListener} display and per frame phase measurement of {@link GLDrawableHelper} 
+ * and benchmarks its overhead w/ and w/o attached {@link FrameMetrics}.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestFrameMetrics01NOUI {
+    static int loops = 3;
+    static int frameCount = 1000000;
+    
+    static class CountingListener implements GLEventListener {
+        int count = 0;
+        public void init(GLAutoDrawable drawable) { }
+        public void dispose(GLAutoDrawable drawable) { }
+        public void display(GLAutoDrawable drawable) { count++; }
+        public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) { }
+    }
+    
+    static void assertNear(long expected, long actual) {
+        final double relErr = Math.abs( (double)actual - (double)expected ) / expected;
+        Assert.assertTrue("expected "+expected+", has "+actual+", rel. error "+relErr, relErr < 0.0625);
+    }
+    
+    @Test
+    public void test01HistogramPercentiles() {
+        final FrameMetrics.Histogram h = new FrameMetrics.Histogram();
+        Assert.assertEquals(0, h.getCount());
+        Assert.assertEquals(0, h.getPercentile(50));
+        Assert.assertEquals(0, h.getMin());
+        final int n = 100000;
+        long sum = 0;
+        for(int i=1; i<=n; i++) {
+            h.record(i * 1000L);
+            sum += i * 1000L;
+        }
+        h.record(-1); // ignored
+        Assert.assertEquals(n, h.getCount());
+        Assert.assertEquals(sum, h.getTotal());
+        Assert.assertEquals(1000L, h.getMin());
+        Assert.assertEquals(n * 1000L, h.getMax());
+        Assert.assertEquals((double)sum/n, h.getMean(), 0.001);
+        assertNear(50000000L, h.getPercentile(50));
+        assertNear(90000000L, h.getPercentile(90));
+        assertNear(99000000L, h.getPercentile(99));
+        Assert.assertEquals(n * 1000L, h.getPercentile(100));
+        Assert.assertEquals(1000L, h.getPercentile(0));
+        System.err.println(h);
+        
+        h.reset();
+        Assert.assertEquals(0, h.getCount());
+        Assert.assertEquals(0, h.getMax());
+        h.record(7);
+        Assert.assertEquals(7, h.getPercentile(50));
+        h.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, h.getPercentile(100));
+    }
+    
+    @Test
+    public void test02HistogramConcurrent() throws InterruptedException {
+        final FrameMetrics.Histogram h = new FrameMetrics.Histogram();
+        final int threadCount = 4;
+        final int n = 100000;
+        final Thread[] threads = new Thread[threadCount];
+        for(int t=0; t<threadCount; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for(int i=0; i<n; i++) {
+                        h.record( ( i + seed ) % 1000 );
+                    }
+                } }, "Recorder-"+t);
+            threads[t].start();
+        }
+        for(int t=0; t<threadCount; t++) {
+            threads[t].join();
+        }
+        long sum = 0;
+        for(int t=0; t<threadCount; t++) {
+            for(int i=0; i<n; i++) {
+                sum += ( i + t ) % 1000;
+            }
+        }
+        Assert.assertEquals(threadCount * n, h.getCount());
+        Assert.assertEquals(sum, h.getTotal());
+        Assert.assertEquals(0, h.getMin());
+        Assert.assertEquals(999, h.getMax());
+    }
+    
+    @Test
+    public void test03HelperListenerDisplay() {
+        final GLDrawableHelper helper = new GLDrawableHelper();
+        final CountingListener l1 = new CountingListener();
+        final CountingListener l2 = new CountingListener();
+        helper.addGLEventListener(l1);
+        helper.addGLEventListener(l2);
+        helper.setGLEventListenerInitState(l1, true);
+        helper.setGLEventListenerInitState(l2, true);
+        
+        helper.display(null);
+        Assert.assertNull(helper.getFrameMetrics());
+        
+        final FrameMetrics metrics = new FrameMetrics();
+        final int[] frames = new int[] { 0 };
+        metrics.addListener(new FrameMetrics.Listener() {
+            public void frameRecorded(FrameMetrics m, long[] phaseNanos) {
+                frames[0]++;
+            } });
+        Assert.assertNull(helper.setFrameMetrics(metrics));
+        for(int i=0; i<10; i++) {
+            helper.display(null);
+        }
+        Assert.assertEquals(11, l1.count);
+        Assert.assertEquals(11, l2.count);
+        Assert.assertEquals(10, metrics.getHistogram(l1).getCount());
+        Assert.assertEquals(10, metrics.getHistogram(l2).getCount());
+        // frames are only recorded by invokeGL, i.e. w/ a current context
+        Assert.assertEquals(0, metrics.getFrameCount());
+        Assert.assertEquals(0, metrics.getHistogram(FrameMetrics.Phase.FRAME).getCount());
+        
+        final long[] phaseNanos = new long[FrameMetrics.Phase.COUNT];
+        for(int i=0; i<phaseNanos.length; i++) {
+            phaseNanos[i] = -1;
+        }
+        phaseNanos[FrameMetrics.Phase.DISPLAY.ordinal()] = 1000;
+        phaseNanos[FrameMetrics.Phase.FRAME.ordinal()] = 2000;
+        metrics.recordFrame(phaseNanos);
+        Assert.assertEquals(1, frames[0]);
+        Assert.assertEquals(1, metrics.getFrameCount());
+        Assert.assertEquals(1, metrics.getHistogram(FrameMetrics.Phase.DISPLAY).getCount());
+        Assert.assertEquals(0, metrics.getHistogram(FrameMetrics.Phase.SWAP_BUFFERS).getCount());
+        Assert.assertEquals(2000, metrics.getHistogram(FrameMetrics.Phase.FRAME).getMax());
+        System.err.println(metrics);
+        
+        metrics.reset();
+        Assert.assertNull(metrics.getHistogram(l1));
+        Assert.assertEquals(0, metrics.getFrameCount());
+        
+        Assert.assertSame(metrics, helper.setFrameMetrics(null));
+        helper.display(null);
+        Assert.assertNull(metrics.getHistogram(l1));
+    }
+    
+    @Test
+    public void test04HelperRemoveListener() {
+        final GLDrawableHelper helper = new GLDrawableHelper();
+        final CountingListener l1 = new CountingListener();
+        final CountingListener l2 = new CountingListener();
+        final CountingListener l3 = new CountingListener();
+        helper.addGLEventListener(l1);
+        helper.addGLEventListener(l2);
+        helper.addGLEventListener(l3);
+        helper.setGLEventListenerInitState(l1, true);
+        helper.setGLEventListenerInitState(l2, true);
+        helper.setGLEventListenerInitState(l3, true);
+        final FrameMetrics metrics = new FrameMetrics();
+        helper.setFrameMetrics(metrics);
+        helper.display(null);
+        Assert.assertNotNull(metrics.getHistogram(l1));
+        Assert.assertNotNull(metrics.getHistogram(l2));
+        Assert.assertNotNull(metrics.getHistogram(l3));
+        
+        // removed listeners' histograms are dropped
+        Assert.assertSame(l2, helper.removeGLEventListener(l2));
+        Assert.assertNull(metrics.getHistogram(l2));
+        Assert.assertNotNull(metrics.getHistogram(l1));
+        Assert.assertNotNull(metrics.getHistogram(l3));
+        Assert.assertSame(l3, helper.removeGLEventListener(-1));
+        Assert.assertNull(metrics.getHistogram(l3));
+        Assert.assertSame(l1, helper.disposeGLEventListener(null, l1, true));
+        Assert.assertNull(metrics.getHistogram(l1));
+        Assert.assertFalse(metrics.toString(), metrics.toString().contains("CountingListener"));
+        Assert.assertFalse(metrics.removeHistogram(l1));
+    }
+    
+    /** Context always made current, counting releases. */
+    static class CurrentGLContext extends StubGLContext {
+        int releaseCount = 0;
+        CurrentGLContext() { super(null); }
+        @Override
+        public int makeCurrent() { return CONTEXT_CURRENT; }
+        @Override
+        public void release() { releaseCount++; }
+    }
+    
+    /** Drawable counting {@link GLDrawable#swapBuffers()} calls. */
+    static GLDrawable createDrawable(final int[] swapCount) {
+        return (GLDrawable) Proxy.newProxyInstance(GLDrawable.class.getClassLoader(), new Class<?>[] { GLDrawable.class }, 
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if( method.getName().equals("swapBuffers") ) {
+                        swapCount[0]++;
+                    }
+                    return null;
+                } } );
+    }
+    
+    @Test
+    public void test05HelperInvokeGL() {
+        final GLDrawableHelper helper = new GLDrawableHelper();
+        final CountingListener l1 = new CountingListener();
+        helper.addGLEventListener(l1);
+        helper.setGLEventListenerInitState(l1, true);
+        final int[] swapCount = new int[] { 0 };
+        final GLDrawable drawable = createDrawable(swapCount);
+        final CurrentGLContext context = new CurrentGLContext();
+        final Runnable display = new Runnable() {
+            public void run() { helper.display(null); } };
+        final Runnable nop = new Runnable() {
+            public void run() { } };
+        
+        // w/o metrics
+        helper.invokeGL(drawable, context, display, nop);
+        Assert.assertEquals(1, l1.count);
+        Assert.assertEquals(1, swapCount[0]);
+        Assert.assertEquals(1, context.releaseCount);
+        
+        final FrameMetrics metrics = new FrameMetrics();
+        helper.setFrameMetrics(metrics);
+        for(int i=0; i<5; i++) {
+            helper.invokeGL(drawable, context, display, nop);
+        }
+        Assert.assertEquals(6, l1.count);
+        Assert.assertEquals(6, swapCount[0]);
+        Assert.assertEquals(6, context.releaseCount);
+        Assert.assertEquals(5, metrics.getFrameCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.MAKE_CURRENT).getCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.DISPLAY).getCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.SWAP_BUFFERS).getCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.RELEASE).getCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.FRAME).getCount());
+        
+        // frames w/o display are not recorded
+        helper.invokeGL(drawable, context, nop, nop);
+        Assert.assertEquals(5, metrics.getFrameCount());
+        
+        // exclusive context thread w/ metrics: claimed context is kept current, released once
+        helper.setExclusiveContextThread(Thread.currentThread(), context);
+        for(int i=0; i<3; i++) {
+            helper.invokeGL(drawable, context, display, nop);
+        }
+        Assert.assertEquals(7, context.releaseCount);
+        Assert.assertEquals(8, metrics.getFrameCount());
+        Assert.assertEquals(5, metrics.getHistogram(FrameMetrics.Phase.RELEASE).getCount());
+        helper.setExclusiveContextThread(null, context);
+        helper.invokeGL(drawable, context, display, nop);
+        Assert.assertNull(helper.getExclusiveContextThread());
+        Assert.assertEquals(8, context.releaseCount);
+        Assert.assertEquals(9, metrics.getFrameCount());
+        Assert.assertEquals(6, metrics.getHistogram(FrameMetrics.Phase.RELEASE).getCount());
+    }
+    
+    static long benchmark(GLDrawableHelper helper) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final long t0 = System.nanoTime();
+            for(int i=0; i<frameCount; i++) {
+                helper.display(null);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+    
+    @Test
+    public void test10Overhead() {
+        final GLDrawableHelper helper = new GLDrawableHelper();
+        final CountingListener l1 = new CountingListener();
+        helper.addGLEventListener(l1);
+        helper.setGLEventListenerInitState(l1, true);
+        
+        final long tOff = benchmark(helper);
+        final FrameMetrics metrics = new FrameMetrics();
+        helper.setFrameMetrics(metrics);
+        final long tOn = benchmark(helper);
+        helper.setFrameMetrics(null);
+        System.err.println("display w/o metrics: "+(tOff/(double)frameCount)+" ns/frame, w/ metrics: "+(tOn/(double)frameCount)+" ns/frame");
+        System.err.println(metrics);
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-frames")) {
+                i++;
+                frameCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestFrameMetrics01NOUI.class.getName());
+    }
+}
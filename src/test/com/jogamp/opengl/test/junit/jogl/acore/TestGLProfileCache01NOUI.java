@@ -0,0 +1,433 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import jogamp.opengl.GLProfileCache;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Tests the persistent {@link GLProfileCache} w/o a GPU.
+ * <p>
+ * Validation and invalidation of stale or mismatching entries are tested on the cache directly.
+ * Store, restore and remapping are driven by a {@link MockDeviceFactory} performing
+ * the cache calls of the device initialization in GLContextImpl and GLProfile.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLProfileCache01NOUI {
+
+    // GLContext profile bits
+    static final int CTX_IS_ARB_CREATED = 1 << 0;
+    static final int CTX_PROFILE_COMPAT = 1 << 1;
+    static final int CTX_PROFILE_CORE   = 1 << 2;
+    static final int CTX_PROFILE_ES     = 1 << 3;
+
+    static final String BUILD_ID = "JOGL test-build";
+    static final String DEVICE_KEY = ".x11_:0_0";
+    static File dir;
+
+    /**
+     * Mock driver and device factory, performing the same {@link GLProfileCache} calls
+     * as GLContextImpl and GLProfile do when initializing a device.
+     */
+    static class MockDeviceFactory {
+        final String vendor;
+        final String renderer;
+        final String driverVersion;
+        int probedContexts = 0;
+        int extensionQueries = 0;
+        GLProfileCache.Entry entry = null;
+        String sharedContextExtensions = null;
+
+        MockDeviceFactory(String vendor, String renderer, String driverVersion) {
+            this.vendor = vendor;
+            this.renderer = renderer;
+            this.driverVersion = driverVersion;
+        }
+
+        static int composeBits(int a8, int b8, int c16) {
+            return ( ( a8 & 0xFF ) << 24 ) | ( ( b8 & 0xFF ) << 16 ) | ( c16 & 0xFFFF );
+        }
+
+        String glVersion(int major, int minor, int profile) {
+            if( 0 != ( CTX_PROFILE_ES & profile ) ) {
+                return "OpenGL ES "+major+"."+minor+" "+driverVersion;
+            }
+            return major+"."+minor+( 0 != ( CTX_PROFILE_COMPAT & profile ) ? " (Compatibility Profile) " : " (Core Profile) " )+driverVersion;
+        }
+
+        String glExtensions(int major, int profile) {
+            extensionQueries++;
+            final StringBuilder sb = new StringBuilder();
+            final int count = 0 != ( CTX_PROFILE_ES & profile ) ? 80 : 300;
+            for(int i=0; i<count; i++) {
+                if( i > 0 ) { sb.append(' '); }
+                sb.append(0 != ( CTX_PROFILE_ES & profile ) ? "GL_OES_ext_" : "GL_ARB_ext_").append(major).append('_').append(i);
+            }
+            return sb.toString();
+        }
+
+        /** A context has been created and made current, see GLContextImpl.setGLFunctionAvailability */
+        String contextCreated(GLProfileCache cache, int major, int minor, int profile) {
+            final int ctxBits = composeBits(major, minor, CTX_IS_ARB_CREATED | profile);
+            final String glVersion = glVersion(major, minor, profile);
+            GLProfileCache.Entry e = null != cache ? cache.get(DEVICE_KEY) : null;
+            if( null != e && !cache.validate(e, vendor, renderer, ctxBits, glVersion) ) {
+                e = null;
+            }
+            final String ext;
+            if( null != e && e.hasContext(ctxBits) ) {
+                ext = e.getGLExtensions(ctxBits);
+            } else {
+                ext = glExtensions(major, profile);
+                if( null != e ) {
+                    e.putContext(ctxBits, glVersion, ext, "GLX_ARB_create_context GLX_ARB_create_context_profile");
+                    cache.store(e);
+                }
+            }
+            return ext;
+        }
+
+        void probe(GLProfileCache cache, int reqMajor, int major, int minor, int profile) {
+            probedContexts++;
+            contextCreated(cache, major, minor, profile);
+            if( null != entry ) {
+                entry.putVersion(reqMajor, profile, composeBits(major, minor, CTX_IS_ARB_CREATED | profile));
+            }
+        }
+
+        /**
+         * Device initialization: restore or map the GL versions,
+         * create the shared context and validate the profile map.
+         * @return true if the GL versions have been restored
+         */
+        boolean initDevice(GLProfileCache cache) {
+            entry = null != cache ? cache.restore(DEVICE_KEY) : null;
+            final boolean restored = null != entry;
+            if( !restored ) {
+                entry = null != cache ? cache.create(DEVICE_KEY) : null;
+                // GLContextImpl.mapGLVersions probing: GL4, GL3, GL4bc, GL3bc, GL2, ES3
+                probe(cache, 4, 4, 3, CTX_PROFILE_CORE);
+                probe(cache, 3, 3, 3, CTX_PROFILE_CORE);
+                probe(cache, 4, 4, 3, CTX_PROFILE_COMPAT);
+                probe(cache, 3, 3, 3, CTX_PROFILE_COMPAT);
+                probe(cache, 2, 3, 0, CTX_PROFILE_COMPAT);
+                probe(cache, 3, 3, 0, CTX_PROFILE_ES);
+            }
+            if( restored && null == entry.getVersion(4, CTX_PROFILE_COMPAT) ) {
+                // requested version of the shared context not restored, invalidate and map again
+                cache.invalidate(DEVICE_KEY);
+                return initDevice(cache);
+            }
+            // shared context
+            sharedContextExtensions = contextCreated(cache, 4, 3, CTX_PROFILE_COMPAT);
+            if( restored && null == cache.get(DEVICE_KEY) ) {
+                // invalidated w/ the shared context, map again
+                return initDevice(cache);
+            }
+            // GLProfile.validateProfileCache
+            if( null != cache ) {
+                final GLProfileCache.Entry e = cache.get(DEVICE_KEY);
+                if( null != e && cache.validateProfileMap(e, "GL4bc=GL4bc.hw,GL4=GL4.hw,GL2ES2=GL4bc.hw,GL_DEFAULT=GL4bc.hw") ) {
+                    cache.store(e);
+                }
+            }
+            return restored;
+        }
+    }
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        dir = File.createTempFile("jogl-glprofile-cache", "");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdirs());
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        final File[] files = dir.listFiles();
+        if( null != files ) {
+            for(int i=0; i<files.length; i++) {
+                files[i].delete();
+            }
+        }
+        dir.delete();
+    }
+
+    static MockDeviceFactory driver(String driverVersion) {
+        return new MockDeviceFactory("Mock Vendor", "Mock Renderer 9000", driverVersion);
+    }
+
+    /** Performs a cold start, i.e. w/o previous cache file, and returns the storing cache */
+    static GLProfileCache coldStart(String driverVersion) {
+        final GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        cache.invalidate(DEVICE_KEY); // delete file
+        final MockDeviceFactory f = driver(driverVersion);
+        Assert.assertFalse(new GLProfileCache(dir, BUILD_ID).getFile(DEVICE_KEY).exists());
+        Assert.assertFalse(f.initDevice(new GLProfileCache(dir, BUILD_ID)));
+        Assert.assertEquals(6, f.probedContexts);
+        Assert.assertTrue(cache.getFile(DEVICE_KEY).exists());
+        return cache;
+    }
+
+    @Test
+    public void test01StoreAndRestore() {
+        coldStart("Mock 1.0");
+
+        // next process
+        final GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        final MockDeviceFactory f = driver("Mock 1.0");
+        Assert.assertTrue(f.initDevice(cache));
+        Assert.assertEquals(0, f.probedContexts);
+        Assert.assertEquals(0, f.extensionQueries);
+        Assert.assertEquals(driver("Mock 1.0").glExtensions(4, CTX_PROFILE_COMPAT), f.sharedContextExtensions);
+
+        final GLProfileCache.Entry e = cache.get(DEVICE_KEY);
+        Assert.assertNotNull(e);
+        Assert.assertTrue(e.isRestored());
+        Assert.assertTrue(e.isValidated());
+        Assert.assertFalse(e.isDirty());
+        Assert.assertEquals("Mock Vendor", e.getVendor());
+        Assert.assertEquals("Mock Renderer 9000", e.getRenderer());
+        Assert.assertEquals(6, e.getVersionCount());
+        Assert.assertEquals(6, e.getContextCount());
+        Assert.assertEquals(Integer.valueOf(MockDeviceFactory.composeBits(4, 3, CTX_IS_ARB_CREATED | CTX_PROFILE_COMPAT)),
+                            e.getVersion(4, CTX_PROFILE_COMPAT));
+        Assert.assertEquals(Integer.valueOf(MockDeviceFactory.composeBits(3, 0, CTX_IS_ARB_CREATED | CTX_PROFILE_ES)),
+                            e.getVersion(3, CTX_PROFILE_ES));
+        Assert.assertNull(e.getVersion(2, CTX_PROFILE_ES));
+        Assert.assertNull(e.getVersion(4, CTX_PROFILE_ES));
+    }
+
+    @Test
+    public void test02NewContextTypeIsAdded() {
+        coldStart("Mock 1.0");
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        MockDeviceFactory f = driver("Mock 1.0");
+        Assert.assertTrue(f.initDevice(cache));
+        // a context type not created while probing
+        f.contextCreated(cache, 4, 1, CTX_PROFILE_CORE);
+        Assert.assertEquals(1, f.extensionQueries);
+        Assert.assertEquals(7, cache.get(DEVICE_KEY).getContextCount());
+        Assert.assertFalse(cache.get(DEVICE_KEY).isDirty());
+
+        cache = new GLProfileCache(dir, BUILD_ID);
+        f = driver("Mock 1.0");
+        Assert.assertTrue(f.initDevice(cache));
+        f.contextCreated(cache, 4, 1, CTX_PROFILE_CORE);
+        Assert.assertEquals(0, f.extensionQueries);
+    }
+
+    @Test
+    public void test03DriverUpdateInvalidates() {
+        final GLProfileCache cold = coldStart("Mock 1.0");
+        final File file = cold.getFile(DEVICE_KEY);
+
+        // driver update, shared context's GL_VERSION differs: invalidate, probe and store again
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        MockDeviceFactory f = driver("Mock 2.0");
+        Assert.assertFalse(f.initDevice(cache));
+        Assert.assertEquals(6, f.probedContexts);
+        Assert.assertFalse(cache.get(DEVICE_KEY).isRestored());
+        Assert.assertTrue(file.exists());
+
+        cache = new GLProfileCache(dir, BUILD_ID);
+        f = driver("Mock 2.0");
+        Assert.assertTrue(f.initDevice(cache));
+        Assert.assertEquals(0, f.probedContexts);
+        Assert.assertEquals(driver("Mock 2.0").glExtensions(4, CTX_PROFILE_COMPAT), f.sharedContextExtensions);
+
+        // different renderer
+        cache = new GLProfileCache(dir, BUILD_ID);
+        f = new MockDeviceFactory("Mock Vendor", "Mock Renderer 9001", "Mock 2.0");
+        Assert.assertFalse(f.initDevice(cache));
+        Assert.assertEquals(6, f.probedContexts);
+        Assert.assertEquals("Mock Renderer 9001", cache.get(DEVICE_KEY).getRenderer());
+    }
+
+    @Test
+    public void test04BuildAndDeviceMismatch() throws IOException {
+        final File file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+
+        // other JOGL build
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID+"-other");
+        Assert.assertNull(cache.restore(DEVICE_KEY));
+        Assert.assertFalse(file.exists());
+        // not restored again in the same JVM
+        Assert.assertNull(cache.restore(DEVICE_KEY));
+
+        // file of another device
+        coldStart("Mock 1.0");
+        cache = new GLProfileCache(dir, BUILD_ID);
+        final String otherKey = ".x11_:1_0";
+        Assert.assertTrue(file.renameTo(cache.getFile(otherKey)));
+        Assert.assertNull(cache.restore(otherKey));
+        Assert.assertFalse(cache.getFile(otherKey).exists());
+    }
+
+    @Test
+    public void test05CorruptFile() throws IOException {
+        // flipped payload byte: checksum mismatch
+        File file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(raf.length() / 2);
+        final int b = raf.read();
+        raf.seek(raf.length() / 2);
+        raf.write(b ^ 0x10);
+        raf.close();
+        MockDeviceFactory f = driver("Mock 1.0");
+        Assert.assertFalse(f.initDevice(new GLProfileCache(dir, BUILD_ID)));
+        Assert.assertEquals(6, f.probedContexts);
+
+        // truncated
+        file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 7);
+        raf.close();
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        Assert.assertNull(cache.restore(DEVICE_KEY));
+        Assert.assertFalse(file.exists());
+
+        // other format
+        file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+        raf = new RandomAccessFile(file, "rw");
+        raf.seek(4);
+        raf.writeInt(0x7FFF);
+        raf.close();
+        cache = new GLProfileCache(dir, BUILD_ID);
+        Assert.assertNull(cache.restore(DEVICE_KEY));
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void test06ProfileMapMismatch() {
+        final File file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+        final GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        final GLProfileCache.Entry e = cache.restore(DEVICE_KEY);
+        Assert.assertNotNull(e);
+        Assert.assertTrue(cache.validateProfileMap(e, e.getProfileMap()));
+        Assert.assertFalse(cache.validateProfileMap(e, "GL2=GL2.sw,GL_DEFAULT=GL2.sw"));
+        Assert.assertNull(cache.get(DEVICE_KEY));
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void test07ValidateMismatchAndStaleEntry() {
+        final int ctxBits = MockDeviceFactory.composeBits(4, 3, CTX_IS_ARB_CREATED | CTX_PROFILE_COMPAT);
+        final String glVersion = driver("Mock 1.0").glVersion(4, 3, CTX_PROFILE_COMPAT);
+        final File file = coldStart("Mock 1.0").getFile(DEVICE_KEY);
+
+        // matching driver strings, an unrecorded context type is accepted
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        GLProfileCache.Entry e = cache.restore(DEVICE_KEY);
+        Assert.assertNotNull(e);
+        Assert.assertFalse(e.isValidated());
+        Assert.assertTrue(cache.validate(e, "Mock Vendor", "Mock Renderer 9000", ctxBits, glVersion));
+        Assert.assertTrue(e.isValidated());
+        Assert.assertTrue(cache.validate(e, "Mock Vendor", "Mock Renderer 9000",
+                                         MockDeviceFactory.composeBits(4, 1, CTX_IS_ARB_CREATED | CTX_PROFILE_CORE), "4.1 other"));
+        Assert.assertSame(e, cache.get(DEVICE_KEY));
+
+        // GL_VERSION of a recorded context type differs
+        Assert.assertFalse(cache.validate(e, "Mock Vendor", "Mock Renderer 9000", ctxBits, "4.3 (Compatibility Profile) Mock 2.0"));
+        Assert.assertNull(cache.get(DEVICE_KEY));
+        Assert.assertFalse(file.exists());
+        // the dropped entry is stale, even w/ matching strings, and not restored again in this JVM
+        Assert.assertFalse(cache.validate(e, "Mock Vendor", "Mock Renderer 9000", ctxBits, glVersion));
+        Assert.assertFalse(cache.validateProfileMap(e, e.getProfileMap()));
+        Assert.assertFalse(cache.store(e));
+        Assert.assertNull(cache.restore(DEVICE_KEY));
+
+        // vendor or renderer differ
+        coldStart("Mock 1.0");
+        cache = new GLProfileCache(dir, BUILD_ID);
+        e = cache.restore(DEVICE_KEY);
+        Assert.assertFalse(cache.validate(e, "Other Vendor", "Mock Renderer 9000", ctxBits, glVersion));
+        Assert.assertNull(cache.get(DEVICE_KEY));
+        coldStart("Mock 1.0");
+        cache = new GLProfileCache(dir, BUILD_ID);
+        e = cache.restore(DEVICE_KEY);
+        Assert.assertFalse(cache.validate(e, "Mock Vendor", "Mock Renderer 9001", ctxBits, glVersion));
+        Assert.assertFalse(file.exists());
+
+        // an entry replaced by a newly created one is stale
+        coldStart("Mock 1.0");
+        cache = new GLProfileCache(dir, BUILD_ID);
+        e = cache.restore(DEVICE_KEY);
+        final GLProfileCache.Entry created = cache.create(DEVICE_KEY);
+        Assert.assertFalse(cache.validate(e, "Mock Vendor", "Mock Renderer 9000", ctxBits, glVersion));
+        Assert.assertSame(created, cache.get(DEVICE_KEY));
+        // a created entry records the driver strings
+        Assert.assertTrue(cache.validate(created, "Other Vendor", "Other Renderer", ctxBits, glVersion));
+        Assert.assertEquals("Other Vendor", created.getVendor());
+        Assert.assertTrue(created.isDirty());
+    }
+
+    @Test
+    public void test08RestoredVersionMissing() {
+        // store an entry lacking the shared context's GL4bc version
+        GLProfileCache cache = new GLProfileCache(dir, BUILD_ID);
+        cache.invalidate(DEVICE_KEY);
+        cache = new GLProfileCache(dir, BUILD_ID);
+        final int ctxBits = MockDeviceFactory.composeBits(3, 3, CTX_IS_ARB_CREATED | CTX_PROFILE_CORE);
+        final GLProfileCache.Entry e = cache.create(DEVICE_KEY);
+        e.putVersion(3, CTX_PROFILE_CORE, ctxBits);
+        Assert.assertTrue(cache.validate(e, "Mock Vendor", "Mock Renderer 9000", ctxBits, driver("Mock 1.0").glVersion(3, 3, CTX_PROFILE_CORE)));
+        e.putContext(ctxBits, driver("Mock 1.0").glVersion(3, 3, CTX_PROFILE_CORE), "GL_ARB_ext_3_0", "");
+        Assert.assertTrue(cache.validateProfileMap(e, "GL3=GL3.hw,GL_DEFAULT=GL3.hw"));
+        Assert.assertTrue(cache.store(e));
+
+        // restored, but w/o the requested version: invalidated and mapped again
+        cache = new GLProfileCache(dir, BUILD_ID);
+        final MockDeviceFactory f = driver("Mock 1.0");
+        Assert.assertFalse(f.initDevice(cache));
+        Assert.assertEquals(6, f.probedContexts);
+        Assert.assertFalse(cache.get(DEVICE_KEY).isRestored());
+        Assert.assertEquals(6, cache.get(DEVICE_KEY).getVersionCount());
+
+        // stored w/ all mapped versions
+        cache = new GLProfileCache(dir, BUILD_ID);
+        final GLProfileCache.Entry r = cache.restore(DEVICE_KEY);
+        Assert.assertNotNull(r);
+        Assert.assertNotNull(r.getVersion(4, CTX_PROFILE_COMPAT));
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestGLProfileCache01NOUI.class.getName());
+    }
+}
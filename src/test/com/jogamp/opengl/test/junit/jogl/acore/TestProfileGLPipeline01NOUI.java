@@ -0,0 +1,167 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLES3;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.ProfileGLES3;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.GLCallStats;
+
+/**
+ * Tests the generated profiling pipeline {@link ProfileGLES3} against a {@link StubGL} downstream,
+ * i.e. w/o a GPU, and benchmarks its per call overhead.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestProfileGLPipeline01NOUI {
+    static int loops = 3;
+    static int callCount = 1000000;
+    
+    @Test
+    public void test01Counts() {
+        final ArrayList<String> log = new ArrayList<String>();
+        final GLES3 stub = StubGL.create(GLES3.class, log);
+        final GL gl = GLPipelineFactory.create("javax.media.opengl.Profile", null, stub, null);
+        Assert.assertTrue(gl instanceof ProfileGLES3);
+        Assert.assertTrue(gl.isGLES3());
+        Assert.assertSame(stub, gl.getDownstreamGL());
+        
+        final GLCallStats stats = ((GLCallStats.Source)gl).getCallStats();
+        Assert.assertEquals(ProfileGLES3.METHOD_NAMES.length, stats.getMethodCount());
+        final int idClear = stats.getMethodId("glClear");
+        final int idBufferData = stats.getMethodId("glBufferData");
+        final int idTexImage2D = stats.getMethodId("glTexImage2D(int,int,int,int,int,int,int,int,Buffer)");
+        final int idTexSubImage2DPBO = stats.getMethodId("glTexSubImage2D(int,int,int,int,int,int,int,int,long)");
+        Assert.assertTrue(0 <= idClear && 0 <= idBufferData && 0 <= idTexImage2D && 0 <= idTexSubImage2DPBO);
+        Assert.assertEquals("glClear(int)", stats.getMethodName(idClear));
+        
+        final GLES3 gl3 = gl.getGLES3();
+        Assert.assertSame(stub, gl3); // getGL* is delegated downstream
+        for(int i=0; i<10; i++) {
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+        }
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, 1024, Buffers.newDirectByteBuffer(1024), GL.GL_STATIC_DRAW);
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, 4096, null, GL.GL_STATIC_DRAW); // allocation only
+        final FloatBuffer pixels = Buffers.newDirectFloatBuffer(64);
+        pixels.position(16);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, 2, 2, 0, GL.GL_RGBA, GL.GL_FLOAT, pixels);
+        gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, 0, 0, 2, 2, GL.GL_RGBA, GL.GL_FLOAT, 0L);
+        
+        Assert.assertEquals(14, log.size());
+        Assert.assertEquals(10, stats.getCalls(idClear));
+        Assert.assertEquals(2, stats.getCalls(idBufferData));
+        Assert.assertEquals(1024, stats.getBytes(idBufferData));
+        Assert.assertEquals(48*Buffers.SIZEOF_FLOAT, stats.getBytes(idTexImage2D));
+        Assert.assertEquals(1, stats.getCalls(idTexSubImage2DPBO));
+        Assert.assertEquals(0, stats.getBytes(idTexSubImage2DPBO));
+        Assert.assertEquals(0, stats.getNanos(idClear)); // timing disabled
+        
+        final GLCallStats.Snapshot s0 = stats.snapshot();
+        Assert.assertEquals(14, s0.getTotal(GLCallStats.Key.CALLS));
+        Assert.assertEquals(1024+48*Buffers.SIZEOF_FLOAT, s0.getTotal(GLCallStats.Key.BYTES));
+        final int[] topCalls = s0.getTop(3, GLCallStats.Key.CALLS);
+        Assert.assertEquals(3, topCalls.length);
+        Assert.assertEquals(idClear, topCalls[0]);
+        Assert.assertEquals(idBufferData, topCalls[1]);
+        final int[] topBytes = s0.getTop(10, GLCallStats.Key.BYTES);
+        Assert.assertEquals(2, topBytes.length);
+        Assert.assertEquals(idBufferData, topBytes[0]);
+        Assert.assertEquals(idTexImage2D, topBytes[1]);
+        System.err.println(s0.toString(null, 5, GLCallStats.Key.CALLS));
+        
+        stats.setTiming(true);
+        for(int i=0; i<1000; i++) {
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+        }
+        final GLCallStats.Snapshot s1 = stats.snapshot(s0);
+        Assert.assertEquals(1000, s1.getCalls(idClear));
+        Assert.assertEquals(0, s1.getCalls(idBufferData));
+        Assert.assertTrue(0 < s1.getNanos(idClear));
+        Assert.assertEquals(idClear, s1.getTop(1, GLCallStats.Key.NANOS)[0]);
+        
+        stats.reset();
+        Assert.assertEquals(0, stats.snapshot().getTotal(GLCallStats.Key.CALLS));
+        Assert.assertEquals(0, stats.snapshot().getTop(5, GLCallStats.Key.CALLS).length);
+    }
+    
+    static long benchmark(GL gl) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final long t0 = System.nanoTime();
+            for(int i=0; i<callCount; i++) {
+                gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+    
+    @Test
+    public void test10Overhead() {
+        final GLES3 stub = StubGL.create(GLES3.class, null);
+        final ProfileGLES3 gl = new ProfileGLES3(stub);
+        final long tStub = benchmark(stub);
+        final long tCount = benchmark(gl);
+        gl.getCallStats().setTiming(true);
+        final long tTime = benchmark(gl);
+        System.err.println("glClear: stub "+(tStub/(double)callCount)+" ns, profiled "+(tCount/(double)callCount)+
+                           " ns, profiled+timed "+(tTime/(double)callCount)+" ns");
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-calls")) {
+                i++;
+                callCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestProfileGLPipeline01NOUI.class.getName());
+    }
+}
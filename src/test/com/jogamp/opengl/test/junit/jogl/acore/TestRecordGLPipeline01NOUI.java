@@ -0,0 +1,237 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLES2;
+import javax.media.opengl.GLES3;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.GLUniformData;
+import javax.media.opengl.RecordGLES3;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.GLCommandRecorder;
+import com.jogamp.opengl.util.ReplayGL;
+
+/**
+ * Records GL calls via the generated {@link RecordGLES3} pipeline into a file 
+ * and replays them w/ {@link ReplayGL} against {@link StubGL} instances, i.e. w/o a GPU,
+ * validating the replayed calls incl. their arguments. Benchmarks recording and replay.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestRecordGLPipeline01NOUI {
+    static int loops = 3;
+    static int callCount = 1000000;
+    
+    static void issueCalls(GLES3 gl) {
+        gl.glClearColor(0f, 0.5f, 1f, 1f);
+        gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+        gl.glBindAttribLocation(1, 0, "gca_Vertices");
+        gl.glShaderSource(2, 2, new String[] { "void main() {", " gl_FragColor = vec4(1.0); }" }, new int[] { 13, 28 }, 0);
+        final FloatBuffer color = Buffers.newDirectFloatBuffer(new float[] { 9f, 0.25f, 0.5f, 0.75f, 1f });
+        color.position(1);
+        gl.glUniform4fv(3, 1, color);
+        gl.glUniform4fv(3, 1, new float[] { 9f, 8f, 0.1f, 0.2f, 0.3f, 0.4f }, 2);
+        gl.glUniformMatrix4fv(4, 1, true, new float[16], 0);
+        final ByteBuffer vertices = Buffers.newDirectByteBuffer(1000); // exceeds the chunk size
+        for(int i=0; i<vertices.capacity(); i++) {
+            vertices.put(i, (byte)i);
+        }
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, vertices.capacity(), vertices, GL.GL_STATIC_DRAW);
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, 4096, null, GL.GL_STATIC_DRAW);
+        gl.glGetIntegerv(GL.GL_VIEWPORT, Buffers.newDirectIntBuffer(4)); // contents not recorded
+        gl.glColorMask(true, false, true, false);
+        gl.glBeginTransformFeedback(GL.GL_POINTS);
+        gl.glEndTransformFeedback();
+        for(int i=0; i<100; i++) {
+            gl.glDrawArrays(GL.GL_TRIANGLES, i, 3);
+        }
+        gl.glDrawElements(GL.GL_TRIANGLES, 6, GL.GL_UNSIGNED_SHORT, 12L);
+        gl.glWaitSync(0x123456789L, 0, -1L);
+    }
+    
+    static File record(GLCommandRecorder recorder, GLES3 gl) throws IOException {
+        final File file = File.createTempFile("TestRecordGLPipeline01NOUI", ".glrec");
+        file.deleteOnExit();
+        final FileChannel out = new FileOutputStream(file).getChannel();
+        try {
+            recorder.start(out);
+            Assert.assertTrue(recorder.isRecording());
+            issueCalls(gl);
+            gl.glUniform(new GLUniformData("mgl_Test", 1)); // not recordable
+            recorder.stop();
+            Assert.assertFalse(recorder.isRecording());
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+    
+    static ReplayGL load(File file) throws IOException {
+        final FileChannel in = new FileInputStream(file).getChannel();
+        try {
+            return new ReplayGL(in);
+        } finally {
+            in.close();
+        }
+    }
+    
+    @Test
+    public void test01RecordReplay() throws IOException {
+        final ArrayList<String> log = new ArrayList<String>();
+        final GLES3 stub = StubGL.create(GLES3.class, log, true);
+        final GL gl = GLPipelineFactory.create("javax.media.opengl.Record", null, stub, null);
+        Assert.assertTrue(gl instanceof RecordGLES3);
+        Assert.assertSame(stub, gl.getDownstreamGL());
+        final GLCommandRecorder recorder = ((GLCommandRecorder.Source)gl).getRecorder();
+        recorder.setChunkSize(256);
+        
+        issueCalls(gl.getGLES3()); // not recording, getGL* is delegated downstream
+        issueCalls((GLES3)gl); // not recording
+        Assert.assertEquals(0, recorder.getCallCount());
+        log.clear();
+        
+        final File file = record(recorder, (GLES3)gl);
+        final int recordedCalls = log.size() - 1;
+        Assert.assertEquals(recordedCalls, recorder.getCallCount());
+        Assert.assertEquals(1, recorder.getSkippedCallCount());
+        Assert.assertEquals(file.length(), recorder.getByteCount());
+        System.err.println(recorder+", "+recorder.getByteCount()+" bytes");
+        
+        final ReplayGL replay = load(file);
+        Assert.assertEquals(recordedCalls, replay.getCallCount());
+        Assert.assertEquals(file.length(), replay.getByteCount());
+        Assert.assertEquals(RecordGLES3.METHOD_NAMES.length, replay.getMethodNames().length);
+        final int idDrawArrays = java.util.Arrays.asList(replay.getMethodNames()).indexOf("glDrawArrays(int,int,int)");
+        Assert.assertEquals(100, replay.getCallCounts()[idDrawArrays]);
+        
+        final ArrayList<String> replayLog = new ArrayList<String>();
+        final GLES3 target = StubGL.create(GLES3.class, replayLog, true);
+        Assert.assertEquals(recordedCalls, replay.replay(target));
+        Assert.assertEquals(0, replay.getSkippedCallCount());
+        Assert.assertEquals(log.subList(0, recordedCalls), replayLog);
+        
+        // repeated replay
+        replayLog.clear();
+        Assert.assertEquals(recordedCalls, replay.replay(target));
+        Assert.assertEquals(recordedCalls, replayLog.size());
+        
+        // calls not available on the target are skipped
+        final GLES2 targetES2 = StubGL.create(GLES2.class, null);
+        final int issuedES2 = replay.replay(targetES2);
+        Assert.assertEquals(3, replay.getSkippedCallCount()); // transform feedback and sync
+        Assert.assertEquals(recordedCalls - 3, issuedES2);
+    }
+    
+    @Test
+    public void test02InvalidStream() {
+        try {
+            new ReplayGL(Channels.newChannel(new java.io.ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 })));
+            Assert.fail("IOException expected");
+        } catch (IOException e) {
+            System.err.println("Expected: "+e.getMessage());
+        }
+    }
+    
+    static long benchmark(GLES3 gl) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final long t0 = System.nanoTime();
+            for(int i=0; i<callCount; i++) {
+                gl.glUniform4f(1, i, 1f, 2f, 3f);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+    
+    @Test
+    public void test10Overhead() throws IOException {
+        final GLES3 stub = StubGL.create(GLES3.class, null);
+        final RecordGLES3 gl = new RecordGLES3(stub);
+        final long tStub = benchmark(stub);
+        final long tIdle = benchmark(gl);
+        
+        final File file = File.createTempFile("TestRecordGLPipeline01NOUI", ".glrec");
+        file.deleteOnExit();
+        final FileChannel out = new FileOutputStream(file).getChannel();
+        final long tRecord;
+        try {
+            gl.getRecorder().start(out);
+            tRecord = benchmark(gl);
+            gl.getRecorder().stop();
+        } finally {
+            out.close();
+        }
+        Assert.assertEquals(loops*(long)callCount, gl.getRecorder().getCallCount());
+        
+        final ReplayGL replay = load(file);
+        final long t0 = System.nanoTime();
+        replay.replay(stub);
+        final long tReplay = System.nanoTime() - t0;
+        System.err.println("glUniform4f: stub "+(tStub/(double)callCount)+" ns, record idle "+(tIdle/(double)callCount)+
+                           " ns, recording "+(tRecord/(double)callCount)+" ns, replay "+(tReplay/(double)(loops*callCount))+" ns, "+
+                           (file.length()/(loops*callCount))+" bytes/call");
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-calls")) {
+                i++;
+                callCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestRecordGLPipeline01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.util.ArrayList;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLES3;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.StateCacheGLES3;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.GLStateCache;
+
+/**
+ * Tests the generated redundant state filtering pipeline {@link StateCacheGLES3} and the cache used by {@link javax.media.opengl.StateCacheGL2}
+ * against a {@link StubGL} downstream, i.e. w/o a GPU, and benchmarks a redundant bind heavy frame.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestStateCacheGLPipeline01NOUI {
+    static int loops = 3;
+    static int frameCount = 10000;
+    
+    @Test
+    public void test01RedundantBinds() {
+        final ArrayList<String> log = new ArrayList<String>();
+        final GLES3 stub = StubGL.create(GLES3.class, log);
+        final GL gl = GLPipelineFactory.create("javax.media.opengl.StateCache", null, stub, null);
+        Assert.assertTrue(gl instanceof StateCacheGLES3);
+        Assert.assertSame(stub, gl.getDownstreamGL());
+        final GLStateCache cache = ((GLStateCache.Source)gl).getStateCache();
+        final GL2ES2 gl2es2 = (GL2ES2)gl;
+        
+        for(int i=0; i<3; i++) {
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 7);
+            gl2es2.glUseProgram(3);
+            gl.glEnable(GL.GL_BLEND);
+            gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+            gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        }
+        Assert.assertEquals(6+3, log.size());
+        Assert.assertEquals(6, cache.getMisses());
+        Assert.assertEquals(12, cache.getHits());
+        
+        // state changes pass, per unit and target
+        log.clear();
+        gl.glActiveTexture(GL.GL_TEXTURE1);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl.glBindTexture(GL.GL_TEXTURE_CUBE_MAP, 5);
+        gl.glActiveTexture(GL.GL_TEXTURE0);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 7);
+        gl.glDisable(GL.GL_BLEND);
+        gl.glDisable(GL.GL_BLEND);
+        gl.glBlendFuncSeparate(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA, GL.GL_ONE, GL.GL_ZERO);
+        Assert.assertEquals(7, log.size());
+        Assert.assertEquals("glBindBuffer", log.get(4));
+        
+        // neutral calls keep the state
+        log.clear();
+        gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+        gl2es2.glUniform1i(0, 1);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl2es2.glUseProgram(3);
+        Assert.assertEquals(2, log.size());
+        
+        cache.resetCounter();
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(0, cache.getMisses());
+    }
+    
+    @Test
+    public void test02Invalidation() {
+        final ArrayList<String> log = new ArrayList<String>();
+        final GLES3 stub = StubGL.create(GLES3.class, log);
+        final StateCacheGLES3 gl = new StateCacheGLES3(stub);
+        
+        gl.glActiveTexture(GL.GL_TEXTURE0);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 7);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 8);
+        gl.glUseProgram(3);
+        
+        // deleting textures may unbind them
+        log.clear();
+        gl.glDeleteTextures(1, new int[] { 5 }, 0);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 7);
+        Assert.assertEquals(2, log.size());
+        
+        // element array buffer binding is vertex array object state
+        log.clear();
+        gl.glBindVertexArray(1);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 7);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 8);
+        Assert.assertEquals(2, log.size());
+        Assert.assertEquals("glBindBuffer", log.get(1));
+        
+        // unknown calls invalidate all
+        log.clear();
+        gl.glBindTransformFeedback(GLES3.GL_TRANSFORM_FEEDBACK, 1);
+        gl.glUseProgram(3);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5); // active texture unknown
+        gl.glActiveTexture(GL.GL_TEXTURE0);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 5);
+        Assert.assertEquals(5, log.size());
+        
+        // explicit invalidation after bypassing the pipeline
+        log.clear();
+        gl.getStateCache().invalidate();
+        gl.glUseProgram(3);
+        Assert.assertEquals(1, log.size());
+    }
+    
+    /**
+     * The GL2 and GL4bc interfaces exceed the size of a reflection proxy,
+     * hence the calls issued by {@link javax.media.opengl.StateCacheGL2} at <code>glPopAttrib</code>,
+     * <code>glNewList</code>, <code>glEndList</code> and <code>glCallList</code> are validated on the cache directly.
+     */
+    @Test
+    public void test03AttribStackAndDisplayList() {
+        final GLStateCache cache = new GLStateCache();
+        
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        Assert.assertFalse(cache.enable(GL.GL_DEPTH_TEST));
+        // glPushAttrib(GL_ENABLE_BIT) is neutral
+        Assert.assertTrue(cache.disable(GL.GL_DEPTH_TEST));
+        cache.invalidate(); // glPopAttrib
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        
+        // nothing is cached while compiling a display list
+        cache.beginDisplayList(); // glNewList
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        cache.endDisplayList(); // glEndList
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        Assert.assertFalse(cache.enable(GL.GL_DEPTH_TEST));
+        
+        // executing a display list invalidates all
+        cache.invalidate(); // glCallList
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        
+        // unknown texture units and targets are not cached
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE0 + GLStateCache.MAX_TEXTURE_UNITS));
+        Assert.assertTrue(cache.bindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertTrue(cache.bindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE0));
+        Assert.assertTrue(cache.bindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertFalse(cache.bindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertTrue(cache.bindTexture(0x1234, 1));
+        Assert.assertTrue(cache.bindTexture(0x1234, 1));
+    }
+    
+    /**
+     * Texture enables and texture coordinate generation are state of the active texture unit,
+     * e.g. as issued by {@link javax.media.opengl.StateCacheGL2} for multitexturing w/ the fixed function pipeline.
+     */
+    @Test
+    public void test04TextureUnitCapabilities() {
+        final GLStateCache cache = new GLStateCache();
+        
+        // not cached w/ unknown active texture unit
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+        
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE0));
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertFalse(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertTrue(cache.enable(GL2.GL_TEXTURE_GEN_S));
+        Assert.assertFalse(cache.enable(GL2.GL_TEXTURE_GEN_S));
+        Assert.assertTrue(cache.enable(GL.GL_DEPTH_TEST));
+        
+        // same caps on unit 1 are distinct state
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE1));
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertFalse(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertTrue(cache.disable(GL2.GL_TEXTURE_GEN_S));
+        Assert.assertTrue(cache.disable(GL.GL_TEXTURE_2D));
+        // global caps are not per unit
+        Assert.assertFalse(cache.enable(GL.GL_DEPTH_TEST));
+        
+        // unit 0 still holds its own state
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE0));
+        Assert.assertFalse(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertFalse(cache.enable(GL2.GL_TEXTURE_GEN_S));
+        Assert.assertTrue(cache.disable(GL.GL_TEXTURE_2D));
+        
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE1));
+        Assert.assertFalse(cache.disable(GL.GL_TEXTURE_2D));
+        Assert.assertFalse(cache.disable(GL2.GL_TEXTURE_GEN_S));
+        
+        // units beyond MAX_TEXTURE_UNITS are not cached
+        Assert.assertTrue(cache.activeTexture(GL.GL_TEXTURE0 + GLStateCache.MAX_TEXTURE_UNITS));
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+        Assert.assertTrue(cache.enable(GL.GL_TEXTURE_2D));
+    }
+    
+    static void frame(GL2ES2 gl) {
+        for(int i=0; i<16; i++) {
+            gl.glUseProgram(1);
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, 1 + (i & 1));
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 1);
+            gl.glEnable(GL.GL_BLEND);
+            gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+            gl.glUniform1i(0, i);
+            gl.glDrawArrays(GL.GL_TRIANGLES, 0, 6);
+        }
+    }
+    
+    static long benchmark(GL2ES2 gl) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final long t0 = System.nanoTime();
+            for(int i=0; i<frameCount; i++) {
+                frame(gl);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+    
+    @Test
+    public void test10Benchmark() {
+        final ArrayList<String> log = new ArrayList<String>();
+        final GLES3 stub = StubGL.create(GLES3.class, log);
+        final StateCacheGLES3 gl = new StateCacheGLES3(stub);
+        frame(gl);
+        final int callsPassed = log.size();
+        Assert.assertEquals(16*8, gl.getStateCache().getHits() + gl.getStateCache().getMisses() + 16*2);
+        System.err.println("Frame calls: 128, passed downstream "+callsPassed+", "+gl.getStateCache());
+        
+        final GLES3 stubNoLog = StubGL.create(GLES3.class, null);
+        final long tStub = benchmark(stubNoLog);
+        final long tCache = benchmark(new StateCacheGLES3(stubNoLog));
+        System.err.println("Frame: stub "+(tStub/(double)frameCount/1000.0)+" us, state cached "+(tCache/(double)frameCount/1000.0)+" us");
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-frames")) {
+                i++;
+                frameCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestStateCacheGLPipeline01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,446 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.glsl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+
+import jogamp.opengl.util.glsl.ProgramBinaryCacheImpl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.glsl.ProgramBinaryCache;
+import com.jogamp.opengl.util.glsl.ShaderCode;
+import com.jogamp.opengl.util.glsl.ShaderProgram;
+import com.jogamp.opengl.util.glsl.ShaderState;
+
+/**
+ * Tests the {@link ProgramBinaryCacheImpl} w/ {@link ShaderProgram#link(GL2ES2, PrintStream)}
+ * using a {@link FakeProvider} and a {@link StubGL} based GL, i.e. w/o a GPU,
+ * and measures the link time of program permutations w/o and w/ a populated cache.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestProgramBinaryCache01NOUI {
+    static int loops = 3;
+    static int programCount = 48;
+
+    /** Number of compiled shader codes, incremented by {@link FakeShaderCode}. */
+    static int compileCount = 0;
+
+    /** Shader code w/o a GL compiler, the GL compilation is not part of this test. */
+    static class FakeShaderCode extends ShaderCode {
+        FakeShaderCode(int type, String source) {
+            super(type, 1, new CharSequence[][] { { source } });
+        }
+
+        @Override
+        public boolean compile(GL2ES2 gl, PrintStream verboseOut) {
+            if( !valid ) {
+                compileCount++;
+                valid = true;
+            }
+            return true;
+        }
+    }
+
+    /** {@link StubGL} based GL2ES2 linking any program, counting glLinkProgram calls. */
+    static class MockGL implements InvocationHandler {
+        final GL2ES2 stub = StubGL.create(GL2ES2.class, null);
+        GL2ES2 gl;
+        String renderer = "Mock Renderer";
+        int nextProgram = 1;
+        int linkCount = 0;
+
+        static GL2ES2 create(MockGL handler) {
+            handler.gl = (GL2ES2) Proxy.newProxyInstance(MockGL.class.getClassLoader(), new Class<?>[] { GL2ES2.class }, handler);
+            return handler.gl;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            final String name = m.getName();
+            if( name.equals("glCreateProgram") ) {
+                return Integer.valueOf(nextProgram++);
+            } else if( name.equals("glIsProgram") ) {
+                return Boolean.TRUE;
+            } else if( name.equals("glGetProgramiv") && args[2] instanceof int[] ) {
+                ((int[])args[2])[((Integer)args[3]).intValue()] = 1; // GL_TRUE
+                return null;
+            } else if( name.equals("glLinkProgram") ) {
+                linkCount++;
+                return null;
+            } else if( name.equals("glGetString") ) {
+                switch( ((Integer)args[0]).intValue() ) {
+                    case GL.GL_VENDOR: return "Mock Vendor";
+                    case GL.GL_RENDERER: return renderer;
+                    case GL.GL_VERSION: return "2.0 Mock";
+                }
+                return null;
+            } else if( name.startsWith("getGL") && 0 == m.getParameterTypes().length ) {
+                return gl;
+            }
+            try {
+                return m.invoke(stub, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+        }
+    }
+
+    /**
+     * {@link ProgramBinaryCacheImpl.BinaryProvider} handing out a binary per linked program
+     * and accepting binaries of the current {@link #format} only, simulating a driver update.
+     */
+    static class FakeProvider implements ProgramBinaryCacheImpl.BinaryProvider {
+        final HashMap<Integer, String> sources = new HashMap<Integer, String>();
+        boolean available = true;
+        int format = 1;
+        int binarySize = 256;
+        int retrievableCount = 0;
+        int getCount = 0;
+        int loadCount = 0;
+
+        @Override
+        public boolean isAvailable(GL2ES2 gl) { return available; }
+
+        @Override
+        public void setRetrievable(GL2ES2 gl, int program) {
+            retrievableCount++;
+        }
+
+        @Override
+        public ProgramBinaryCacheImpl.Binary getBinary(GL2ES2 gl, int program) {
+            getCount++;
+            final byte[] data = new byte[binarySize];
+            for(int i=0; i<data.length; i++) {
+                data[i] = (byte) (program + i);
+            }
+            return new ProgramBinaryCacheImpl.Binary(format, data);
+        }
+
+        @Override
+        public boolean loadBinary(GL2ES2 gl, int program, ProgramBinaryCacheImpl.Binary binary) {
+            loadCount++;
+            return format == binary.format && binarySize == binary.data.length;
+        }
+    }
+
+    File dir;
+    MockGL mock;
+    GL2ES2 gl;
+    FakeProvider provider;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("TestProgramBinaryCache", ".dir");
+        Assert.assertTrue(dir.delete());
+        mock = new MockGL();
+        gl = MockGL.create(mock);
+        provider = new FakeProvider();
+        compileCount = 0;
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = dir.listFiles();
+        if( null != files ) {
+            for(int i=0; i<files.length; i++) {
+                files[i].delete();
+            }
+        }
+        dir.delete();
+    }
+
+    static ShaderProgram createProgram(ProgramBinaryCache cache, String defines) {
+        final ShaderProgram prog = new ShaderProgram();
+        prog.setProgramBinaryCache(cache);
+        Assert.assertSame(cache, prog.getProgramBinaryCache());
+        prog.add(new FakeShaderCode(GL2ES2.GL_VERTEX_SHADER, defines+"void main() { gl_Position = vec4(0.0); }\n"));
+        prog.add(new FakeShaderCode(GL2ES2.GL_FRAGMENT_SHADER, defines+"void main() { gl_FragColor = vec4(1.0); }\n"));
+        return prog;
+    }
+
+    int fileCount() {
+        final String[] names = dir.list();
+        return null != names ? names.length : 0;
+    }
+
+    @Test
+    public void test01StoreAndLoad() {
+        final ProgramBinaryCacheImpl cache = new ProgramBinaryCacheImpl(dir, ProgramBinaryCacheImpl.DEFAULT_MAX_SIZE, provider);
+        final ShaderProgram prog1 = createProgram(cache, "#define MODE 1\n");
+        Assert.assertTrue(prog1.link(gl, System.err));
+        Assert.assertTrue(prog1.linked());
+        Assert.assertEquals(2, compileCount);
+        Assert.assertEquals(1, mock.linkCount);
+        Assert.assertEquals(1, provider.retrievableCount);
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getStoreCount());
+        Assert.assertEquals(1, fileCount());
+
+        // same sources, e.g. next application start: loaded, neither compiled nor linked
+        final ShaderProgram prog2 = createProgram(cache, "#define MODE 1\n");
+        Assert.assertTrue(prog2.link(gl, System.err));
+        Assert.assertTrue(prog2.linked());
+        Assert.assertEquals(2, compileCount);
+        Assert.assertEquals(1, mock.linkCount);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, provider.loadCount);
+
+        // replacing a shader of a loaded program compiles and attaches the remaining code
+        final ShaderCode vp = new FakeShaderCode(GL2ES2.GL_VERTEX_SHADER, "#define MODE 2\nvoid main() { }\n");
+        Assert.assertTrue(prog2.replaceShader(gl, null, vp, System.err));
+        Assert.assertEquals(5, compileCount);
+        Assert.assertEquals(2, mock.linkCount);
+
+        // other defines
+        final ShaderProgram prog3 = createProgram(cache, "#define MODE 3\n");
+        Assert.assertTrue(prog3.link(gl, System.err));
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(2, fileCount());
+
+        // other renderer
+        mock.renderer = "Other Renderer";
+        final ShaderProgram prog4 = createProgram(cache, "#define MODE 1\n");
+        Assert.assertTrue(prog4.link(gl, System.err));
+        Assert.assertEquals(3, cache.getMissCount());
+        Assert.assertEquals(3, fileCount());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void test02Key() {
+        final ProgramBinaryCacheImpl cache = new ProgramBinaryCacheImpl(dir, ProgramBinaryCacheImpl.DEFAULT_MAX_SIZE, provider);
+        final ShaderProgram prog1 = createProgram(cache, "");
+        final ShaderProgram prog2 = createProgram(cache, "");
+        final ShaderState st1 = new ShaderState();
+        final ShaderState st2 = new ShaderState();
+        st1.attachShaderProgram(gl, prog1, false);
+        st2.attachShaderProgram(gl, prog2, false);
+        st1.bindAttribLocation(gl, 0, "mgl_Vertex");
+        st2.bindAttribLocation(gl, 1, "mgl_Vertex");
+        st1.useProgram(gl, true);
+        st2.useProgram(gl, true);
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(2, fileCount());
+
+        final HashMap<String, Integer> attribs = new HashMap<String, Integer>();
+        attribs.put("mgl_Vertex", Integer.valueOf(1));
+        final ShaderProgram prog3 = createProgram(cache, "");
+        final ShaderCode vp = new FakeShaderCode(GL2ES2.GL_VERTEX_SHADER, "void main() { gl_Position = vec4(0.0); }\n");
+        final ShaderCode fp = new FakeShaderCode(GL2ES2.GL_FRAGMENT_SHADER, "void main() { gl_FragColor = vec4(1.0); }\n");
+        final String key = cache.getKey(gl, Arrays.asList(vp, fp), attribs);
+        Assert.assertNotNull(key);
+        Assert.assertEquals(40, key.length());
+        Assert.assertTrue(cache.getFile(key).exists());
+        // order independent
+        Assert.assertEquals(key, cache.getKey(gl, Arrays.asList(fp, vp), attribs));
+        Assert.assertFalse(key.equals(cache.getKey(gl, Arrays.asList(fp, vp), null)));
+
+        provider.available = false;
+        Assert.assertNull(cache.getKey(gl, Arrays.asList(vp, fp), null));
+        Assert.assertTrue(prog3.link(gl, System.err));
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(2, fileCount());
+    }
+
+    @Test
+    public void test03RejectAndCorrupt() throws IOException {
+        final ProgramBinaryCacheImpl cache = new ProgramBinaryCacheImpl(dir, ProgramBinaryCacheImpl.DEFAULT_MAX_SIZE, provider);
+        Assert.assertTrue(createProgram(cache, "").link(gl, System.err));
+        Assert.assertEquals(1, cache.getStoreCount());
+
+        // driver update: binary rejected, compiled and stored again
+        provider.format = 2;
+        compileCount = 0;
+        Assert.assertTrue(createProgram(cache, "").link(gl, System.err));
+        Assert.assertEquals(1, cache.getRejectCount());
+        Assert.assertEquals(2, compileCount);
+        Assert.assertEquals(2, cache.getStoreCount());
+        Assert.assertTrue(createProgram(cache, "").link(gl, System.err));
+        Assert.assertEquals(1, cache.getHitCount());
+
+        // corrupt file: rejected w/o the provider being asked
+        final File[] files = dir.listFiles();
+        Assert.assertEquals(1, files.length);
+        final RandomAccessFile raf = new RandomAccessFile(files[0], "rw");
+        try {
+            raf.seek(raf.length() / 2);
+            final int b = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 0xff);
+        } finally {
+            raf.close();
+        }
+        final int loads = provider.loadCount;
+        compileCount = 0;
+        Assert.assertTrue(createProgram(cache, "").link(gl, System.err));
+        Assert.assertEquals(loads, provider.loadCount);
+        Assert.assertEquals(2, cache.getRejectCount());
+        Assert.assertEquals(2, compileCount);
+        Assert.assertEquals(3, cache.getStoreCount());
+        Assert.assertEquals(1, fileCount());
+
+        // truncated file
+        final RandomAccessFile raf2 = new RandomAccessFile(files[0], "rw");
+        try {
+            raf2.setLength(10);
+        } finally {
+            raf2.close();
+        }
+        Assert.assertTrue(createProgram(cache, "").link(gl, System.err));
+        Assert.assertEquals(3, cache.getRejectCount());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void test04Bounded() {
+        provider.binarySize = 1000;
+        // room for 4 binaries
+        final ProgramBinaryCacheImpl cache = new ProgramBinaryCacheImpl(dir, 4 * 1200, provider);
+        final long time = System.currentTimeMillis() - 100000;
+        for(int i=0; i<4; i++) {
+            final ShaderProgram prog = createProgram(cache, "#define P "+i+"\n");
+            Assert.assertTrue(prog.link(gl, System.err));
+        }
+        Assert.assertEquals(4, fileCount());
+        final File[] stored = dir.listFiles();
+        // age the files and make P 0 the most recently used one via a hit
+        for(int i=0; i<stored.length; i++) {
+            stored[i].setLastModified(time + i * 1000);
+        }
+        Assert.assertTrue(createProgram(cache, "#define P 0\n").link(gl, System.err));
+        Assert.assertEquals(1, cache.getHitCount());
+        final File mru = newest(dir.listFiles());
+
+        // evicts the least recently used P 1, 2 and 3
+        for(int i=4; i<7; i++) {
+            Assert.assertTrue(createProgram(cache, "#define P "+i+"\n").link(gl, System.err));
+            Assert.assertEquals(4, fileCount());
+        }
+        long size = 0;
+        final File[] remaining = dir.listFiles();
+        for(int i=0; i<remaining.length; i++) {
+            size += remaining[i].length();
+        }
+        Assert.assertTrue(size <= cache.getMaxSize());
+        Assert.assertTrue(mru.exists());
+        for(int i=0; i<stored.length; i++) {
+            Assert.assertEquals(stored[i].equals(mru), stored[i].exists());
+        }
+
+        // binary exceeding the bound is not stored
+        final ProgramBinaryCacheImpl tiny = new ProgramBinaryCacheImpl(dir, 500, provider);
+        Assert.assertTrue(createProgram(tiny, "#define TINY\n").link(gl, System.err));
+        Assert.assertEquals(0, tiny.getStoreCount());
+    }
+
+    static File newest(File[] files) {
+        File res = null;
+        for(int i=0; i<files.length; i++) {
+            if( null == res || files[i].lastModified() > res.lastModified() ) {
+                res = files[i];
+            }
+        }
+        return res;
+    }
+
+    /** Links {@link #programCount} permutations w/ the given cache, returns the duration in ns. */
+    long linkPermutations(ProgramBinaryCacheImpl cache) {
+        final long t0 = System.nanoTime();
+        for(int i=0; i<programCount; i++) {
+            final StringBuilder defines = new StringBuilder();
+            for(int b=0; b<6; b++) {
+                defines.append("#define FEATURE_").append(b).append(' ').append((i >> b) & 1).append('\n');
+            }
+            Assert.assertTrue(createProgram(cache, defines.toString()).link(gl, System.err));
+        }
+        return System.nanoTime() - t0;
+    }
+
+    @Test
+    public void test10Startup() {
+        provider.binarySize = 32 * 1024;
+        for(int l=0; l<loops; l++) {
+            tearDown();
+            compileCount = 0;
+            mock.linkCount = 0;
+            final long tCold = linkPermutations(new ProgramBinaryCacheImpl(dir, ProgramBinaryCacheImpl.DEFAULT_MAX_SIZE, provider));
+            final int coldCompiles = compileCount;
+            final int coldLinks = mock.linkCount;
+            compileCount = 0;
+            mock.linkCount = 0;
+            final ProgramBinaryCacheImpl warmCache = new ProgramBinaryCacheImpl(dir, ProgramBinaryCacheImpl.DEFAULT_MAX_SIZE, provider);
+            final long tWarm = linkPermutations(warmCache);
+            Assert.assertEquals(2 * programCount, coldCompiles);
+            Assert.assertEquals(programCount, coldLinks);
+            Assert.assertEquals(0, compileCount);
+            Assert.assertEquals(0, mock.linkCount);
+            Assert.assertEquals(programCount, warmCache.getHitCount());
+            System.err.println("Loop "+l+": "+programCount+" programs: cold "+coldCompiles+" compiles, "+coldLinks+" links, "+
+                               (tCold/1000000.0)+" ms incl. store; warm "+warmCache.getHitCount()+" binaries loaded, "+
+                               (tWarm/1000000.0)+" ms (fake driver, excludes GL compile/link time)");
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-programs")) {
+                i++;
+                programCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestProgramBinaryCache01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.glsl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLUniformData;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.GLArrayDataWrapper;
+import com.jogamp.opengl.util.glsl.ShaderProgram;
+import com.jogamp.opengl.util.glsl.ShaderState;
+
+/**
+ * Tests the handle based uniform and attribute API of {@link ShaderState} and its uniform value change detection
+ * against a {@link MockGL}, i.e. w/o a GPU, counting the glUniform uploads and location queries,
+ * and benchmarks a uniform heavy frame w/ the name and handle based API.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestShaderStateHandles01NOUI {
+    static int loops = 3;
+    static int frameCount = 20000;
+
+    /**
+     * {@link StubGL} based GL2ES2 linking any program and providing uniform and attribute locations
+     * for the names <code>mgl_*</code>, counting uploads and location queries.
+     */
+    static class MockGL implements InvocationHandler {
+        final GL2ES2 stub = StubGL.create(GL2ES2.class, null);
+        final HashMap<String, Integer> locations = new HashMap<String, Integer>();
+        GL2ES2 gl;
+        int nextProgram = 1;
+        int uniformUploads = 0;
+        int locationQueries = 0;
+        int attribEnables = 0;
+
+        static GL2ES2 create(MockGL handler) {
+            handler.gl = (GL2ES2) Proxy.newProxyInstance(MockGL.class.getClassLoader(), new Class<?>[] { GL2ES2.class }, handler);
+            return handler.gl;
+        }
+
+        int location(String name) {
+            locationQueries++;
+            if( !name.startsWith("mgl_") ) {
+                return -1;
+            }
+            Integer loc = locations.get(name);
+            if( null == loc ) {
+                loc = Integer.valueOf(locations.size());
+                locations.put(name, loc);
+            }
+            return loc.intValue();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            final String name = m.getName();
+            if( name.equals("glCreateProgram") ) {
+                return Integer.valueOf(nextProgram++);
+            } else if( name.equals("glIsProgram") ) {
+                return Boolean.TRUE;
+            } else if( name.equals("glGetProgramiv") && args[2] instanceof int[] ) {
+                ((int[])args[2])[((Integer)args[3]).intValue()] = 1; // GL_TRUE
+                return null;
+            } else if( name.equals("glGetUniformLocation") || name.equals("glGetAttribLocation") ) {
+                return Integer.valueOf(location((String)args[1]));
+            } else if( name.equals("glUniform") ) {
+                uniformUploads++;
+                return null;
+            } else if( name.equals("glEnableVertexAttribArray") ) {
+                attribEnables++;
+                return null;
+            } else if( name.startsWith("getGL") && 0 == m.getParameterTypes().length ) {
+                return gl;
+            }
+            try {
+                return m.invoke(stub, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+        }
+    }
+
+    static ShaderState createState(GL2ES2 gl, ShaderProgram prog) {
+        final ShaderState st = new ShaderState();
+        st.attachShaderProgram(gl, prog, true);
+        Assert.assertTrue(st.linked());
+        Assert.assertTrue(st.inUse());
+        return st;
+    }
+
+    @Test
+    public void test01HandleUniforms() {
+        final MockGL mock = new MockGL();
+        final GL2ES2 gl = MockGL.create(mock);
+        final ShaderState st = createState(gl, new ShaderProgram());
+
+        final GLUniformData mvp = new GLUniformData("mgl_PMVMatrix", 4, 4, Buffers.newDirectFloatBuffer(16));
+        final GLUniformData color = new GLUniformData("mgl_Color", 4, Buffers.newDirectFloatBuffer(new float[] { 1, 0, 0, 1 }));
+        final GLUniformData tex = new GLUniformData("mgl_Texture", 0);
+        final GLUniformData unused = new GLUniformData("unused", 1f);
+        final int hMvp = st.getUniformHandle("mgl_PMVMatrix");
+        final int hColor = st.getUniformHandle("mgl_Color");
+        final int hTex = st.getUniformHandle("mgl_Texture");
+        final int hUnused = st.getUniformHandle("unused");
+        Assert.assertEquals(hMvp, st.getUniformHandle("mgl_PMVMatrix"));
+        Assert.assertTrue(hMvp != hColor && hColor != hTex && hTex != hUnused);
+
+        Assert.assertTrue(st.uniform(gl, hMvp, mvp));
+        Assert.assertTrue(st.uniform(gl, hColor, color));
+        Assert.assertTrue(st.uniform(gl, hTex, tex));
+        Assert.assertFalse(st.uniform(gl, hUnused, unused));
+        Assert.assertEquals(3, mock.uniformUploads);
+        Assert.assertEquals(4, mock.locationQueries);
+        Assert.assertSame(color, st.getUniform("mgl_Color"));
+
+        // unchanged: no uploads, no queries
+        for(int i=0; i<10; i++) {
+            Assert.assertTrue(st.uniform(gl, hMvp));
+            Assert.assertTrue(st.uniform(gl, hColor, color));
+            Assert.assertTrue(st.uniform(gl, tex)); // name based wrapper
+        }
+        Assert.assertEquals(3, mock.uniformUploads);
+        Assert.assertEquals(4, mock.locationQueries);
+
+        // changed values
+        color.floatBufferValue().put(1, 0.5f);
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertEquals(4, mock.uniformUploads);
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertEquals(4, mock.uniformUploads);
+        tex.setData(1);
+        Assert.assertTrue(st.uniform(gl, tex));
+        Assert.assertEquals(5, mock.uniformUploads);
+        // other data object w/ same value
+        Assert.assertTrue(st.uniform(gl, new GLUniformData("mgl_Texture", 1)));
+        Assert.assertEquals(5, mock.uniformUploads);
+        // same value, other type
+        Assert.assertTrue(st.uniform(gl, new GLUniformData("mgl_Texture", 1f)));
+        Assert.assertEquals(6, mock.uniformUploads);
+
+        // uniforms set w/o ShaderState
+        st.invalidateUniformValues();
+        Assert.assertTrue(st.uniform(gl, hMvp));
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertEquals(8, mock.uniformUploads);
+
+        // released data
+        st.releaseAllUniforms(gl);
+        Assert.assertNull(st.getUniform("mgl_Color"));
+        Assert.assertFalse(st.uniform(gl, hColor));
+        Assert.assertEquals(hColor, st.getUniformHandle("mgl_Color"));
+    }
+
+    @Test
+    public void test02RelinkAndSwitch() {
+        final MockGL mock = new MockGL();
+        final GL2ES2 gl = MockGL.create(mock);
+        final ShaderProgram prog1 = new ShaderProgram();
+        final ShaderProgram prog2 = new ShaderProgram();
+        final ShaderState st = createState(gl, prog1);
+
+        final GLUniformData color = new GLUniformData("mgl_Color", 4, Buffers.newDirectFloatBuffer(new float[] { 1, 0, 0, 1 }));
+        final GLUniformData alpha = new GLUniformData("mgl_Alpha", 1f);
+        final int hColor = st.getUniformHandle(color.getName());
+        final int hAlpha = st.getUniformHandle(alpha.getName());
+        st.uniform(gl, hColor, color);
+        st.uniform(gl, hAlpha, alpha);
+        Assert.assertEquals(2, mock.uniformUploads);
+
+        // relink loses uniform values
+        Assert.assertTrue(prog1.link(gl, System.err));
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertEquals(3, mock.uniformUploads);
+
+        // switch resets all uniforms of the new program
+        st.attachShaderProgram(gl, prog2, true);
+        Assert.assertEquals(5, mock.uniformUploads);
+        Assert.assertTrue(st.uniform(gl, hColor));
+        Assert.assertTrue(st.uniform(gl, hAlpha));
+        Assert.assertEquals(5, mock.uniformUploads);
+        st.attachShaderProgram(gl, prog1, true);
+        Assert.assertEquals(7, mock.uniformUploads);
+        Assert.assertTrue(st.uniform(gl, hAlpha));
+        Assert.assertEquals(7, mock.uniformUploads);
+    }
+
+    @Test
+    public void test03HandleAttributes() {
+        final MockGL mock = new MockGL();
+        final GL2ES2 gl = MockGL.create(mock);
+        final ShaderState st = createState(gl, new ShaderProgram());
+        final FloatBuffer vertices = Buffers.newDirectFloatBuffer(9);
+        final GLArrayDataWrapper data = GLArrayDataWrapper.createGLSL("mgl_Vertex", 3, GL.GL_FLOAT, false, 0, vertices,
+                                                                      0, 0, GL.GL_STATIC_DRAW, GL.GL_ARRAY_BUFFER);
+        final int h = st.getAttribHandle("mgl_Vertex");
+        Assert.assertEquals(h, st.getAttribHandle(data.getName()));
+        Assert.assertFalse(st.vertexAttribPointer(gl, h)); // no data bound
+        Assert.assertTrue(0 <= st.getAttribLocation(gl, data));
+        Assert.assertSame(data, st.getAttribute("mgl_Vertex"));
+        Assert.assertEquals(1, mock.locationQueries);
+
+        for(int i=0; i<10; i++) {
+            Assert.assertTrue(st.enableVertexAttribArray(gl, h));
+            Assert.assertTrue(st.isVertexAttribArrayEnabled("mgl_Vertex"));
+            Assert.assertTrue(st.vertexAttribPointer(gl, h));
+            Assert.assertTrue(st.disableVertexAttribArray(gl, h));
+            Assert.assertFalse(st.isVertexAttribArrayEnabled(data));
+        }
+        Assert.assertEquals(10, mock.attribEnables);
+        Assert.assertEquals(1, mock.locationQueries);
+
+        final int hUnused = st.getAttribHandle("unused");
+        Assert.assertFalse(st.enableVertexAttribArray(gl, hUnused));
+        Assert.assertTrue(st.isVertexAttribArrayEnabled("unused"));
+        Assert.assertEquals(-1, st.getCachedAttribLocation("unused"));
+
+        st.releaseAllAttributes(gl);
+        Assert.assertNull(st.getAttribute("mgl_Vertex"));
+        Assert.assertFalse(st.isVertexAttribArrayEnabled("unused"));
+        Assert.assertEquals(-1, st.getCachedAttribLocation("mgl_Vertex"));
+    }
+
+    static final int UNIFORM_COUNT = 8;
+
+    /** Sets {@link #UNIFORM_COUNT} uniforms per frame, of which only the first changes. */
+    static long benchmark(GL2ES2 gl, ShaderState st, GLUniformData[] uniforms, boolean handles) {
+        final int[] h = new int[uniforms.length];
+        for(int i=0; i<uniforms.length; i++) {
+            h[i] = st.getUniformHandle(uniforms[i].getName());
+        }
+        final FloatBuffer time = uniforms[0].floatBufferValue();
+        final long t0 = System.nanoTime();
+        for(int f=0; f<frameCount; f++) {
+            time.put(0, f);
+            for(int i=0; i<uniforms.length; i++) {
+                if( handles ) {
+                    st.uniform(gl, h[i], uniforms[i]);
+                } else {
+                    st.uniform(gl, uniforms[i]);
+                }
+            }
+        }
+        return System.nanoTime() - t0;
+    }
+
+    static GLUniformData[] createUniforms() {
+        final GLUniformData[] uniforms = new GLUniformData[UNIFORM_COUNT];
+        uniforms[0] = new GLUniformData("mgl_Time", 1, Buffers.newDirectFloatBuffer(1));
+        for(int i=1; i<UNIFORM_COUNT; i++) {
+            if( 0 == i % 2 ) {
+                uniforms[i] = new GLUniformData("mgl_Matrix"+i, 4, 4, Buffers.newDirectFloatBuffer(16));
+            } else {
+                uniforms[i] = new GLUniformData("mgl_Vec"+i, 4, Buffers.newDirectFloatBuffer(4));
+            }
+        }
+        return uniforms;
+    }
+
+    @Test
+    public void test10Benchmark() {
+        for(int l=0; l<loops; l++) {
+            final MockGL mockName = new MockGL();
+            final GL2ES2 glName = MockGL.create(mockName);
+            final long tName = benchmark(glName, createState(glName, new ShaderProgram()), createUniforms(), false);
+
+            final MockGL mockHandle = new MockGL();
+            final GL2ES2 glHandle = MockGL.create(mockHandle);
+            final long tHandle = benchmark(glHandle, createState(glHandle, new ShaderProgram()), createUniforms(), true);
+
+            // 1st frame uploads all, following frames only the changed one
+            Assert.assertEquals(UNIFORM_COUNT + frameCount - 1, mockName.uniformUploads);
+            Assert.assertEquals(UNIFORM_COUNT + frameCount - 1, mockHandle.uniformUploads);
+            Assert.assertEquals(UNIFORM_COUNT, mockHandle.locationQueries);
+            System.err.println("Loop "+l+": "+frameCount+" frames a "+UNIFORM_COUNT+" uniforms: uploads "+mockHandle.uniformUploads+
+                               " of "+(frameCount*UNIFORM_COUNT)+", name "+(tName/(double)frameCount/1000.0)+
+                               " us/frame, handle "+(tHandle/(double)frameCount/1000.0)+" us/frame");
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-frames")) {
+                i++;
+                frameCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestShaderStateHandles01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.glu;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import javax.media.opengl.GL;
+
+import jogamp.opengl.glu.mipmap.BuildMipmap;
+import jogamp.opengl.glu.mipmap.HalveImage;
+import jogamp.opengl.glu.mipmap.Mipmap;
+import jogamp.opengl.glu.mipmap.ScaleInternal;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+
+/**
+ * Compares the CPU-side mipmap chain of {@link BuildMipmap#build2DMipmapChain(int, int, int, int, int, int, ByteBuffer, boolean)},
+ * sequential and parallel, bit-exact against the per element {@link HalveImage} and {@link ScaleInternal} kernels
+ * and benchmarks both.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestMipmapChain01NOUI {
+    static int loops = 5;
+    static int benchSize = 2048;
+
+    static final int[] types = { GL.GL_UNSIGNED_BYTE, GL.GL_UNSIGNED_SHORT, GL.GL_FLOAT };
+    static final int[] formats = { GL.GL_LUMINANCE, GL.GL_LUMINANCE_ALPHA, GL.GL_RGB, GL.GL_RGBA };
+
+    static ByteBuffer createImage(Random rnd, int width, int height, int format, int type, ByteOrder order) {
+        final int size = Mipmap.image_size(width, height, format, type);
+        final ByteBuffer data = ByteBuffer.allocateDirect(size).order(order);
+        if( GL.GL_FLOAT == type ) {
+            for(int i=0; i<size/4; i++) {
+                data.putFloat(rnd.nextFloat() * 2f - 0.5f);
+            }
+        } else {
+            final byte[] b = new byte[size];
+            rnd.nextBytes(b);
+            data.put(b);
+        }
+        data.rewind();
+        return data;
+    }
+
+    /** The mipmap chain computed w/ the per element kernels, as gluBuild2DMipmapLevelsCore w/o the GL upload. */
+    static ByteBuffer[] referenceChain(int width, int height, int widthPowerOf2, int heightPowerOf2, int format, int type, ByteBuffer data) {
+        final int levels = Math.max(Mipmap.computeLog(widthPowerOf2), Mipmap.computeLog(heightPowerOf2));
+        final int cmpts = Mipmap.elements_per_group(format, type);
+        final int element_size = Mipmap.bytes_per_element(type);
+        final int group_size = element_size * cmpts;
+        final ByteBuffer[] chain = new ByteBuffer[levels+1];
+        int w = widthPowerOf2;
+        int h = heightPowerOf2;
+        if( width == w && height == h ) {
+            chain[0] = data;
+        } else {
+            chain[0] = Buffers.newDirectByteBuffer(w * h * group_size);
+            switch( type ) {
+                case GL.GL_UNSIGNED_BYTE:
+                    ScaleInternal.scale_internal_ubyte(cmpts, width, height, data, w, h, chain[0], element_size, width * group_size, group_size);
+                    break;
+                case GL.GL_UNSIGNED_SHORT:
+                    ScaleInternal.scale_internal_ushort(cmpts, width, height, data, w, h, chain[0].asShortBuffer(), element_size, width * group_size, group_size, false);
+                    break;
+                default:
+                    ScaleInternal.scale_internal_float(cmpts, width, height, data, w, h, chain[0].asFloatBuffer(), element_size, width * group_size, group_size, false);
+                    break;
+            }
+        }
+        for(int level=1; level<=levels; level++) {
+            final int nw = Math.max(1, w/2);
+            final int nh = Math.max(1, h/2);
+            final ByteBuffer src = chain[level-1];
+            final ByteBuffer dst = Buffers.newDirectByteBuffer(nw * nh * group_size);
+            switch( type ) {
+                case GL.GL_UNSIGNED_BYTE:
+                    HalveImage.halveImage_ubyte(cmpts, w, h, src, dst, element_size, w * group_size, group_size);
+                    break;
+                case GL.GL_UNSIGNED_SHORT:
+                    HalveImage.halveImage_ushort(cmpts, w, h, src, dst.asShortBuffer(), element_size, w * group_size, group_size, false);
+                    break;
+                default:
+                    HalveImage.halveImage_float(cmpts, w, h, src, dst.asFloatBuffer(), element_size, w * group_size, group_size, false);
+                    break;
+            }
+            chain[level] = dst;
+            w = nw;
+            h = nh;
+        }
+        return chain;
+    }
+
+    static void assertEquals(String msg, ByteBuffer[] exp, ByteBuffer[] has) {
+        Assert.assertEquals(msg+": levels", exp.length, has.length);
+        for(int i=0; i<exp.length; i++) {
+            final ByteBuffer e = exp[i].duplicate();
+            final ByteBuffer h = has[i].duplicate();
+            e.rewind();
+            h.rewind();
+            Assert.assertEquals(msg+": level "+i+" size", e.remaining(), h.remaining());
+            for(int j=0; j<e.remaining(); j++) {
+                if( e.get(j) != h.get(j) ) {
+                    Assert.fail(msg+": level "+i+" differs at byte "+j+": "+e.get(j)+" != "+h.get(j));
+                }
+            }
+        }
+    }
+
+    void testChain(Random rnd, int width, int height, ByteOrder order) {
+        final int widthPowerOf2 = Mipmap.nearestPower(width);
+        final int heightPowerOf2 = Mipmap.nearestPower(height);
+        for(int t=0; t<types.length; t++) {
+            for(int f=0; f<formats.length; f++) {
+                final ByteBuffer data = createImage(rnd, width, height, formats[f], types[t], order);
+                final String msg = width+"x"+height+" -> "+widthPowerOf2+"x"+heightPowerOf2+", type 0x"+Integer.toHexString(types[t])+
+                                   ", format 0x"+Integer.toHexString(formats[f])+", "+order;
+                final ByteBuffer[] exp = referenceChain(width, height, widthPowerOf2, heightPowerOf2, formats[f], types[t], data);
+                assertEquals(msg+", sequential", exp, BuildMipmap.build2DMipmapChain(width, height, widthPowerOf2, heightPowerOf2, formats[f], types[t], data, false));
+                if( BuildMipmap.isParallelModeAvailable() ) {
+                    assertEquals(msg+", parallel", exp, BuildMipmap.build2DMipmapChain(width, height, widthPowerOf2, heightPowerOf2, formats[f], types[t], data, true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test01PowerOfTwo() {
+        final Random rnd = new Random(1);
+        testChain(rnd, 2, 2, ByteOrder.nativeOrder());
+        testChain(rnd, 16, 4, ByteOrder.nativeOrder());
+        testChain(rnd, 4, 64, ByteOrder.nativeOrder());
+        testChain(rnd, 256, 256, ByteOrder.nativeOrder());
+        testChain(rnd, 512, 128, ByteOrder.BIG_ENDIAN);
+        testChain(rnd, 512, 128, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void test02Scaled() {
+        final Random rnd = new Random(2);
+        testChain(rnd, 3, 5, ByteOrder.nativeOrder());
+        testChain(rnd, 5, 3, ByteOrder.nativeOrder());
+        testChain(rnd, 130, 70, ByteOrder.nativeOrder());
+        testChain(rnd, 100, 37, ByteOrder.nativeOrder());
+        testChain(rnd, 300, 200, ByteOrder.nativeOrder());
+        testChain(rnd, 640, 480, ByteOrder.BIG_ENDIAN);
+        testChain(rnd, 1000, 90, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void test10Benchmark() {
+        final Random rnd = new Random(10);
+        final int[] sizes = { benchSize, benchSize - benchSize / 4 }; // power of two, scaled
+        for(int s=0; s<sizes.length; s++) {
+            final int size = sizes[s];
+            final int sizePowerOf2 = Mipmap.nearestPower(size);
+            for(int t=0; t<types.length; t++) {
+                final ByteBuffer data = createImage(rnd, size, size, GL.GL_RGBA, types[t], ByteOrder.nativeOrder());
+                long dtRef = 0, dtSeq = 0, dtPar = 0;
+                for(int l=-1; l<loops; l++) { // first loop warms up
+                    final long t0 = System.nanoTime();
+                    referenceChain(size, size, sizePowerOf2, sizePowerOf2, GL.GL_RGBA, types[t], data);
+                    final long t1 = System.nanoTime();
+                    BuildMipmap.build2DMipmapChain(size, size, sizePowerOf2, sizePowerOf2, GL.GL_RGBA, types[t], data, false);
+                    final long t2 = System.nanoTime();
+                    if( BuildMipmap.isParallelModeAvailable() ) {
+                        BuildMipmap.build2DMipmapChain(size, size, sizePowerOf2, sizePowerOf2, GL.GL_RGBA, types[t], data, true);
+                    }
+                    final long t3 = System.nanoTime();
+                    if( 0 <= l ) {
+                        dtRef += t1 - t0;
+                        dtSeq += t2 - t1;
+                        dtPar += t3 - t2;
+                    }
+                }
+                System.err.println("RGBA "+size+"x"+size+" -> "+sizePowerOf2+"x"+sizePowerOf2+", type 0x"+Integer.toHexString(types[t])+
+                                   ", loops "+loops+": per element "+( dtRef / 1000000f / loops )+" ms, bulk "+( dtSeq / 1000000f / loops )+
+                                   " ms, bulk parallel "+( dtPar / 1000000f / loops )+" ms");
+            }
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-size")) {
+                i++;
+                benchSize = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestMipmapChain01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLES1;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.util.ImmModeSink;
+
+/**
+ * Tests the {@link ImmModeSink} buffer growth policy and benchmarks 
+ * filling 1M vertices w/ linear and geometric growth, w/o GL.
+ * <p>
+ * The VBO upload of grown buffers and the streaming VBO ring are tested w/ a {@link StubGL}.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestImmModeSinkGrowthNOUI {
+    static int loops = 3;
+    static int vertexCount = 1000000;
+
+    static final int vertexBytes = ( 3 + 4 + 2 ) * 4;
+    
+    static ImmModeSink createSink(int initialElementCount) {
+        return createSink(initialElementCount, 0);
+    }
+    
+    static ImmModeSink createSink(int initialElementCount, int glBufferUsage) {
+        return ImmModeSink.createFixed(initialElementCount, 
+                                       3, GL.GL_FLOAT, // vertex
+                                       4, GL.GL_FLOAT, // color
+                                       0, 0,           // normal
+                                       2, GL.GL_FLOAT, // texCoords 
+                                       glBufferUsage);
+    }
+    
+    /** 
+     * {@link GLES1} {@link StubGL} logging the VBO data uploads, 
+     * optionally exposing <code>glMapBufferRange</code>.
+     */
+    static class UploadGL implements InvocationHandler {
+        final List<String> log = new ArrayList<String>();
+        final List<Integer> boundVBOs = new ArrayList<Integer>();
+        final GLES1 stub = StubGL.create(GLES1.class, null);
+        final GLES1 gl = GLES1.class.cast( Proxy.newProxyInstance(UploadGL.class.getClassLoader(), new Class<?>[] { GLES1.class }, this) );
+        final boolean mapBufferRange;
+        ByteBuffer mapped;
+        long subDataBytes = 0;
+        int nextName = 100;
+        
+        UploadGL(boolean mapBufferRange) {
+            this.mapBufferRange = mapBufferRange;
+        }
+        
+        @Override
+        public Object invoke(Object p, Method m, Object[] args) throws Throwable {
+            final String name = m.getName();
+            if( name.startsWith("getGL") && 0 == m.getParameterTypes().length && GL.class.isAssignableFrom(m.getReturnType()) ) {
+                return gl;
+            } else if( name.equals("isFunctionAvailable") ) {
+                return Boolean.valueOf( mapBufferRange && "glMapBufferRange".equals(args[0]) );
+            } else if( name.equals("glGenBuffers") && args[1] instanceof int[] ) {
+                ((int[]) args[1])[((Integer)args[2]).intValue()] = nextName++;
+            } else if( name.equals("glBindBuffer") && GL.GL_ARRAY_BUFFER == ((Integer)args[0]).intValue() ) {
+                boundVBOs.add((Integer)args[1]);
+            } else if( name.equals("glBufferData") ) {
+                log.add("glBufferData("+args[1]+", "+( null != args[2] ? ((Buffer)args[2]).remaining() : "null" )+")");
+            } else if( name.equals("glBufferSubData") ) {
+                log.add("glBufferSubData("+args[1]+", "+args[2]+")");
+                subDataBytes += ((Long)args[2]).longValue();
+            } else if( name.equals("glMapBufferRange") ) {
+                log.add("glMapBufferRange("+args[2]+")");
+                mapped = ByteBuffer.allocateDirect(((Long)args[2]).intValue()).order(ByteOrder.nativeOrder());
+                return mapped;
+            } else if( name.equals("glUnmapBuffer") ) {
+                return Boolean.TRUE;
+            }
+            try {
+                return m.invoke(stub, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        
+        int count(String prefix) {
+            int n = 0;
+            for(int i=0; i<log.size(); i++) {
+                if( log.get(i).startsWith(prefix) ) {
+                    n++;
+                }
+            }
+            return n;
+        }
+        
+        void clear() {
+            log.clear();
+            boundVBOs.clear();
+            subDataBytes = 0;
+        }
+    }
+    
+    static void fill(ImmModeSink ims, int count) {
+        ims.glBegin(GL.GL_TRIANGLES);
+        for(int i=0; i<count; i++) {
+            final float f = i / (float) count;
+            ims.glVertex3f(f, 1f-f, 0f);
+            ims.glColor4f(f, f, f, 1f);
+            ims.glTexCoord2f(f, 1f-f);
+        }
+    }
+    
+    static long benchmark(String name, int resizeElementCount, float factor, int maxElementCount) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final ImmModeSink ims = createSink(resizeElementCount);
+            ims.setResizeGrowth(factor, maxElementCount);
+            final long t0 = System.nanoTime();
+            fill(ims, vertexCount);
+            best = Math.min(best, System.nanoTime() - t0);
+            Assert.assertTrue(ims.toString(), ims.toString().contains("[v "+vertexCount+"/"));
+            ims.destroy(null);
+        }
+        System.err.println(name+": "+vertexCount+" vertices, resize "+resizeElementCount+", factor "+factor+", max "+maxElementCount+
+                           ": "+(best/1000000.0)+" ms, "+(vertexCount*1000.0/best)+" Mvertices/s");
+        return best;
+    }
+    
+    @Test
+    public void test01GrowthPolicy() {
+        final ImmModeSink ims = createSink(100);
+        Assert.assertEquals(2f, ims.getResizeGrowthFactor(), 0f);
+        Assert.assertEquals(0, ims.getResizeMaxElementCount());
+        Assert.assertEquals(0, ims.getStreamingVBOCount());
+        ims.setResizeGrowth(1.5f, 1000);
+        Assert.assertEquals(1.5f, ims.getResizeGrowthFactor(), 0f);
+        Assert.assertEquals(1000, ims.getResizeMaxElementCount());
+        
+        fill(ims, 10000);
+        Assert.assertTrue(ims.toString(), ims.toString().contains("[v 10000/"));
+        
+        // w/o VBO usage streaming is not available
+        try {
+            ims.setStreamingVBOCount(3);
+            Assert.fail("Streaming w/o VBO usage");
+        } catch (javax.media.opengl.GLException e) { /* OK */ }
+        
+        final ImmModeSink imsVBO = ImmModeSink.createFixed(100, 3, GL.GL_FLOAT, 0, 0, 0, 0, 0, 0, GL.GL_DYNAMIC_DRAW);
+        imsVBO.setStreamingVBOCount(3);
+        Assert.assertEquals(3, imsVBO.getStreamingVBOCount());
+    }
+    
+    @Test
+    public void test02FillBenchmark() {
+        benchmark("warmup    ", 10000, 2f, 0);
+        final long tLinear = benchmark("linear    ", 10000, 1f, 0);
+        final long tGeom = benchmark("geometric ", 10000, 2f, 0);
+        benchmark("geom capped", 10000, 2f, 100000);
+        System.err.println("geometric / linear: "+((double)tGeom/tLinear));
+    }
+    
+    @Test
+    public void test03GrownBufferUpload() {
+        final UploadGL ugl = new UploadGL(false);
+        final ImmModeSink ims = createSink(100, GL.GL_STATIC_DRAW);
+        
+        // grown buffer: data store allocated once, only the used ranges are written
+        fill(ims, 10000);
+        ims.glEnd(ugl.gl, true);
+        Assert.assertEquals(ugl.log.toString(), 1, ugl.count("glBufferData("));
+        Assert.assertTrue(ugl.log.toString(), ugl.log.get(0).endsWith(", null)"));
+        Assert.assertEquals(10000 * vertexBytes, ugl.subDataBytes);
+        
+        // same buffer: data store kept
+        ugl.clear();
+        fill(ims, 10000);
+        ims.glEnd(ugl.gl, true);
+        Assert.assertEquals(ugl.log.toString(), 0, ugl.count("glBufferData("));
+        Assert.assertEquals(10000 * vertexBytes, ugl.subDataBytes);
+        
+        // grown again: data store reallocated, only the used ranges are written
+        ugl.clear();
+        fill(ims, 30000);
+        ims.glEnd(ugl.gl, true);
+        Assert.assertEquals(ugl.log.toString(), 1, ugl.count("glBufferData("));
+        Assert.assertTrue(ugl.log.toString(), ugl.log.get(0).endsWith(", null)"));
+        Assert.assertEquals(30000 * vertexBytes, ugl.subDataBytes);
+        ims.destroy(ugl.gl);
+        
+        // fully used buffer w/o growth: written at once
+        final UploadGL ugl2 = new UploadGL(false);
+        final ImmModeSink ims2 = createSink(100, GL.GL_STATIC_DRAW);
+        fill(ims2, 100);
+        ims2.glEnd(ugl2.gl, true);
+        Assert.assertEquals(ugl2.log.toString(), 1, ugl2.count("glBufferData("));
+        Assert.assertFalse(ugl2.log.toString(), ugl2.log.get(0).endsWith(", null)"));
+        Assert.assertEquals(0, ugl2.subDataBytes);
+        ims2.destroy(ugl2.gl);
+    }
+    
+    @Test
+    public void test04StreamingSubData() {
+        final UploadGL ugl = new UploadGL(false);
+        final ImmModeSink ims = createSink(1000, GL2ES2.GL_STREAM_DRAW);
+        ims.setStreamingVBOCount(3);
+        for(int i=0; i<4; i++) {
+            fill(ims, 1000);
+            ims.glEnd(ugl.gl, true);
+        }
+        // ring of 3 VBOs, each orphaned and written via glBufferSubData
+        Assert.assertEquals(ugl.boundVBOs.toString(), Integer.valueOf(100), ugl.boundVBOs.get(0));
+        Assert.assertTrue(ugl.boundVBOs.toString(), ugl.boundVBOs.contains(Integer.valueOf(102)));
+        Assert.assertFalse(ugl.boundVBOs.toString(), ugl.boundVBOs.contains(Integer.valueOf(103)));
+        Assert.assertEquals(ugl.log.toString(), 4, ugl.count("glBufferData("));
+        for(int i=0; i<ugl.log.size(); i++) {
+            Assert.assertFalse(ugl.log.toString(), ugl.log.get(i).startsWith("glBufferData(") && !ugl.log.get(i).endsWith(", null)"));
+        }
+        Assert.assertEquals(4 * 1000 * vertexBytes, ugl.subDataBytes);
+        ims.destroy(ugl.gl);
+    }
+    
+    @Test
+    public void test05StreamingMapBufferRange() {
+        final UploadGL ugl = new UploadGL(true);
+        final ImmModeSink ims = createSink(1000, GL2ES2.GL_STREAM_DRAW);
+        ims.setStreamingVBOCount(3);
+        fill(ims, 1000);
+        ims.glEnd(ugl.gl, true);
+        Assert.assertEquals(ugl.log.toString(), 1, ugl.count("glBufferData("));
+        Assert.assertEquals(ugl.log.toString(), 1, ugl.count("glMapBufferRange("));
+        Assert.assertEquals(ugl.log.toString(), 0, ugl.count("glBufferSubData("));
+        // 1st vertex, see fill(..)
+        Assert.assertEquals(0f, ugl.mapped.getFloat(0), 0f);
+        Assert.assertEquals(1f, ugl.mapped.getFloat(4), 0f);
+        Assert.assertEquals(0f, ugl.mapped.getFloat(8), 0f);
+        ims.destroy(ugl.gl);
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-count")) {
+                i++;
+                vertexCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestImmModeSinkGrowthNOUI.class.getName());
+    }
+}
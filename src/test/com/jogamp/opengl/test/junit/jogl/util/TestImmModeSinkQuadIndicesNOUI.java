@@ -0,0 +1,225 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+ 
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLES1;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GLExtensions;
+import com.jogamp.opengl.test.junit.util.StubGL;
+import com.jogamp.opengl.test.junit.util.StubGLContext;
+import com.jogamp.opengl.util.ImmModeSink;
+
+/**
+ * Tests {@link ImmModeSink} <code>GL_QUADS</code> rendering via triangle indices on a non GL2 profile, w/o GL:
+ * <ul>
+ *   <li>index type w/ and w/o <code>GL_UNSIGNED_INT</code> index support</li>
+ *   <li>preserving the caller's <code>GL_ELEMENT_ARRAY_BUFFER</code> binding</li>
+ *   <li>deletion of the shared quad index buffer object by the last sink</li>
+ * </ul>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestImmModeSinkQuadIndicesNOUI {
+    
+    /** 
+     * {@link GLES1} {@link StubGL} w/ a {@link StubGLContext}, 
+     * tracking buffer names and bindings and optionally exposing <code>GL_OES_element_index_uint</code>.
+     */
+    static class QuadsGL implements InvocationHandler {
+        final List<String> log = new ArrayList<String>();
+        final Map<Integer, Integer> bindings = new HashMap<Integer, Integer>();
+        final List<Integer> deleted = new ArrayList<Integer>();
+        final GLES1 stub = StubGL.create(GLES1.class, log, true);
+        final GLES1 gl = GLES1.class.cast( Proxy.newProxyInstance(QuadsGL.class.getClassLoader(), new Class<?>[] { GLES1.class }, this) );
+        final StubGLContext context = new StubGLContext(gl);
+        final boolean uintIndices;
+        int nextName = 100;
+        
+        QuadsGL(boolean uintIndices) {
+            this.uintIndices = uintIndices;
+        }
+        
+        @Override
+        public Object invoke(Object p, Method m, Object[] args) throws Throwable {
+            final String name = m.getName();
+            if( name.equals("getContext") ) {
+                return context;
+            } else if( name.equals("isExtensionAvailable") ) {
+                return Boolean.valueOf( uintIndices && GLExtensions.OES_element_index_uint.equals(args[0]) );
+            } else if( name.startsWith("getGL") && 0 == m.getParameterTypes().length && GL.class.isAssignableFrom(m.getReturnType()) ) {
+                return gl;
+            } else if( name.equals("glGetBoundBuffer") ) {
+                final Integer b = bindings.get(args[0]);
+                return Integer.valueOf( null != b ? b.intValue() : 0 );
+            } else if( name.equals("glBindBuffer") ) {
+                bindings.put((Integer)args[0], (Integer)args[1]);
+            } else if( name.equals("glGenBuffers") && args[1] instanceof int[] ) {
+                final int[] names = (int[]) args[1];
+                for(int i=0; i<((Integer)args[0]).intValue(); i++) {
+                    names[((Integer)args[2]).intValue()+i] = nextName++;
+                }
+            } else if( name.equals("glDeleteBuffers") && args[1] instanceof int[] ) {
+                deleted.add( Integer.valueOf( ((int[]) args[1])[((Integer)args[2]).intValue()] ) );
+            }
+            try {
+                return m.invoke(stub, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        
+        int count(String call) {
+            int n = 0;
+            for(int i=0; i<log.size(); i++) {
+                if( log.get(i).equals(call) ) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+    
+    static ImmModeSink createQuads(int quads, int glBufferUsage) {
+        final ImmModeSink ims = ImmModeSink.createFixed(quads * 4, 
+                                                        2, GL.GL_FLOAT, // vertex
+                                                        0, 0, 0, 0, 0, 0, // color, normal, texCoords
+                                                        glBufferUsage);
+        ims.glBegin(ImmModeSink.GL_QUADS);
+        for(int i=0; i<quads; i++) {
+            ims.glVertex2f(i, 0f);
+            ims.glVertex2f(i+1, 0f);
+            ims.glVertex2f(i+1, 1f);
+            ims.glVertex2f(i, 1f);
+        }
+        return ims;
+    }
+    
+    @Test
+    public void test01SharedIndexVBO() {
+        final QuadsGL qgl = new QuadsGL(false);
+        final GL gl = qgl.gl;
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 42); // caller's binding
+        
+        final ImmModeSink ims1 = createQuads(2, GL.GL_STATIC_DRAW);
+        ims1.glEnd(gl, false);
+        ims1.draw(gl, true);
+        final ImmModeSink ims2 = createQuads(3, GL.GL_STATIC_DRAW);
+        ims2.glEnd(gl, false);
+        ims2.draw(gl, true);
+        
+        Assert.assertEquals(1, qgl.count("glDrawElements(4, 12, 5123, 0)"));
+        Assert.assertEquals(1, qgl.count("glDrawElements(4, 18, 5123, 0)"));
+        Assert.assertEquals(0, qgl.count("glDrawArrays(6, 0, 4)"));
+        Assert.assertEquals("caller's element array buffer binding", 42, gl.glGetBoundBuffer(GL.GL_ELEMENT_ARRAY_BUFFER));
+        
+        // one index VBO shared by both sinks, deleted w/ the last one
+        final Object qi = qgl.context.getAttachedObject("com.jogamp.opengl.util.ImmModeSink.QuadIndices");
+        Assert.assertNotNull(qi);
+        final List<Integer> vbos = new ArrayList<Integer>();
+        for(int i=0; i<qgl.log.size(); i++) {
+            final String c = qgl.log.get(i);
+            if( c.startsWith("glBindBuffer(34963, ") && !c.equals("glBindBuffer(34963, 42)") ) {
+                final Integer vbo = Integer.valueOf(c.substring("glBindBuffer(34963, ".length(), c.length()-1));
+                if( !vbos.contains(vbo) ) {
+                    vbos.add(vbo);
+                }
+            }
+        }
+        Assert.assertEquals(vbos.toString(), 1, vbos.size());
+        ims1.destroy(gl);
+        Assert.assertFalse(qgl.deleted.toString(), qgl.deleted.contains(vbos.get(0)));
+        Assert.assertSame(qi, qgl.context.getAttachedObject("com.jogamp.opengl.util.ImmModeSink.QuadIndices"));
+        ims2.destroy(gl);
+        Assert.assertTrue(qgl.deleted.toString(), qgl.deleted.contains(vbos.get(0)));
+        Assert.assertNull(qgl.context.getAttachedObject("com.jogamp.opengl.util.ImmModeSink.QuadIndices"));
+    }
+    
+    @Test
+    public void test02IndexVBOExceedingUShort() {
+        final int quads = 0x10000 / 4 + 2;
+        final QuadsGL qgl = new QuadsGL(false);
+        final ImmModeSink ims = createQuads(quads, GL.GL_STATIC_DRAW);
+        ims.glEnd(qgl.gl, true);
+        Assert.assertEquals(1, qgl.count("glDrawElements(4, "+(0x10000/4*6)+", 5123, 0)"));
+        Assert.assertEquals(1, qgl.count("glDrawArrays(6, 65536, 4)"));
+        Assert.assertEquals(1, qgl.count("glDrawArrays(6, 65540, 4)"));
+        ims.destroy(qgl.gl);
+        
+        final QuadsGL qglUInt = new QuadsGL(true);
+        final ImmModeSink imsUInt = createQuads(quads, GL.GL_STATIC_DRAW);
+        imsUInt.glEnd(qglUInt.gl, true);
+        Assert.assertEquals(1, qglUInt.count("glDrawElements(4, "+(quads*6)+", 5125, 0)"));
+        Assert.assertEquals(0, qglUInt.count("glDrawArrays(6, 65536, 4)"));
+        imsUInt.destroy(qglUInt.gl);
+    }
+    
+    @Test
+    public void test03UserIndicesExceedingUShort() {
+        final IntBuffer indices = Buffers.newDirectIntBuffer(new int[] { 0, 70000, 4 });
+        
+        // w/o GL_UNSIGNED_INT index support: ushort chunks and a triangle fan, preserving the order
+        final QuadsGL qgl = new QuadsGL(false);
+        final ImmModeSink ims = createQuads(2, 0);
+        ims.glEnd(qgl.gl, indices);
+        final int d0 = qgl.log.indexOf("glDrawElements(4, 6, 5123, [0, 1, 2, 0, 2, 3])");
+        final int d1 = qgl.log.indexOf("glDrawArrays(6, 70000, 4)");
+        final int d2 = qgl.log.indexOf("glDrawElements(4, 6, 5123, [4, 5, 6, 4, 6, 7])");
+        Assert.assertTrue(qgl.log.toString(), 0 <= d0 && d0 < d1 && d1 < d2);
+        Assert.assertEquals(qgl.log.toString(), 0, qgl.count("glDrawElements(4, 18, 5125, [0, 1, 2, 0, 2, 3, 70000, 70001, 70002, 70000, 70002, 70003, 4, 5, 6, 4, 6, 7])"));
+        ims.destroy(qgl.gl);
+        
+        // w/ GL_UNSIGNED_INT index support: one draw call
+        final QuadsGL qglUInt = new QuadsGL(true);
+        final ImmModeSink imsUInt = createQuads(2, 0);
+        imsUInt.glEnd(qglUInt.gl, indices);
+        Assert.assertEquals(qglUInt.log.toString(), 1, qglUInt.count("glDrawElements(4, 18, 5125, [0, 1, 2, 0, 2, 3, 70000, 70001, 70002, 70000, 70002, 70003, 4, 5, 6, 4, 6, 7])"));
+        Assert.assertEquals(0, qglUInt.count("glDrawArrays(6, 70000, 4)"));
+        imsUInt.destroy(qglUInt.gl);
+    }
+    
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestImmModeSinkQuadIndicesNOUI.class.getName());
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+
+import jogamp.opengl.util.jpeg.JPEGDecoder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.opengl.util.texture.TextureData.ColorSpace;
+import com.jogamp.opengl.util.texture.spi.JPEGImage;
+
+/**
+ * Validates the line based {@link JPEGDecoder#getPixelLines(JPEGDecoder.ColorLineSink, int, int)} 
+ * used by {@link JPEGImage} against the per pixel {@link JPEGDecoder#getPixel(JPEGDecoder.ColorSink, int, int)}
+ * and benchmarks both.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestJPEGImage02LineSinkNOUI {
+    static int loops = 20;
+    static String[] files = { "j1-baseline.jpg", "j2-progressive.jpg", "j3-baseline_gray.jpg", 
+                              "test-cmyk-01.jpg", "test-ycck-01.jpg", "bug745_qttdef_post_frame.jpg",
+                              "test-ntscN_3-01-160x90-60pct-yuv422h-base.jpg", "test-ntscN_3-01-160x90-90pct-yuv444-prog.jpg" };
+
+    /** Per pixel reference sink, storing bottom-to-top like {@link JPEGImage}. */
+    static class PixelSink implements JPEGDecoder.ColorSink {
+        final ColorSpace storageCS;
+        int width, height, sourceComponents;
+        byte[] data;
+
+        PixelSink(ColorSpace storageCS) { this.storageCS = storageCS; }
+
+        @Override
+        public ColorSpace allocate(int width, int height, ColorSpace sourceCS, int sourceComponents) {
+            this.width = width;
+            this.height = height;
+            this.sourceComponents = sourceComponents;
+            data = new byte[width * height * 3];
+            return storageCS;
+        }
+        @Override
+        public void store2(int x, int y, byte c1, byte c2) {
+            throw new RuntimeException("not supported");
+        }
+        @Override
+        public void storeRGB(int x, int y, byte r, byte g, byte b) {
+            int i = ( ( height - y - 1 ) * width + x ) * 3;
+            data[i++] = r;
+            data[i++] = g;
+            data[i++] = b;
+        }
+        @Override
+        public void storeYCbCr(int x, int y, byte Y, byte Cb, byte Cr) {
+            storeRGB(x, y, Y, Cb, Cr);
+        }
+    }
+
+    /** Line sink w/o any storage, used to measure the decoder's conversion only. */
+    static class NullLineSink implements JPEGDecoder.ColorLineSink {
+        final ColorSpace storageCS;
+        int sum;
+        NullLineSink(ColorSpace storageCS) { this.storageCS = storageCS; }
+
+        @Override
+        public ColorSpace allocate(int width, int height, ColorSpace sourceCS, int sourceComponents) {
+            return storageCS;
+        }
+        @Override
+        public void storeLine(int y, byte[] line, int components) {
+            sum += line[0];
+        }
+    }
+
+    static byte[] load(String fname) throws IOException {
+        final URLConnection urlConn = IOUtil.getResource(TestJPEGImage02LineSinkNOUI.class, fname);
+        Assert.assertNotNull(fname, urlConn);
+        return IOUtil.copyStream2ByteArray(urlConn.getInputStream());
+    }
+
+    static byte[] toArray(JPEGImage image) {
+        final byte[] res = new byte[image.getData().remaining()];
+        image.getData().duplicate().get(res);
+        return res;
+    }
+
+    @Test
+    public void test01LinesEqualPixels() throws IOException {
+        final ColorSpace[] storage = { ColorSpace.RGB, ColorSpace.YCbCr };
+        for(int i=0; i<files.length; i++) {
+            final byte[] jpeg = load(files[i]);
+            for(int j=0; j<storage.length; j++) {
+                final JPEGDecoder decoder = new JPEGDecoder();
+                decoder.parse(new ByteArrayInputStream(jpeg));
+                final PixelSink ref = new PixelSink(storage[j]);
+                try {
+                    decoder.getPixel(ref, decoder.getWidth(), decoder.getHeight());
+                } catch (JPEGDecoder.CodecException ce) {
+                    // unsupported combination, e.g. CMYK -> YCbCr, shall be rejected by both
+                    System.err.println(files[i]+", "+storage[j]+": "+ce.getMessage());
+                    try {
+                        JPEGImage.read(new ByteArrayInputStream(jpeg), storage[j]);
+                        Assert.fail(files[i]+", "+storage[j]+": expected exception");
+                    } catch (JPEGDecoder.CodecException ce2) { }
+                    continue;
+                }
+                final JPEGImage image = JPEGImage.read(new ByteArrayInputStream(jpeg), storage[j]);
+                Assert.assertEquals(0, image.getData().position());
+                final byte[] res = toArray(image);
+                Assert.assertEquals(ref.data.length, res.length);
+                // YCbCr -> RGB uses fixed point instead of float math, allow off by one
+                final int tolerance = ColorSpace.RGB == storage[j] && 3 == ref.sourceComponents ? 1 : 0;
+                int maxDiff = 0;
+                for(int k=0; k<res.length; k++) {
+                    maxDiff = Math.max(maxDiff, Math.abs( ( ref.data[k] & 0xff ) - ( res[k] & 0xff ) ));
+                }
+                System.err.println(files[i]+", "+storage[j]+": "+image+", max diff "+maxDiff);
+                Assert.assertTrue(files[i]+", "+storage[j]+": max diff "+maxDiff, maxDiff <= tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException {
+        for(int i=0; i<2; i++) {
+            final byte[] jpeg = load(files[i]);
+            final JPEGDecoder decoder = new JPEGDecoder();
+            decoder.parse(new ByteArrayInputStream(jpeg));
+            final int w = decoder.getWidth(), h = decoder.getHeight();
+            long dtPixel = 0, dtLine = 0, dtImage = 0;
+            for(int l=-loops/4; l<loops; l++) { // first quarter warms up
+                final long t0 = System.nanoTime();
+                decoder.getPixel(new PixelSink(ColorSpace.RGB), w, h);
+                final long t1 = System.nanoTime();
+                decoder.getPixelLines(new NullLineSink(ColorSpace.RGB), w, h);
+                final long t2 = System.nanoTime();
+                JPEGImage.read(new ByteArrayInputStream(jpeg));
+                final long t3 = System.nanoTime();
+                if( 0 <= l ) {
+                    dtPixel += t1 - t0;
+                    dtLine += t2 - t1;
+                    dtImage += t3 - t2;
+                }
+            }
+            System.err.println(files[i]+" "+w+"x"+h+", loops "+loops+":");
+            System.err.println("  color conversion, per pixel sink "+( dtPixel / 1000000f / loops )+" ms");
+            System.err.println("  color conversion, line sink      "+( dtLine / 1000000f / loops )+" ms");
+            System.err.println("  JPEGImage.read total             "+( dtImage / 1000000f / loops )+" ms");
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-file")) {
+                i++;
+                files = new String[] { args[i], args[i] };
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestJPEGImage02LineSinkNOUI.class.getName());
+    }
+}
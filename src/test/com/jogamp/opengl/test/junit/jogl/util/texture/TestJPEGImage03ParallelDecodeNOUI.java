@@ -0,0 +1,245 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import jogamp.opengl.util.jpeg.JPEGDecoder;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+import org.w3c.dom.Node;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.opengl.util.texture.TextureData.ColorSpace;
+
+/**
+ * Validates {@link JPEGDecoder#setParallelMode(boolean) parallel decoding}
+ * produces the identical pixels as the sequential decoding and benchmarks both.
+ * <p>
+ * Baseline JPEGs w/ restart intervals are created w/ ImageIO.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestJPEGImage03ParallelDecodeNOUI {
+    static int loops = 10;
+    static int benchSize = 2048;
+    static String[] files = { "j1-baseline.jpg", "j2-progressive.jpg", "j3-baseline_gray.jpg", 
+                              "test-cmyk-01.jpg", "test-ycck-01.jpg", "bug745_qttdef_post_frame.jpg",
+                              "test-ntscN_3-01-160x90-60pct-yuv422h-base.jpg", "test-ntscN_3-01-160x90-90pct-yuv444-prog.jpg" };
+
+    @BeforeClass
+    public static void checkAvailable() {
+        Assume.assumeTrue(JPEGDecoder.isParallelModeAvailable());
+    }
+
+    static class ArraySink implements JPEGDecoder.ColorLineSink {
+        final ColorSpace storageCS;
+        int width, lineSize;
+        byte[] data;
+
+        ArraySink(ColorSpace storageCS) { this.storageCS = storageCS; }
+
+        @Override
+        public ColorSpace allocate(int width, int height, ColorSpace sourceCS, int sourceComponents) {
+            this.width = width;
+            this.lineSize = width * ( 2 == sourceComponents ? 2 : 3 );
+            data = new byte[lineSize * height];
+            return storageCS;
+        }
+        @Override
+        public void storeLine(int y, byte[] line, int components) {
+            System.arraycopy(line, 0, data, y * lineSize, lineSize);
+        }
+    }
+
+    static byte[] decode(byte[] jpeg, boolean parallel, ColorSpace storageCS) throws IOException {
+        final JPEGDecoder decoder = new JPEGDecoder();
+        decoder.setParallelMode(parallel);
+        decoder.parse(new ByteArrayInputStream(jpeg));
+        final ArraySink sink = new ArraySink(storageCS);
+        decoder.getPixelLines(sink, decoder.getWidth(), decoder.getHeight());
+        return sink.data;
+    }
+
+    /** Creates a photo like image w/ gradients and noise. */
+    static BufferedImage createImage(int width, int height, int type, long seed) {
+        final BufferedImage img = new BufferedImage(width, height, type);
+        final Random rnd = new Random(seed);
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                final int r = ( x * 255 / width + rnd.nextInt(32) ) & 0xff;
+                final int g = ( y * 255 / height + rnd.nextInt(32) ) & 0xff;
+                final int b = ( ( x ^ y ) + rnd.nextInt(16) ) & 0xff;
+                img.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        return img;
+    }
+
+    /** Encodes the image as a baseline JPEG w/ the given restart interval in MCUs, 0 for none. */
+    static byte[] encode(BufferedImage img, int restartInterval) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.9f);
+        final IIOMetadata meta = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(img), param);
+        if( 0 < restartInterval ) {
+            final String format = "javax_imageio_jpeg_image_1.0";
+            final IIOMetadataNode root = (IIOMetadataNode) meta.getAsTree(format);
+            final IIOMetadataNode markerSequence = (IIOMetadataNode) root.getElementsByTagName("markerSequence").item(0);
+            final IIOMetadataNode dri = new IIOMetadataNode("dri");
+            dri.setAttribute("interval", String.valueOf(restartInterval));
+            final Node first = markerSequence.getFirstChild();
+            markerSequence.insertBefore(dri, first);
+            meta.setFromTree(format, root);
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes);
+        writer.setOutput(out);
+        writer.write(null, new IIOImage(img, null, meta), param);
+        out.close();
+        writer.dispose();
+        return bytes.toByteArray();
+    }
+
+    static boolean hasRestartInterval(byte[] jpeg) {
+        for(int i=0; i<jpeg.length-1; i++) {
+            if( (byte)0xFF == jpeg[i] && (byte)0xDD == jpeg[i+1] ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void assertIdentical(String name, byte[] jpeg) throws IOException {
+        final ColorSpace[] storage = { ColorSpace.RGB, ColorSpace.YCbCr };
+        for(int j=0; j<storage.length; j++) {
+            final byte[] seq;
+            try {
+                seq = decode(jpeg, false, storage[j]);
+            } catch (JPEGDecoder.CodecException ce) {
+                System.err.println(name+", "+storage[j]+": "+ce.getMessage());
+                continue; // unsupported, e.g. CMYK -> YCbCr
+            }
+            final byte[] par = decode(jpeg, true, storage[j]);
+            Assert.assertArrayEquals(name+", "+storage[j], seq, par);
+        }
+    }
+
+    @Test
+    public void test01ResourcesIdentical() throws IOException {
+        for(int i=0; i<files.length; i++) {
+            final URLConnection urlConn = IOUtil.getResource(this.getClass(), files[i]);
+            Assert.assertNotNull(files[i], urlConn);
+            final byte[] jpeg = IOUtil.copyStream2ByteArray(urlConn.getInputStream());
+            System.err.println(files[i]+": restart interval "+hasRestartInterval(jpeg));
+            assertIdentical(files[i], jpeg);
+        }
+    }
+
+    @Test
+    public void test02RestartIntervalsIdentical() throws IOException {
+        final int[][] sizes = { { 17, 9 }, { 261, 202 }, { 640, 480 } };
+        final int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY };
+        final int[] intervals = { 0, 1, 3, 16 };
+        for(int s=0; s<sizes.length; s++) {
+            for(int t=0; t<types.length; t++) {
+                final BufferedImage img = createImage(sizes[s][0], sizes[s][1], types[t], s * 31 + t);
+                for(int r=0; r<intervals.length; r++) {
+                    final byte[] jpeg = encode(img, intervals[r]);
+                    Assert.assertEquals(0 < intervals[r], hasRestartInterval(jpeg));
+                    assertIdentical(sizes[s][0]+"x"+sizes[s][1]+", type "+types[t]+", interval "+intervals[r], jpeg);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException {
+        final BufferedImage img = createImage(benchSize, benchSize, BufferedImage.TYPE_INT_RGB, 1);
+        final int mcusPerLine = ( benchSize + 15 ) / 16;
+        final byte[][] jpegs = { encode(img, 0), encode(img, mcusPerLine) };
+        final String[] names = { "no restart interval", "restart interval "+mcusPerLine };
+        for(int i=0; i<jpegs.length; i++) {
+            long dtSeq = 0, dtPar = 0;
+            for(int l=-1; l<loops; l++) { // first loop warms up
+                final long t0 = System.nanoTime();
+                decode(jpegs[i], false, ColorSpace.RGB);
+                final long t1 = System.nanoTime();
+                decode(jpegs[i], true, ColorSpace.RGB);
+                final long t2 = System.nanoTime();
+                if( 0 <= l ) {
+                    dtSeq += t1 - t0;
+                    dtPar += t2 - t1;
+                }
+            }
+            System.err.println(benchSize+"x"+benchSize+", "+names[i]+", "+jpegs[i].length+" bytes, loops "+loops+
+                               ", threads "+Runtime.getRuntime().availableProcessors()+":");
+            System.err.println("  sequential "+( dtSeq / 1000000f / loops )+" ms");
+            System.err.println("  parallel   "+( dtPar / 1000000f / loops )+" ms");
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-size")) {
+                i++;
+                benchSize = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestJPEGImage03ParallelDecodeNOUI.class.getName());
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2GL3;
+
+import jogamp.opengl.util.pngj.ImageInfo;
+import jogamp.opengl.util.pngj.ImageLine;
+import jogamp.opengl.util.pngj.ImageLineHelper;
+import jogamp.opengl.util.pngj.PngReader;
+import jogamp.opengl.util.pngj.PngWriter;
+import jogamp.opengl.util.pngj.chunks.PngChunkPLTE;
+import jogamp.opengl.util.pngj.chunks.PngChunkTRNS;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.opengl.util.texture.spi.PNGImage;
+
+/**
+ * Validates {@link PNGImage#read(InputStream, boolean, boolean)} against a per pixel reference decoder
+ * for RGB, RGBA, luminance and paletted images in all orientation and channel order combinations,
+ * and benchmarks the decode throughput of large images.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestPNGImage02DecodeNOUI {
+    static int width = 1024;
+    static int height = 1024;
+    static int loops = 4;
+
+    static final int TYPE_RGB = 0, TYPE_RGBA = 1, TYPE_GRAY = 2, TYPE_PAL = 3, TYPE_PAL_TRNS = 4, TYPE_PAL4 = 5;
+    static final String[] typeNames = { "RGB", "RGBA", "Gray", "Palette", "Palette+tRNS", "Palette-4bit" };
+
+    static final String[] resources = {
+        "test-ntscN_3-01-160x90.png", "test-ntscN_4-01-160x90.png", "test-ntscNG4-01-160x90.png",
+        "test-ntscI_3-01-160x90.png", "test-ntscI_4-01-160x90.png", "test-ntscIG3-01-160x90.png", "test-ntscIG4-01-160x90.png",
+        "test-ntscP_3-01-160x90.png", "test-ntscP_4-01-160x90.png", "grayscale_texture.png" };
+
+    /** Encodes a synthetic image with some structure, so filters and deflate have realistic work to do. */
+    static byte[] encode(int type, int w, int h) {
+        final boolean indexed = TYPE_PAL == type || TYPE_PAL_TRNS == type || TYPE_PAL4 == type;
+        final ImageInfo imi = new ImageInfo(w, h, TYPE_PAL4 == type ? 4 : 8, TYPE_RGBA == type, TYPE_GRAY == type, indexed);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PngWriter png = new PngWriter(out, imi);
+        if( indexed ) {
+            final int entries = TYPE_PAL4 == type ? 16 : 256;
+            final PngChunkPLTE plte = png.getMetadata().createPLTEChunk();
+            plte.setNentries(entries);
+            for(int i=0; i<entries; i++) {
+                plte.setEntry(i, ( i * 7 ) & 0xff, ( i * 13 + 50 ) & 0xff, 255 - i);
+            }
+            if( TYPE_PAL_TRNS == type ) {
+                final int[] alpha = new int[100]; // partial alpha table, remaining entries are opaque
+                for(int i=0; i<alpha.length; i++) {
+                    alpha[i] = ( i * 5 ) & 0xff;
+                }
+                final PngChunkTRNS trns = png.getMetadata().createTRNSChunk();
+                trns.setPalletteAlpha(alpha);
+            }
+        }
+        final ImageLine line = new ImageLine(imi);
+        final int samples = w * imi.channels;
+        for(int y=0; y<h; y++) {
+            for(int i=0; i<samples; i++) {
+                final int v = ( i * 3 + y * 5 + ( ( i ^ y ) & 0x1f ) );
+                if( TYPE_PAL4 == type ) {
+                    // packed, 2 samples per byte
+                    if( 0 == i % 2 ) {
+                        line.scanline[i/2] = 0;
+                    }
+                    line.scanline[i/2] |= ( v & 0x0f ) << ( 0 == i % 2 ? 4 : 0 );
+                } else {
+                    line.scanline[i] = v & 0xff;
+                }
+            }
+            png.writeRow(line, y);
+        }
+        png.end();
+        return out.toByteArray();
+    }
+
+    /** Reference decoder, converting each pixel on its own like the original implementation. */
+    static byte[] decodeReference(InputStream in, boolean reversedChannels, boolean isGLOriented) {
+        final PngReader pngr = new PngReader(in, null);
+        final ImageInfo imgInfo = pngr.imgInfo;
+        final PngChunkPLTE plte = pngr.getMetadata().getPLTE();
+        final PngChunkTRNS trns = pngr.getMetadata().getTRNS();
+        final boolean indexed = imgInfo.indexed;
+        final int channels = indexed ? ( null != trns ? 4 : 3 ) : imgInfo.channels;
+        final int w = imgInfo.cols, h = imgInfo.rows;
+        final byte[] res = new byte[w * h * channels];
+        int[] rgba = null;
+        for(int y=0; y<h; y++) {
+            final ImageLine l1 = pngr.readRowInt(y);
+            final int[] src;
+            if( indexed ) {
+                src = rgba = ImageLineHelper.palette2rgb(l1, plte, trns, rgba);
+            } else {
+                src = l1.scanline;
+            }
+            final int dstRow = isGLOriented ? h - 1 - y : y;
+            for(int x=0; x<w; x++) {
+                final int s = x * channels;
+                final int d = ( dstRow * w + x ) * channels;
+                for(int c=0; c<channels; c++) {
+                    final int sc = reversedChannels && 1 < channels && c < 3 ? 2 - c : c;
+                    res[d + c] = (byte) src[s + sc];
+                }
+            }
+        }
+        pngr.end();
+        return res;
+    }
+
+    static byte[] toArray(ByteBuffer data) {
+        final byte[] res = new byte[data.remaining()];
+        data.duplicate().get(res);
+        return res;
+    }
+
+    static int expectedFormat(int channels, boolean reversedChannels) {
+        switch( channels ) {
+            case 1: return GL.GL_LUMINANCE;
+            case 3: return reversedChannels ? GL2GL3.GL_BGR : GL.GL_RGB;
+            default: return reversedChannels ? GL.GL_BGRA : GL.GL_RGBA;
+        }
+    }
+
+    static void validate(String name, byte[] png) throws IOException {
+        for(int i=0; i<4; i++) {
+            final boolean reversedChannels = 0 != ( i & 1 );
+            final boolean isGLOriented = 0 != ( i & 2 );
+            final PNGImage image = PNGImage.read(new ByteArrayInputStream(png), reversedChannels, isGLOriented);
+            final byte[] exp = decodeReference(new ByteArrayInputStream(png), reversedChannels, isGLOriented);
+            final String msg = name+", reversed "+reversedChannels+", glOriented "+isGLOriented;
+            Assert.assertEquals(msg, 0, image.getData().position());
+            Assert.assertArrayEquals(msg, exp, toArray(image.getData()));
+            Assert.assertEquals(msg, isGLOriented, image.isGLOriented());
+            final int channels = image.getBytesPerPixel();
+            Assert.assertEquals(msg, reversedChannels && 1 < channels, image.getHasReversedChannels());
+            Assert.assertEquals(msg, expectedFormat(channels, image.getHasReversedChannels()), image.getGLFormat());
+        }
+        // default read is RGB[A] and GL oriented
+        final byte[] exp = decodeReference(new ByteArrayInputStream(png), false, true);
+        Assert.assertArrayEquals(name, exp, toArray(PNGImage.read(new ByteArrayInputStream(png)).getData()));
+    }
+
+    @Test
+    public void test01SyntheticImages() throws IOException {
+        for(int type=0; type<typeNames.length; type++) {
+            validate(typeNames[type], encode(type, 257, 61));
+        }
+    }
+
+    @Test
+    public void test02ResourceImages() throws IOException {
+        for(int i=0; i<resources.length; i++) {
+            final URLConnection urlConn = IOUtil.getResource(this.getClass(), resources[i]);
+            Assert.assertNotNull(resources[i], urlConn);
+            final byte[] png = IOUtil.copyStream2ByteArray(urlConn.getInputStream());
+            validate(resources[i], png);
+        }
+    }
+
+    @Test
+    public void test03WriteReversedTopDown() throws IOException {
+        final byte[] png = encode(TYPE_RGBA, 64, 32);
+        final PNGImage image1 = PNGImage.read(new ByteArrayInputStream(png), true /* reversedChannels */, false /* isGLOriented */);
+        final File out1_f = new File(TestPNGImage02DecodeNOUI.class.getSimpleName()+"-BGRA-TopDown.png");
+        image1.write(out1_f, true);
+        final PNGImage image2 = PNGImage.read(out1_f.toURI().toURL().openStream());
+        Assert.assertEquals(PNGImage.read(new ByteArrayInputStream(png)).getData(), image2.getData());
+    }
+
+    @Test
+    public void test04WriteReversedChannels() throws IOException {
+        // one BGR[A] pixel as exported by TextureIO for GL_BGR[A]
+        final byte b = 10, g = 20, r = 30, a = 40;
+        final ByteBuffer bgra = ByteBuffer.wrap(new byte[] { b, g, r, a });
+        final File bgra_f = new File(TestPNGImage02DecodeNOUI.class.getSimpleName()+"-BGRA-Pixel.png");
+        PNGImage.createFromData(1, 1, -1f, -1f, 4, true, true, bgra).write(bgra_f, true);
+        Assert.assertEquals(ByteBuffer.wrap(new byte[] { r, g, b, a }), PNGImage.read(bgra_f.toURI().toURL().openStream()).getData());
+
+        final ByteBuffer bgr = ByteBuffer.wrap(new byte[] { b, g, r });
+        final File bgr_f = new File(TestPNGImage02DecodeNOUI.class.getSimpleName()+"-BGR-Pixel.png");
+        PNGImage.createFromData(1, 1, -1f, -1f, 3, true, true, bgr).write(bgr_f, true);
+        Assert.assertEquals(ByteBuffer.wrap(new byte[] { r, g, b }), PNGImage.read(bgr_f.toURI().toURL().openStream()).getData());
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException {
+        final int[] types = { TYPE_RGB, TYPE_RGBA, TYPE_GRAY, TYPE_PAL, TYPE_PAL_TRNS };
+        for(int t=0; t<types.length; t++) {
+            final byte[] png = encode(types[t], width, height);
+            PNGImage.read(new ByteArrayInputStream(png)); // warm up
+            decodeReference(new ByteArrayInputStream(png), false, true);
+
+            long dtRef = 0, dtGL = 0, dtTD = 0;
+            int bytes = 0;
+            for(int i=0; i<loops; i++) {
+                long t0 = System.nanoTime();
+                decodeReference(new ByteArrayInputStream(png), false, true);
+                long t1 = System.nanoTime();
+                bytes = PNGImage.read(new ByteArrayInputStream(png)).getData().remaining();
+                long t2 = System.nanoTime();
+                PNGImage.read(new ByteArrayInputStream(png), true, false);
+                long t3 = System.nanoTime();
+                dtRef += t1 - t0;
+                dtGL += t2 - t1;
+                dtTD += t3 - t2;
+            }
+            System.err.println(typeNames[types[t]]+" "+width+"x"+height+", "+png.length+" bytes png, "+bytes+" bytes raw, loops "+loops+":");
+            System.err.println("  per pixel reference    "+toString(dtRef, bytes));
+            System.err.println("  rows RGB[A], GL origin "+toString(dtGL, bytes));
+            System.err.println("  rows BGR[A], top-left  "+toString(dtTD, bytes));
+        }
+    }
+
+    static String toString(long dt, int bytes) {
+        final float ms = dt / 1000000f / loops;
+        return ms+" ms/image, "+( bytes / 1024f / 1024f ) / ( ms / 1000f )+" MiB/s";
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-width")) {
+                i++;
+                width = atoi(args[i]);
+            } else if(args[i].equals("-height")) {
+                i++;
+                height = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestPNGImage02DecodeNOUI.class.getName());
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import jogamp.opengl.util.pngj.FilterType;
+import jogamp.opengl.util.pngj.ImageInfo;
+import jogamp.opengl.util.pngj.ImageLine;
+import jogamp.opengl.util.pngj.PngReader;
+import jogamp.opengl.util.pngj.PngWriter;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Validates {@link PngWriter#setParallelMode(boolean) parallel} PNG compression,
+ * i.e. chunk CRCs, the zlib stream incl. its adler32 and the decoded pixels,
+ * and benchmarks sequential vs parallel encoding of a 4K RGBA frame.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestPNGImage03ParallelWriteNOUI {
+    static int width = 3840;
+    static int height = 2160;
+    static int loops = 3;
+
+    static int[][] createImage(ImageInfo imi) {
+        final int[][] rows = new int[imi.rows][imi.samplesPerRowPacked];
+        final int mask = ( 1 << imi.bitDepth ) - 1;
+        for(int y=0; y<imi.rows; y++) {
+            for(int i=0; i<rows[y].length; i++) {
+                rows[y][i] = ( i * 3 + y * 5 + ( ( i ^ y ) & 0x1f ) + ( ( i * y ) % 7 ) ) & mask;
+            }
+        }
+        return rows;
+    }
+
+    static byte[] encode(ImageInfo imi, int[][] rows, boolean parallel, FilterType filterType, int compLevel) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PngWriter png = new PngWriter(out, imi);
+        png.setParallelMode(parallel);
+        png.setFilterType(filterType);
+        png.setCompLevel(compLevel);
+        if( imi.indexed ) {
+            png.getMetadata().createPLTEChunk().setNentries(1 << imi.bitDepth);
+        }
+        for(int y=0; y<imi.rows; y++) {
+            png.writeRowInt(rows[y], y);
+        }
+        png.end();
+        return out.toByteArray();
+    }
+
+    /** Validates all chunk CRCs and inflates the concatenated IDAT data w/ adler32 check, returns the inflated size. */
+    static long validateChunks(byte[] png) throws DataFormatException {
+        final ByteBuffer bb = ByteBuffer.wrap(png);
+        bb.position(8); // signature
+        final ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        final CRC32 crc = new CRC32();
+        String type;
+        do {
+            final int len = bb.getInt();
+            final byte[] typeAndData = new byte[4 + len];
+            bb.get(typeAndData);
+            type = new String(typeAndData, 0, 4);
+            crc.reset();
+            crc.update(typeAndData);
+            Assert.assertEquals("CRC of "+type, crc.getValue(), bb.getInt() & 0xffffffffL);
+            if( type.equals("IDAT") ) {
+                idat.write(typeAndData, 4, len);
+            }
+        } while( !type.equals("IEND") );
+        Assert.assertFalse("trailing data", bb.hasRemaining());
+
+        final Inflater inf = new Inflater(); // zlib wrapper, verifies adler32 at end of stream
+        inf.setInput(idat.toByteArray());
+        final byte[] buf = new byte[65536];
+        while( !inf.finished() ) {
+            final int n = inf.inflate(buf);
+            Assert.assertTrue("truncated zlib stream", 0 < n || !inf.needsInput());
+        }
+        Assert.assertEquals("trailing IDAT data", 0, inf.getRemaining());
+        final long res = inf.getBytesWritten();
+        inf.end();
+        return res;
+    }
+
+    static void validate(String msg, ImageInfo imi, int[][] rows, byte[] png) throws DataFormatException {
+        Assert.assertEquals(msg, (long)( imi.bytesPerRow + 1 ) * imi.rows, validateChunks(png));
+        final PngReader pngr = new PngReader(new ByteArrayInputStream(png), null);
+        for(int y=0; y<imi.rows; y++) {
+            final ImageLine line = pngr.readRowInt(y);
+            for(int i=0; i<rows[y].length; i++) {
+                if( rows[y][i] != line.scanline[i] ) {
+                    Assert.assertEquals(msg+", row "+y+", sample "+i, rows[y][i], line.scanline[i]);
+                }
+            }
+        }
+        pngr.end();
+    }
+
+    @Test
+    public void test01ParallelEqualsSequential() throws DataFormatException {
+        Assume.assumeTrue(PngWriter.isParallelModeAvailable());
+        final ImageInfo[] infos = {
+            new ImageInfo(1, 1, 8, false),
+            new ImageInfo(3, 2, 8, true),
+            new ImageInfo(641, 483, 8, false),              // RGB, several groups
+            new ImageInfo(1031, 517, 8, true),              // RGBA, several groups
+            new ImageInfo(40000, 9, 8, true),               // rows larger than a group
+            new ImageInfo(777, 333, 8, false, true, false), // gray
+            new ImageInfo(333, 777, 4, false, false, true), // palette, packed
+            new ImageInfo(200, 300, 16, true),              // 16 bit per sample
+        };
+        final FilterType[] filters = { FilterType.FILTER_DEFAULT, FilterType.FILTER_AGGRESSIVE, FilterType.FILTER_NONE };
+        final int[] compLevels = { 0, 1, 6, 9 };
+        for(int i=0; i<infos.length; i++) {
+            final ImageInfo imi = infos[i];
+            final int[][] rows = createImage(imi);
+            for(int f=0; f<filters.length; f++) {
+                for(int c=0; c<compLevels.length; c++) {
+                    final String msg = imi+", filter "+filters[f]+", level "+compLevels[c];
+                    final byte[] pngS = encode(imi, rows, false, filters[f], compLevels[c]);
+                    final byte[] pngP = encode(imi, rows, true, filters[f], compLevels[c]);
+                    validate(msg+", sequential", imi, rows, pngS);
+                    validate(msg+", parallel", imi, rows, pngP);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException, DataFormatException {
+        Assume.assumeTrue(PngWriter.isParallelModeAvailable());
+        final ImageInfo imi = new ImageInfo(width, height, 8, true);
+        final int[][] rows = createImage(imi);
+        encode(imi, rows, false, FilterType.FILTER_DEFAULT, 6); // warm up
+        validate("parallel", imi, rows, encode(imi, rows, true, FilterType.FILTER_DEFAULT, 6));
+
+        long dtS = 0, dtP = 0;
+        int lenS = 0, lenP = 0;
+        for(int i=0; i<loops; i++) {
+            final long t0 = System.nanoTime();
+            lenS = encode(imi, rows, false, FilterType.FILTER_DEFAULT, 6).length;
+            final long t1 = System.nanoTime();
+            lenP = encode(imi, rows, true, FilterType.FILTER_DEFAULT, 6).length;
+            final long t2 = System.nanoTime();
+            dtS += t1 - t0;
+            dtP += t2 - t1;
+        }
+        System.err.println("RGBA "+width+"x"+height+", loops "+loops+", processors "+Runtime.getRuntime().availableProcessors()+":");
+        System.err.println("  sequential "+( dtS / 1000000f / loops )+" ms/frame, "+lenS+" bytes");
+        System.err.println("  parallel   "+( dtP / 1000000f / loops )+" ms/frame, "+lenP+" bytes, speedup "+( (float)dtS / dtP ));
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-width")) {
+                i++;
+                width = atoi(args[i]);
+            } else if(args[i].equals("-height")) {
+                i++;
+                height = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestPNGImage03ParallelWriteNOUI.class.getName());
+    }
+}
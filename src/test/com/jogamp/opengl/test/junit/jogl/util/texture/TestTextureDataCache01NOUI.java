@@ -0,0 +1,263 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URLConnection;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import javax.media.opengl.GL;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.util.IOUtil;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.TextureDataCache;
+import com.jogamp.opengl.util.texture.TextureDataCache.Key;
+import com.jogamp.opengl.util.texture.spi.JPEGImage;
+
+/**
+ * Tests the memory and disk tier of {@link TextureDataCache} and benchmarks 
+ * a disk tier hit against decoding.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTextureDataCache01NOUI {
+    static int loops = 20;
+    static File cacheDir;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        cacheDir = File.createTempFile("TestTextureDataCache01", "");
+        cacheDir.delete();
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        final File[] files = cacheDir.listFiles();
+        if( null != files ) {
+            for(int i=0; i<files.length; i++) {
+                files[i].delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    static ByteBuffer randomBuffer(int size, Random rnd) {
+        final byte[] b = new byte[size];
+        rnd.nextBytes(b);
+        final ByteBuffer bb = ByteBuffer.allocateDirect(size);
+        bb.put(b).rewind();
+        return bb;
+    }
+
+    static TextureData createData(int width, int height, Random rnd) {
+        return new TextureData(null, GL.GL_RGBA, width, height, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, 
+                               false, false, true, randomBuffer(width*height*4, rnd), null);
+    }
+
+    static Key key(String name) {
+        return Key.create(name.getBytes(), null, 0, 0, false, "png");
+    }
+
+    static void assertEquals(TextureData exp, TextureData has) {
+        Assert.assertEquals(exp.getWidth(), has.getWidth());
+        Assert.assertEquals(exp.getHeight(), has.getHeight());
+        Assert.assertEquals(exp.getBorder(), has.getBorder());
+        Assert.assertEquals(exp.getInternalFormat(), has.getInternalFormat());
+        Assert.assertEquals(exp.getPixelFormat(), has.getPixelFormat());
+        Assert.assertEquals(exp.getPixelType(), has.getPixelType());
+        Assert.assertEquals(exp.getPixelAttributes().componentCount, has.getPixelAttributes().componentCount);
+        Assert.assertEquals(exp.getMipmap(), has.getMipmap());
+        Assert.assertEquals(exp.isDataCompressed(), has.isDataCompressed());
+        Assert.assertEquals(exp.getMustFlipVertically(), has.getMustFlipVertically());
+        Assert.assertEquals(exp.getAlignment(), has.getAlignment());
+        Assert.assertEquals(exp.getRowLength(), has.getRowLength());
+        Assert.assertEquals(exp.getColorSpace(), has.getColorSpace());
+        Assert.assertEquals(exp.getEstimatedMemorySize(), has.getEstimatedMemorySize());
+        if( null != exp.getMipmapData() ) {
+            Assert.assertNotNull(has.getMipmapData());
+            Assert.assertEquals(exp.getMipmapData().length, has.getMipmapData().length);
+            for(int i=0; i<exp.getMipmapData().length; i++) {
+                Assert.assertEquals(exp.getMipmapData()[i], has.getMipmapData()[i]);
+            }
+        } else {
+            Assert.assertNull(has.getMipmapData());
+            Assert.assertEquals(exp.getBuffer(), has.getBuffer());
+        }
+    }
+
+    @Test
+    public void test01MemoryLRU() throws IOException {
+        final Random rnd = new Random(1);
+        final TextureDataCache cache = new TextureDataCache(3*16*16*4, null);
+        final TextureData d0 = createData(16, 16, rnd), d1 = createData(16, 16, rnd);
+        final TextureData d2 = createData(16, 16, rnd), d3 = createData(16, 16, rnd);
+        cache.put(key("0"), d0);
+        cache.put(key("1"), d1);
+        cache.put(key("2"), d2);
+        Assert.assertEquals(3*16*16*4, cache.getMemorySize());
+        // touch '0', hence '1' is least recently used
+        final TextureData r0 = cache.get(key("0"));
+        assertEquals(d0, r0);
+        Assert.assertNotSame(d0, r0);
+        Assert.assertNotSame(d0.getBuffer(), r0.getBuffer());
+        cache.put(key("3"), d3);
+        Assert.assertEquals(3, cache.getMemoryEntryCount());
+        Assert.assertNull(cache.get(key("1")));
+        assertEquals(d0, cache.get(key("0")));
+        assertEquals(d2, cache.get(key("2")));
+        assertEquals(d3, cache.get(key("3")));
+        Assert.assertEquals(4, cache.getMemoryHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        // too large for the budget
+        cache.put(key("4"), createData(64, 64, rnd));
+        Assert.assertNull(cache.get(key("4")));
+        cache.setMemoryBudget(16*16*4);
+        Assert.assertEquals(1, cache.getMemoryEntryCount());
+        assertEquals(d3, cache.get(key("3")));
+        cache.clear(false);
+        Assert.assertEquals(0, cache.getMemorySize());
+        System.err.println(cache);
+    }
+
+    @Test
+    public void test02DiskRoundtrip() throws IOException {
+        final Random rnd = new Random(2);
+        final TextureData single = createData(33, 17, rnd);
+        single.setAlignment(4);
+        single.setRowLength(40);
+        single.setColorSpace(TextureData.ColorSpace.YCbCr);
+        final Buffer[] levels = { randomBuffer(64*64*3, rnd), randomBuffer(32*32*3, rnd), randomBuffer(16*16*3, rnd) };
+        final TextureData mip = new TextureData(null, GL.GL_RGB8, 64, 64, 0, new GLPixelAttributes(GL.GL_RGB, GL.GL_UNSIGNED_BYTE),
+                                                false, false, levels, null);
+        {
+            final TextureDataCache cache = new TextureDataCache(1024*1024, cacheDir);
+            cache.put(key("single"), single);
+            cache.put(key("mip"), mip);
+        }
+        // new instance w/o memory tier reads from disk
+        final TextureDataCache cache = new TextureDataCache(0, cacheDir);
+        final TextureData rSingle = cache.get(key("single"));
+        final TextureData rMip = cache.get(key("mip"));
+        Assert.assertEquals(2, cache.getDiskHitCount());
+        assertEquals(single, rSingle);
+        assertEquals(mip, rMip);
+        Assert.assertTrue(((ByteBuffer)rSingle.getBuffer()).isDirect());
+        Assert.assertNull(cache.get(key("other")));
+
+        // corrupt files are dropped
+        final File[] files = cacheDir.listFiles();
+        Assert.assertEquals(2, files.length);
+        for(int i=0; i<files.length; i++) {
+            final RandomAccessFile raf = new RandomAccessFile(files[i], "rw");
+            raf.setLength(20);
+            raf.close();
+        }
+        Assert.assertNull(cache.get(key("single")));
+        Assert.assertNull(cache.get(key("mip")));
+        Assert.assertEquals(0, cacheDir.listFiles().length);
+    }
+
+    @Test
+    public void test03Keys() throws IOException {
+        final File file = new File(cacheDir, "test03.png");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[] { 1, 2, 3 });
+        out.close();
+        file.setLastModified(1000000000L);
+        final Key k1 = Key.create(file, null, 0, 0, false, "png");
+        Assert.assertEquals(k1, Key.create(file.getAbsoluteFile(), null, 0, 0, false, "png"));
+        Assert.assertFalse(k1.equals(Key.create(file, null, 0, 0, true, "png")));
+        Assert.assertFalse(k1.equals(Key.create(file, null, GL.GL_RGBA, GL.GL_RGBA, false, "png")));
+        file.setLastModified(2000000000L);
+        Assert.assertFalse(k1.equals(Key.create(file, null, 0, 0, false, "png")));
+        file.delete();
+
+        Assert.assertEquals(key("abc"), key("abc"));
+        Assert.assertFalse(key("abc").equals(key("abd")));
+    }
+
+    @Test
+    public void test10Benchmark() throws IOException {
+        final String[] files = { "j1-baseline.jpg", "j2-progressive.jpg" };
+        final TextureDataCache cache = new TextureDataCache(0, cacheDir); // disk tier only
+        for(int i=0; i<files.length; i++) {
+            final URLConnection urlConn = IOUtil.getResource(this.getClass(), files[i]);
+            final byte[] jpeg = IOUtil.copyStream2ByteArray(urlConn.getInputStream());
+            final Key key = Key.create(jpeg, null, 0, 0, false, "jpg");
+            long dtDecode = 0, dtCache = 0;
+            for(int l=-1; l<loops; l++) { // first loop warms up
+                final long t0 = System.nanoTime();
+                final JPEGImage image = JPEGImage.read(new ByteArrayInputStream(jpeg));
+                final TextureData data = new TextureData(null, GL.GL_RGB, image.getWidth(), image.getHeight(), 0, 
+                                                         image.getGLFormat(), image.getGLType(), false, false, false, image.getData(), null);
+                final long t1 = System.nanoTime();
+                if( 0 > l ) {
+                    cache.put(key, data);
+                }
+                final long t2 = System.nanoTime();
+                final TextureData cached = cache.get(key);
+                final long t3 = System.nanoTime();
+                Assert.assertEquals(data.getBuffer(), cached.getBuffer());
+                if( 0 <= l ) {
+                    dtDecode += t1 - t0;
+                    dtCache += t3 - t2;
+                }
+            }
+            System.err.println(files[i]+", loops "+loops+": decode "+( dtDecode / 1000000f / loops )+" ms, disk cache "+( dtCache / 1000000f / loops )+" ms");
+        }
+    }
+
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestTextureDataCache01NOUI.class.getName());
+    }
+}
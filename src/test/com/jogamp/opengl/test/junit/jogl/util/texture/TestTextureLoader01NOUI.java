@@ -0,0 +1,324 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLRunnable;
+import javax.media.opengl.GLException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.texture.Texture;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.TextureLoader;
+import com.jogamp.opengl.util.texture.TextureLoader.Request;
+
+/**
+ * Tests scheduling, deduplication, cancellation and the upload budget of {@link TextureLoader}
+ * w/o GL, using synthetic decoding and texture creation.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTextureLoader01NOUI {
+    static final long TIMEOUT = 10000;
+
+    /** Decodes files named 'fail*' w/ an exception, 'block*' waits for {@link #gate}. */
+    static class MockLoader extends TextureLoader {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<String> decodeOrder = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger textures = new AtomicInteger();
+
+        MockLoader(int threadCount) {
+            super(null, threadCount);
+        }
+
+        @Override
+        protected TextureData decode(Request req) throws IOException {
+            final String name = ((File)req.getSource()).getName();
+            if( name.startsWith("block") ) {
+                try {
+                    gate.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) { }
+            }
+            decodeOrder.add(name);
+            if( name.startsWith("fail") ) {
+                throw new IOException("decode failed: "+name);
+            }
+            return new TextureData(null, GL.GL_RGBA, 16, 16, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, 
+                                   false, false, false, ByteBuffer.allocate(16*16*4), null);
+        }
+
+        @Override
+        protected Texture createTexture(GL gl, TextureData data) throws GLException {
+            textures.incrementAndGet();
+            return new Texture(GL.GL_TEXTURE_2D);
+        }
+    }
+
+    static class RecordingListener implements TextureLoader.Listener {
+        final List<String> loaded = new ArrayList<String>();
+        final List<String> failed = new ArrayList<String>();
+
+        @Override
+        public void textureLoaded(Request request, Texture texture) {
+            Assert.assertEquals(Request.State.LOADED, request.getState());
+            Assert.assertSame(texture, request.getTexture());
+            loaded.add(((File)request.getSource()).getName());
+        }
+        @Override
+        public void textureFailed(Request request, Throwable error) {
+            Assert.assertEquals(Request.State.FAILED, request.getState());
+            Assert.assertNotNull(error);
+            failed.add(((File)request.getSource()).getName());
+        }
+    }
+
+    static void waitDecoded(TextureLoader loader, int count) throws InterruptedException {
+        final long t0 = System.currentTimeMillis();
+        while( loader.getDecodedCount() < count ) {
+            Assert.assertTrue("timeout, "+loader, System.currentTimeMillis() - t0 < TIMEOUT);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void test01Priority() throws InterruptedException {
+        final MockLoader loader = new MockLoader(1);
+        final RecordingListener l = new RecordingListener();
+        loader.load(new File("block.png"), false, null, 0, l);
+        loader.load(new File("p1.png"), false, null, 1, l);
+        loader.load(new File("p5a.png"), false, null, 5, l);
+        loader.load(new File("p3.png"), false, null, 3, l);
+        loader.load(new File("p5b.png"), false, null, 5, l);
+        final Request low = loader.load(new File("p0.png"), false, null, 0, l);
+        // raise priority of a queued request by loading it again
+        Assert.assertSame(low, loader.load(new File("p0.png"), false, "png", 4, l));
+        Assert.assertEquals(4, low.getPriority());
+        Assert.assertEquals(6, loader.getPendingCount());
+        loader.gate.countDown();
+        waitDecoded(loader, 6);
+        Assert.assertEquals(6, loader.upload(null));
+        Assert.assertEquals(0, loader.getPendingCount());
+        final List<String> expOrder = Arrays.asList("block.png", "p5a.png", "p5b.png", "p0.png", "p3.png", "p1.png");
+        Assert.assertEquals(expOrder, loader.decodeOrder);
+        // 'p0' has been requested twice, each listener is notified
+        Assert.assertEquals(Arrays.asList("block.png", "p5a.png", "p5b.png", "p0.png", "p0.png", "p3.png", "p1.png"), l.loaded);
+        Assert.assertEquals(6, loader.textures.get());
+        Assert.assertTrue(low.isDone());
+        Assert.assertNotNull(low.getTexture());
+        loader.destroy();
+    }
+
+    @Test
+    public void test02DedupAndCancel() throws InterruptedException {
+        final MockLoader loader = new MockLoader(1);
+        final RecordingListener l = new RecordingListener();
+        final Request block = loader.load(new File("block.png"), false, null, 0, l);
+        final Request a1 = loader.load(new File("a.png"), false, null, 0, l);
+        final Request a2 = loader.load(new File("a.png"), false, null, 0, l);
+        final Request aMip = loader.load(new File("a.png"), true, null, 0, l);
+        final Request b = loader.load(new File("b.png"), false, null, 0, l);
+        Assert.assertSame(a1, a2);
+        Assert.assertNotSame(a1, aMip);
+        // shared request is cancelled by the last caller only
+        Assert.assertFalse(a1.cancel());
+        Assert.assertEquals(Request.State.QUEUED, a1.getState());
+        Assert.assertTrue(a2.cancel());
+        Assert.assertEquals(Request.State.CANCELLED, a1.getState());
+        Assert.assertFalse(a1.cancel());
+        // cancel while decoding
+        Assert.assertEquals(Request.State.DECODING, waitState(block, Request.State.DECODING));
+        Assert.assertTrue(block.cancel());
+        loader.gate.countDown();
+        waitDecoded(loader, 2);
+        // cancel while waiting for upload
+        Assert.assertTrue(b.cancel());
+        Assert.assertEquals(1, loader.upload(null));
+        Assert.assertEquals(Arrays.asList("block.png", "a.png", "b.png"), loader.decodeOrder);
+        Assert.assertEquals(Arrays.asList("a.png"), l.loaded);
+        Assert.assertTrue(aMip.getMipmap());
+        Assert.assertEquals(Request.State.LOADED, aMip.getState());
+        Assert.assertEquals(Request.State.CANCELLED, block.getState());
+        Assert.assertEquals(Request.State.CANCELLED, b.getState());
+        Assert.assertEquals(1, loader.textures.get());
+        Assert.assertEquals(0, loader.getPendingCount());
+        // a completed request is not shared
+        final Request a3 = loader.load(new File("a.png"), true, null, 0, l);
+        Assert.assertNotSame(aMip, a3);
+        loader.destroy();
+        Assert.assertEquals(Request.State.CANCELLED, a3.getState());
+    }
+
+    static Request.State waitState(Request req, Request.State state) throws InterruptedException {
+        final long t0 = System.currentTimeMillis();
+        while( req.getState() != state && System.currentTimeMillis() - t0 < TIMEOUT ) {
+            Thread.sleep(5);
+        }
+        return req.getState();
+    }
+
+    @Test
+    public void test02bCancelSharedListener() throws InterruptedException {
+        final MockLoader loader = new MockLoader(1);
+        final RecordingListener l1 = new RecordingListener();
+        final RecordingListener l2 = new RecordingListener();
+        final RecordingListener l3 = new RecordingListener();
+        final Request block = loader.load(new File("block.png"), false, null, 0, null);
+        final Request c1 = loader.load(new File("c.png"), false, null, 0, l1);
+        final Request c2 = loader.load(new File("c.png"), false, null, 0, l2);
+        final Request d1 = loader.load(new File("d.png"), false, null, 0, l3);
+        final Request d2 = loader.load(new File("d.png"), false, null, 0, l3);
+        Assert.assertSame(c1, c2);
+        Assert.assertSame(d1, d2);
+        // the cancelling caller's listener is removed, the request continues for the other caller
+        Assert.assertFalse(c1.cancel(l1));
+        Assert.assertEquals(Request.State.QUEUED, c1.getState());
+        // same listener passed twice, one registration is removed
+        Assert.assertFalse(d1.cancel(l3));
+        loader.gate.countDown();
+        Assert.assertTrue(block.cancel());
+        waitDecoded(loader, 2);
+        Assert.assertEquals(2, loader.upload(null));
+        Assert.assertEquals(Request.State.LOADED, c2.getState());
+        Assert.assertTrue(l1.loaded.isEmpty());
+        Assert.assertEquals(Arrays.asList("c.png"), l2.loaded);
+        Assert.assertEquals(Arrays.asList("d.png"), l3.loaded);
+        loader.destroy();
+    }
+
+    @Test
+    public void test03Failure() throws InterruptedException {
+        final MockLoader loader = new MockLoader(2);
+        final RecordingListener l = new RecordingListener();
+        final Request f = loader.load(new File("fail.png"), false, null, 0, l);
+        final Request ok = loader.load(new File("ok.png"), false, null, 0, l);
+        waitDecoded(loader, 2);
+        Assert.assertEquals(2, loader.upload(null));
+        Assert.assertEquals(Request.State.FAILED, f.getState());
+        Assert.assertTrue(f.getError() instanceof IOException);
+        Assert.assertNull(f.getTexture());
+        Assert.assertEquals(Request.State.LOADED, ok.getState());
+        Assert.assertEquals(Arrays.asList("fail.png"), l.failed);
+        Assert.assertEquals(Arrays.asList("ok.png"), l.loaded);
+        loader.destroy();
+    }
+
+    @Test
+    public void test04UploadBudget() throws InterruptedException {
+        final MockLoader loader = new MockLoader(4);
+        final RecordingListener l = new RecordingListener();
+        final int count = 10;
+        for(int i=0; i<count; i++) {
+            loader.load(new File("t"+i+".png"), false, null, 0, l);
+        }
+        waitDecoded(loader, count);
+        // each 16x16 RGBA texture exceeds the byte budget, hence one per pass
+        loader.setUploadBudget(1000000000L, 1);
+        Assert.assertEquals(1, loader.upload(null));
+        Assert.assertEquals(1, loader.upload(null));
+        // two per pass
+        loader.setUploadBudget(1000000000L, 16*16*4+1);
+        Assert.assertEquals(2, loader.upload(null));
+        // time budget of zero still processes one per pass
+        loader.setUploadBudget(0, Long.MAX_VALUE);
+        Assert.assertEquals(1, loader.upload(null));
+        loader.setUploadBudget(1000000000L, Long.MAX_VALUE);
+        Assert.assertEquals(count - 5, loader.upload(null));
+        Assert.assertEquals(0, loader.upload(null));
+        Assert.assertEquals(count, l.loaded.size());
+        loader.destroy();
+    }
+
+    /** {@link GLAutoDrawable} recording the {@link GLAutoDrawable#invoke(boolean, GLRunnable) invoked} runnables. */
+    static class RecordingDrawable implements InvocationHandler {
+        final LinkedBlockingQueue<GLRunnable> runnables = new LinkedBlockingQueue<GLRunnable>();
+        final GLAutoDrawable drawable = (GLAutoDrawable) Proxy.newProxyInstance(RecordingDrawable.class.getClassLoader(),
+                                                                             new Class<?>[] { GLAutoDrawable.class }, this);
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) {
+            if( m.getName().equals("invoke") && args[1] instanceof GLRunnable ) {
+                runnables.add((GLRunnable)args[1]);
+                return Boolean.TRUE;
+            }
+            return null; // getGL() et al.
+        }
+    }
+
+    @Test
+    public void test05UploadRescheduleWhileDecoding() throws InterruptedException {
+        final MockLoader loader = new MockLoader(1);
+        final RecordingListener l = new RecordingListener();
+        final int count = 3;
+        for(int i=0; i<count; i++) {
+            loader.load(new File("t"+i+".png"), false, null, 0, l);
+        }
+        waitDecoded(loader, count);
+        // occupy the only decoding worker
+        final Request block = loader.load(new File("block.png"), false, null, 0, l);
+        Assert.assertEquals(Request.State.DECODING, waitState(block, Request.State.DECODING));
+
+        final RecordingDrawable d = new RecordingDrawable();
+        loader.setUploadBudget(1000000000L, 1); // one per pass
+        loader.attach(d.drawable);
+        for(int i=0; i<count; i++) {
+            final GLRunnable r = d.runnables.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull("upload pass "+i+" not scheduled", r);
+            r.run(d.drawable);
+            Assert.assertEquals(i+1, l.loaded.size());
+        }
+        Assert.assertEquals(0, loader.getDecodedCount());
+        loader.gate.countDown();
+        final GLRunnable r = d.runnables.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(r);
+        r.run(d.drawable);
+        Assert.assertEquals(count + 1, l.loaded.size());
+        loader.destroy();
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestTextureLoader01NOUI.class.getName());
+    }
+}
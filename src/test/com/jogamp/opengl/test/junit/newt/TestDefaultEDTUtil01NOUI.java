@@ -0,0 +1,196 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.newt;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jogamp.newt.DefaultEDTUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Tests {@link DefaultEDTUtil}'s batch mode and delayed tasks, 
+ * and benchmarks draining many queued tasks w/ and w/o batch mode.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestDefaultEDTUtil01NOUI {
+    static int loops = 3;
+    static int taskCount = 20000;
+    
+    static class Dispatcher implements Runnable {
+        final AtomicInteger count = new AtomicInteger(0);
+        public void run() {
+            count.incrementAndGet();
+        }
+    }
+    
+    static DefaultEDTUtil createEDT(Dispatcher d, boolean batch) {
+        final DefaultEDTUtil edt = new DefaultEDTUtil(Thread.currentThread().getThreadGroup(), "TestDefaultEDTUtil01", d);
+        edt.setBatchMode(batch);
+        Assert.assertTrue(edt.restart());
+        return edt;
+    }
+    
+    static void testOrder(boolean batch) {
+        final Dispatcher d = new Dispatcher();
+        final DefaultEDTUtil edt = createEDT(d, batch);
+        try {
+            final ArrayList<Integer> order = new ArrayList<Integer>();
+            for(int i=0; i<1000; i++) {
+                final Integer v = Integer.valueOf(i);
+                edt.invoke(false, new Runnable() {
+                    public void run() {
+                        order.add(v);
+                    } });
+            }
+            edt.invoke(true, new Runnable() { public void run() { } });
+            Assert.assertEquals(1000, order.size());
+            for(int i=0; i<1000; i++) {
+                Assert.assertEquals(i, order.get(i).intValue());
+            }
+        } finally {
+            edt.invokeStop(true, null);
+            edt.waitUntilStopped();
+        }
+    }
+    
+    @Test
+    public void test01OrderSingle() {
+        testOrder(false);
+    }
+    
+    @Test
+    public void test02OrderBatch() {
+        testOrder(true);
+    }
+    
+    @Test
+    public void test03DelayedTasks() throws InterruptedException {
+        final Dispatcher d = new Dispatcher();
+        final DefaultEDTUtil edt = createEDT(d, true);
+        final long pollPeriod = edt.getPollPeriod();
+        edt.setPollPeriod(1000); // latency of delayed tasks shall not depend on the poll period
+        try {
+            final ArrayList<Integer> order = new ArrayList<Integer>();
+            final long[] when = new long[3];
+            final long t0 = System.nanoTime();
+            final int[] delays = new int[] { 60, 20, 40 };
+            for(int i=0; i<delays.length; i++) {
+                final int idx = i;
+                Assert.assertTrue(edt.invokeLater(delays[i], new Runnable() {
+                    public void run() {
+                        when[idx] = System.nanoTime();
+                        synchronized(order) {
+                            order.add(Integer.valueOf(idx));
+                            order.notifyAll();
+                        }
+                    } }));
+            }
+            synchronized(order) {
+                while( order.size() < delays.length ) {
+                    order.wait(5000);
+                    Assert.assertTrue("timeout", System.nanoTime() - t0 < 5000000000L || order.size() == delays.length);
+                }
+            }
+            Assert.assertEquals(1, order.get(0).intValue());
+            Assert.assertEquals(2, order.get(1).intValue());
+            Assert.assertEquals(0, order.get(2).intValue());
+            for(int i=0; i<delays.length; i++) {
+                final long dt = ( when[i] - t0 ) / 1000000L;
+                System.err.println("delayed task "+i+": delay "+delays[i]+" ms, executed after "+dt+" ms");
+                Assert.assertTrue("executed too early: "+dt, dt >= delays[i]);
+                Assert.assertTrue("executed too late: "+dt, dt < delays[i] + 500);
+            }
+        } finally {
+            edt.setPollPeriod(pollPeriod);
+            edt.invokeStop(true, null);
+            edt.waitUntilStopped();
+        }
+    }
+    
+    static long benchmark(boolean batch, int[] dispatchCount) {
+        long best = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            final Dispatcher d = new Dispatcher();
+            final DefaultEDTUtil edt = createEDT(d, batch);
+            try {
+                final AtomicInteger executed = new AtomicInteger(0);
+                final Runnable task = new Runnable() {
+                    public void run() {
+                        executed.incrementAndGet();
+                    } };
+                final int d0 = d.count.get();
+                final long t0 = System.nanoTime();
+                for(int i=0; i<taskCount; i++) {
+                    edt.invoke(false, task);
+                }
+                edt.invoke(true, task);
+                final long t1 = System.nanoTime();
+                Assert.assertEquals(taskCount+1, executed.get());
+                best = Math.min(best, t1 - t0);
+                dispatchCount[0] = d.count.get() - d0;
+            } finally {
+                edt.invokeStop(true, null);
+                edt.waitUntilStopped();
+            }
+        }
+        System.err.println("batch "+batch+": "+taskCount+" tasks: "+(best/1000000.0)+" ms, dispatchMessages calls "+dispatchCount[0]);
+        return best;
+    }
+    
+    @Test
+    public void test10Benchmark() {
+        final int[] dispatchCount = new int[1];
+        benchmark(false, dispatchCount);
+        benchmark(true, dispatchCount);
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-tasks")) {
+                i++;
+                taskCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestDefaultEDTUtil01NOUI.class.getName());
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.newt.event;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jogamp.newt.DefaultEDTUtil;
+import jogamp.newt.MPSCQueue;
+import jogamp.newt.event.NEWTEventTask;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.event.MouseAdapter;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+
+/**
+ * Contention benchmark of the Display event pipe, several producer threads feed one {@link DefaultEDTUtil} consumer.
+ * <p>
+ * Compares the lock-free {@link MPSCQueue} w/ EDT wakeup, as used by the Display, 
+ * against the former pipe: a list swapped by the consumer, nested monitors and <code>notifyAll()</code> per event.
+ * Waiting producers, i.e. <code>enqueueEvent(true, ..)</code>, are signaled per {@link NEWTEventTask}.
+ * </p>
+ * <p>
+ * Also tests nested dispatching of the Display event queue, see {@link #test04NestedDispatch()}.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestEventQueueContentionNOUI {
+    static int loops = 3;
+    static int producerCount = 4;
+    static int eventCount = 100000; // per producer
+    static int waitEventCount = 100; // per producer, the former pipe relies on the EDT poll period
+    
+    static final NEWTEvent event = new MouseEvent(MouseEvent.EVENT_MOUSE_MOVED, new Object(), 0, 0, 1, 1, (short)0, (short)0, new float[] { 0f, 0f, 0f }, 1f);
+    
+    static abstract class Pipe implements Runnable {
+        final AtomicInteger consumed = new AtomicInteger(0);
+        DefaultEDTUtil edt;
+        abstract void enqueue(boolean wait, NEWTEvent e);
+        
+        final void consume(NEWTEventTask t) {
+            if( null == t.take() ) {
+                throw new InternalError("event already taken");
+            }
+            consumed.incrementAndGet();
+            t.notifyCaller();
+        }
+    }
+    
+    /** Lock-free pipe as used by the Display */
+    static class MPSCPipe extends Pipe {
+        final MPSCQueue<NEWTEventTask> events = new MPSCQueue<NEWTEventTask>();
+        
+        public void run() {
+            NEWTEventTask t;
+            while( null != ( t = events.poll() ) ) {
+                consume(t);
+            }
+        }
+        void enqueue(boolean wait, NEWTEvent e) {
+            final NEWTEventTask t = new NEWTEventTask(e, wait);
+            events.offer(t);
+            edt.wakeup();
+            if( wait ) {
+                try {
+                    t.waitForCompletion();
+                } catch (InterruptedException ie) {
+                    throw new RuntimeException(ie);
+                }
+            }
+        }
+    }
+    
+    /** Former pipe, list swap and monitors */
+    static class LockPipe extends Pipe {
+        final Object eventsLock = new Object();
+        ArrayList<Object[]> events = new ArrayList<Object[]>();
+        volatile boolean haveEvents = false;
+        
+        public void run() {
+            ArrayList<Object[]> _events = null;
+            if(haveEvents) {
+                synchronized(eventsLock) {
+                    if(haveEvents) {
+                        _events = events;
+                        events = new ArrayList<Object[]>();
+                        haveEvents = false;
+                    }
+                    eventsLock.notifyAll();
+                }
+                if( null != _events ) {
+                    for(int i=0; i<_events.size(); i++) {
+                        final Object[] t = _events.get(i);
+                        consumed.incrementAndGet();
+                        if( null != t[1] ) {
+                            synchronized(t[1]) {
+                                t[1].notifyAll();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        void enqueue(boolean wait, NEWTEvent e) {
+            final Object lock = new Object();
+            synchronized(lock) {
+                synchronized(eventsLock) {
+                    events.add(new Object[] { e, wait ? lock : null });
+                    haveEvents = true;
+                    eventsLock.notifyAll();
+                }
+                if( wait ) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ie) {
+                        throw new RuntimeException(ie);
+                    }
+                }
+            }
+        }
+    }
+    
+    static long run(final Pipe pipe, final boolean wait, final int count) throws InterruptedException {
+        pipe.edt = new DefaultEDTUtil(Thread.currentThread().getThreadGroup(), "TestEventQueue", pipe);
+        pipe.edt.restart();
+        try {
+            final Thread[] producers = new Thread[producerCount];
+            for(int i=0; i<producerCount; i++) {
+                producers[i] = new Thread("Producer-"+i) {
+                    public void run() {
+                        for(int j=0; j<count; j++) {
+                            pipe.enqueue(wait, event);
+                        }
+                    } };
+            }
+            final long t0 = System.nanoTime();
+            for(int i=0; i<producerCount; i++) {
+                producers[i].start();
+            }
+            for(int i=0; i<producerCount; i++) {
+                producers[i].join();
+            }
+            while( pipe.consumed.get() < producerCount * count ) {
+                Thread.sleep(0, 100000);
+            }
+            final long t1 = System.nanoTime();
+            Assert.assertEquals(producerCount * count, pipe.consumed.get());
+            return t1 - t0;
+        } finally {
+            pipe.edt.invokeStop(true, null);
+        }
+    }
+    
+    static void benchmark(boolean wait, int count) throws InterruptedException {
+        long tMPSC = Long.MAX_VALUE, tLock = Long.MAX_VALUE;
+        for(int l=0; l<loops; l++) {
+            tLock = Math.min(tLock, run(new LockPipe(), wait, count));
+            tMPSC = Math.min(tMPSC, run(new MPSCPipe(), wait, count));
+        }
+        final int n = producerCount * count;
+        System.err.println("wait "+wait+", "+producerCount+" producers, "+n+" events: former "+(tLock/1000000.0)+" ms ("+(n*1000000.0/tLock)+" events/ms), "+
+                           "lock-free "+(tMPSC/1000000.0)+" ms ("+(n*1000000.0/tMPSC)+" events/ms)");
+    }
+    
+    @Test
+    public void test01MPSCQueueOrder() {
+        final MPSCQueue<Integer> q = new MPSCQueue<Integer>();
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertNull(q.poll());
+        Assert.assertNull(q.peekLast());
+        for(int i=0; i<100; i++) {
+            q.offer(Integer.valueOf(i));
+            Assert.assertEquals(i, q.peekLast().intValue());
+        }
+        for(int i=0; i<100; i++) {
+            Assert.assertFalse(q.isEmpty());
+            Assert.assertEquals(i, q.poll().intValue());
+        }
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertNull(q.poll());
+        Assert.assertNull(q.peekLast()); // consumed
+    }
+    
+    @Test
+    public void test02NoWait() throws InterruptedException {
+        benchmark(false, eventCount);
+    }
+    
+    @Test
+    public void test03Wait() throws InterruptedException {
+        benchmark(true, waitEventCount);
+    }
+    
+    /**
+     * A listener dispatching the Display's events while being called by the dispatch of an outer call,
+     * the outer call shall not dispatch events enqueued after it started.
+     */
+    @Test
+    public void test04NestedDispatch() {
+        final TestMouseEventCoalescingNOUI.StubDisplay display = new TestMouseEventCoalescingNOUI.StubDisplay();
+        final TestMouseEventCoalescingNOUI.StubWindow w = new TestMouseEventCoalescingNOUI.StubWindow();
+        w.addMouseListener(new MouseAdapter() {
+            public void mouseMoved(MouseEvent e) {
+                if( 1 == e.getX() ) {
+                    display.enqueueEvent(false, moved(w, 3));
+                    display.dispatchMessages(); // nested: 2, 3
+                } else if( 3 == e.getX() ) {
+                    display.enqueueEvent(false, moved(w, 4));
+                }
+            } } );
+        display.enqueueEvent(false, moved(w, 1));
+        display.enqueueEvent(false, moved(w, 2));
+        display.dispatchMessages();
+        Assert.assertEquals(w.received.toString(), 3, w.received.size());
+        for(int i=0; i<3; i++) {
+            Assert.assertEquals(i+1, w.received.get(i).getX());
+        }
+        display.dispatchMessages();
+        Assert.assertEquals(w.received.toString(), 4, w.received.size());
+        Assert.assertEquals(4, w.received.get(3).getX());
+    }
+    
+    static MouseEvent moved(Object source, int x) {
+        return new MouseEvent(MouseEvent.EVENT_MOUSE_MOVED, source, x, 0, x, x, (short)0, (short)0, new float[] { 0f, 0f, 0f }, 1f);
+    }
+    
+    static int atoi(String a) {
+        try {
+            return Integer.parseInt(a);
+        } catch (Exception ex) { throw new RuntimeException(ex); }
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-loops")) {
+                i++;
+                loops = atoi(args[i]);
+            } else if(args[i].equals("-producer")) {
+                i++;
+                producerCount = atoi(args[i]);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestEventQueueContentionNOUI.class.getName());
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.newt.event;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.media.nativewindow.AbstractGraphicsDevice;
+import javax.media.nativewindow.DefaultGraphicsDevice;
+import javax.media.nativewindow.util.Insets;
+import javax.media.nativewindow.util.Point;
+
+import jogamp.newt.DisplayImpl;
+import jogamp.newt.WindowImpl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.event.InputEvent;
+import com.jogamp.newt.event.MouseAdapter;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.util.EDTUtil;
+
+/**
+ * Tests {@link MouseEvent#isCoalescable(MouseEvent)} and the history 
+ * of {@link MouseEvent#createCoalesced(MouseEvent, MouseEvent, boolean) coalesced} motion events,
+ * as well as coalescing within the {@link DisplayImpl} event queue w/ native-less display and window stubs.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestMouseEventCoalescingNOUI {
+    static final Object source = new Object();
+    static final float[] zeroRotation = new float[] { 0f, 0f, 0f };
+    
+    /** Display w/o native resources, its EDT stub is always running w/o a thread, events are dispatched by the test. */
+    static class StubDisplay extends DisplayImpl {
+        StubDisplay() {
+            refCount = 1;
+            aDevice = new DefaultGraphicsDevice("stub", "stub", 0);
+            edtUtil = (EDTUtil) Proxy.newProxyInstance(StubDisplay.class.getClassLoader(), new Class<?>[] { EDTUtil.class }, 
+                    new InvocationHandler() {
+                        public Object invoke(Object proxy, Method m, Object[] args) {
+                            final Class<?> r = m.getReturnType();
+                            if( r == Boolean.TYPE ) {
+                                return Boolean.valueOf( m.getName().equals("isRunning") );
+                            } else if( r == Long.TYPE ) {
+                                return Long.valueOf(0);
+                            }
+                            return null;
+                        } } );
+        }
+        @Override
+        protected void createNativeImpl() { }
+        @Override
+        protected void closeNativeImpl(AbstractGraphicsDevice aDevice) { }
+        @Override
+        protected void dispatchMessagesNative() { }
+    }
+    
+    /** Window w/o native resources, recording the received mouse events */
+    static class StubWindow extends WindowImpl {
+        final List<MouseEvent> received = new ArrayList<MouseEvent>();
+        
+        StubWindow() {
+            addMouseListener(new MouseAdapter() {
+                public void mouseMoved(MouseEvent e) { received.add(e); }
+                public void mouseDragged(MouseEvent e) { received.add(e); }
+                public void mousePressed(MouseEvent e) { received.add(e); }
+                public void mouseWheelMoved(MouseEvent e) { received.add(e); }
+            });
+        }
+        /** Feeds a mouse event through {@link WindowImpl}'s native event entry, consuming it right away. */
+        void sendMouseEvent(short eventType, int x, int y, float rotation) {
+            doMouseEvent(false, false, eventType, 0, x, y, (short)0, rotation);
+        }
+        @Override
+        protected void createNativeImpl() { }
+        @Override
+        protected void closeNativeImpl() { }
+        @Override
+        protected void requestFocusImpl(boolean force) { }
+        @Override
+        protected boolean reconfigureWindowImpl(int x, int y, int width, int height, int flags) { return true; }
+        @Override
+        protected Point getLocationOnScreenImpl(int x, int y) { return new Point(x, y); }
+        @Override
+        protected void updateInsetsImpl(Insets insets) { }
+    }
+    
+    static MouseEvent moved(Object src, short type, int mods, int x, int y, long when) {
+        return new MouseEvent(type, src, when, mods, x, y, (short)0, (short)0, zeroRotation, 1f);
+    }
+    
+    @Test
+    public void test01Coalescable() {
+        final MouseEvent m0 = moved(source, MouseEvent.EVENT_MOUSE_MOVED, 0, 1, 1, 1);
+        Assert.assertTrue(m0.isCoalescable(moved(source, MouseEvent.EVENT_MOUSE_MOVED, 0, 2, 2, 2)));
+        Assert.assertFalse(m0.isCoalescable(moved(source, MouseEvent.EVENT_MOUSE_DRAGGED, 0, 2, 2, 2)));
+        Assert.assertFalse(m0.isCoalescable(moved(source, MouseEvent.EVENT_MOUSE_MOVED, InputEvent.SHIFT_MASK, 2, 2, 2)));
+        Assert.assertFalse(m0.isCoalescable(moved(new Object(), MouseEvent.EVENT_MOUSE_MOVED, 0, 2, 2, 2)));
+        
+        final MouseEvent d0 = moved(source, MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 1, 1, 1);
+        Assert.assertTrue(d0.isCoalescable(moved(source, MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 2, 2, 2)));
+        
+        final MouseEvent p0 = moved(source, MouseEvent.EVENT_MOUSE_PRESSED, 0, 1, 1, 1);
+        Assert.assertFalse(p0.isCoalescable(moved(source, MouseEvent.EVENT_MOUSE_PRESSED, 0, 1, 1, 2)));
+    }
+    
+    @Test
+    public void test02CoalesceLatest() {
+        final MouseEvent m0 = moved(source, MouseEvent.EVENT_MOUSE_MOVED, 0, 1, 1, 1);
+        final MouseEvent m1 = moved(source, MouseEvent.EVENT_MOUSE_MOVED, 0, 5, 6, 7);
+        final MouseEvent c = MouseEvent.createCoalesced(m0, m1, false);
+        Assert.assertEquals(5, c.getX());
+        Assert.assertEquals(6, c.getY());
+        Assert.assertEquals(7, c.getWhen());
+        Assert.assertEquals(0, c.getHistorySize());
+    }
+    
+    @Test
+    public void test03CoalesceHistory() {
+        final int n = 1000;
+        MouseEvent c = moved(source, MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 0, 0, 100);
+        for(int i=1; i<n; i++) {
+            final MouseEvent e = moved(source, MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, i, 2*i, 100+i);
+            Assert.assertTrue(c.isCoalescable(e));
+            c = MouseEvent.createCoalesced(c, e, true);
+        }
+        Assert.assertEquals(MouseEvent.EVENT_MOUSE_DRAGGED, c.getEventType());
+        Assert.assertEquals(InputEvent.BUTTON1_MASK, c.getModifiers());
+        Assert.assertEquals(n-1, c.getX());
+        Assert.assertEquals(2*(n-1), c.getY());
+        Assert.assertEquals(100+n-1, c.getWhen());
+        Assert.assertEquals(n-1, c.getHistorySize());
+        for(int i=0; i<n-1; i++) {
+            Assert.assertEquals(i, c.getHistoricalX(i));
+            Assert.assertEquals(2*i, c.getHistoricalY(i));
+            Assert.assertEquals(100+i, c.getHistoricalWhen(i));
+        }
+        try {
+            c.getHistoricalX(n-1);
+            Assert.fail("history position out of range");
+        } catch (IndexOutOfBoundsException e) { /* OK */ }
+    }
+    
+    @Test
+    public void test04CoalesceMultiPointerHistory() {
+        final short[] ids = new short[] { 3, 7 };
+        final MouseEvent.PointerType[] types = new MouseEvent.PointerType[] { MouseEvent.PointerType.TouchScreen, MouseEvent.PointerType.TouchScreen };
+        MouseEvent c = null;
+        for(int i=0; i<10; i++) {
+            final MouseEvent e = new MouseEvent(MouseEvent.EVENT_MOUSE_MOVED, source, i, 0, 
+                                                new int[] { i, 100+i }, new int[] { 10+i, 200+i }, new float[] { 1f, 1f }, 1f, 
+                                                types, ids, (short)0, (short)0, zeroRotation, 1f);
+            if( null == c ) {
+                c = e;
+            } else {
+                Assert.assertTrue(c.isCoalescable(e));
+                c = MouseEvent.createCoalesced(c, e, true);
+            }
+        }
+        Assert.assertEquals(9, c.getHistorySize());
+        Assert.assertEquals(9, c.getX(0));
+        Assert.assertEquals(209, c.getY(1));
+        for(int i=0; i<9; i++) {
+            Assert.assertEquals(i, c.getHistoricalX(0, i));
+            Assert.assertEquals(10+i, c.getHistoricalY(0, i));
+            Assert.assertEquals(100+i, c.getHistoricalX(1, i));
+            Assert.assertEquals(200+i, c.getHistoricalY(1, i));
+        }
+    }
+    
+    @Test
+    public void test05QueueCoalescing() {
+        final StubDisplay display = new StubDisplay();
+        final StubWindow w1 = new StubWindow();
+        final StubWindow w2 = new StubWindow();
+        final StubWindow w3 = new StubWindow();
+        w1.setMouseMotionCoalescing(true, true);
+        w2.setMouseMotionCoalescing(true, false);
+        
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 1, 1, 1));
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 2, 2, 2));
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 3, 3, 3));
+        // other window's tail event is not coalesced w/ w1's events
+        display.enqueueEvent(false, moved(w2, MouseEvent.EVENT_MOUSE_MOVED, 0, 10, 10, 4));
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 4, 4, 5));
+        display.enqueueEvent(false, moved(w2, MouseEvent.EVENT_MOUSE_MOVED, 0, 11, 11, 6));
+        display.enqueueEvent(false, moved(w2, MouseEvent.EVENT_MOUSE_MOVED, 0, 12, 12, 7));
+        // w/o coalescing
+        display.enqueueEvent(false, moved(w3, MouseEvent.EVENT_MOUSE_MOVED, 0, 20, 20, 8));
+        display.enqueueEvent(false, moved(w3, MouseEvent.EVENT_MOUSE_MOVED, 0, 21, 21, 9));
+        // separated by a non motion event
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_PRESSED, 0, 5, 5, 10));
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 6, 6, 11));
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 7, 7, 12));
+        Assert.assertEquals(0, w1.received.size());
+        display.dispatchMessages();
+        
+        Assert.assertEquals(w1.received.toString(), 4, w1.received.size());
+        Assert.assertEquals(3, w1.received.get(0).getX());
+        Assert.assertEquals(2, w1.received.get(0).getHistorySize());
+        Assert.assertEquals(1, w1.received.get(0).getHistoricalX(0));
+        Assert.assertEquals(2, w1.received.get(0).getHistoricalX(1));
+        Assert.assertEquals(4, w1.received.get(1).getX());
+        Assert.assertEquals(0, w1.received.get(1).getHistorySize());
+        Assert.assertEquals(MouseEvent.EVENT_MOUSE_PRESSED, w1.received.get(2).getEventType());
+        Assert.assertEquals(7, w1.received.get(3).getX());
+        Assert.assertEquals(1, w1.received.get(3).getHistorySize());
+        
+        Assert.assertEquals(w2.received.toString(), 2, w2.received.size());
+        Assert.assertEquals(10, w2.received.get(0).getX());
+        Assert.assertEquals(12, w2.received.get(1).getX());
+        Assert.assertEquals(0, w2.received.get(1).getHistorySize());
+        
+        Assert.assertEquals(w3.received.toString(), 2, w3.received.size());
+        Assert.assertEquals(20, w3.received.get(0).getX());
+        Assert.assertEquals(21, w3.received.get(1).getX());
+        
+        // dispatched events are not coalesced anymore
+        display.enqueueEvent(false, moved(w1, MouseEvent.EVENT_MOUSE_MOVED, 0, 8, 8, 13));
+        display.dispatchMessages();
+        Assert.assertEquals(5, w1.received.size());
+        Assert.assertEquals(8, w1.received.get(4).getX());
+        Assert.assertEquals(0, w1.received.get(4).getHistorySize());
+    }
+    
+    @Test
+    public void test06RotationPerEvent() {
+        final StubWindow w = new StubWindow();
+        w.sendMouseEvent(MouseEvent.EVENT_MOUSE_MOVED, 1, 1, 0f);
+        w.sendMouseEvent(MouseEvent.EVENT_MOUSE_MOVED, 2, 2, 0f);
+        w.sendMouseEvent(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, 2, 2, 1f);
+        final List<MouseEvent> moved = new ArrayList<MouseEvent>();
+        for(int i=0; i<w.received.size(); i++) {
+            if( MouseEvent.EVENT_MOUSE_MOVED == w.received.get(i).getEventType() ) {
+                moved.add(w.received.get(i));
+            }
+        }
+        Assert.assertEquals(w.received.toString(), 2, moved.size());
+        final float[] r0 = moved.get(0).getRotation();
+        final float[] r1 = moved.get(1).getRotation();
+        Assert.assertNotSame(r0, r1);
+        r0[1] = 5f; // a listener modifying its event's rotation does not affect other events
+        Assert.assertEquals(0f, r1[1], 0f);
+        w.sendMouseEvent(MouseEvent.EVENT_MOUSE_MOVED, 3, 3, 0f);
+        Assert.assertEquals(0f, w.received.get(w.received.size()-1).getRotation()[1], 0f);
+    }
+    
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestMouseEventCoalescingNOUI.class.getName());
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.media.opengl.GL;
+
+import com.jogamp.common.nio.PointerBuffer;
+
+/**
+ * Stub {@link GL} implementation of any GL interface w/o native resources,
+ * usable as a downstream GL for composable pipeline tests w/o a GPU.
+ * <p>
+ * All methods return <code>0</code>, <code>false</code> or <code>null</code>, 
+ * except the <code>isGL*()</code> and <code>getGL*()</code> methods,
+ * which reflect the implemented interface.
+ * Invoked GL method names, optionally incl. their arguments, are appended to a call log.
+ * </p>
+ */
+public class StubGL implements InvocationHandler {
+    private final Class<?> glInterface;
+    private final List<String> callLog;
+    private final boolean logArgs;
+    private Object proxy;
+    
+    private StubGL(Class<?> glInterface, List<String> callLog, boolean logArgs) {
+        this.glInterface = glInterface;
+        this.callLog = callLog;
+        this.logArgs = logArgs;
+    }
+    
+    /**
+     * @param glInterface the GL interface to implement, e.g. <code>GLES3.class</code>
+     * @param callLog optional list receiving the name of each invoked <code>gl*</code> method
+     */
+    public static <T extends GL> T create(Class<T> glInterface, List<String> callLog) {
+        return create(glInterface, callLog, false);
+    }
+    
+    /**
+     * @param glInterface the GL interface to implement, e.g. <code>GLES3.class</code>
+     * @param callLog optional list receiving the name of each invoked <code>gl*</code> method
+     * @param logArgs if <code>true</code>, the arguments are appended to the logged name, 
+     *                incl. the remaining elements of buffers and all elements of arrays, 
+     *                e.g. <code>glUniform4fv(1, 1, [0.0, 1.0, 2.0, 3.0])</code>
+     */
+    public static <T extends GL> T create(Class<T> glInterface, List<String> callLog, boolean logArgs) {
+        final StubGL handler = new StubGL(glInterface, callLog, logArgs);
+        final T gl = glInterface.cast( Proxy.newProxyInstance(StubGL.class.getClassLoader(), new Class<?>[] { glInterface }, handler) );
+        handler.proxy = gl;
+        return gl;
+    }
+    
+    private boolean isGL(String name) {
+        try {
+            return Class.forName("javax.media.opengl."+name).isAssignableFrom(glInterface);
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String toString(String name, Object[] args) {
+        final StringBuilder sb = new StringBuilder(name);
+        sb.append('(');
+        for(int i=0; null != args && i<args.length; i++) {
+            if( 0 < i ) {
+                sb.append(", ");
+            }
+            sb.append(argToString(args[i]));
+        }
+        return sb.append(')').toString();
+    }
+    
+    private static String argToString(Object a) {
+        if( a instanceof Buffer ) {
+            final Buffer b = (Buffer) a;
+            final StringBuilder sb = new StringBuilder("[");
+            for(int i=b.position(); i<b.limit(); i++) {
+                if( i > b.position() ) {
+                    sb.append(", ");
+                }
+                if( b instanceof ByteBuffer ) {
+                    sb.append(((ByteBuffer)b).get(i));
+                } else if( b instanceof ShortBuffer ) {
+                    sb.append(((ShortBuffer)b).get(i));
+                } else if( b instanceof IntBuffer ) {
+                    sb.append(((IntBuffer)b).get(i));
+                } else if( b instanceof LongBuffer ) {
+                    sb.append(((LongBuffer)b).get(i));
+                } else if( b instanceof FloatBuffer ) {
+                    sb.append(((FloatBuffer)b).get(i));
+                } else if( b instanceof DoubleBuffer ) {
+                    sb.append(((DoubleBuffer)b).get(i));
+                }
+            }
+            return sb.append(']').toString();
+        } else if( a instanceof PointerBuffer ) {
+            final PointerBuffer b = (PointerBuffer) a;
+            final long[] v = new long[b.remaining()];
+            for(int i=0; i<v.length; i++) {
+                v[i] = b.get(b.position()+i);
+            }
+            return Arrays.toString(v);
+        } else if( a instanceof Object[] ) {
+            return Arrays.deepToString((Object[])a);
+        } else if( null != a && a.getClass().isArray() ) {
+            return Arrays.deepToString(new Object[] { a });
+        }
+        return String.valueOf(a);
+    }
+
+    @Override
+    public Object invoke(Object p, Method m, Object[] args) {
+        final String name = m.getName();
+        if( name.startsWith("gl") ) {
+            if( null != callLog ) {
+                callLog.add( logArgs ? toString(name, args) : name );
+            }
+        } else if( name.startsWith("isGL") && 0 == m.getParameterTypes().length ) {
+            return Boolean.valueOf(isGL(name.substring(2)));
+        } else if( name.startsWith("getGL") && 0 == m.getParameterTypes().length && GL.class.isAssignableFrom(m.getReturnType()) ) {
+            return proxy;
+        } else if( name.equals("toString") ) {
+            return "StubGL["+glInterface.getName()+"]";
+        } else if( name.equals("hashCode") ) {
+            return Integer.valueOf(System.identityHashCode(proxy));
+        } else if( name.equals("equals") ) {
+            return Boolean.valueOf(proxy == args[0]);
+        }
+        final Class<?> r = m.getReturnType();
+        if( r == Boolean.TYPE ) {
+            return Boolean.FALSE;
+        } else if( r == Integer.TYPE ) {
+            return Integer.valueOf(0);
+        } else if( r == Long.TYPE ) {
+            return Long.valueOf(0);
+        } else if( r == Float.TYPE ) {
+            return Float.valueOf(0);
+        } else if( r == Double.TYPE ) {
+            return Double.valueOf(0);
+        } else if( r == Short.TYPE ) {
+            return Short.valueOf((short)0);
+        } else if( r == Byte.TYPE ) {
+            return Byte.valueOf((byte)0);
+        } else if( r == Character.TYPE ) {
+            return Character.valueOf((char)0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+ 
+package com.jogamp.opengl.test.junit.util;
+
+import java.nio.IntBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLDebugListener;
+import javax.media.opengl.GLDrawable;
+import javax.media.opengl.GLException;
+
+/**
+ * Stub {@link GLContext} w/o native resources, holding a given {@link GL}, e.g. a {@link StubGL},
+ * usable to test GL utilities relying on the context, e.g. its attached objects, w/o a GPU.
+ * <p>
+ * The context is never current and no extensions are available,
+ * all state queries return their default value.
+ * </p>
+ */
+public class StubGLContext extends GLContext {
+    private GL gl;
+    
+    public StubGLContext(GL gl) {
+        this.gl = gl;
+    }
+    
+    @Override
+    public GLDrawable setGLDrawable(GLDrawable readWrite, boolean setWriteOnly) { return null; }
+    @Override
+    public GLDrawable getGLDrawable() { return null; }
+    @Override
+    public boolean isGLReadDrawableAvailable() { return false; }
+    @Override
+    public GLDrawable setGLReadDrawable(GLDrawable read) { return null; }
+    @Override
+    public GLDrawable getGLReadDrawable() { return null; }
+    @Override
+    public int makeCurrent() throws GLException { return CONTEXT_NOT_CURRENT; }
+    @Override
+    public void release() throws GLException { }
+    @Override
+    public void copy(GLContext source, int mask) throws GLException { }
+    @Override
+    public void destroy() { }
+    @Override
+    public GL getRootGL() { return gl; }
+    @Override
+    public GL getGL() { return gl; }
+    @Override
+    public GL setGL(GL gl) {
+        final GL old = this.gl;
+        this.gl = gl;
+        return old;
+    }
+    @Override
+    public boolean isFunctionAvailable(String glFunctionName) { return false; }
+    @Override
+    public boolean isExtensionAvailable(String glExtensionName) { return false; }
+    @Override
+    public int getPlatformExtensionCount() { return 0; }
+    @Override
+    public String getPlatformExtensionsString() { return ""; }
+    @Override
+    public int getGLExtensionCount() { return 0; }
+    @Override
+    public String getGLExtensionsString() { return ""; }
+    @Override
+    public int getContextCreationFlags() { return 0; }
+    @Override
+    public void setContextCreationFlags(int flags) { }
+    @Override
+    public int getDefaultVAO() { return 0; }
+    @Override
+    public int getBoundFramebuffer(int target) { return 0; }
+    @Override
+    public int getDefaultDrawFramebuffer() { return 0; }
+    @Override
+    public int getDefaultReadFramebuffer() { return 0; }
+    @Override
+    public int getDefaultReadBuffer() { return GL.GL_BACK; }
+    @Override
+    public int getDefaultPixelDataType() { return GL.GL_UNSIGNED_BYTE; }
+    @Override
+    public int getDefaultPixelDataFormat() { return GL.GL_RGBA; }
+    @Override
+    public String getGLDebugMessageExtension() { return null; }
+    @Override
+    public boolean isGLDebugSynchronous() { return false; }
+    @Override
+    public void setGLDebugSynchronous(boolean synchronous) { }
+    @Override
+    public boolean isGLDebugMessageEnabled() { return false; }
+    @Override
+    public void enableGLDebugMessage(boolean enable) throws GLException { }
+    @Override
+    public void addGLDebugListener(GLDebugListener listener) { }
+    @Override
+    public void removeGLDebugListener(GLDebugListener listener) { }
+    @Override
+    public void glDebugMessageControl(int source, int type, int severity, int count, IntBuffer ids, boolean enabled) { }
+    @Override
+    public void glDebugMessageControl(int source, int type, int severity, int count, int[] ids, int ids_offset, boolean enabled) { }
+    @Override
+    public void glDebugMessageInsert(int source, int type, int id, int severity, String buf) { }
+}